@@ -5,10 +5,12 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 
 import com.secureops.config.FileStorageConfig;
+import com.secureops.config.RateLimitProperties;
 
 @SpringBootApplication
 @EnableConfigurationProperties({
-    FileStorageConfig.class
+    FileStorageConfig.class,
+    RateLimitProperties.class
 })
 public class SecureOpsApplication {
 
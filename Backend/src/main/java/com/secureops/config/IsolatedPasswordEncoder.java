@@ -0,0 +1,151 @@
+package com.secureops.config;
+
+import com.secureops.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * PasswordEncoder that runs the (deliberately slow) hashing work on a small dedicated pool.
+ *
+ * The pool size caps how many cores BCrypt can occupy at once, so a login burst queues up here
+ * instead of starving the request threads serving chat and sales traffic. When the queue is full,
+ * or a caller has waited too long, the request fails fast with a 503 rather than piling up.
+ */
+public class IsolatedPasswordEncoder implements PasswordEncoder, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(IsolatedPasswordEncoder.class);
+    private static final Logger securityLogger = LoggerFactory.getLogger("com.secureops.security");
+
+    private static final String BUSY_MESSAGE = "Authentication service is busy, please retry shortly";
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final long waitTimeoutMs;
+    private final long retryAfterSeconds;
+
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Timer queueWaitTimer;
+    private final Counter rejectedCounter;
+    private final Counter timeoutCounter;
+
+    public IsolatedPasswordEncoder(PasswordEncoder delegate, int poolSize, int queueCapacity,
+            long waitTimeoutMs, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.waitTimeoutMs = waitTimeoutMs;
+        this.retryAfterSeconds = Math.max(1L, TimeUnit.MILLISECONDS.toSeconds(waitTimeoutMs));
+
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.prestartAllCoreThreads();
+
+        // Pool size, active threads, queue depth and completed task counts
+        new ExecutorServiceMetrics(executor, "password.hashing", Tags.empty()).bindTo(meterRegistry);
+
+        this.encodeTimer = Timer.builder("secureops.password.hash")
+                .description("Time spent computing password hashes")
+                .tag("operation", "encode")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.matchesTimer = Timer.builder("secureops.password.hash")
+                .description("Time spent computing password hashes")
+                .tag("operation", "matches")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.queueWaitTimer = Timer.builder("secureops.password.hash.queue.wait")
+                .description("Time hashing tasks spent waiting for a free worker")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("secureops.password.hash.rejected")
+                .description("Hashing requests rejected because the queue was full")
+                .register(meterRegistry);
+        this.timeoutCounter = Counter.builder("secureops.password.hash.timeout")
+                .description("Hashing requests abandoned after exceeding the wait timeout")
+                .register(meterRegistry);
+
+        logger.info("IsolatedPasswordEncoder initialized - pool size: {}, queue capacity: {}, wait timeout: {} ms",
+                poolSize, queueCapacity, waitTimeoutMs);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return execute("encode", encodeTimer, () -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return execute("matches", matchesTimer, () -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T execute(String operation, Timer timer, Callable<T> task) {
+        long submittedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                queueWaitTimer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                return timer.recordCallable(task);
+            });
+        } catch (RejectedExecutionException ex) {
+            rejectedCounter.increment();
+            securityLogger.warn("Password hashing saturated - operation: {}, queued: {}, active: {}",
+                    operation, executor.getQueue().size(), executor.getActiveCount());
+            throw new ServiceUnavailableException(BUSY_MESSAGE, retryAfterSeconds);
+        }
+
+        try {
+            return future.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            future.cancel(true);
+            timeoutCounter.increment();
+            logger.warn("Password hashing timed out after {} ms - operation: {}", waitTimeoutMs, operation);
+            throw new ServiceUnavailableException(BUSY_MESSAGE, retryAfterSeconds);
+        } catch (InterruptedException ex) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException(BUSY_MESSAGE, retryAfterSeconds);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException("Password hashing failed", cause);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        logger.info("Shutting down password hashing executor");
+        executor.shutdownNow();
+    }
+}
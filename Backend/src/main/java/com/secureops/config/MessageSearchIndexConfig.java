@@ -0,0 +1,48 @@
+package com.secureops.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Creates the full-text index behind message search.
+ *
+ * Hibernate's schema update cannot express generated columns or GIN indexes, so they are added
+ * here, idempotently, once the tables exist. content_tsv is a stored generated column: PostgreSQL
+ * recomputes it in the same statement that writes the content, which keeps the index incremental
+ * without a trigger to maintain. The 'simple' configuration (no stemming, no stop words) is used
+ * because chat content is not in one language; MessageRepository.searchMessages uses the same one.
+ */
+@Configuration
+public class MessageSearchIndexConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageSearchIndexConfig.class);
+
+    @Value("${app.search.messages.create-index:true}")
+    private boolean createIndex;
+
+    @Bean
+    public CommandLineRunner initMessageSearchIndex(JdbcTemplate jdbcTemplate) {
+        return args -> {
+            if (!createIndex) {
+                logger.info("Message search index creation disabled");
+                return;
+            }
+            try {
+                // Rewrites text_messages once when the column is first added
+                jdbcTemplate.execute("ALTER TABLE text_messages ADD COLUMN IF NOT EXISTS content_tsv tsvector " +
+                        "GENERATED ALWAYS AS (to_tsvector('simple', coalesce(content, ''))) STORED");
+                jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_text_messages_content_tsv " +
+                        "ON text_messages USING GIN (content_tsv)");
+                logger.info("Message search index ready");
+            } catch (Exception ex) {
+                // Search fails until this succeeds; the rest of the application is unaffected
+                logger.error("Could not create message search index: {}", ex.getMessage(), ex);
+            }
+        };
+    }
+}
@@ -0,0 +1,184 @@
+package com.secureops.config;
+
+import com.secureops.util.TokenBucket;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Per-client token bucket rate limiting for /api endpoints.
+ *
+ * Runs ahead of JwtAuthenticationFilter: requests carrying a valid token are limited per user,
+ * everything else per remote address. Each configured route group has its own budget.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimitFilter.class);
+    private static final Logger securityLogger = LoggerFactory.getLogger("com.secureops.security");
+
+    private static final long REJECTION_LOG_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final RateLimitProperties properties;
+    private final JwtTokenProvider tokenProvider;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final Map<String, Long> lastRejectionLog = new ConcurrentHashMap<>();
+    private final AtomicBoolean evicting = new AtomicBoolean(false);
+
+    public RateLimitFilter(RateLimitProperties properties, JwtTokenProvider tokenProvider) {
+        this.properties = properties;
+        this.tokenProvider = tokenProvider;
+        log.info("RateLimitFilter initialized with {} route groups, max keys: {}",
+                properties.getGroups().size(), properties.getMaxKeys());
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled()
+                || HttpMethod.OPTIONS.matches(request.getMethod())
+                || !getPath(request).startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        String path = getPath(request);
+        RateLimitProperties.Group group = resolveGroup(path);
+        if (group == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String clientKey = resolveClientKey(request);
+        String bucketKey = group.getName() + "|" + clientKey;
+        long now = System.nanoTime();
+
+        TokenBucket bucket = buckets.get(bucketKey);
+        if (bucket == null) {
+            evictIfNeeded(now);
+            bucket = buckets.computeIfAbsent(bucketKey, key -> new TokenBucket(
+                    group.getCapacity(), group.getRefillTokens(), group.getRefillPeriod(), now));
+        }
+
+        long cost = Math.min(resolveCost(group, path), bucket.getCapacity());
+        TokenBucket.Probe probe = bucket.tryConsume(cost, now);
+
+        long windowSeconds = Math.max(1L,
+                group.getRefillPeriod().toSeconds() * group.getCapacity() / group.getRefillTokens());
+        response.setHeader("RateLimit-Policy", group.getCapacity() + ";w=" + windowSeconds);
+        response.setHeader("RateLimit-Limit", String.valueOf(group.getCapacity()));
+        response.setHeader("RateLimit-Remaining", String.valueOf(probe.getRemainingTokens()));
+        response.setHeader("RateLimit-Reset", String.valueOf(toSecondsCeil(probe.getResetNanos())));
+
+        if (!probe.isConsumed()) {
+            long retryAfter = Math.max(1L, toSecondsCeil(probe.getRetryAfterNanos()));
+            logRejection(bucketKey, group, clientKey, request, now);
+
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"message\":\"Too many requests, retry in " + retryAfter + " seconds\"}");
+            return;
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    private RateLimitProperties.Group resolveGroup(String path) {
+        for (RateLimitProperties.Group group : properties.getGroups()) {
+            for (String pattern : group.getPatterns()) {
+                if (pathMatcher.match(pattern, path)) {
+                    return group;
+                }
+            }
+        }
+        return null;
+    }
+
+    private long resolveCost(RateLimitProperties.Group group, String path) {
+        for (Map.Entry<String, Integer> entry : group.getCosts().entrySet()) {
+            if (pathMatcher.match(entry.getKey(), path)) {
+                return Math.max(1, entry.getValue());
+            }
+        }
+        return Math.max(1, group.getCost());
+    }
+
+    private String resolveClientKey(HttpServletRequest request) {
+        String token = tokenProvider.resolveToken(request);
+        if (token != null) {
+            try {
+                return "user:" + tokenProvider.getUsernameFromToken(token);
+            } catch (Exception ex) {
+                // Invalid or expired token, fall back to the address
+                log.trace("Rate limit key falls back to IP: {}", ex.getMessage());
+            }
+        }
+        // Forwarding headers are client-controlled, so only the resolved remote address is trusted here
+        // (behind the proxy, server.forward-headers-strategy already rewrites it)
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    /**
+     * Keeps the bucket map bounded. Full buckets carry no state and are dropped first; if the map
+     * is still saturated by active clients, arbitrary entries are dropped until it is back under 90%.
+     */
+    private void evictIfNeeded(long now) {
+        if (buckets.size() < properties.getMaxKeys() || !evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            int before = buckets.size();
+            buckets.values().removeIf(bucket -> bucket.isFull(now));
+            lastRejectionLog.keySet().retainAll(buckets.keySet());
+
+            int target = (int) (properties.getMaxKeys() * 0.9);
+            Iterator<String> iterator = buckets.keySet().iterator();
+            while (buckets.size() > target && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+            log.info("Rate limit buckets evicted: {} -> {}", before, buckets.size());
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    private void logRejection(String bucketKey, RateLimitProperties.Group group, String clientKey,
+            HttpServletRequest request, long now) {
+        Long last = lastRejectionLog.get(bucketKey);
+        if (last != null && now - last < REJECTION_LOG_INTERVAL_NANOS) {
+            return;
+        }
+        lastRejectionLog.put(bucketKey, now);
+        securityLogger.warn("Rate limit exceeded - Group: {}, Client: {}, Path: {}, IP: {}",
+                group.getName(), clientKey, getPath(request), request.getRemoteAddr());
+    }
+
+    private String getPath(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    private long toSecondsCeil(long nanos) {
+        return (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+    }
+}
@@ -1,5 +1,6 @@
 package com.secureops.config;
 
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.filter.CommonsRequestLoggingFilter;
@@ -9,7 +10,13 @@ public class RequestLoggingFilterConfig {
 
     @Bean
     public CommonsRequestLoggingFilter requestLoggingFilter() {
-        CommonsRequestLoggingFilter loggingFilter = new CommonsRequestLoggingFilter();
+        CommonsRequestLoggingFilter loggingFilter = new CommonsRequestLoggingFilter() {
+            @Override
+            protected boolean shouldNotFilter(HttpServletRequest request) {
+                // Upload chunks are binary and streamed straight to disk; keep them out of the payload cache
+                return request.getRequestURI().startsWith("/api/files/uploads/") && "PUT".equals(request.getMethod());
+            }
+        };
         loggingFilter.setIncludeClientInfo(true);
         loggingFilter.setIncludeQueryString(true);
         loggingFilter.setIncludePayload(true);
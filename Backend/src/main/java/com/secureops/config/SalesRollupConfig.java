@@ -0,0 +1,59 @@
+package com.secureops.config;
+
+import com.secureops.sales.repository.SalesDailyRollupRepository;
+import com.secureops.sales.service.SalesRollupService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Backfills sales_daily_rollup the first time the application starts with an empty rollup.
+ *
+ * Writes keep the rollup current after that; POST /api/sales/reports/rollups/rebuild recomputes
+ * it on demand. Rollups written before the status column became part of the upsert key may hold
+ * NULL statuses, which Hibernate's schema update does not migrate; they are converted here first.
+ */
+@Configuration
+public class SalesRollupConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(SalesRollupConfig.class);
+
+    @Value("${app.sales.rollup.backfill-on-startup:true}")
+    private boolean backfillOnStartup;
+
+    @Bean
+    public CommandLineRunner backfillSalesRollup(SalesDailyRollupRepository rollupRepository,
+                                                 SalesRollupService salesRollupService,
+                                                 JdbcTemplate jdbcTemplate) {
+        return args -> {
+            try {
+                int converted = jdbcTemplate.update("UPDATE sales_daily_rollup SET status = '' WHERE status IS NULL");
+                // A no-op once the column is NOT NULL
+                jdbcTemplate.execute("ALTER TABLE sales_daily_rollup ALTER COLUMN status SET NOT NULL");
+                if (converted > 0) {
+                    logger.info("Sales rollup migrated - {} rows without a status", converted);
+                }
+            } catch (Exception ex) {
+                // Writes to rows without a status fail until this succeeds
+                logger.error("Could not migrate sales rollup statuses: {}", ex.getMessage(), ex);
+            }
+            if (!backfillOnStartup) {
+                logger.info("Sales rollup backfill disabled");
+                return;
+            }
+            try {
+                if (rollupRepository.count() > 0) {
+                    return;
+                }
+                salesRollupService.rebuildAll();
+            } catch (Exception ex) {
+                // Reports read zeros until the rollup is rebuilt; the rest of the application is unaffected
+                logger.error("Could not backfill sales rollup: {}", ex.getMessage(), ex);
+            }
+        };
+    }
+}
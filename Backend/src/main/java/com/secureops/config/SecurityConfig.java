@@ -1,5 +1,7 @@
 package com.secureops.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -20,9 +22,11 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
+    private final RateLimitFilter rateLimitFilter;
 
-    public SecurityConfig(JwtAuthenticationFilter jwtAuthenticationFilter) {
+    public SecurityConfig(JwtAuthenticationFilter jwtAuthenticationFilter, RateLimitFilter rateLimitFilter) {
         this.jwtAuthenticationFilter = jwtAuthenticationFilter;
+        this.rateLimitFilter = rateLimitFilter;
     }
 
     @Bean
@@ -37,6 +41,7 @@ public class SecurityConfig {
                 .requestMatchers("/api/auth/**").permitAll()
                 .requestMatchers("/api/files/view/**").permitAll()
                 .requestMatchers("/api/files/download/**").permitAll()
+                .requestMatchers("/api/files/thumbnails/**").permitAll()
                 .requestMatchers("/v3/api-docs/**", "/swagger-ui/**", "/swagger-ui.html").permitAll()
                 .requestMatchers("/api/security/logs").permitAll()
                 .requestMatchers("/ws/**").permitAll()
@@ -47,6 +52,7 @@ public class SecurityConfig {
                 .requestMatchers(HttpMethod.PUT, "/api/users/{id}/approve").hasRole("ADMIN")
                 .requestMatchers(HttpMethod.PUT, "/api/users/{id}/reject").hasRole("ADMIN")
                 .requestMatchers("/api/alerts/**").hasRole("ADMIN")
+                .requestMatchers("/actuator/metrics", "/actuator/metrics/**").hasRole("ADMIN")
 
                 // All other endpoints require authentication
                 .requestMatchers("/api/users/{id}").authenticated()
@@ -57,6 +63,9 @@ public class SecurityConfig {
         // Add JWT filter
         http.addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
 
+        // Rate limit ahead of authentication so rejected requests never reach it
+        http.addFilterBefore(rateLimitFilter, JwtAuthenticationFilter.class);
+
         return http.build();
     }
 
@@ -66,7 +75,14 @@ public class SecurityConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(
+            @Value("${app.security.password-hashing.pool-size:0}") int poolSize,
+            @Value("${app.security.password-hashing.queue-capacity:64}") int queueCapacity,
+            @Value("${app.security.password-hashing.wait-timeout-ms:5000}") long waitTimeoutMs,
+            MeterRegistry meterRegistry) {
+        // BCrypt is CPU bound, by default leave at least half of the cores to request handling
+        int threads = poolSize > 0 ? poolSize : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        return new IsolatedPasswordEncoder(new BCryptPasswordEncoder(), threads, queueCapacity, waitTimeoutMs,
+                meterRegistry);
     }
 }
\ No newline at end of file
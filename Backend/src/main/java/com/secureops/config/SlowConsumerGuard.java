@@ -0,0 +1,190 @@
+package com.secureops.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.NonNull;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps one client on a bad link from holding memory for every broadcast.
+ *
+ * For each session it counts frames accepted onto the outbound channel against frames actually
+ * written to the socket; the difference is that session's backlog (executor queue plus the send
+ * buffer Spring keeps per session). Past {@code staleThreshold} the session stops receiving
+ * ephemeral events (typing, read receipts, presence) that the next frame supersedes anyway; past
+ * {@code maxBacklog} it is disconnected and the client resyncs on reconnect. Spring's own send time
+ * and buffer size limits (WebSocketConfig) remain the hard backstop.
+ */
+@Component
+public class SlowConsumerGuard implements ChannelInterceptor, WebSocketHandlerDecoratorFactory {
+
+    private static final Logger logger = LoggerFactory.getLogger(SlowConsumerGuard.class);
+
+    private final int staleThreshold;
+    private final int maxBacklog;
+    private final Map<String, SessionState> sessions = new ConcurrentHashMap<>();
+
+    private final Counter droppedCounter;
+    private final Counter disconnectedCounter;
+
+    public SlowConsumerGuard(@Value("${app.websocket.slow-consumer.stale-threshold:50}") int staleThreshold,
+            @Value("${app.websocket.slow-consumer.max-backlog:500}") int maxBacklog,
+            MeterRegistry meterRegistry) {
+        this.staleThreshold = staleThreshold;
+        this.maxBacklog = maxBacklog;
+
+        Gauge.builder("secureops.websocket.outbound.backlog", this, SlowConsumerGuard::getMaxBacklog)
+                .description("Largest per-session outbound backlog, in frames")
+                .tag("statistic", "max")
+                .register(meterRegistry);
+        Gauge.builder("secureops.websocket.outbound.backlog", this, SlowConsumerGuard::getTotalBacklog)
+                .description("Outbound frames not yet written, summed over sessions")
+                .tag("statistic", "total")
+                .register(meterRegistry);
+        Gauge.builder("secureops.websocket.sessions.slow", this, SlowConsumerGuard::getSlowSessionCount)
+                .description("Sessions past the stale event threshold")
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("secureops.websocket.outbound.dropped")
+                .description("Ephemeral frames skipped for slow sessions")
+                .register(meterRegistry);
+        this.disconnectedCounter = Counter.builder("secureops.websocket.sessions.disconnected")
+                .description("Sessions closed for exceeding the outbound backlog budget")
+                .register(meterRegistry);
+
+        logger.info("SlowConsumerGuard initialized - stale threshold: {}, max backlog: {}", staleThreshold, maxBacklog);
+    }
+
+    @Override
+    public Message<?> preSend(@NonNull Message<?> message, @NonNull MessageChannel channel) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        SessionState state = sessionId != null ? sessions.get(sessionId) : null;
+        if (state == null) {
+            return message;
+        }
+
+        long backlog = state.getBacklog();
+        if (backlog >= maxBacklog) {
+            disconnect(state, backlog);
+            return null;
+        }
+        if (backlog >= staleThreshold && isEphemeral(SimpMessageHeaderAccessor.getDestination(message.getHeaders()))) {
+            droppedCounter.increment();
+            return null;
+        }
+        state.accepted.incrementAndGet();
+        return message;
+    }
+
+    @Override
+    @NonNull
+    public WebSocketHandler decorate(@NonNull WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(@NonNull WebSocketSession session) throws Exception {
+                SessionState state = new SessionState(session);
+                sessions.put(session.getId(), state);
+                // Everything the STOMP handler sends goes through the counting wrapper
+                super.afterConnectionEstablished(new CountingSession(session, state));
+            }
+
+            @Override
+            public void afterConnectionClosed(@NonNull WebSocketSession session, @NonNull CloseStatus closeStatus)
+                    throws Exception {
+                sessions.remove(session.getId());
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    private boolean isEphemeral(String destination) {
+        return destination != null
+                && (destination.endsWith("/typing") || destination.endsWith("/read") || destination.equals("/topic/presence"));
+    }
+
+    private void disconnect(SessionState state, long backlog) {
+        if (!state.closing.compareAndSet(false, true)) {
+            return;
+        }
+        disconnectedCounter.increment();
+        logger.warn("Closing slow WebSocket session {} - backlog: {} frames", state.session.getId(), backlog);
+        try {
+            state.session.close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (IOException ex) {
+            logger.debug("Error closing slow WebSocket session {}: {}", state.session.getId(), ex.getMessage());
+        }
+    }
+
+    private long getMaxBacklog() {
+        long max = 0;
+        for (SessionState state : sessions.values()) {
+            max = Math.max(max, state.getBacklog());
+        }
+        return max;
+    }
+
+    private long getTotalBacklog() {
+        long total = 0;
+        for (SessionState state : sessions.values()) {
+            total += state.getBacklog();
+        }
+        return total;
+    }
+
+    private long getSlowSessionCount() {
+        return sessions.values().stream().filter(state -> state.getBacklog() >= staleThreshold).count();
+    }
+
+    private static final class SessionState {
+        private final WebSocketSession session;
+        private final AtomicLong accepted = new AtomicLong();
+        private final AtomicLong written = new AtomicLong();
+        private final AtomicBoolean closing = new AtomicBoolean(false);
+
+        private SessionState(WebSocketSession session) {
+            this.session = session;
+        }
+
+        private long getBacklog() {
+            return Math.max(0, accepted.get() - written.get());
+        }
+    }
+
+    private static final class CountingSession extends WebSocketSessionDecorator {
+        private final SessionState state;
+
+        private CountingSession(WebSocketSession delegate, SessionState state) {
+            super(delegate);
+            this.state = state;
+        }
+
+        @Override
+        public void sendMessage(@NonNull WebSocketMessage<?> message) throws IOException {
+            try {
+                super.sendMessage(message);
+            } finally {
+                state.written.incrementAndGet();
+            }
+        }
+    }
+}
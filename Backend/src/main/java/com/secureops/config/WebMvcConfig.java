@@ -2,18 +2,11 @@ package com.secureops.config;
 
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
-import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
 public class WebMvcConfig implements WebMvcConfigurer {
 
-    private final FileStorageConfig fileStorageConfig;
-
-    public WebMvcConfig(FileStorageConfig fileStorageConfig) {
-        this.fileStorageConfig = fileStorageConfig;
-    }
-
     @Override
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/**")
@@ -29,9 +22,6 @@ public class WebMvcConfig implements WebMvcConfigurer {
                 .maxAge(3600);
     }
 
-    @Override
-    public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        registry.addResourceHandler("/api/files/view/**")
-                .addResourceLocations("file:" + fileStorageConfig.getFileStorageLocation().toString() + "/");
-    }
+    // /api/files/view/** is served by FileController, which resolves names through the store and
+    // refuses quarantined content; a static handler on the storage directory would bypass both
 }
\ No newline at end of file
@@ -1,9 +1,11 @@
 package com.secureops.config;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.lang.NonNull;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.stomp.StompCommand;
 import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.messaging.support.ChannelInterceptor;
@@ -14,8 +16,9 @@ import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
-import com.secureops.entity.User;
-import com.secureops.repository.UserRepository;
+import com.secureops.dto.UserPrincipal;
+import com.secureops.service.PresenceRegistry;
+import com.secureops.service.UserPrincipalCache;
 
 import java.util.Collections;
 
@@ -26,11 +29,19 @@ public class WebSocketChannelInterceptor implements ChannelInterceptor {
     private JwtTokenProvider jwtService;
     
     @Autowired
-    private UserRepository userRepository;
+    private UserPrincipalCache userPrincipalCache;
+
+    // Lazy: the registry publishes through the messaging template, which is built from this config
+    @Autowired
+    @Lazy
+    private PresenceRegistry presenceRegistry;
 
     @Override
     public Message<?> preSend(@NonNull Message<?> message, @NonNull MessageChannel channel) {
         StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+
+        // Any inbound frame, heartbeats included, keeps the session's presence alive
+        presenceRegistry.touch(SimpMessageHeaderAccessor.getSessionId(message.getHeaders()));
         
         if (accessor != null && StompCommand.CONNECT.equals(accessor.getCommand())) {
             // Try to get token from headers
@@ -61,8 +72,8 @@ public class WebSocketChannelInterceptor implements ChannelInterceptor {
                         // Get username from token
                         String email = jwtService.getUsernameFromToken(token);
                         
-                        // Find user in repository
-                        User user = userRepository.findByEmail(email)
+                        // Find user, normally served from the principal cache
+                        UserPrincipal user = userPrincipalCache.findByEmail(email)
                             .orElseThrow(() -> new RuntimeException("User not found"));
                         
                         // Since User doesn't have getAuthorities(), create authority from user role
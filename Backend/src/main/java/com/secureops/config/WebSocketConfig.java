@@ -1,20 +1,43 @@
 package com.secureops.config;
 
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     private final WebSocketChannelInterceptor channelInterceptor;
+    private final SlowConsumerGuard slowConsumerGuard;
+    private final long heartbeatMs;
+    private final TaskScheduler messageBrokerTaskScheduler;
 
-    public WebSocketConfig(WebSocketChannelInterceptor channelInterceptor) {
+    @Value("${app.websocket.send-time-limit-ms:10000}")
+    private int sendTimeLimitMs;
+
+    @Value("${app.websocket.send-buffer-size-limit:524288}")
+    private int sendBufferSizeLimit;
+
+    @Value("${app.websocket.message-size-limit:65536}")
+    private int messageSizeLimit;
+
+    public WebSocketConfig(WebSocketChannelInterceptor channelInterceptor,
+            SlowConsumerGuard slowConsumerGuard,
+            @Value("${app.websocket.heartbeat-ms:10000}") long heartbeatMs,
+            @Lazy @Qualifier("messageBrokerTaskScheduler") TaskScheduler messageBrokerTaskScheduler) {
         this.channelInterceptor = channelInterceptor;
+        this.slowConsumerGuard = slowConsumerGuard;
+        this.heartbeatMs = heartbeatMs;
+        this.messageBrokerTaskScheduler = messageBrokerTaskScheduler;
     }
 
     @Override
@@ -37,12 +60,31 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         registry.setApplicationDestinationPrefixes("/app");
 
         // Prefix for messages going from server to client
-        registry.enableSimpleBroker("/topic", "/queue");
+        // Heartbeats both ways: dead connections are closed by the broker and keep presence accurate
+        registry.enableSimpleBroker("/topic", "/queue")
+                .setHeartbeatValue(new long[] { heartbeatMs, heartbeatMs })
+                .setTaskScheduler(messageBrokerTaskScheduler);
 
         // Enable user-specific destinations (/user/...)
         registry.setUserDestinationPrefix("/user");
     }
 
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // A session whose socket cannot take a frame within the time limit, or whose pending
+        // buffer grows past the size limit, is closed by Spring rather than buffering forever
+        registration.setSendTimeLimit(sendTimeLimitMs)
+                .setSendBufferSizeLimit(sendBufferSizeLimit)
+                .setMessageSizeLimit(messageSizeLimit)
+                .addDecoratorFactory(slowConsumerGuard);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        // Per-session backlog accounting, stale event skipping and over-budget disconnects
+        registration.interceptors(slowConsumerGuard);
+    }
+
     @Override
     public void configureClientInboundChannel(ChannelRegistration registration) {
         // Add our custom interceptor for authentication
@@ -25,6 +25,7 @@ import com.secureops.dto.PasswordResetRequestDto;
 import com.secureops.dto.UserRegistrationDto;
 import com.secureops.dto.VerificationCodeDto;
 import com.secureops.exception.BadRequestException;
+import com.secureops.exception.ServiceUnavailableException;
 import com.secureops.exception.UnauthorizedException;
 import com.secureops.service.AuthService;
 import com.secureops.service.RecaptchaService;
@@ -106,6 +107,10 @@ public class AuthController {
             logger.warn("Failed login attempt for user '{}': {}", email, ex.getMessage());
             securityLogger.warn("Login error - email: {}, IP: {}, Error: {}", email, clientIp, ex.getMessage());
             return ResponseEntity.badRequest().body(Map.of("message", ex.getMessage()));
+        } catch (ServiceUnavailableException ex) {
+            // Hashing pool saturated - not a failed attempt, the client should simply retry
+            logger.warn("Login deferred for user: {} IP: {} - {}", email, clientIp, ex.getMessage());
+            throw ex;
         } catch (Exception ex) {
             System.out.println(">>> UNEXPECTED ERROR: " + ex.getMessage() + " <<<");
             recordFailedAttempt(email, clientIp);
@@ -145,6 +150,9 @@ public class AuthController {
             logger.warn("Registration validation failed for user '{}': {}", email, ex.getMessage());
             securityLogger.warn("Registration error - email: {}, IP: {}, Error: {}", email, clientIp, ex.getMessage());
             return ResponseEntity.badRequest().body(Map.of("message", ex.getMessage()));
+        } catch (ServiceUnavailableException ex) {
+            logger.warn("Registration deferred for user: {} IP: {} - {}", email, clientIp, ex.getMessage());
+            throw ex;
         } catch (Exception ex) {
             logger.error("Registration error - email: {}, IP: {}, Error: {}", email, clientIp, ex.getMessage());
             securityLogger.error("Registration error - email: {}, IP: {}, Error: {}", email, clientIp, ex.getMessage());
@@ -246,11 +254,9 @@ public class AuthController {
         if (password != null) {
             validateRequiredField(password, "Password");
         }
-        // reCAPTCHA validation disabled for local/Docker development
-        // validateRequiredField(recaptchaResponse, "reCAPTCHA verification");
 
         validateInputSecurity(email, clientIp);
-        // validateRecaptcha(recaptchaResponse, email, clientIp);
+        validateRecaptcha(recaptchaResponse, email, clientIp);
     }
 
     private void validateRequiredField(String value, String fieldName) {
@@ -260,8 +266,16 @@ public class AuthController {
     }
 
     private void validateRecaptcha(String recaptchaResponse, String email, String clientIp) {
-        // reCAPTCHA validation disabled for local/Docker development
-        logger.debug("reCAPTCHA validation skipped (disabled) for email: {}, IP: {}", email, clientIp);
+        // reCAPTCHA is off for local/Docker development (recaptcha.enabled=false)
+        if (!recaptchaService.isEnabled()) {
+            logger.debug("reCAPTCHA validation skipped (disabled) for email: {}, IP: {}", email, clientIp);
+            return;
+        }
+
+        validateRequiredField(recaptchaResponse, "reCAPTCHA verification");
+        if (!recaptchaService.validateCaptcha(recaptchaResponse)) {
+            throw new BadRequestException("reCAPTCHA verification failed");
+        }
     }
 
     private void validateVerificationCode(String verificationCode, String clientIp) {
@@ -1,6 +1,7 @@
 package com.secureops.controller;
 
 import com.secureops.dto.ChatDto;
+import com.secureops.dto.ChatSummaryDto;
 import com.secureops.entity.Chat;
 import com.secureops.entity.User;
 import com.secureops.service.ChatService;
@@ -140,6 +141,25 @@ public class ChatController {
         }
     }
 
+    @GetMapping("/summary")
+    public ResponseEntity<List<ChatSummaryDto>> getUserChatSummaries() {
+        String clientIp = getClientIp();
+        logger.debug("Get user chat summaries request from IP: {}", clientIp);
+
+        try {
+            Long currentUserId = userService.getCurrentUserId();
+            List<ChatSummaryDto> summaries = chatService.getUserChatSummaries(currentUserId);
+
+            logger.info("Successfully retrieved {} chat summaries for user - UserID: {}, IP: {}", 
+                    summaries.size(), currentUserId, clientIp);
+            return ResponseEntity.ok(summaries);
+        } catch (Exception e) {
+            logger.error("Error fetching user chat summaries from IP: {}", clientIp, e);
+            securityLogger.error("User chat summaries fetch error - IP: {}, Error: {}", clientIp, e.getMessage());
+            throw e;
+        }
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<ChatDto> getChatById(@PathVariable Long id) {
         String clientIp = getClientIp();
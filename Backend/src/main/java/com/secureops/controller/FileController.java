@@ -1,26 +1,48 @@
 package com.secureops.controller;
 
 import com.secureops.dto.FileUploadResponse;
+import com.secureops.dto.StorageUsageDto;
+import com.secureops.dto.UploadInitDto;
+import com.secureops.dto.UploadSessionDto;
+import com.secureops.entity.UploadSession;
+import com.secureops.exception.FileQuarantinedException;
+import com.secureops.exception.QuotaExceededException;
+import com.secureops.service.ChunkedUploadService;
 import com.secureops.service.FileStorageService;
+import com.secureops.service.HotFileCache;
 import com.secureops.service.LogService;
+import com.secureops.service.StorageQuotaService;
+import com.secureops.service.ThumbnailService;
+import com.secureops.service.UploadScanner;
 import com.secureops.service.UserService;
 import com.secureops.util.AppConstants;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/files")
@@ -30,19 +52,43 @@ public class FileController {
     private static final Logger securityLogger = LoggerFactory.getLogger("com.secureops.security");
 
     private final FileStorageService fileStorageService;
+    private final ChunkedUploadService chunkedUploadService;
     private final UserService userService;
     private final LogService logService;
+    private final ThumbnailService thumbnailService;
+    private final HotFileCache hotFileCache;
+    private final StorageQuotaService storageQuotaService;
+    private final UploadScanner uploadScanner;
 
     // File size limits (in bytes)
     private static final long MAX_FILE_SIZE = 50 * 1024 * 1024; // 50MB
     private static final long LARGE_FILE_THRESHOLD = 10 * 1024 * 1024; // 10MB
 
+    // Stored files never change under their name, so browsers may keep them; shared caches may not
+    private static final String DOWNLOAD_CACHE_CONTROL = "private, max-age=31536000, immutable";
+
+    // Tomcat's sendfile contract: set on the request, Tomcat streams the file after the servlet returns
+    private static final String TOMCAT_SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String TOMCAT_SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String TOMCAT_SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String TOMCAT_SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
     public FileController(FileStorageService fileStorageService,
+            ChunkedUploadService chunkedUploadService,
             UserService userService,
-            LogService logService) {
+            LogService logService,
+            ThumbnailService thumbnailService,
+            HotFileCache hotFileCache,
+            StorageQuotaService storageQuotaService,
+            UploadScanner uploadScanner) {
         this.fileStorageService = fileStorageService;
+        this.chunkedUploadService = chunkedUploadService;
         this.userService = userService;
         this.logService = logService;
+        this.thumbnailService = thumbnailService;
+        this.hotFileCache = hotFileCache;
+        this.storageQuotaService = storageQuotaService;
+        this.uploadScanner = uploadScanner;
         logger.info("FileController initialized with max file size: {}MB", MAX_FILE_SIZE / (1024 * 1024));
     }
 
@@ -126,8 +172,9 @@ public class FileController {
 
         try {
             // file deepcode ignore PT: <already fixed>
-            String fileName = fileStorageService.storeFile(file);
+            String fileName = fileStorageService.storeFile(file, currentUserId);
             logger.info("File stored successfully: {} -> {}", originalFilename, fileName);
+            uploadScanner.scheduleScan(fileName, currentUserId, clientIp);
 
             String fileDownloadUri = ServletUriComponentsBuilder.fromCurrentContextPath()
                     .path("/api/files/download/")
@@ -149,6 +196,8 @@ public class FileController {
                     file.getSize());
 
             return ResponseEntity.ok(response);
+        } catch (QuotaExceededException e) {
+            throw e; // Already logged; answered with 413
         } catch (Exception e) {
             logger.error("File upload failed for: {} - {}", originalFilename, e.getMessage(), e);
             logService.createLog(
@@ -161,12 +210,201 @@ public class FileController {
         }
     }
 
+    @GetMapping("/usage")
+    public ResponseEntity<StorageUsageDto> getStorageUsage() {
+        Long currentUserId = getCurrentUserIdSafely();
+        if (currentUserId == null) {
+            return ResponseEntity.status(401).build();
+        }
+        return ResponseEntity.ok(storageQuotaService.getUsage(currentUserId));
+    }
+
+    // Resumable chunked uploads: POST /uploads, PUT /uploads/{id}/chunks/{index}?offset=, POST /uploads/{id}/complete
+
+    @PostMapping("/uploads")
+    public ResponseEntity<UploadSessionDto> initChunkedUpload(@Valid @RequestBody UploadInitDto uploadInit) {
+        String originalFilename = uploadInit.getFileName();
+        String clientIp = getClientIpSafely(null);
+        Long currentUserId = getCurrentUserIdSafely();
+
+        logger.debug("Chunked upload init - filename: {}, size: {} bytes, contentType: {}, userId: {}, ip: {}",
+                originalFilename, uploadInit.getTotalSize(), uploadInit.getContentType(), currentUserId, clientIp);
+
+        if (currentUserId == null) {
+            securityLogger.warn("UNAUTHENTICATED_UPLOAD - IP: {}, Filename: {}", clientIp, originalFilename);
+            return ResponseEntity.status(401).build();
+        }
+
+        if (!isValidFilename(originalFilename)) {
+            logger.warn("Invalid filename upload attempt: {}", originalFilename);
+            securityLogger.warn("INVALID_FILENAME_UPLOAD - User: {}, IP: {}, Filename: {}",
+                    currentUserId, clientIp, originalFilename);
+            logService.createLog(
+                    AppConstants.LOG_ACTION_CREATE,
+                    "Invalid file upload attempted: " + originalFilename,
+                    clientIp,
+                    AppConstants.LOG_TYPE_SECURITY,
+                    currentUserId);
+            return ResponseEntity.badRequest().build();
+        }
+
+        String contentType = uploadInit.getContentType();
+        if (contentType != null && isRestrictedFileType(contentType)) {
+            logger.warn("Restricted file type upload attempt: {} with content type: {}", originalFilename, contentType);
+            securityLogger.warn("RESTRICTED_FILE_TYPE_UPLOAD - User: {}, IP: {}, Filename: {}, ContentType: {}",
+                    currentUserId, clientIp, originalFilename, contentType);
+            logService.createLog(
+                    AppConstants.LOG_ACTION_CREATE,
+                    "Restricted file type upload attempted: " + originalFilename + " (" + contentType + ")",
+                    clientIp,
+                    AppConstants.LOG_TYPE_SECURITY,
+                    currentUserId);
+            return ResponseEntity.badRequest().build();
+        }
+
+        return ResponseEntity.ok(chunkedUploadService.initUpload(uploadInit, currentUserId));
+    }
+
+    @GetMapping("/uploads/{uploadId}")
+    public ResponseEntity<UploadSessionDto> getChunkedUpload(@PathVariable String uploadId) {
+        Long currentUserId = getCurrentUserIdSafely();
+        if (currentUserId == null) {
+            return ResponseEntity.status(401).build();
+        }
+        return ResponseEntity.ok(chunkedUploadService.getUpload(uploadId, currentUserId));
+    }
+
+    @PutMapping(value = "/uploads/{uploadId}/chunks/{index}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<UploadSessionDto> uploadChunk(@PathVariable String uploadId,
+            @PathVariable int index,
+            @RequestParam long offset,
+            @RequestHeader(value = "X-Chunk-Checksum", required = false) String checksum,
+            HttpServletRequest request) throws IOException {
+        Long currentUserId = getCurrentUserIdSafely();
+        if (currentUserId == null) {
+            securityLogger.warn("UNAUTHENTICATED_UPLOAD - IP: {}, UploadId: {}", getClientIpSafely(request), uploadId);
+            return ResponseEntity.status(401).build();
+        }
+
+        // The raw request body is streamed to disk; nothing is buffered beyond the copy buffer
+        return ResponseEntity.ok(chunkedUploadService.writeChunk(uploadId, index, offset, checksum,
+                request.getInputStream(), currentUserId));
+    }
+
+    @PostMapping("/uploads/{uploadId}/complete")
+    public ResponseEntity<FileUploadResponse> completeChunkedUpload(@PathVariable String uploadId) {
+        String clientIp = getClientIpSafely(null);
+        Long currentUserId = getCurrentUserIdSafely();
+        if (currentUserId == null) {
+            securityLogger.warn("UNAUTHENTICATED_UPLOAD - IP: {}, UploadId: {}", clientIp, uploadId);
+            return ResponseEntity.status(401).build();
+        }
+
+        UploadSession upload = chunkedUploadService.completeUpload(uploadId, currentUserId);
+        String originalFilename = upload.getOriginalFileName();
+        uploadScanner.scheduleScan(upload.getStoredFileName(), currentUserId, clientIp);
+
+        if (upload.getTotalSize() > LARGE_FILE_THRESHOLD) {
+            logger.info("Large file upload detected: {} ({} bytes)", originalFilename, upload.getTotalSize());
+            logService.createLog(
+                    AppConstants.LOG_ACTION_CREATE,
+                    "Large file upload: " + originalFilename + " (" + upload.getTotalSize() + " bytes)",
+                    clientIp,
+                    AppConstants.LOG_TYPE_FILE,
+                    currentUserId);
+        }
+        logService.createLog(
+                AppConstants.LOG_ACTION_CREATE,
+                "File uploaded: " + originalFilename,
+                clientIp,
+                AppConstants.LOG_TYPE_FILE,
+                currentUserId);
+
+        String fileDownloadUri = ServletUriComponentsBuilder.fromCurrentContextPath()
+                .path("/api/files/download/")
+                .path(upload.getStoredFileName())
+                .toUriString();
+
+        return ResponseEntity.ok(new FileUploadResponse(
+                originalFilename,
+                fileDownloadUri,
+                upload.getContentType(),
+                upload.getTotalSize()));
+    }
+
+    @DeleteMapping("/uploads/{uploadId}")
+    public ResponseEntity<Void> abortChunkedUpload(@PathVariable String uploadId) {
+        Long currentUserId = getCurrentUserIdSafely();
+        if (currentUserId == null) {
+            return ResponseEntity.status(401).build();
+        }
+        chunkedUploadService.abortUpload(uploadId, currentUserId);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Serves a thumbnail of a stored image, fitted into a size x size box (rounded up to the next
+     * rendered size). Thumbnails are keyed by content and never change, so they carry a strong ETag
+     * and are cacheable for a year. One that is not rendered yet redirects to the original while it
+     * is produced in the background; files that are not images answer 404.
+     */
+    @GetMapping("/thumbnails/{fileName:.+}")
+    public ResponseEntity<byte[]> getThumbnail(@PathVariable String fileName,
+            @RequestParam(defaultValue = "64") int size) {
+        if (!isValidFilename(fileName)) {
+            logger.warn("Invalid filename thumbnail request: {}", fileName);
+            securityLogger.warn("INVALID_FILENAME_THUMBNAIL - User: {}, IP: {}, Filename: {}",
+                    getCurrentUserIdSafely(), getClientIpSafely(null), fileName);
+            return ResponseEntity.badRequest().build();
+        }
+
+        return thumbnailService.getThumbnail(fileName, size)
+                .map(thumbnail -> ResponseEntity.ok()
+                        .header(HttpHeaders.CACHE_CONTROL, DOWNLOAD_CACHE_CONTROL)
+                        .eTag(thumbnail.getETag())
+                        .contentType(MediaType.parseMediaType(thumbnail.contentType()))
+                        .body(thumbnail.data()))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.TEMPORARY_REDIRECT)
+                        // Only until the thumbnail exists
+                        .header(HttpHeaders.CACHE_CONTROL, "no-store")
+                        .location(ServletUriComponentsBuilder.fromCurrentContextPath()
+                                .path("/api/files/download/").path(fileName).build().toUri())
+                        .build());
+    }
+
+    /**
+     * Serves a stored file with conditional GET and single byte ranges.
+     *
+     * Content-addressed files get their SHA-256 as a strong ETag and never change under their name,
+     * so clients may cache them for a year and revalidate with If-None-Match. Range (with If-Range)
+     * lets players seek and interrupted downloads resume. Small hot files are written from the
+     * in-memory HotFileCache; everything else goes out through Tomcat's sendfile when the connector
+     * offers it, otherwise through FileChannel.transferTo, so it is not copied through a heap buffer
+     * by this code either way. Content the upload scanner quarantined is refused with 403.
+     */
     @GetMapping("/download/{fileName:.+}")
-    public ResponseEntity<Resource> downloadFile(@PathVariable String fileName, HttpServletRequest request) {
+    public void downloadFile(@PathVariable String fileName, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        serveFile(fileName, false, request, response);
+    }
+
+    /**
+     * The same as a download, but displayed in the browser (Content-Disposition: inline), e.g. for
+     * images and PDFs opened in a tab.
+     */
+    @GetMapping("/view/{fileName:.+}")
+    public void viewFile(@PathVariable String fileName, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        serveFile(fileName, true, request, response);
+    }
+
+    private void serveFile(String fileName, boolean inline, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
         String clientIp = getClientIpSafely(request);
         Long currentUserId = getCurrentUserIdSafely();
 
-        logger.debug("File download request - filename: {}, userId: {}, ip: {}", fileName, currentUserId, clientIp);
+        logger.debug("File download request - filename: {}, inline: {}, userId: {}, ip: {}",
+                fileName, inline, currentUserId, clientIp);
 
         if (!isValidFilename(fileName)) {
             logger.warn("Invalid filename download attempt: {}", fileName);
@@ -178,25 +416,28 @@ public class FileController {
                     clientIp,
                     AppConstants.LOG_TYPE_SECURITY,
                     currentUserId);
-            return ResponseEntity.badRequest().build();
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            return;
         }
 
-        Resource resource;
+        Path filePath;
+        String contentHash;
         try {
-            resource = fileStorageService.loadFileAsResource(fileName);
-            System.out.println("resource :" + resource);
-            if (!isResourceInAllowedDirectory(resource)) {
-                logger.warn("Path traversal attempt detected for file: {}", fileName);
-                securityLogger.warn("PATH_TRAVERSAL_ATTEMPT - User: {}, IP: {}, Filename: {}", 
-                        currentUserId, clientIp, fileName);
-                logService.createLog(
-                        AppConstants.LOG_ACTION_READ,
-                        "Path traversal attempt detected for file: " + fileName,
-                        clientIp,
-                        AppConstants.LOG_TYPE_SECURITY,
-                        currentUserId);
-                return ResponseEntity.notFound().build();
-            }
+            FileStorageService.StoredContent content = fileStorageService.resolveServableContent(fileName);
+            filePath = content.path();
+            contentHash = content.contentHash();
+        } catch (FileQuarantinedException e) {
+            logger.warn("Download of quarantined file refused: {}", fileName);
+            securityLogger.warn("QUARANTINED_FILE_DOWNLOAD - User: {}, IP: {}, Filename: {}",
+                    currentUserId, clientIp, fileName);
+            logService.createLog(
+                    AppConstants.LOG_ACTION_READ,
+                    "Download of quarantined file refused: " + fileName,
+                    clientIp,
+                    AppConstants.LOG_TYPE_SECURITY,
+                    currentUserId);
+            response.setStatus(HttpServletResponse.SC_FORBIDDEN);
+            return;
         } catch (Exception e) {
             logger.debug("File not found or access error: {} - {}", fileName, e.getMessage());
             logService.createLog(
@@ -205,36 +446,166 @@ public class FileController {
                     clientIp,
                     AppConstants.LOG_TYPE_FILE,
                     currentUserId);
-            return ResponseEntity.notFound().build();
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        // Blob paths derive from a hex hash and cannot point outside the store
+        if (contentHash == null && !isPathInAllowedDirectory(filePath)) {
+            logger.warn("Path traversal attempt detected for file: {}", fileName);
+            securityLogger.warn("PATH_TRAVERSAL_ATTEMPT - User: {}, IP: {}, Filename: {}", 
+                    currentUserId, clientIp, fileName);
+            logService.createLog(
+                    AppConstants.LOG_ACTION_READ,
+                    "Path traversal attempt detected for file: " + fileName,
+                    clientIp,
+                    AppConstants.LOG_TYPE_SECURITY,
+                    currentUserId);
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
         }
 
-        // Check file size for monitoring
+        long fileSize;
+        long lastModified;
         try {
-            long fileSize = resource.contentLength();
-            if (fileSize > LARGE_FILE_THRESHOLD) {
-                logger.info("Large file download: {} ({} bytes)", fileName, fileSize);
-                logService.createLog(
-                        AppConstants.LOG_ACTION_READ,
-                        "Large file download: " + fileName + " (" + fileSize + " bytes)",
-                        clientIp,
-                        AppConstants.LOG_TYPE_FILE,
-                        currentUserId);
-            }
+            fileSize = Files.size(filePath);
+            lastModified = Files.getLastModifiedTime(filePath).toMillis();
         } catch (IOException e) {
-            logger.debug("Could not determine file size for: {} - {}", fileName, e.getMessage());
+            logger.warn("Stored file missing on disk: {} at path: {}", fileName, filePath);
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        // Files stored before content addressing have no hash; a weak validator still allows 304s
+        String eTag = contentHash != null
+                ? "\"" + contentHash + "\""
+                : "W/\"" + Long.toHexString(fileSize) + "-" + Long.toHexString(lastModified) + "\"";
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, DOWNLOAD_CACHE_CONTROL);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (new ServletWebRequest(request, response).checkNotModified(eTag, lastModified)) {
+            logger.debug("File not modified: {}", fileName);
+            return;
+        }
+
+        String contentType = request.getServletContext().getMimeType(fileName);
+        response.setContentType(contentType != null ? contentType : "application/octet-stream");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                (inline ? "inline" : "attachment") + "; filename=\"" + fileName + "\"");
+
+        long start = 0;
+        long end = fileSize - 1;
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && fileSize > 0 && isRangeApplicable(request, eTag, lastModified)) {
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(rangeHeader);
+            } catch (IllegalArgumentException e) {
+                logger.debug("Ignoring malformed Range header for: {} - {}", fileName, e.getMessage());
+                ranges = List.of();
+            }
+            // Multipart byte ranges are not worth it here; several ranges get the whole file
+            if (ranges.size() == 1) {
+                try {
+                    start = ranges.get(0).getRangeStart(fileSize);
+                    end = ranges.get(0).getRangeEnd(fileSize);
+                } catch (IllegalArgumentException e) {
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + fileSize);
+                    response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    return;
+                }
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + fileSize);
+            }
+        }
+        long length = fileSize == 0 ? 0 : end - start + 1;
+        response.setContentLengthLong(length);
+
+        // Seeking produces many range requests; audit each download once, on its first byte
+        if (start == 0) {
+            logDownload(fileName, fileSize, clientIp, currentUserId);
         }
 
-        String contentType = null;
+        if (length > 0 && !"HEAD".equals(request.getMethod())) {
+            // Hot files come from memory. Only asked once a body is actually going out, since the
+            // lookup counts towards making a file hot: 304s and HEAD requests do not
+            ByteBuffer cached = hotFileCache.get(fileName, filePath, fileSize);
+            if (cached != null) {
+                sendBufferRegion(response, cached, start, length);
+            } else {
+                sendFileRegion(request, response, filePath, start, length);
+            }
+        }
+    }
+
+    private void sendBufferRegion(HttpServletResponse response, ByteBuffer content, long start, long length) {
         try {
-            contentType = request.getServletContext().getMimeType(resource.getFile().getAbsolutePath());
-            logger.debug("Determined content type: {} for file: {}", contentType, fileName);
-        } catch (IOException ex) {
-            logger.debug("Could not determine file type for: {} - {}", fileName, ex.getMessage());
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            ByteBuffer region = content.slice((int) start, (int) length);
+            while (region.hasRemaining()) {
+                out.write(region);
+            }
+        } catch (IOException e) {
+            // Typically the client went away mid-download (seeking, cancel)
+            logger.debug("Download from memory interrupted: {}", e.getMessage());
         }
+    }
 
-        if (contentType == null) {
-            contentType = "application/octet-stream";
-            logger.debug("Using default content type for file: {}", fileName);
+    private boolean isRangeApplicable(HttpServletRequest request, String eTag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"")) {
+            // Strong comparison: weak validators never satisfy If-Range
+            return ifRange.equals(eTag);
+        }
+        if (ifRange.startsWith("W/")) {
+            return false;
+        }
+        long ifRangeDate = request.getDateHeader(HttpHeaders.IF_RANGE);
+        return ifRangeDate != -1 && ifRangeDate / 1000 == lastModified / 1000;
+    }
+
+    private void sendFileRegion(HttpServletRequest request, HttpServletResponse response, Path filePath,
+            long start, long length) throws IOException {
+        if (Boolean.TRUE.equals(request.getAttribute(TOMCAT_SENDFILE_SUPPORT))) {
+            // Tomcat writes the region itself after we return (kernel sendfile on plain connectors)
+            request.setAttribute(TOMCAT_SENDFILE_FILENAME, filePath.toAbsolutePath().toString());
+            request.setAttribute(TOMCAT_SENDFILE_START, start);
+            request.setAttribute(TOMCAT_SENDFILE_END, start + length);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = length;
+            while (remaining > 0) {
+                long transferred = channel.transferTo(position, remaining, out);
+                if (transferred <= 0) {
+                    // File shrank underneath us; the client sees a short body against Content-Length
+                    logger.warn("Short transfer for file: {} at position: {}", filePath, position);
+                    break;
+                }
+                position += transferred;
+                remaining -= transferred;
+            }
+        } catch (IOException e) {
+            // Typically the client went away mid-download (seeking, cancel)
+            logger.debug("Download of {} interrupted: {}", filePath, e.getMessage());
+        }
+    }
+
+    private void logDownload(String fileName, long fileSize, String clientIp, Long currentUserId) {
+        if (fileSize > LARGE_FILE_THRESHOLD) {
+            logger.info("Large file download: {} ({} bytes)", fileName, fileSize);
+            logService.createLog(
+                    AppConstants.LOG_ACTION_READ,
+                    "Large file download: " + fileName + " (" + fileSize + " bytes)",
+                    clientIp,
+                    AppConstants.LOG_TYPE_FILE,
+                    currentUserId);
         }
 
         try {
@@ -261,10 +632,6 @@ public class FileController {
         }
 
         logger.info("File download successful: {}", fileName);
-        return ResponseEntity.ok()
-                .contentType(MediaType.parseMediaType(contentType))
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + resource.getFilename() + "\"")
-                .body(resource);
     }
 
     @DeleteMapping("/{fileName:.+}")
@@ -288,9 +655,9 @@ public class FileController {
         }
 
         try {
-            // Check if file exists and validate path before deletion
-            Resource resource = fileStorageService.loadFileAsResource(fileName);
-            if (!isResourceInAllowedDirectory(resource)) {
+            // Check if file exists and validate path before deletion; quarantined files can be deleted too
+            FileStorageService.StoredContent content = fileStorageService.resolveContent(fileName);
+            if (!isPathInAllowedDirectory(content.path())) {
                 logger.warn("Path traversal attempt in file deletion: {}", fileName);
                 securityLogger.warn("PATH_TRAVERSAL_DELETE - User: {}, IP: {}, Filename: {}", 
                         currentUserId, clientIp, fileName);
@@ -338,8 +705,8 @@ public class FileController {
                 !fileName.matches(".*[<>\"|?*].*");
     }
 
-    private boolean isResourceInAllowedDirectory(Resource resource) throws IOException {
-        Path resourcePath = Paths.get(resource.getFile().getCanonicalPath()).normalize();
+    private boolean isPathInAllowedDirectory(Path path) throws IOException {
+        Path resourcePath = Paths.get(path.toFile().getCanonicalPath()).normalize();
         Path storageDirectory = fileStorageService.getStorageDirectory().normalize();
         return resourcePath.startsWith(storageDirectory);
     }
@@ -371,7 +738,7 @@ public class FileController {
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
             if (authentication != null && authentication.isAuthenticated() &&
                     !authentication.getPrincipal().toString().equals("anonymousUser")) {
-                return userService.getCurrentUser().getId();
+                return userService.getCurrentUserId();
             }
         } catch (Exception e) {
             logger.debug("Could not get current user ID: {}", e.getMessage());
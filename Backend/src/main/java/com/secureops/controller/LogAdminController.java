@@ -221,7 +221,7 @@ public class LogAdminController {
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
             if (authentication != null && authentication.isAuthenticated() &&
                     !authentication.getPrincipal().toString().equals("anonymousUser")) {
-                return userService.getCurrentUser().getId();
+                return userService.getCurrentUserId();
             }
         } catch (Exception e) {
             logger.debug("Could not get current user ID: {}", e.getMessage());
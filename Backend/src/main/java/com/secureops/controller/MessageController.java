@@ -1,22 +1,33 @@
 package com.secureops.controller;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
 import com.secureops.dto.FileMessageDto;
 import com.secureops.dto.MessageDto;
+import com.secureops.dto.MessageHistoryDto;
+import com.secureops.dto.MessageSearchResultDto;
+import com.secureops.dto.MessageSyncDto;
+import com.secureops.dto.ReadReceiptDto;
 import com.secureops.dto.TextMessageDto;
 import com.secureops.dto.UserDto;
 import com.secureops.entity.FileMessage;
@@ -29,6 +40,7 @@ import com.secureops.service.LogService;
 import com.secureops.service.MessageService;
 import com.secureops.service.UserService;
 import com.secureops.util.AppConstants;
+import com.secureops.util.MessageCursor;
 
 import jakarta.servlet.http.HttpServletRequest;
 
@@ -37,6 +49,10 @@ import jakarta.servlet.http.HttpServletRequest;
 public class MessageController {
 
     private static final Logger logger = LoggerFactory.getLogger(MessageController.class);
+
+    private static final int MAX_HISTORY_LIMIT = 100;
+    private static final int MAX_SYNC_CHATS = 500;
+    private static final int MAX_SEARCH_PAGE_SIZE = 50;
     
     // For security-specific logging, create a separate logger
     private static final Logger securityLogger = LoggerFactory.getLogger("com.secureops.security");
@@ -168,6 +184,118 @@ public class MessageController {
         }
     }
 
+    @GetMapping("/chat/{chatId}/history")
+    public ResponseEntity<MessageHistoryDto> getChatMessageHistory(@PathVariable Long chatId,
+            @RequestParam(required = false) String before,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "50") int limit) {
+        String clientIp = getClientIpSafely();
+        Long currentUserId = getCurrentUserIdSafely();
+
+        logger.debug("Chat message history request - userId: {}, chatId: {}, before: {}, after: {}, limit: {}, ip: {}",
+                currentUserId, chatId, before, after, limit, clientIp);
+
+        if (chatId == null || chatId <= 0) {
+            logger.warn("Invalid chatId parameter: {} - userId: {}, ip: {}", chatId, currentUserId, clientIp);
+            return ResponseEntity.badRequest().build();
+        }
+        if (currentUserId == null) {
+            securityLogger.warn("UNAUTHENTICATED_MESSAGE_ACCESS - IP: {}, ChatId: {}", clientIp, chatId);
+            return ResponseEntity.status(401).build();
+        }
+
+        int pageSize = Math.max(1, Math.min(limit, MAX_HISTORY_LIMIT));
+        Slice<Message> slice = messageService.getChatMessageHistory(chatId,
+                MessageCursor.parse(before), MessageCursor.parse(after), pageSize);
+
+        List<Message> messages = slice.getContent();
+        List<MessageDto> messageDtos = messages.stream()
+                .map(this::convertToDto)
+                .collect(Collectors.toList());
+
+        MessageHistoryDto response = new MessageHistoryDto(
+                messageDtos,
+                slice.hasNext(),
+                messages.isEmpty() ? null : MessageCursor.of(messages.get(0)).encode(),
+                messages.isEmpty() ? null : MessageCursor.of(messages.get(messages.size() - 1)).encode());
+
+        logger.info("Retrieved {} history messages for chat {} by user {}", messageDtos.size(), chatId, currentUserId);
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/sync")
+    public ResponseEntity<MessageSyncDto> syncMessages(@RequestBody Map<Long, Long> lastSeenByChat,
+            @RequestParam(defaultValue = "50") int limit) {
+        String clientIp = getClientIpSafely();
+        Long currentUserId = getCurrentUserIdSafely();
+
+        if (currentUserId == null) {
+            securityLogger.warn("UNAUTHENTICATED_MESSAGE_ACCESS - IP: {}, Action: sync", clientIp);
+            return ResponseEntity.status(401).build();
+        }
+        if (lastSeenByChat == null || lastSeenByChat.size() > MAX_SYNC_CHATS) {
+            logger.warn("Invalid sync request - userId: {}, chats: {}, ip: {}", currentUserId,
+                    lastSeenByChat == null ? null : lastSeenByChat.size(), clientIp);
+            return ResponseEntity.badRequest().build();
+        }
+
+        int perChatLimit = Math.max(1, Math.min(limit, MAX_HISTORY_LIMIT));
+        Map<Long, Slice<Message>> newer = messageService.getMessagesSince(lastSeenByChat, perChatLimit);
+
+        Map<Long, MessageSyncDto.ChatSync> chats = new LinkedHashMap<>();
+        newer.forEach((chatId, slice) -> chats.put(chatId, new MessageSyncDto.ChatSync(
+                slice.getContent().stream().map(this::convertToDto).collect(Collectors.toList()),
+                slice.hasNext())));
+
+        return ResponseEntity.ok(new MessageSyncDto(chats));
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<MessageSearchResultDto> searchMessages(@RequestParam("q") String query,
+            @RequestParam(required = false) Long chatId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        String clientIp = getClientIpSafely();
+        Long currentUserId = getCurrentUserIdSafely();
+
+        logger.debug("Message search request - userId: {}, chatId: {}, page: {}, size: {}, ip: {}",
+                currentUserId, chatId, page, size, clientIp);
+
+        if (currentUserId == null) {
+            securityLogger.warn("UNAUTHENTICATED_MESSAGE_ACCESS - IP: {}, Action: search", clientIp);
+            return ResponseEntity.status(401).build();
+        }
+        if (chatId != null && chatId <= 0) {
+            logger.warn("Invalid chatId parameter: {} - userId: {}, ip: {}", chatId, currentUserId, clientIp);
+            return ResponseEntity.badRequest().build();
+        }
+
+        int pageSize = Math.max(1, Math.min(size, MAX_SEARCH_PAGE_SIZE));
+        return ResponseEntity.ok(messageService.searchMessages(query, chatId, Math.max(0, page), pageSize));
+    }
+
+    @PutMapping("/chat/{chatId}/read")
+    public ResponseEntity<ReadReceiptDto> markChatAsRead(@PathVariable Long chatId,
+            @RequestParam Long upTo) {
+        String clientIp = getClientIpSafely();
+        Long currentUserId = getCurrentUserIdSafely();
+
+        logger.debug("Mark chat as read request - userId: {}, chatId: {}, upTo: {}, ip: {}",
+                currentUserId, chatId, upTo, clientIp);
+
+        if (chatId == null || chatId <= 0) {
+            logger.warn("Invalid chatId parameter: {} - userId: {}, ip: {}", chatId, currentUserId, clientIp);
+            return ResponseEntity.badRequest().build();
+        }
+        if (currentUserId == null) {
+            securityLogger.warn("UNAUTHENTICATED_READ_RECEIPT - IP: {}, ChatId: {}", clientIp, chatId);
+            return ResponseEntity.status(401).build();
+        }
+
+        ReadReceiptDto receipt = messageService.markChatReadUpTo(chatId, upTo, currentUserId);
+        return ResponseEntity.ok(receipt);
+    }
+
     // Helper method to convert Message entity to DTO
     private MessageDto convertToDto(Message message) {
         try {
@@ -280,7 +408,7 @@ public class MessageController {
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
             if (authentication != null && authentication.isAuthenticated() &&
                     !authentication.getPrincipal().toString().equals("anonymousUser")) {
-                return userService.getCurrentUser().getId();
+                return userService.getCurrentUserId();
             }
         } catch (Exception e) {
             logger.debug("Could not get current user ID: {}", e.getMessage());
@@ -0,0 +1,97 @@
+package com.secureops.controller;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.secureops.dto.StorageSweepReport;
+import com.secureops.dto.StorageUsageDto;
+import com.secureops.service.LogService;
+import com.secureops.service.StorageQuotaService;
+import com.secureops.service.StorageSweeper;
+import com.secureops.service.UserService;
+import com.secureops.util.AppConstants;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/storage")
+@PreAuthorize("hasRole('ADMIN')")
+public class StorageAdminController {
+
+    private static final Logger logger = LoggerFactory.getLogger(StorageAdminController.class);
+
+    private static final int MAX_TOP_CONSUMERS = 100;
+
+    private final StorageSweeper storageSweeper;
+    private final StorageQuotaService storageQuotaService;
+    private final LogService logService;
+    private final UserService userService;
+
+    public StorageAdminController(StorageSweeper storageSweeper, StorageQuotaService storageQuotaService,
+            LogService logService, UserService userService) {
+        this.storageSweeper = storageSweeper;
+        this.storageQuotaService = storageQuotaService;
+        this.logService = logService;
+        this.userService = userService;
+        logger.info("StorageAdminController initialized");
+    }
+
+    /**
+     * Report of the last storage sweep (orphans found, quarantined, purged, missing blobs), or of the
+     * one still running. 204 before the first sweep.
+     */
+    @GetMapping("/sweeps/latest")
+    public ResponseEntity<StorageSweepReport> getLatestSweep() {
+        StorageSweepReport report = storageSweeper.getLatestReport();
+        if (report == null) {
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.ok(report);
+    }
+
+    @PostMapping("/sweeps")
+    public ResponseEntity<StorageSweepReport> startSweep(HttpServletRequest request) {
+        Long currentUserId = userService.getCurrentUserId();
+        String clientIp = getClientIp(request);
+
+        if (!storageSweeper.startSweep()) {
+            logger.info("Storage sweep requested while one is running - userId: {}, ip: {}", currentUserId, clientIp);
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(storageSweeper.getLatestReport());
+        }
+
+        logger.info("Storage sweep started by admin - userId: {}, ip: {}", currentUserId, clientIp);
+        logService.createLog(
+                AppConstants.LOG_ACTION_DELETE,
+                "Admin started a storage sweep",
+                clientIp,
+                AppConstants.LOG_TYPE_ADMIN,
+                currentUserId);
+        return ResponseEntity.accepted().body(storageSweeper.getLatestReport());
+    }
+
+    /**
+     * Users storing the most, from the persisted totals (exact as of the last reconciliation).
+     */
+    @GetMapping("/usage/top")
+    public ResponseEntity<List<StorageUsageDto>> getTopConsumers(@RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(storageQuotaService.getTopConsumers(Math.max(1, Math.min(limit, MAX_TOP_CONSUMERS))));
+    }
+
+    private String getClientIp(HttpServletRequest request) {
+        String forwarded = request.getHeader("X-Forwarded-For");
+        if (forwarded != null && !forwarded.isEmpty() && !"unknown".equalsIgnoreCase(forwarded)) {
+            return forwarded.split(",")[0].trim();
+        }
+        return request.getRemoteAddr();
+    }
+}
@@ -25,10 +25,13 @@ import org.springframework.web.context.request.ServletRequestAttributes;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.secureops.dto.PasswordChangeDto;
+import com.secureops.dto.PresenceSnapshotDto;
 import com.secureops.dto.UserDto;
 import com.secureops.dto.UserProfileUpdateDto;
 import com.secureops.entity.User;
+import com.secureops.exception.ServiceUnavailableException;
 import com.secureops.service.LogService;
+import com.secureops.service.PresenceRegistry;
 import com.secureops.service.UserService;
 import com.secureops.util.AppConstants;
 
@@ -45,14 +48,16 @@ public class UserController {
 
     private final UserService userService;
     private final LogService logService;
+    private final PresenceRegistry presenceRegistry;
 
     private static final List<String> ALLOWED_AVATAR_TYPES = Arrays.asList(
             "image/jpeg", "image/png", "image/gif");
     private static final long MAX_AVATAR_SIZE = 2 * 1024 * 1024;
 
-    public UserController(UserService userService, LogService logService) {
+    public UserController(UserService userService, LogService logService, PresenceRegistry presenceRegistry) {
         this.userService = userService;
         this.logService = logService;
+        this.presenceRegistry = presenceRegistry;
         logger.info("UserController initialized");
     }
 
@@ -108,6 +113,12 @@ public class UserController {
         }
     }
 
+    @GetMapping("/online")
+    public ResponseEntity<PresenceSnapshotDto> getOnlineUsers() {
+        // Deltas follow on /topic/presence; no audit log for a call clients make on every reconnect
+        return ResponseEntity.ok(presenceRegistry.snapshot());
+    }
+
     @GetMapping("/pending")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<List<UserDto>> getPendingApprovals() {
@@ -421,6 +432,9 @@ public class UserController {
                         Map.of("message", "Current password is incorrect"));
             }
             
+        } catch (ServiceUnavailableException e) {
+            logger.warn("Password change deferred - userId: {}, ip: {} - {}", currentUserId, clientIp, e.getMessage());
+            throw e;
         } catch (Exception e) {
             logger.error("Error changing password - userId: {}, username: {}, ip: {}", 
                     currentUserId, currentUsername, clientIp, e);
@@ -637,6 +651,10 @@ public class UserController {
                         .body(Map.of("message", "Failed to reset password"));
             }
             
+        } catch (ServiceUnavailableException e) {
+            logger.warn("Admin password reset deferred - adminUserId: {}, targetUserId: {}, ip: {} - {}",
+                    currentUserId, id, clientIp, e.getMessage());
+            throw e;
         } catch (Exception e) {
             logger.error("Error in admin password reset - adminUserId: {}, adminUsername: {}, targetUserId: {}, ip: {}", 
                     currentUserId, currentUsername, id, clientIp, e);
@@ -985,7 +1003,7 @@ public class UserController {
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
             if (authentication != null && authentication.isAuthenticated() &&
                     !authentication.getPrincipal().toString().equals("anonymousUser")) {
-                return userService.getCurrentUser().getId();
+                return userService.getCurrentUserId();
             }
         } catch (Exception e) {
             logger.debug("Could not get current user ID: {}", e.getMessage());
@@ -2,12 +2,18 @@ package com.secureops.controller;
 
 import com.secureops.dto.MessageDto;
 import com.secureops.dto.TextMessageDto;
+import com.secureops.dto.TypingStatusDto;
 import com.secureops.dto.FileMessageDto;
-import com.secureops.entity.User;
-import com.secureops.repository.UserRepository;
+import com.secureops.dto.ReadReceiptDto;
+import com.secureops.dto.UserPrincipal;
+import com.secureops.service.ChatMembershipCache;
 import com.secureops.service.LogService;
 import com.secureops.service.MessageService;
+import com.secureops.service.TypingAggregator;
+import com.secureops.service.UserPrincipalCache;
 import com.secureops.util.AppConstants;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
@@ -16,6 +22,8 @@ import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Controller;
 
+import java.util.Map;
+
 @Controller
 public class WebSocketController {
 
@@ -24,14 +32,33 @@ public class WebSocketController {
     // For security-specific logging, create a separate logger
     private static final Logger securityLogger = LoggerFactory.getLogger("com.secureops.security");
 
-    private final UserRepository userRepository;
+    private final UserPrincipalCache userPrincipalCache;
     private final MessageService messageService;
     private final LogService logService;
+    private final ChatMembershipCache chatMembershipCache;
+    private final TypingAggregator typingAggregator;
+    private final Timer textSendTimer;
+    private final Timer fileSendTimer;
 
-    public WebSocketController(UserRepository userRepository, MessageService messageService, LogService logService) {
-        this.userRepository = userRepository;
+    public WebSocketController(UserPrincipalCache userPrincipalCache, MessageService messageService, LogService logService,
+                               ChatMembershipCache chatMembershipCache, TypingAggregator typingAggregator,
+                               MeterRegistry meterRegistry) {
+        this.userPrincipalCache = userPrincipalCache;
         this.messageService = messageService;
         this.logService = logService;
+        this.chatMembershipCache = chatMembershipCache;
+        this.typingAggregator = typingAggregator;
+        // Send-to-ack: from the inbound frame reaching the service until the message is committed
+        this.textSendTimer = Timer.builder("secureops.chat.message.send")
+                .description("Time to validate and commit an inbound chat message")
+                .tag("type", "TEXT")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.fileSendTimer = Timer.builder("secureops.chat.message.send")
+                .description("Time to validate and commit an inbound chat message")
+                .tag("type", "FILE")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
         logger.info("WebSocketController initialized");
     }
 
@@ -61,7 +88,7 @@ public class WebSocketController {
                     email, chatId, messageDto.getMessageType());
             
             // Find user in database
-            User user = findUserByEmail(email, chatId, clientIp, sessionId);
+            UserPrincipal user = findUserByEmail(email, chatId, clientIp, sessionId);
             if (user == null) {
                 return;
             }
@@ -95,6 +122,76 @@ public class WebSocketController {
         }
     }
 
+    // High-frequency and ephemeral: no audit log, and nothing is sent back until the next typing flush
+    @MessageMapping("/chat/{chatId}/typing")
+    public void updateTypingStatus(@DestinationVariable Long chatId,
+                                   @Payload TypingStatusDto typingStatus,
+                                   SimpMessageHeaderAccessor headerAccessor) {
+        if (chatId == null || typingStatus == null || headerAccessor.getUser() == null) {
+            return;
+        }
+        Long userId = userPrincipalCache.findUserId(headerAccessor.getUser().getName()).orElse(null);
+        if (userId == null || !chatMembershipCache.isParticipant(chatId, userId)) {
+            logger.debug("Ignoring typing update for chat {} from non-participant - sessionId: {}",
+                    chatId, getSessionIdFromWebSocket(headerAccessor));
+            return;
+        }
+        typingAggregator.update(chatId, userId, typingStatus.isTyping());
+    }
+
+    @MessageMapping("/chat/{chatId}/read")
+    public void markChatAsRead(@DestinationVariable Long chatId,
+                               @Payload ReadReceiptDto receipt,
+                               SimpMessageHeaderAccessor headerAccessor) {
+        String clientIp = getClientIpFromWebSocket(headerAccessor);
+        String sessionId = getSessionIdFromWebSocket(headerAccessor);
+
+        if (chatId == null || chatId <= 0 || receipt == null || receipt.getLastReadMessageId() == null) {
+            logger.warn("Invalid read receipt - chatId: {}, sessionId: {}, ip: {}", chatId, sessionId, clientIp);
+            return;
+        }
+        markReadUpTo(chatId, receipt.getLastReadMessageId(), headerAccessor, clientIp, sessionId);
+    }
+
+    // Single-message form still sent by older clients; treated as a watermark at that message
+    @MessageMapping("/chat/markAsRead")
+    public void markMessageAsRead(@Payload Map<String, Long> payload, SimpMessageHeaderAccessor headerAccessor) {
+        String clientIp = getClientIpFromWebSocket(headerAccessor);
+        String sessionId = getSessionIdFromWebSocket(headerAccessor);
+
+        Long messageId = payload == null ? null : payload.get("messageId");
+        if (messageId == null || messageId <= 0) {
+            logger.warn("Invalid markAsRead payload - sessionId: {}, ip: {}", sessionId, clientIp);
+            return;
+        }
+        Long chatId = messageService.getChatIdForMessage(messageId);
+        if (chatId == null) {
+            logger.debug("markAsRead for unknown message {} - sessionId: {}", messageId, sessionId);
+            return;
+        }
+        markReadUpTo(chatId, messageId, headerAccessor, clientIp, sessionId);
+    }
+
+    private void markReadUpTo(Long chatId, Long upToMessageId, SimpMessageHeaderAccessor headerAccessor,
+                              String clientIp, String sessionId) {
+        String email = getUserEmailFromWebSocket(headerAccessor, chatId, clientIp, sessionId);
+        if (email == null) {
+            return;
+        }
+        UserPrincipal user = findUserByEmail(email, chatId, clientIp, sessionId);
+        if (user == null) {
+            return;
+        }
+
+        try {
+            messageService.markChatReadUpTo(chatId, upToMessageId, user.getId());
+        } catch (Exception e) {
+            // Read receipts are best effort; the next one carries a higher watermark anyway
+            logger.warn("Failed to mark chat {} as read up to {} - userId: {}, sessionId: {}: {}",
+                    chatId, upToMessageId, user.getId(), sessionId, e.getMessage());
+        }
+    }
+
     private boolean validateWebSocketInput(Long chatId, MessageDto messageDto, String clientIp, String sessionId) {
         // Validate chatId
         if (chatId == null || chatId <= 0) {
@@ -222,9 +319,9 @@ public class WebSocketController {
         return email;
     }
 
-    private User findUserByEmail(String email, Long chatId, String clientIp, String sessionId) {
+    private UserPrincipal findUserByEmail(String email, Long chatId, String clientIp, String sessionId) {
         try {
-            User user = userRepository.findByEmail(email)
+            UserPrincipal user = userPrincipalCache.findByEmail(email)
                     .orElseThrow(() -> new RuntimeException("User not found for email: " + email));
             
             logger.debug("Found user for WebSocket message - userId: {}, email: {}, chatId: {}", 
@@ -249,7 +346,7 @@ public class WebSocketController {
         }
     }
 
-    private void processMessageByType(MessageDto messageDto, Long chatId, User user, String clientIp, String sessionId) {
+    private void processMessageByType(MessageDto messageDto, Long chatId, UserPrincipal user, String clientIp, String sessionId) {
         String messageType = messageDto.getMessageType();
         
         try {
@@ -291,7 +388,7 @@ public class WebSocketController {
         }
     }
 
-    private void processTextMessage(MessageDto messageDto, Long chatId, User user, String clientIp, String sessionId) {
+    private void processTextMessage(MessageDto messageDto, Long chatId, UserPrincipal user, String clientIp, String sessionId) {
         if (!(messageDto instanceof TextMessageDto)) {
             logger.error("Invalid DTO type for TEXT message - expected TextMessageDto, got: {} - chatId: {}, userId: {}, sessionId: {}", 
                     messageDto.getClass().getName(), chatId, user.getId(), sessionId);
@@ -330,7 +427,8 @@ public class WebSocketController {
         logger.debug("Processing TEXT message - chatId: {}, userId: {}, contentLength: {}", 
                 chatId, user.getId(), textMessageDto.getContent().length());
         
-        messageService.sendTextMessage(textMessageDto, chatId, user.getId());
+        textSendTimer.record(() -> messageService.sendTextMessage(textMessageDto, chatId, user.getId()));
+        typingAggregator.clear(chatId, user.getId());
         
         logger.info("TEXT message sent successfully - chatId: {}, userId: {}, sessionId: {}", 
                 chatId, user.getId(), sessionId);
@@ -343,7 +441,7 @@ public class WebSocketController {
                 user.getId());
     }
 
-    private void processFileMessage(MessageDto messageDto, Long chatId, User user, String clientIp, String sessionId) {
+    private void processFileMessage(MessageDto messageDto, Long chatId, UserPrincipal user, String clientIp, String sessionId) {
         if (!(messageDto instanceof FileMessageDto)) {
             logger.error("Invalid DTO type for FILE message - expected FileMessageDto, got: {} - chatId: {}, userId: {}, sessionId: {}", 
                     messageDto.getClass().getName(), chatId, user.getId(), sessionId);
@@ -403,7 +501,8 @@ public class WebSocketController {
                 user.getEmail(), user.getId(), clientIp, chatId, fileMessageDto.getFileName(), 
                 fileMessageDto.getFileSize(), sessionId);
         
-        messageService.sendFileMessage(fileMessageDto, chatId, user.getId());
+        fileSendTimer.record(() -> messageService.sendFileMessage(fileMessageDto, chatId, user.getId()));
+        typingAggregator.clear(chatId, user.getId());
         
         logger.info("FILE message sent successfully - chatId: {}, userId: {}, fileName: {}, sessionId: {}", 
                 chatId, user.getId(), fileMessageDto.getFileName(), sessionId);
@@ -482,9 +581,7 @@ public class WebSocketController {
             if (headerAccessor.getUser() != null) {
                 String email = headerAccessor.getUser().getName();
                 if (email != null && !email.trim().isEmpty()) {
-                    return userRepository.findByEmail(email)
-                            .map(User::getId)
-                            .orElse(null);
+                    return userPrincipalCache.findUserId(email).orElse(null);
                 }
             }
         } catch (Exception e) {
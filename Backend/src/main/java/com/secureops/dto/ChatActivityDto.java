@@ -0,0 +1,24 @@
+package com.secureops.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * New message in one of the user's chats, sent to each participant's /user/queue/chat-activity so
+ * the chat list updates for chats whose topic the client is not subscribed to.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatActivityDto {
+    private Long chatId;
+    private Long messageId;
+    private Long senderId;
+    private String messageType;
+    // Start of the text, or the file name
+    private String preview;
+    private Date timestamp;
+}
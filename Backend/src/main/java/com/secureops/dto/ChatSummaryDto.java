@@ -0,0 +1,43 @@
+package com.secureops.dto;
+
+import com.secureops.entity.Chat.ChatStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * One sidebar row: the chat, who is in it, its latest message and the caller's unread count.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatSummaryDto {
+    private Long id;
+    private String title;
+    private ChatStatus status;
+    private List<Participant> participants;
+
+    // Null when the chat has no messages yet
+    private Long lastMessageId;
+    private Date lastMessageAt;
+    private Long lastMessageSenderId;
+    private String lastMessageType;
+    // Start of the text for TEXT messages, the file name for FILE messages
+    private String lastMessagePreview;
+
+    private Long lastReadMessageId;
+    private long unreadCount;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Participant {
+        private Long id;
+        private String fullName;
+        private String avatarUrl;
+        private String avatarThumbnailUrl;
+    }
+}
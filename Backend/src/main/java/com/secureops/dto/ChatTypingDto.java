@@ -0,0 +1,19 @@
+package com.secureops.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Everyone currently typing in a chat. Each frame replaces the previous one; an empty list means
+ * nobody is typing.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatTypingDto {
+    private Long chatId;
+    private List<Long> userIds;
+}
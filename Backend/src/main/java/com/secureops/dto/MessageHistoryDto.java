@@ -0,0 +1,21 @@
+package com.secureops.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MessageHistoryDto {
+    // Chronological order, oldest first
+    private List<MessageDto> messages;
+    // More messages exist beyond this page in the requested direction
+    private boolean hasMore;
+    // Pass as 'before' to scroll back, null when the page is empty
+    private String olderCursor;
+    // Pass as 'after' to catch up, null when the page is empty
+    private String newerCursor;
+}
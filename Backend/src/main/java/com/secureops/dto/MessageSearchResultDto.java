@@ -0,0 +1,42 @@
+package com.secureops.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MessageSearchResultDto {
+    private List<Hit> results;
+    private int page;
+    private int size;
+    private boolean hasMore;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Hit {
+        private Long messageId;
+        private Long chatId;
+        private String chatTitle;
+        private Long senderId;
+        private String senderName;
+        private Date timestamp;
+        private double rank;
+        // Plain text excerpt; highlights are [start, end) character offsets into it
+        private String snippet;
+        private List<Highlight> highlights;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Highlight {
+        private int start;
+        private int end;
+    }
+}
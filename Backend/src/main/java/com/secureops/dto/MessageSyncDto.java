@@ -0,0 +1,26 @@
+package com.secureops.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MessageSyncDto {
+    // Keyed by chat id; chats the caller is not in are left out
+    private Map<Long, ChatSync> chats;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ChatSync {
+        // Oldest first, only messages newer than the last seen id
+        private List<MessageDto> messages;
+        // Too many messages were missed; reload the latest page from /history instead
+        private boolean reload;
+    }
+}
@@ -0,0 +1,18 @@
+package com.secureops.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A user came online (first session) or went offline (last session closed or expired).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresenceDto {
+    private Long userId;
+    private boolean online;
+    // Increases with every change; clients ignore a delta older than the one they already applied
+    private long sequence;
+}
@@ -0,0 +1,16 @@
+package com.secureops.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresenceSnapshotDto {
+    private List<Long> onlineUserIds;
+    // Deltas from /topic/presence with a sequence up to this one are already reflected here
+    private long sequence;
+}
@@ -0,0 +1,20 @@
+package com.secureops.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReadReceiptDto {
+    private Long chatId;
+    private Long userId;
+    // Everything up to and including this message id has been read by userId
+    private Long lastReadMessageId;
+    private Date readAt;
+    // Only filled in the reply to the reader, never broadcast
+    private Long unreadCount;
+}
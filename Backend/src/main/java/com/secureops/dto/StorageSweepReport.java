@@ -0,0 +1,59 @@
+package com.secureops.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of one storage sweep: what was scanned, which files nothing references any more and
+ * what happened to them, and references whose file is missing.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StorageSweepReport {
+
+    public enum Status { RUNNING, COMPLETED, FAILED }
+
+    private Status status;
+    private boolean dryRun;
+    private Date startedAt;
+    private Date finishedAt;
+
+    private long referencesLoaded;
+    private long referenceFilterBytes;
+    private long entriesScanned;
+
+    // Per area of the upload directory (files, blobs, partial, temp, thumbnails)
+    private Map<String, Area> areas = new LinkedHashMap<>();
+
+    // Files taken back out of quarantine because something references them again
+    private long restored;
+    // Quarantined files removed for good after the retention period
+    private long purged;
+    private long purgedBytes;
+
+    // Content rows whose blob file is gone; downloads of these fail
+    private long missingBlobs;
+    private List<String> missingBlobSamples = new ArrayList<>();
+
+    private List<String> orphanSamples = new ArrayList<>();
+    private String error;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Area {
+        private long scanned;
+        private long orphans;
+        private long orphanBytes;
+        // Moved into quarantine, or deleted directly for derived and temporary files
+        private long removed;
+    }
+}
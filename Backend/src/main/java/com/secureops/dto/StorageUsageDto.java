@@ -0,0 +1,19 @@
+package com.secureops.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StorageUsageDto {
+    private Long userId;
+    // Only filled in for the admin list of top consumers
+    private String fullName;
+    private String email;
+    private long bytesUsed;
+    private long fileCount;
+    private long maxBytes;
+    private long maxFiles;
+}
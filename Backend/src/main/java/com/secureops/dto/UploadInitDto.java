@@ -0,0 +1,24 @@
+package com.secureops.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadInitDto {
+
+    @NotEmpty(message = "File name is required")
+    private String fileName;
+
+    private String contentType;
+
+    @Positive(message = "File size must be positive")
+    private long totalSize;
+
+    // Optional; the server default is used when absent and clamped to the allowed range
+    private Integer chunkSize;
+}
@@ -0,0 +1,24 @@
+package com.secureops.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadSessionDto {
+    private String uploadId;
+    private String fileName;
+    private long totalSize;
+    private int chunkSize;
+    private int totalChunks;
+    private String status;
+    private long receivedBytes;
+    // Chunks still to send (or resend); empty once the upload can be completed
+    private List<Integer> missingChunks;
+    private Date expiresAt;
+}
@@ -19,5 +19,7 @@ public class UserDto {
     private UserRole role;
     private ApprovalStatus approvalStatus;
     private String avatarUrl;
+    // Small square rendition for lists and message bubbles; append ?size= for 32 or 128 px
+    private String avatarThumbnailUrl;
     private Date createdAt;
 }
\ No newline at end of file
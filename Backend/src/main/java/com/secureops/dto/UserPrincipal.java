@@ -0,0 +1,21 @@
+package com.secureops.dto;
+
+import com.secureops.entity.User.ApprovalStatus;
+import com.secureops.entity.User.UserRole;
+import lombok.Value;
+
+/**
+ * Immutable snapshot of the user fields needed for authentication and authorization checks.
+ */
+@Value
+public class UserPrincipal {
+    Long id;
+    String email;
+    UserRole role;
+    boolean active;
+    ApprovalStatus approvalStatus;
+
+    public boolean isEnabled() {
+        return active && approvalStatus == ApprovalStatus.APPROVED;
+    }
+}
@@ -0,0 +1,41 @@
+package com.secureops.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * Read watermark of one user in one chat: every message with an id up to lastReadMessageId
+ * counts as read by that user.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "chat_read_states", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_chat_read_states_chat_user", columnNames = { "chat_id", "user_id" })
+})
+public class ChatReadState {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "chat_id", nullable = false)
+    private Chat chat;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Column(name = "last_read_message_id", nullable = false)
+    private Long lastReadMessageId;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "updated_at", nullable = false)
+    private Date updatedAt = new Date();
+}
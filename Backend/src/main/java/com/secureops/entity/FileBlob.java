@@ -0,0 +1,67 @@
+package com.secureops.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * One stored content blob, keyed by the SHA-256 of its bytes and kept once however many files share
+ * it. refCount counts the messages and avatars pointing at it through a StoredFile; a blob at zero
+ * references that has not been touched for the grace period is removed by FileBlobCollector.
+ * scanStatus is set by UploadScanner; null means the content has not been scanned yet.
+ * signatureVersion identifies the signature set it was scanned against, so content scanned before
+ * a signature update is scanned again.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "file_blobs", indexes = {
+        // Garbage collection: WHERE ref_count = 0 AND updated_at < cutoff
+        @Index(name = "idx_file_blobs_ref_count_updated_at", columnList = "ref_count, updated_at"),
+        @Index(name = "idx_file_blobs_scan_status", columnList = "scan_status"),
+        // Rescan: WHERE signature_version IS NULL OR signature_version < current
+        @Index(name = "idx_file_blobs_signature_version", columnList = "signature_version")
+})
+public class FileBlob {
+
+    public enum ScanStatus {
+        CLEAN,
+        // Content does not match its file extension; still served
+        SUSPICIOUS,
+        // Known malware or an executable; downloads are refused
+        QUARANTINED
+    }
+
+    @Id
+    @Column(length = 64)
+    private String hash;
+
+    @Column(nullable = false)
+    private long size;
+
+    @Column(name = "ref_count", nullable = false)
+    private int refCount;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "created_at", nullable = false)
+    private Date createdAt = new Date();
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "updated_at", nullable = false)
+    private Date updatedAt = new Date();
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "scan_status", length = 16)
+    private ScanStatus scanStatus;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "scanned_at")
+    private Date scannedAt;
+
+    @Column(name = "signature_version")
+    private Long signatureVersion;
+}
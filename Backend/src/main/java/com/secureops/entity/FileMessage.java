@@ -1,5 +1,6 @@
 package com.secureops.entity;
 
+import com.secureops.service.FileReferenceListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -11,8 +12,11 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "file_messages")
+@Table(name = "file_messages", indexes = {
+        @Index(name = "idx_file_messages_stored_file_name", columnList = "stored_file_name")
+})
 @DiscriminatorValue("FILE")
+@EntityListeners(FileReferenceListener.class)
 public class FileMessage extends Message {
 
     @Column(nullable = false)
@@ -24,4 +28,8 @@ public class FileMessage extends Message {
     private String fileType;
     
     private Long fileSize;
+
+    // Name of the stored file behind fileUrl, kept so references can be counted and checked by index
+    @Column(name = "stored_file_name")
+    private String storedFileName;
 }
\ No newline at end of file
@@ -11,7 +11,12 @@ import java.util.Date;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "messages")
+@Table(name = "messages", indexes = {
+        // Keyset pagination over a chat's history: WHERE chat_id = ? AND (timestamp, id) < (?, ?)
+        @Index(name = "idx_messages_chat_timestamp_id", columnList = "chat_id, timestamp, id"),
+        // Unread counts: WHERE chat_id = ? AND id > read watermark
+        @Index(name = "idx_messages_chat_id_id", columnList = "chat_id, id")
+})
 @Inheritance(strategy = InheritanceType.JOINED)
 @DiscriminatorColumn(name = "message_type")
 public abstract class Message {
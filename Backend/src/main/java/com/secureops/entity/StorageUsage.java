@@ -0,0 +1,38 @@
+package com.secureops.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * Persisted running total of what one user has stored: bytes and number of files uploaded under
+ * their id. Kept up to date by deltas as files are stored and removed, and rebuilt from
+ * stored_files by StorageQuotaService's reconciliation, so quotas never have to sum the files.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "storage_usage", indexes = {
+        // Top consumers
+        @Index(name = "idx_storage_usage_bytes_used", columnList = "bytes_used")
+})
+public class StorageUsage {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "bytes_used", nullable = false)
+    private long bytesUsed;
+
+    @Column(name = "file_count", nullable = false)
+    private long fileCount;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "updated_at", nullable = false)
+    private Date updatedAt = new Date();
+}
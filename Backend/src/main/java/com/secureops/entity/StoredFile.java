@@ -0,0 +1,45 @@
+package com.secureops.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * A logical file as clients know it: the name in its download URL, pointing at the content blob
+ * that holds its bytes. Every upload gets its own name even when the content is already stored.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "stored_files", indexes = {
+        @Index(name = "idx_stored_files_blob_hash", columnList = "blob_hash"),
+        @Index(name = "idx_stored_files_uploaded_by", columnList = "uploaded_by")
+})
+public class StoredFile {
+
+    @Id
+    @Column(name = "file_name")
+    private String fileName;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "blob_hash", nullable = false)
+    private FileBlob blob;
+
+    @Column(name = "original_file_name", nullable = false)
+    private String originalFileName;
+
+    @Column(nullable = false)
+    private long size;
+
+    // Whose quota the file counts against; null for files stored on behalf of nobody in particular
+    @Column(name = "uploaded_by")
+    private Long uploadedBy;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "created_at", nullable = false)
+    private Date createdAt = new Date();
+}
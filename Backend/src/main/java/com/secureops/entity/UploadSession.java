@@ -0,0 +1,88 @@
+package com.secureops.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.BitSet;
+import java.util.Date;
+
+/**
+ * A resumable chunked upload. The bytes live in a partial file under the storage directory until
+ * the upload completes; receivedChunks is a bitmap (bit i set once chunk i was written and its
+ * checksum verified) in the same bit order as PostgreSQL's set_bit, so chunks can be recorded
+ * concurrently without rewriting the row from Java.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "upload_sessions", indexes = {
+        @Index(name = "idx_upload_sessions_user_status", columnList = "user_id, status"),
+        @Index(name = "idx_upload_sessions_expires_at", columnList = "expires_at")
+})
+public class UploadSession {
+
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "original_file_name", nullable = false)
+    private String originalFileName;
+
+    @Column(name = "content_type")
+    private String contentType;
+
+    @Column(name = "total_size", nullable = false)
+    private long totalSize;
+
+    @Column(name = "chunk_size", nullable = false)
+    private int chunkSize;
+
+    @Column(name = "total_chunks", nullable = false)
+    private int totalChunks;
+
+    @Column(name = "received_chunks", nullable = false)
+    private byte[] receivedChunks;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private UploadStatus status = UploadStatus.IN_PROGRESS;
+
+    @Column(name = "stored_file_name")
+    private String storedFileName;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "created_at", nullable = false)
+    private Date createdAt = new Date();
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "updated_at", nullable = false)
+    private Date updatedAt = new Date();
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "expires_at", nullable = false)
+    private Date expiresAt;
+
+    public enum UploadStatus {
+        IN_PROGRESS,
+        COMPLETING,
+        COMPLETED
+    }
+
+    public BitSet getReceivedChunkSet() {
+        return BitSet.valueOf(receivedChunks);
+    }
+
+    public long getChunkOffset(int index) {
+        return (long) index * chunkSize;
+    }
+
+    public int getChunkLength(int index) {
+        return (int) Math.min(chunkSize, totalSize - getChunkOffset(index));
+    }
+}
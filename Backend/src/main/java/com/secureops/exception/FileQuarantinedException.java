@@ -0,0 +1,11 @@
+package com.secureops.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.FORBIDDEN)
+public class FileQuarantinedException extends RuntimeException {
+    public FileQuarantinedException(String fileName) {
+        super("File " + fileName + " is quarantined and cannot be downloaded");
+    }
+}
@@ -0,0 +1,28 @@
+package com.secureops.repository;
+
+import com.secureops.entity.ChatReadState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ChatReadStateRepository extends JpaRepository<ChatReadState, Long> {
+
+    @Query("SELECT s.lastReadMessageId FROM ChatReadState s WHERE s.chat.id = :chatId AND s.user.id = :userId")
+    Optional<Long> findWatermark(@Param("chatId") Long chatId, @Param("userId") Long userId);
+
+    // Only ever moves forward; returns 0 when the stored watermark was already at or past the new one
+    @Modifying
+    @Query(value = "INSERT INTO chat_read_states (chat_id, user_id, last_read_message_id, updated_at) " +
+            "VALUES (:chatId, :userId, :messageId, now()) " +
+            "ON CONFLICT (chat_id, user_id) DO UPDATE " +
+            "SET last_read_message_id = EXCLUDED.last_read_message_id, updated_at = EXCLUDED.updated_at " +
+            "WHERE chat_read_states.last_read_message_id < EXCLUDED.last_read_message_id",
+            nativeQuery = true)
+    int advanceWatermark(@Param("chatId") Long chatId, @Param("userId") Long userId,
+            @Param("messageId") Long messageId);
+}
@@ -8,7 +8,9 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Date;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ChatRepository extends JpaRepository<Chat, Long> {
@@ -43,4 +45,89 @@ public interface ChatRepository extends JpaRepository<Chat, Long> {
     
     @Query("SELECT COUNT(p) FROM Chat c JOIN c.participants p WHERE c.id = :chatId")
     int countParticipants(@Param("chatId") Long chatId);
-}
\ No newline at end of file
+
+    @Query(value = "SELECT user_id FROM chat_participants WHERE chat_id = :chatId", nativeQuery = true)
+    List<Long> findParticipantIds(@Param("chatId") Long chatId);
+
+    @Query("SELECT c.title AS title, c.status AS status FROM Chat c WHERE c.id = :chatId")
+    Optional<ChatHeader> findHeaderById(@Param("chatId") Long chatId);
+
+    @Query("SELECT DISTINCT c FROM Chat c LEFT JOIN FETCH c.participants WHERE c.id IN :chatIds")
+    List<Chat> findAllByIdWithParticipants(@Param("chatIds") List<Long> chatIds);
+
+    /**
+     * Sidebar rows for a user in one round trip. The latest message comes from a LATERAL probe of
+     * idx_messages_chat_timestamp_id, the unread count from a range over idx_messages_chat_id_id
+     * above the user's read watermark. Users without a watermark yet fall back to the legacy
+     * read_status flag.
+     */
+    @Query(value =
+            "SELECT c.id AS id, c.title AS title, c.status AS status, " +
+            "lm.id AS lastMessageId, lm.timestamp AS lastMessageAt, lm.sender_id AS lastMessageSenderId, " +
+            "lm.message_type AS lastMessageType, " +
+            "COALESCE(LEFT(tm.content, :previewLength), fm.file_name) AS lastMessagePreview, " +
+            "rs.last_read_message_id AS lastReadMessageId, " +
+            "(SELECT COUNT(*) FROM messages um WHERE um.chat_id = c.id AND um.sender_id <> :userId " +
+            "  AND um.id > COALESCE(rs.last_read_message_id, 0) " +
+            "  AND (rs.last_read_message_id IS NOT NULL OR um.read_status = false)) AS unreadCount " +
+            "FROM chat_participants me " +
+            "JOIN chats c ON c.id = me.chat_id " +
+            "LEFT JOIN chat_read_states rs ON rs.chat_id = c.id AND rs.user_id = :userId " +
+            "LEFT JOIN LATERAL (SELECT m.id, m.timestamp, m.sender_id, m.message_type FROM messages m " +
+            "  WHERE m.chat_id = c.id ORDER BY m.timestamp DESC, m.id DESC LIMIT 1) lm ON true " +
+            "LEFT JOIN text_messages tm ON tm.id = lm.id " +
+            "LEFT JOIN file_messages fm ON fm.id = lm.id " +
+            "WHERE me.user_id = :userId " +
+            "ORDER BY COALESCE(lm.timestamp, c.created_at) DESC, c.id DESC",
+            nativeQuery = true)
+    List<ChatSummaryRow> findChatSummaries(@Param("userId") Long userId, @Param("previewLength") int previewLength);
+
+    // Participants of every chat the user is in, for the sidebar
+    @Query(value =
+            "SELECT cp.chat_id AS chatId, u.id AS userId, u.full_name AS fullName, " +
+            "u.avatar_file_name AS avatarFileName " +
+            "FROM chat_participants me " +
+            "JOIN chat_participants cp ON cp.chat_id = me.chat_id " +
+            "JOIN users u ON u.id = cp.user_id " +
+            "WHERE me.user_id = :userId",
+            nativeQuery = true)
+    List<ParticipantRow> findParticipantsOfUserChats(@Param("userId") Long userId);
+
+    interface ChatHeader {
+        String getTitle();
+
+        ChatStatus getStatus();
+    }
+
+    interface ChatSummaryRow {
+        Long getId();
+
+        String getTitle();
+
+        String getStatus();
+
+        Long getLastMessageId();
+
+        Date getLastMessageAt();
+
+        Long getLastMessageSenderId();
+
+        String getLastMessageType();
+
+        String getLastMessagePreview();
+
+        Long getLastReadMessageId();
+
+        Long getUnreadCount();
+    }
+
+    interface ParticipantRow {
+        Long getChatId();
+
+        Long getUserId();
+
+        String getFullName();
+
+        String getAvatarFileName();
+    }
+}
@@ -0,0 +1,99 @@
+package com.secureops.repository;
+
+import com.secureops.entity.FileBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+import java.util.List;
+
+@Repository
+public interface FileBlobRepository extends JpaRepository<FileBlob, String> {
+
+    interface RescanCandidate {
+        String getHash();
+        String getFileName();
+    }
+
+    // Messages and avatars naming the blob b through a StoredFile, which is what ref_count counts
+    String ACTUAL_REFERENCES =
+            "((SELECT COUNT(*) FROM stored_files sf JOIN file_messages fm ON fm.stored_file_name = sf.file_name " +
+            "  WHERE sf.blob_hash = b.hash) + " +
+            "(SELECT COUNT(*) FROM stored_files sf JOIN users u ON u.avatar_file_name = sf.file_name " +
+            "  WHERE sf.blob_hash = b.hash)) ";
+
+    // 1 when this call registered the content, 0 when it was already stored
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO file_blobs (hash, size, ref_count, created_at, updated_at) " +
+            "VALUES (:hash, :size, 0, now(), now()) ON CONFLICT (hash) DO NOTHING",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("hash") String hash, @Param("size") long size);
+
+    // Restarts the collection grace period; 0 if the blob was collected in the meantime
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE file_blobs SET updated_at = now() WHERE hash = :hash", nativeQuery = true)
+    int touch(@Param("hash") String hash);
+
+    @Query(value = "SELECT hash FROM file_blobs WHERE ref_count = 0 AND updated_at < :cutoff " +
+            "ORDER BY updated_at LIMIT :limit",
+            nativeQuery = true)
+    List<String> findCollectable(@Param("cutoff") Date cutoff, @Param("limit") int limit);
+
+    // Re-checks every condition under the row lock, so a concurrent upload that just claimed the blob wins
+    @Modifying
+    @Query(value = "DELETE FROM file_blobs b WHERE b.hash = :hash AND b.ref_count = 0 AND b.updated_at < :cutoff " +
+            "AND NOT EXISTS (SELECT 1 FROM stored_files sf WHERE sf.blob_hash = b.hash)",
+            nativeQuery = true)
+    int deleteIfCollectable(@Param("hash") String hash, @Param("cutoff") Date cutoff);
+
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE file_blobs SET scan_status = :status, signature_version = :signatureVersion, " +
+            "scanned_at = now() WHERE hash = :hash",
+            nativeQuery = true)
+    int updateScanStatus(@Param("hash") String hash, @Param("status") String status,
+            @Param("signatureVersion") long signatureVersion);
+
+    @Query("SELECT b.hash FROM FileBlob b WHERE b.scanStatus = :status")
+    List<String> findHashesByScanStatus(@Param("status") FileBlob.ScanStatus status);
+
+    // Content never scanned (queue full, or stored before scanning existed) or scanned against an
+    // older signature set; newest first, with the original name of its first upload for the type check
+    @Query(value = "SELECT b.hash AS hash, (SELECT sf.original_file_name FROM stored_files sf " +
+            "  WHERE sf.blob_hash = b.hash ORDER BY sf.created_at LIMIT 1) AS fileName " +
+            "FROM file_blobs b WHERE b.signature_version IS NULL OR b.signature_version < :signatureVersion " +
+            "ORDER BY b.created_at DESC LIMIT :limit",
+            nativeQuery = true)
+    List<RescanCandidate> findRescanCandidates(@Param("signatureVersion") long signatureVersion,
+            @Param("limit") int limit);
+
+    // Rebuilds the count from the actual references, for blobs whose counter drifted
+    @Modifying
+    @Query(value = "UPDATE file_blobs b SET updated_at = now(), ref_count = " + ACTUAL_REFERENCES +
+            "WHERE b.hash = :hash",
+            nativeQuery = true)
+    int recountReferences(@Param("hash") String hash);
+
+    // Blobs left alone since the cutoff whose counter disagrees with the references; paged by hash
+    @Query(value = "SELECT b.hash FROM file_blobs b WHERE b.updated_at < :cutoff AND b.hash > :afterHash " +
+            "AND b.ref_count <> " + ACTUAL_REFERENCES +
+            "ORDER BY b.hash LIMIT :limit",
+            nativeQuery = true)
+    List<String> findDriftedCounts(@Param("cutoff") Date cutoff, @Param("afterHash") String afterHash,
+            @Param("limit") int limit);
+
+    // Only while the blob is still untouched since the cutoff, so a reference change that commits
+    // in between is never overwritten with a count taken before it
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE file_blobs b SET updated_at = now(), ref_count = " + ACTUAL_REFERENCES +
+            "WHERE b.hash = :hash AND b.updated_at < :cutoff AND b.ref_count <> " + ACTUAL_REFERENCES,
+            nativeQuery = true)
+    int recountIfDrifted(@Param("hash") String hash, @Param("cutoff") Date cutoff);
+}
@@ -1,14 +1,122 @@
 package com.secureops.repository;
 
 import com.secureops.entity.Message;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Date;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface MessageRepository extends JpaRepository<Message, Long> {
     List<Message> findByChatId(Long chatId);
     List<Message> findByChatIdOrderByTimestampDesc(Long chatId, Pageable pageable);
-}
\ No newline at end of file
+
+    Page<Message> findByChatId(Long chatId, Pageable pageable);
+
+    // The polymorphic select joins text_messages and file_messages in the same statement and the
+    // sender is fetched with it, so a page of history is exactly one query.
+
+    @Query("SELECT m FROM Message m JOIN FETCH m.sender WHERE m.chat.id = :chatId ORDER BY m.timestamp ASC, m.id ASC")
+    List<Message> findByChatIdWithSender(@Param("chatId") Long chatId);
+
+    @Query("SELECT m FROM Message m JOIN FETCH m.sender WHERE m.chat.id = :chatId " +
+            "ORDER BY m.timestamp DESC, m.id DESC")
+    List<Message> findLatestByChatId(@Param("chatId") Long chatId, Pageable pageable);
+
+    @Query("SELECT m FROM Message m JOIN FETCH m.sender WHERE m.chat.id = :chatId " +
+            "AND (m.timestamp < :timestamp OR (m.timestamp = :timestamp AND m.id < :id)) " +
+            "ORDER BY m.timestamp DESC, m.id DESC")
+    List<Message> findByChatIdBefore(@Param("chatId") Long chatId, @Param("timestamp") Date timestamp,
+            @Param("id") Long id, Pageable pageable);
+
+    @Query("SELECT m FROM Message m JOIN FETCH m.sender WHERE m.chat.id = :chatId " +
+            "AND (m.timestamp > :timestamp OR (m.timestamp = :timestamp AND m.id > :id)) " +
+            "ORDER BY m.timestamp ASC, m.id ASC")
+    List<Message> findByChatIdAfter(@Param("chatId") Long chatId, @Param("timestamp") Date timestamp,
+            @Param("id") Long id, Pageable pageable);
+
+    /**
+     * Ids of the messages after each chat's last seen id, at most perChat per chat, in one round trip.
+     * chatIds and afterIds are parallel arrays.
+     */
+    @Query(value = "SELECT m.id FROM unnest(CAST(:chatIds AS bigint[]), CAST(:afterIds AS bigint[])) AS s(chat_id, after_id) " +
+            "CROSS JOIN LATERAL (SELECT mm.id FROM messages mm WHERE mm.chat_id = s.chat_id AND mm.id > s.after_id " +
+            "ORDER BY mm.id LIMIT :perChat) m",
+            nativeQuery = true)
+    List<Long> findIdsAfterPerChat(@Param("chatIds") Long[] chatIds, @Param("afterIds") Long[] afterIds,
+            @Param("perChat") int perChat);
+
+    @Query("SELECT m FROM Message m JOIN FETCH m.sender WHERE m.id IN :ids ORDER BY m.id")
+    List<Message> findAllByIdWithSender(@Param("ids") List<Long> ids);
+
+    @Query("SELECT m.chat.id FROM Message m WHERE m.id = :messageId")
+    Optional<Long> findChatIdById(@Param("messageId") Long messageId);
+
+    @Query("SELECT MAX(m.id) FROM Message m WHERE m.chat.id = :chatId AND m.id <= :upToId")
+    Long findLastMessageIdUpTo(@Param("chatId") Long chatId, @Param("upToId") Long upToId);
+
+    @Query("SELECT COUNT(m) FROM Message m WHERE m.chat.id = :chatId AND m.sender.id <> :userId AND m.id > :watermark")
+    long countUnread(@Param("chatId") Long chatId, @Param("userId") Long userId, @Param("watermark") Long watermark);
+
+    // Keeps the per-message flag the UI shows in sync with the watermark, in one statement per batch
+    @Modifying
+    @Query(value = "UPDATE messages SET read_status = true WHERE chat_id = :chatId AND sender_id <> :readerId " +
+            "AND id <= :upToId AND read_status = false", nativeQuery = true)
+    int markReadUpTo(@Param("chatId") Long chatId, @Param("readerId") Long readerId, @Param("upToId") Long upToId);
+
+    /**
+     * Full-text search over the text messages of the chats the user participates in (optionally one
+     * chat), best match first. Matches come from the GIN index on text_messages.content_tsv (see
+     * MessageSearchIndexConfig); only the newest maxCandidates of them are ranked, which bounds the
+     * cost of very common terms, and ts_headline runs on the returned page only.
+     */
+    @Query(value =
+            "SELECT h.id AS messageId, h.chat_id AS chatId, c.title AS chatTitle, h.sender_id AS senderId, " +
+            "u.full_name AS senderName, h.timestamp AS timestamp, h.rank AS rank, " +
+            "ts_headline('simple', tm.content, websearch_to_tsquery('simple', :query), :headlineOptions) AS snippet " +
+            "FROM (SELECT cand.id, cand.chat_id, cand.sender_id, cand.timestamp, " +
+            "  CAST(ts_rank_cd(cand.content_tsv, q.query) AS double precision) AS rank " +
+            "  FROM websearch_to_tsquery('simple', :query) AS q(query) " +
+            "  CROSS JOIN LATERAL (SELECT m.id, m.chat_id, m.sender_id, m.timestamp, t.content_tsv " +
+            "    FROM text_messages t " +
+            "    JOIN messages m ON m.id = t.id " +
+            "    JOIN chat_participants cp ON cp.chat_id = m.chat_id AND cp.user_id = :userId " +
+            "    WHERE t.content_tsv @@ q.query " +
+            "    AND (CAST(:chatId AS bigint) IS NULL OR m.chat_id = CAST(:chatId AS bigint)) " +
+            "    ORDER BY m.id DESC LIMIT :maxCandidates) cand " +
+            "  ORDER BY rank DESC, cand.id DESC " +
+            "  LIMIT :limit OFFSET :offset) h " +
+            "JOIN text_messages tm ON tm.id = h.id " +
+            "JOIN chats c ON c.id = h.chat_id " +
+            "JOIN users u ON u.id = h.sender_id " +
+            "ORDER BY h.rank DESC, h.id DESC",
+            nativeQuery = true)
+    List<MessageSearchRow> searchMessages(@Param("userId") Long userId, @Param("chatId") Long chatId,
+            @Param("query") String query, @Param("headlineOptions") String headlineOptions,
+            @Param("maxCandidates") int maxCandidates, @Param("limit") int limit, @Param("offset") int offset);
+
+    interface MessageSearchRow {
+        Long getMessageId();
+
+        Long getChatId();
+
+        String getChatTitle();
+
+        Long getSenderId();
+
+        String getSenderName();
+
+        Date getTimestamp();
+
+        Double getRank();
+
+        String getSnippet();
+    }
+}
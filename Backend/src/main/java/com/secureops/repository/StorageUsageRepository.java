@@ -0,0 +1,55 @@
+package com.secureops.repository;
+
+import com.secureops.entity.StorageUsage;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface StorageUsageRepository extends JpaRepository<StorageUsage, Long> {
+
+    interface TopConsumerRow {
+        Long getUserId();
+        String getFullName();
+        String getEmail();
+        long getBytesUsed();
+        long getFileCount();
+    }
+
+    // Applies a delta to the running total, creating the row on first use
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO storage_usage (user_id, bytes_used, file_count, updated_at) " +
+            "VALUES (:userId, GREATEST(:bytes, 0), GREATEST(:files, 0), now()) " +
+            "ON CONFLICT (user_id) DO UPDATE SET " +
+            "bytes_used = GREATEST(storage_usage.bytes_used + :bytes, 0), " +
+            "file_count = GREATEST(storage_usage.file_count + :files, 0), " +
+            "updated_at = now()",
+            nativeQuery = true)
+    int addUsage(@Param("userId") Long userId, @Param("bytes") long bytes, @Param("files") long files);
+
+    // Rebuilds every total from the stored files; only rows that drifted are written
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO storage_usage (user_id, bytes_used, file_count, updated_at) " +
+            "SELECT u.id, COALESCE(s.bytes_used, 0), COALESCE(s.file_count, 0), now() FROM users u " +
+            "LEFT JOIN (SELECT uploaded_by, SUM(size) AS bytes_used, COUNT(*) AS file_count " +
+            "  FROM stored_files WHERE uploaded_by IS NOT NULL GROUP BY uploaded_by) s ON s.uploaded_by = u.id " +
+            "ON CONFLICT (user_id) DO UPDATE SET bytes_used = EXCLUDED.bytes_used, " +
+            "file_count = EXCLUDED.file_count, updated_at = now() " +
+            "WHERE storage_usage.bytes_used <> EXCLUDED.bytes_used OR storage_usage.file_count <> EXCLUDED.file_count",
+            nativeQuery = true)
+    int reconcile();
+
+    @Query("SELECT su.userId AS userId, u.fullName AS fullName, u.email AS email, " +
+            "su.bytesUsed AS bytesUsed, su.fileCount AS fileCount " +
+            "FROM StorageUsage su JOIN User u ON u.id = su.userId " +
+            "WHERE su.bytesUsed > 0 ORDER BY su.bytesUsed DESC")
+    List<TopConsumerRow> findTopConsumers(Pageable pageable);
+}
@@ -0,0 +1,62 @@
+package com.secureops.repository;
+
+import com.secureops.entity.StoredFile;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StoredFileRepository extends JpaRepository<StoredFile, String> {
+
+    interface OwnerUsage {
+        Long getUploadedBy();
+        long getBytes();
+        long getFiles();
+    }
+
+    @Query("SELECT sf.blob.hash FROM StoredFile sf WHERE sf.fileName = :fileName")
+    Optional<String> findBlobHash(@Param("fileName") String fileName);
+
+    // A file still attached to a message or used as an avatar is left alone
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM stored_files sf WHERE sf.file_name = :fileName " +
+            "AND NOT EXISTS (SELECT 1 FROM file_messages fm WHERE fm.stored_file_name = sf.file_name) " +
+            "AND NOT EXISTS (SELECT 1 FROM users u WHERE u.avatar_file_name = sf.file_name)",
+            nativeQuery = true)
+    int deleteIfUnreferenced(@Param("fileName") String fileName);
+
+    // What deleteUnreferencedByBlob is about to remove, per uploader, for the storage quotas
+    @Query(value = "SELECT sf.uploaded_by AS uploadedBy, COALESCE(SUM(sf.size), 0) AS bytes, COUNT(*) AS files " +
+            "FROM stored_files sf WHERE sf.blob_hash = :hash AND sf.uploaded_by IS NOT NULL " +
+            "AND NOT EXISTS (SELECT 1 FROM file_messages fm WHERE fm.stored_file_name = sf.file_name) " +
+            "AND NOT EXISTS (SELECT 1 FROM users u WHERE u.avatar_file_name = sf.file_name) " +
+            "GROUP BY sf.uploaded_by",
+            nativeQuery = true)
+    List<OwnerUsage> sumUnreferencedByBlob(@Param("hash") String hash);
+
+    // Names older than the cutoff that no message or avatar uses, whatever their blob's count says;
+    // paged by name so a name that cannot be removed is passed over
+    @Query(value = "SELECT sf.file_name FROM stored_files sf " +
+            "WHERE sf.created_at < :cutoff AND sf.file_name > :afterName " +
+            "AND NOT EXISTS (SELECT 1 FROM file_messages fm WHERE fm.stored_file_name = sf.file_name) " +
+            "AND NOT EXISTS (SELECT 1 FROM users u WHERE u.avatar_file_name = sf.file_name) " +
+            "ORDER BY sf.file_name LIMIT :limit",
+            nativeQuery = true)
+    List<String> findStaleNames(@Param("cutoff") Date cutoff, @Param("afterName") String afterName,
+            @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "DELETE FROM stored_files sf WHERE sf.blob_hash = :hash " +
+            "AND NOT EXISTS (SELECT 1 FROM file_messages fm WHERE fm.stored_file_name = sf.file_name) " +
+            "AND NOT EXISTS (SELECT 1 FROM users u WHERE u.avatar_file_name = sf.file_name)",
+            nativeQuery = true)
+    int deleteUnreferencedByBlob(@Param("hash") String hash);
+}
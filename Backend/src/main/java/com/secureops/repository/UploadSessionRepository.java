@@ -0,0 +1,39 @@
+package com.secureops.repository;
+
+import com.secureops.entity.UploadSession;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+import java.util.List;
+
+@Repository
+public interface UploadSessionRepository extends JpaRepository<UploadSession, String> {
+
+    long countByUserIdAndStatus(Long userId, UploadSession.UploadStatus status);
+
+    List<UploadSession> findByExpiresAtBeforeAndIdGreaterThanOrderByIdAsc(Date cutoff, String afterId, Pageable pageable);
+
+    // Chunk writes run outside any transaction (they can take a while); each bit is set in one
+    // statement, and only once: 0 rows means the upload is no longer open or the chunk already counts
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query(value = "UPDATE upload_sessions SET received_chunks = set_bit(received_chunks, :chunkIndex, 1), " +
+            "updated_at = now(), expires_at = :expiresAt " +
+            "WHERE id = :id AND status = 'IN_PROGRESS' AND get_bit(received_chunks, :chunkIndex) = 0",
+            nativeQuery = true)
+    int markChunkReceived(@Param("id") String id, @Param("chunkIndex") int chunkIndex,
+            @Param("expiresAt") Date expiresAt);
+
+    // Compare-and-set on the status, so only one request can complete an upload
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE UploadSession s SET s.status = :to, s.updatedAt = CURRENT_TIMESTAMP WHERE s.id = :id AND s.status = :from")
+    int transition(@Param("id") String id, @Param("from") UploadSession.UploadStatus from,
+            @Param("to") UploadSession.UploadStatus to);
+}
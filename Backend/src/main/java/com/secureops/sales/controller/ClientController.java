@@ -484,8 +484,7 @@ public class ClientController {
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
             if (authentication != null && authentication.isAuthenticated() && 
                 !authentication.getName().equals("anonymousUser")) {
-                // Use getUserByEmail since we don't have getUserByUsername
-                return userService.getUserByEmail(authentication.getName()).getId();
+                return userService.getCurrentUserId();
             }
         } catch (Exception e) {
             logger.debug("Error getting current user ID", e);
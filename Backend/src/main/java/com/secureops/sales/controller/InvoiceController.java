@@ -726,7 +726,7 @@ public class InvoiceController {
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
             if (authentication != null && authentication.isAuthenticated() && 
                 !authentication.getName().equals("anonymousUser")) {
-                return userService.getUserByEmail(authentication.getName()).getId();
+                return userService.getCurrentUserId();
             }
         } catch (Exception e) {
             logger.warn("Error getting current user ID: {}", e.getMessage());
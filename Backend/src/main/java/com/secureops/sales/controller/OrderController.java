@@ -823,7 +823,7 @@ public class OrderController {
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
             if (authentication != null && authentication.isAuthenticated() && !"anonymousUser".equals(authentication.getName())) {
                 // Use getUserByEmail since we don't have getCurrentUserId
-                return userService.getUserByEmail(authentication.getName()).getId();
+                return userService.getCurrentUserId();
             }
         } catch (Exception e) {
             logger.debug("Error getting current user ID: {}", e.getMessage());
@@ -747,7 +747,7 @@ public class QuoteController {
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
             if (authentication != null && authentication.isAuthenticated() && 
                 !authentication.getName().equals("anonymousUser")) {
-                return userService.getUserByEmail(authentication.getName()).getId();
+                return userService.getCurrentUserId();
             }
         } catch (Exception e) {
             logger.debug("Error getting current user ID", e);
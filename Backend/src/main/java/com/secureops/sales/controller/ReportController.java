@@ -2,8 +2,10 @@ package com.secureops.sales.controller;
 
 import com.secureops.sales.dto.response.ClientSpendingReport;
 import com.secureops.sales.dto.response.ProductSalesReport;
+import com.secureops.sales.dto.response.RollupRebuildReport;
 import com.secureops.sales.dto.response.SalesSummaryReport;
 import com.secureops.sales.service.ReportService;
+import com.secureops.sales.service.SalesRollupService;
 import com.secureops.service.LogService;
 import com.secureops.service.UserService;
 import com.secureops.util.AppConstants;
@@ -12,6 +14,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
@@ -19,6 +22,7 @@ import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
 import jakarta.servlet.http.HttpServletRequest;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @RestController
@@ -29,12 +33,15 @@ public class ReportController {
     private static final Logger securityLogger = LoggerFactory.getLogger("com.secureops.security");
 
     private final ReportService reportService;
+    private final SalesRollupService salesRollupService;
     private final LogService logService;
     private final UserService userService;
 
     @Autowired
-    public ReportController(ReportService reportService, LogService logService, UserService userService) {
+    public ReportController(ReportService reportService, SalesRollupService salesRollupService,
+            LogService logService, UserService userService) {
         this.reportService = reportService;
+        this.salesRollupService = salesRollupService;
         this.logService = logService;
         this.userService = userService;
         logger.info("ReportController initialized");
@@ -237,6 +244,77 @@ public class ReportController {
             return ResponseEntity.internalServerError().build();
         }
     }
+
+    // Recomputes the daily rollup behind the reports; without dates, every day that has documents
+    @PostMapping("/rollups/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<RollupRebuildReport> rebuildRollups(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        String clientIp = getClientIpSafely();
+        Long currentUserId = getCurrentUserIdSafely();
+        String currentUsername = getCurrentUsernameSafely();
+
+        logger.info("Sales rollup rebuild request - startDate: {}, endDate: {}, userId: {}, username: {}, ip: {}",
+                startDate, endDate, currentUserId, currentUsername, clientIp);
+
+        securityLogger.info("SALES_ROLLUP_REBUILD - User: {} (ID: {}), IP: {}, StartDate: {}, EndDate: {}, Action: REBUILD_SALES_ROLLUP",
+                currentUsername, currentUserId, clientIp, startDate, endDate);
+
+        try {
+            if ((startDate == null) != (endDate == null)) {
+                logger.warn("Invalid date parameters - startDate: {}, endDate: {}, userId: {}, ip: {}",
+                        startDate, endDate, currentUserId, clientIp);
+                return ResponseEntity.badRequest().build();
+            }
+
+            if (startDate != null && startDate.isAfter(endDate)) {
+                logger.warn("Invalid date range - startDate after endDate: {} > {}, userId: {}, ip: {}",
+                        startDate, endDate, currentUserId, clientIp);
+                return ResponseEntity.badRequest().build();
+            }
+
+            long started = System.currentTimeMillis();
+            long rows = startDate != null
+                    ? salesRollupService.rebuild(startDate, endDate)
+                    : salesRollupService.rebuildAll();
+            long durationMs = System.currentTimeMillis() - started;
+
+            logger.info("Sales rollup rebuilt - startDate: {}, endDate: {}, rows: {}, durationMs: {}, userId: {}, ip: {}",
+                    startDate, endDate, rows, durationMs, currentUserId, clientIp);
+
+            logService.createLog(
+                    AppConstants.LOG_ACTION_UPDATE,
+                    "Rebuilt sales rollup - StartDate: " + (startDate != null ? startDate : "all") +
+                            ", EndDate: " + (endDate != null ? endDate : "all") + ", Rows: " + rows,
+                    clientIp,
+                    AppConstants.LOG_TYPE_ADMIN,
+                    currentUserId);
+
+            return ResponseEntity.ok(RollupRebuildReport.builder()
+                    .startDate(startDate)
+                    .endDate(endDate)
+                    .rowsWritten(rows)
+                    .durationMs(durationMs)
+                    .build());
+
+        } catch (Exception e) {
+            logger.error("Error rebuilding sales rollup - startDate: {}, endDate: {}, userId: {}, username: {}, ip: {}",
+                    startDate, endDate, currentUserId, currentUsername, clientIp, e);
+
+            securityLogger.error("SALES_ROLLUP_REBUILD_ERROR - User: {} (ID: {}), IP: {}, StartDate: {}, EndDate: {}, Error: {}",
+                    currentUsername, currentUserId, clientIp, startDate, endDate, e.getMessage());
+
+            logService.createLog(
+                    AppConstants.LOG_ACTION_UPDATE,
+                    "Failed to rebuild sales rollup: " + e.getMessage(),
+                    clientIp,
+                    AppConstants.LOG_TYPE_ERROR,
+                    currentUserId);
+
+            return ResponseEntity.internalServerError().build();
+        }
+    }
     
     // Security and utility helper methods
     
@@ -245,7 +323,7 @@ public class ReportController {
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
             if (authentication != null && authentication.isAuthenticated() && 
                 !authentication.getName().equals("anonymousUser")) {
-                return userService.getUserByEmail(authentication.getName()).getId();
+                return userService.getCurrentUserId();
             }
         } catch (Exception e) {
             logger.warn("Error getting current user ID: {}", e.getMessage());
@@ -0,0 +1,19 @@
+package com.secureops.sales.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RollupRebuildReport {
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private Long rowsWritten;
+    private Long durationMs;
+}
@@ -9,7 +9,10 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "invoices")
+@Table(name = "invoices", indexes = {
+        // Report date ranges
+        @Index(name = "idx_invoices_created_date", columnList = "created_date")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -11,7 +11,10 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        // Report date ranges
+        @Index(name = "idx_orders_created_date", columnList = "created_date")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
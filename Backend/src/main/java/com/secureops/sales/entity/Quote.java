@@ -11,7 +11,10 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "quotes")
+@Table(name = "quotes", indexes = {
+        // Report date ranges
+        @Index(name = "idx_quotes_created_date", columnList = "created_date")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,72 @@
+package com.secureops.sales.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Quotes, orders and invoices summed per creation day, client, product and status.
+ *
+ * Rows with product id 0 describe whole documents (count and total amount); the others describe
+ * the items of one product (documents containing it, quantity and subtotal). Invoices have no
+ * items and only get document rows. Writes add the difference a change makes to the rows it
+ * touches; a rebuild recomputes whole days from the source tables, see SalesRollupService.
+ */
+@Entity
+@Table(name = "sales_daily_rollup", indexes = {
+        @Index(name = "uk_sales_daily_rollup_key", columnList = "rollup_date, kind, client_id, product_id, status", unique = true),
+        // Client reports
+        @Index(name = "idx_sales_daily_rollup_client_date", columnList = "client_id, rollup_date")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesDailyRollup {
+
+    public static final long ALL_PRODUCTS = 0L;
+    public static final String NO_STATUS = "";
+
+    public enum Kind {
+        QUOTE,
+        ORDER,
+        INVOICE
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "rollup_date", nullable = false)
+    private LocalDate rollupDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Kind kind;
+
+    @Column(name = "client_id", nullable = false)
+    private Long clientId;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    // Name of the QuoteStatus, OrderStatus or InvoiceStatus, NO_STATUS for a document without one;
+    // never null, so every row has a key the upsert can conflict on
+    @Column(nullable = false, length = 32)
+    private String status;
+
+    @Column(name = "document_count", nullable = false)
+    private long documentCount;
+
+    @Column(nullable = false)
+    private long quantity;
+
+    private BigDecimal amount;
+
+    @Column(name = "last_created_at")
+    private LocalDateTime lastCreatedAt;
+}
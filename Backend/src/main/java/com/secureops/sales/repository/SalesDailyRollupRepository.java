@@ -0,0 +1,245 @@
+package com.secureops.sales.repository;
+
+import com.secureops.sales.entity.SalesDailyRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface SalesDailyRollupRepository extends JpaRepository<SalesDailyRollup, Long> {
+
+    interface StatusTotal {
+        SalesDailyRollup.Kind getKind();
+        String getStatus();
+        long getDocuments();
+        BigDecimal getAmount();
+        LocalDateTime getLastCreatedAt();
+    }
+
+    interface MonthTotal {
+        String getMonth();
+        BigDecimal getTotal();
+    }
+
+    interface ProductTotal {
+        Long getProductId();
+        String getProductName();
+        long getQuantity();
+        BigDecimal getAmount();
+    }
+
+    // A group of documents created between two instants, in the shape of a rollup row
+    interface SourceRow extends StatusTotal {
+        Long getClientId();
+        Long getProductId();
+        String getProductName();
+        String getMonth();
+        long getQuantity();
+    }
+
+    interface DateRange {
+        LocalDateTime getFirstCreated();
+        LocalDateTime getLastCreated();
+    }
+
+    // Excludes everything else touching the day while a rebuild recomputes it; released at commit or rollback
+    @Query(value = "SELECT 1 FROM (SELECT pg_advisory_xact_lock(:key)) AS l", nativeQuery = true)
+    Integer lockDay(@Param("key") long key);
+
+    // Taken by writers: they do not wait for each other, only for a rebuild of the day
+    @Query(value = "SELECT 1 FROM (SELECT pg_advisory_xact_lock_shared(:key)) AS l", nativeQuery = true)
+    Integer lockDayShared(@Param("key") long key);
+
+    // Adds a delta to one row, creating it if needed
+    @Modifying
+    @Query(value = "INSERT INTO sales_daily_rollup (rollup_date, kind, client_id, product_id, status, " +
+            "document_count, quantity, amount, last_created_at) " +
+            "VALUES (:day, :kind, :clientId, :productId, :status, :documents, :quantity, " +
+            ":amount, :lastCreatedAt) " +
+            "ON CONFLICT (rollup_date, kind, client_id, product_id, status) DO UPDATE SET " +
+            "document_count = sales_daily_rollup.document_count + EXCLUDED.document_count, " +
+            "quantity = sales_daily_rollup.quantity + EXCLUDED.quantity, " +
+            "amount = COALESCE(sales_daily_rollup.amount, 0) + EXCLUDED.amount, " +
+            "last_created_at = GREATEST(sales_daily_rollup.last_created_at, EXCLUDED.last_created_at)",
+            nativeQuery = true)
+    int upsertDelta(@Param("day") LocalDate day,
+            @Param("kind") String kind,
+            @Param("clientId") Long clientId,
+            @Param("productId") Long productId,
+            @Param("status") String status,
+            @Param("documents") long documents,
+            @Param("quantity") long quantity,
+            @Param("amount") BigDecimal amount,
+            @Param("lastCreatedAt") LocalDateTime lastCreatedAt);
+
+    // Drops a row whose last document moved away or was deleted, as a recompute would not produce it
+    @Modifying
+    @Query(value = "DELETE FROM sales_daily_rollup WHERE rollup_date = :day AND kind = :kind " +
+            "AND client_id = :clientId AND product_id = :productId AND status = :status AND document_count <= 0",
+            nativeQuery = true)
+    int deleteIfEmpty(@Param("day") LocalDate day,
+            @Param("kind") String kind,
+            @Param("clientId") Long clientId,
+            @Param("productId") Long productId,
+            @Param("status") String status);
+
+    // Re-reads the latest creation time of a whole-document row whose latest document left it
+    @Modifying
+    @Query(value = "UPDATE sales_daily_rollup r SET last_created_at = (SELECT MAX(d.created_date) FROM (" +
+            "  SELECT q.created_date, q.client_id, q.status FROM quotes q WHERE :kind = 'QUOTE' " +
+            "    AND q.created_date >= :day AND q.created_date < :nextDay " +
+            "  UNION ALL SELECT o.created_date, o.client_id, o.status FROM orders o WHERE :kind = 'ORDER' " +
+            "    AND o.created_date >= :day AND o.created_date < :nextDay " +
+            "  UNION ALL SELECT i.created_date, i.client_id, i.status FROM invoices i WHERE :kind = 'INVOICE' " +
+            "    AND i.created_date >= :day AND i.created_date < :nextDay" +
+            ") d WHERE d.client_id = r.client_id AND COALESCE(d.status, '') = r.status) " +
+            "WHERE r.rollup_date = :day AND r.kind = :kind AND r.client_id = :clientId AND r.product_id = 0 " +
+            "AND r.status = :status AND r.last_created_at <= :removedCreatedAt",
+            nativeQuery = true)
+    int refreshLastCreatedAt(@Param("day") LocalDate day,
+            @Param("nextDay") LocalDate nextDay,
+            @Param("kind") String kind,
+            @Param("clientId") Long clientId,
+            @Param("status") String status,
+            @Param("removedCreatedAt") LocalDateTime removedCreatedAt);
+
+    @Modifying
+    @Query(value = "DELETE FROM sales_daily_rollup WHERE rollup_date >= :fromDay AND rollup_date < :toDay",
+            nativeQuery = true)
+    int deleteRange(@Param("fromDay") LocalDate fromDay, @Param("toDay") LocalDate toDay);
+
+    // Recomputes [fromDay, toDay) from the source tables; product 0 rows are whole documents, and a
+    // missing status is stored as NO_STATUS so it can be part of the upsert key
+    @Modifying
+    @Query(value = "INSERT INTO sales_daily_rollup (rollup_date, kind, client_id, product_id, status, " +
+            "document_count, quantity, amount, last_created_at) " +
+            "SELECT CAST(q.created_date AS date), 'QUOTE', q.client_id, 0, COALESCE(q.status, ''), " +
+            "  COUNT(*), 0, SUM(q.total_amount), MAX(q.created_date) " +
+            "  FROM quotes q WHERE q.created_date >= :fromDay AND q.created_date < :toDay " +
+            "  GROUP BY CAST(q.created_date AS date), q.client_id, q.status " +
+            "UNION ALL " +
+            "SELECT CAST(q.created_date AS date), 'QUOTE', q.client_id, qi.product_id, COALESCE(q.status, ''), " +
+            "  COUNT(DISTINCT q.id), SUM(qi.quantity), SUM(qi.subtotal), MAX(q.created_date) " +
+            "  FROM quotes q JOIN quote_items qi ON qi.quote_id = q.id " +
+            "  WHERE q.created_date >= :fromDay AND q.created_date < :toDay " +
+            "  GROUP BY CAST(q.created_date AS date), q.client_id, qi.product_id, q.status " +
+            "UNION ALL " +
+            "SELECT CAST(o.created_date AS date), 'ORDER', o.client_id, 0, COALESCE(o.status, ''), " +
+            "  COUNT(*), 0, SUM(o.total_amount), MAX(o.created_date) " +
+            "  FROM orders o WHERE o.created_date >= :fromDay AND o.created_date < :toDay " +
+            "  GROUP BY CAST(o.created_date AS date), o.client_id, o.status " +
+            "UNION ALL " +
+            "SELECT CAST(o.created_date AS date), 'ORDER', o.client_id, oi.product_id, COALESCE(o.status, ''), " +
+            "  COUNT(DISTINCT o.id), SUM(oi.quantity), SUM(oi.subtotal), MAX(o.created_date) " +
+            "  FROM orders o JOIN order_items oi ON oi.order_id = o.id " +
+            "  WHERE o.created_date >= :fromDay AND o.created_date < :toDay " +
+            "  GROUP BY CAST(o.created_date AS date), o.client_id, oi.product_id, o.status " +
+            "UNION ALL " +
+            "SELECT CAST(i.created_date AS date), 'INVOICE', i.client_id, 0, COALESCE(i.status, ''), " +
+            "  COUNT(*), 0, SUM(i.total_amount), MAX(i.created_date) " +
+            "  FROM invoices i WHERE i.created_date >= :fromDay AND i.created_date < :toDay " +
+            "  GROUP BY CAST(i.created_date AS date), i.client_id, i.status",
+            nativeQuery = true)
+    int insertRange(@Param("fromDay") LocalDate fromDay, @Param("toDay") LocalDate toDay);
+
+    @Query("SELECT r.kind AS kind, r.status AS status, SUM(r.documentCount) AS documents, " +
+            "SUM(r.amount) AS amount, MAX(r.lastCreatedAt) AS lastCreatedAt " +
+            "FROM SalesDailyRollup r WHERE r.productId = 0 AND r.rollupDate BETWEEN :startDay AND :endDay " +
+            "GROUP BY r.kind, r.status")
+    List<StatusTotal> sumByKindAndStatus(@Param("startDay") LocalDate startDay, @Param("endDay") LocalDate endDay);
+
+    @Query("SELECT r.kind AS kind, r.status AS status, SUM(r.documentCount) AS documents, " +
+            "SUM(r.amount) AS amount, MAX(r.lastCreatedAt) AS lastCreatedAt " +
+            "FROM SalesDailyRollup r WHERE r.productId = 0 AND r.kind = :kind AND r.clientId = :clientId " +
+            "AND r.rollupDate BETWEEN :startDay AND :endDay " +
+            "GROUP BY r.kind, r.status")
+    List<StatusTotal> sumByStatusForClient(@Param("kind") SalesDailyRollup.Kind kind,
+            @Param("clientId") Long clientId,
+            @Param("startDay") LocalDate startDay,
+            @Param("endDay") LocalDate endDay);
+
+    // Order totals per calendar month (yyyy-MM), cancelled orders excluded
+    @Query(value = "SELECT to_char(date_trunc('month', r.rollup_date), 'YYYY-MM') AS month, SUM(r.amount) AS total " +
+            "FROM sales_daily_rollup r WHERE r.kind = 'ORDER' AND r.product_id = 0 AND r.amount IS NOT NULL " +
+            "AND (r.status IS NULL OR r.status <> 'CANCELLED') AND r.rollup_date BETWEEN :startDay AND :endDay " +
+            "GROUP BY date_trunc('month', r.rollup_date) ORDER BY date_trunc('month', r.rollup_date)",
+            nativeQuery = true)
+    List<MonthTotal> sumOrdersByMonth(@Param("startDay") LocalDate startDay, @Param("endDay") LocalDate endDay);
+
+    @Query(value = "SELECT to_char(date_trunc('month', r.rollup_date), 'YYYY-MM') AS month, SUM(r.amount) AS total " +
+            "FROM sales_daily_rollup r WHERE r.kind = 'ORDER' AND r.product_id = 0 AND r.amount IS NOT NULL " +
+            "AND (r.status IS NULL OR r.status <> 'CANCELLED') AND r.client_id = :clientId " +
+            "AND r.rollup_date BETWEEN :startDay AND :endDay " +
+            "GROUP BY date_trunc('month', r.rollup_date) ORDER BY date_trunc('month', r.rollup_date)",
+            nativeQuery = true)
+    List<MonthTotal> sumOrdersByMonthForClient(@Param("clientId") Long clientId,
+            @Param("startDay") LocalDate startDay,
+            @Param("endDay") LocalDate endDay);
+
+    // Items per product, cancelled documents excluded
+    @Query("SELECT p.id AS productId, p.name AS productName, SUM(r.quantity) AS quantity, SUM(r.amount) AS amount " +
+            "FROM SalesDailyRollup r JOIN Product p ON p.id = r.productId " +
+            "WHERE r.kind = :kind " +
+            "AND (r.status IS NULL OR r.status <> 'CANCELLED') AND r.rollupDate BETWEEN :startDay AND :endDay " +
+            "GROUP BY p.id, p.name ORDER BY SUM(r.amount) DESC")
+    List<ProductTotal> sumProducts(@Param("kind") SalesDailyRollup.Kind kind,
+            @Param("startDay") LocalDate startDay,
+            @Param("endDay") LocalDate endDay);
+
+    @Query("SELECT p.id AS productId, p.name AS productName, SUM(r.quantity) AS quantity, SUM(r.amount) AS amount " +
+            "FROM SalesDailyRollup r JOIN Product p ON p.id = r.productId " +
+            "WHERE r.kind = :kind AND r.clientId = :clientId " +
+            "AND (r.status IS NULL OR r.status <> 'CANCELLED') AND r.rollupDate BETWEEN :startDay AND :endDay " +
+            "GROUP BY p.id, p.name ORDER BY SUM(r.amount) DESC")
+    List<ProductTotal> sumProductsForClient(@Param("kind") SalesDailyRollup.Kind kind,
+            @Param("clientId") Long clientId,
+            @Param("startDay") LocalDate startDay,
+            @Param("endDay") LocalDate endDay);
+
+    // Reads the parts of days a report range only partly covers straight from the source tables, with
+    // the inclusive bounds of the report; product rows are built for orders only, as in the reports
+    @Query(value = "SELECT 'QUOTE' AS kind, q.client_id AS \"clientId\", CAST(0 AS bigint) AS \"productId\", " +
+            "  CAST(NULL AS varchar) AS \"productName\", COALESCE(q.status, '') AS status, " +
+            "  to_char(q.created_date, 'YYYY-MM') AS month, COUNT(*) AS documents, CAST(0 AS bigint) AS quantity, " +
+            "  SUM(q.total_amount) AS amount, MAX(q.created_date) AS \"lastCreatedAt\" " +
+            "  FROM quotes q WHERE q.created_date BETWEEN :startDate AND :endDate " +
+            "  GROUP BY q.client_id, q.status, to_char(q.created_date, 'YYYY-MM') " +
+            "UNION ALL " +
+            "SELECT 'ORDER', o.client_id, CAST(0 AS bigint), CAST(NULL AS varchar), COALESCE(o.status, ''), " +
+            "  to_char(o.created_date, 'YYYY-MM'), COUNT(*), CAST(0 AS bigint), " +
+            "  SUM(o.total_amount), MAX(o.created_date) " +
+            "  FROM orders o WHERE o.created_date BETWEEN :startDate AND :endDate " +
+            "  GROUP BY o.client_id, o.status, to_char(o.created_date, 'YYYY-MM') " +
+            "UNION ALL " +
+            "SELECT 'ORDER', o.client_id, p.id, p.name, COALESCE(o.status, ''), " +
+            "  to_char(o.created_date, 'YYYY-MM'), COUNT(DISTINCT o.id), CAST(SUM(oi.quantity) AS bigint), " +
+            "  SUM(oi.subtotal), MAX(o.created_date) " +
+            "  FROM orders o JOIN order_items oi ON oi.order_id = o.id JOIN products p ON p.id = oi.product_id " +
+            "  WHERE o.created_date BETWEEN :startDate AND :endDate " +
+            "  GROUP BY o.client_id, p.id, p.name, o.status, to_char(o.created_date, 'YYYY-MM') " +
+            "UNION ALL " +
+            "SELECT 'INVOICE', i.client_id, CAST(0 AS bigint), CAST(NULL AS varchar), COALESCE(i.status, ''), " +
+            "  to_char(i.created_date, 'YYYY-MM'), COUNT(*), CAST(0 AS bigint), " +
+            "  SUM(i.total_amount), MAX(i.created_date) " +
+            "  FROM invoices i WHERE i.created_date BETWEEN :startDate AND :endDate " +
+            "  GROUP BY i.client_id, i.status, to_char(i.created_date, 'YYYY-MM')",
+            nativeQuery = true)
+    List<SourceRow> summarizeCreatedBetween(@Param("startDate") LocalDateTime startDate,
+            @Param("endDate") LocalDateTime endDate);
+
+    @Query("SELECT MIN(q.createdDate) AS firstCreated, MAX(q.createdDate) AS lastCreated FROM Quote q")
+    DateRange findQuoteDateRange();
+
+    @Query("SELECT MIN(o.createdDate) AS firstCreated, MAX(o.createdDate) AS lastCreated FROM Order o")
+    DateRange findOrderDateRange();
+
+    @Query("SELECT MIN(i.createdDate) AS firstCreated, MAX(i.createdDate) AS lastCreated FROM Invoice i")
+    DateRange findInvoiceDateRange();
+}
@@ -0,0 +1,76 @@
+package com.secureops.sales.service;
+
+import com.secureops.sales.entity.Invoice;
+import com.secureops.sales.entity.Order;
+import com.secureops.sales.entity.OrderItem;
+import com.secureops.sales.entity.Quote;
+import com.secureops.sales.entity.QuoteItem;
+import com.secureops.sales.entity.SalesDailyRollup;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+public interface SalesRollupService {
+    // Applies the difference between two states of one document when the current transaction
+    // commits; before is null for a new document, after is null for a deleted one
+    void recordChange(Snapshot before, Snapshot after);
+    // Recomputes every day in [startDate, endDate]; returns the rollup rows written
+    long rebuild(LocalDate startDate, LocalDate endDate);
+    // Recomputes every day that has quotes, orders or invoices
+    long rebuildAll();
+
+    /**
+     * What one quote, order or invoice contributes to the rollup: a whole-document row, plus one
+     * row per product for quotes and orders. Copied out of the entity, so it is not affected by
+     * later changes to it.
+     */
+    record Snapshot(SalesDailyRollup.Kind kind, LocalDateTime createdDate, Long clientId, String status,
+                    BigDecimal amount, Map<Long, ProductLine> products) {
+
+        public static Snapshot of(Quote quote) {
+            Map<Long, ProductLine> products = new TreeMap<>();
+            for (QuoteItem item : quote.getItems()) {
+                products.merge(item.getProduct().getId(), new ProductLine(item.getQuantity(), item.getSubtotal()),
+                        ProductLine::plus);
+            }
+            return new Snapshot(SalesDailyRollup.Kind.QUOTE, quote.getCreatedDate(), quote.getClient().getId(),
+                    quote.getStatus() != null ? quote.getStatus().name() : SalesDailyRollup.NO_STATUS,
+                    quote.getTotalAmount(), Collections.unmodifiableMap(products));
+        }
+
+        public static Snapshot of(Order order) {
+            Map<Long, ProductLine> products = new TreeMap<>();
+            for (OrderItem item : order.getItems()) {
+                products.merge(item.getProduct().getId(), new ProductLine(item.getQuantity(), item.getSubtotal()),
+                        ProductLine::plus);
+            }
+            return new Snapshot(SalesDailyRollup.Kind.ORDER, order.getCreatedDate(), order.getClient().getId(),
+                    order.getStatus() != null ? order.getStatus().name() : SalesDailyRollup.NO_STATUS,
+                    order.getTotalAmount(), Collections.unmodifiableMap(products));
+        }
+
+        public static Snapshot of(Invoice invoice) {
+            return new Snapshot(SalesDailyRollup.Kind.INVOICE, invoice.getCreatedDate(), invoice.getClient().getId(),
+                    invoice.getStatus() != null ? invoice.getStatus().name() : SalesDailyRollup.NO_STATUS,
+                    invoice.getTotalAmount(), Map.of());
+        }
+    }
+
+    // The items of one product in a document; null quantities and subtotals count as absent, as in SUM
+    record ProductLine(long quantity, BigDecimal subtotal) {
+
+        public ProductLine(Integer quantity, BigDecimal subtotal) {
+            this(quantity != null ? quantity : 0, subtotal);
+        }
+
+        ProductLine plus(ProductLine other) {
+            BigDecimal sum = subtotal == null ? other.subtotal
+                    : other.subtotal == null ? subtotal : subtotal.add(other.subtotal);
+            return new ProductLine(quantity + other.quantity, sum);
+        }
+    }
+}
@@ -9,6 +9,8 @@ import com.secureops.sales.repository.ClientRepository;
 import com.secureops.sales.repository.InvoiceRepository;
 import com.secureops.sales.repository.OrderRepository;
 import com.secureops.sales.service.InvoiceService;
+import com.secureops.sales.service.SalesRollupService;
+import com.secureops.sales.service.SalesRollupService.Snapshot;
 import com.secureops.sales.util.DateUtils;
 import com.secureops.sales.util.NumberGenerator;
 import lombok.RequiredArgsConstructor;
@@ -27,6 +29,7 @@ public class InvoiceServiceImpl implements InvoiceService {
     private final OrderRepository orderRepository;
     private final ClientRepository clientRepository;
     private final NumberGenerator numberGenerator;
+    private final SalesRollupService salesRollupService;
 
     @Override
     public List<InvoiceResponse> getAllInvoices() {
@@ -77,10 +80,13 @@ public class InvoiceServiceImpl implements InvoiceService {
         invoice.setNotes(request.getNotes());
 
         // Update order status
+        Snapshot orderBefore = Snapshot.of(order);
         order.setStatus(OrderStatus.INVOICED);
         orderRepository.save(order);
 
         Invoice savedInvoice = invoiceRepository.save(invoice);
+        salesRollupService.recordChange(orderBefore, Snapshot.of(order));
+        salesRollupService.recordChange(null, Snapshot.of(savedInvoice));
         return convertToResponse(savedInvoice);
     }
 
@@ -115,10 +121,14 @@ public class InvoiceServiceImpl implements InvoiceService {
 
         // Update order status back to COMPLETED
         Order order = invoice.getOrder();
+        Snapshot orderBefore = Snapshot.of(order);
         order.setStatus(OrderStatus.COMPLETED);
         orderRepository.save(order);
 
+        Snapshot invoiceBefore = Snapshot.of(invoice);
         invoiceRepository.delete(invoice);
+        salesRollupService.recordChange(orderBefore, Snapshot.of(order));
+        salesRollupService.recordChange(invoiceBefore, null);
     }
 
     @Override
@@ -159,11 +169,13 @@ public class InvoiceServiceImpl implements InvoiceService {
             throw new BusinessException("Invoice is already marked as paid");
         }
 
+        Snapshot before = Snapshot.of(invoice);
         invoice.setStatus(InvoiceStatus.PAID);
         invoice.setPaymentDate(DateUtils.getCurrentDateTime());
         invoice.setPaymentMethod(paymentMethod);
 
         Invoice updatedInvoice = invoiceRepository.save(invoice);
+        salesRollupService.recordChange(before, Snapshot.of(updatedInvoice));
         return convertToResponse(updatedInvoice);
     }
 
@@ -17,6 +17,8 @@ import com.secureops.sales.repository.ProductRepository;
 import com.secureops.sales.repository.QuoteRepository;
 import com.secureops.sales.service.InvoiceService;
 import com.secureops.sales.service.OrderService;
+import com.secureops.sales.service.SalesRollupService;
+import com.secureops.sales.service.SalesRollupService.Snapshot;
 import com.secureops.sales.util.DateUtils;
 import com.secureops.sales.util.NumberGenerator;
 import lombok.RequiredArgsConstructor;
@@ -44,6 +46,7 @@ public class OrderServiceImpl implements OrderService {
     private final SalesEmployeeRepository salesEmployeeRepository;
     private final ProductRepository productRepository;
     private final NumberGenerator numberGenerator;
+    private final SalesRollupService salesRollupService;
 
     @Lazy
     private final InvoiceService invoiceService;
@@ -91,9 +94,11 @@ public class OrderServiceImpl implements OrderService {
             }
 
             // Update quote status
+            Snapshot quoteBefore = Snapshot.of(quote);
             quote.setStatus(QuoteStatus.CONVERTED_TO_ORDER);
             quote.setLastModifiedDate(DateUtils.getCurrentDateTime());
             quoteRepository.save(quote);
+            salesRollupService.recordChange(quoteBefore, Snapshot.of(quote));
         }
 
         // Create order
@@ -125,6 +130,7 @@ public class OrderServiceImpl implements OrderService {
         order.setTotalAmount(calculateTotal(items));
 
         Order savedOrder = orderRepository.save(order);
+        salesRollupService.recordChange(null, Snapshot.of(savedOrder));
         return convertToResponse(savedOrder);
     }
 
@@ -162,6 +168,7 @@ public class OrderServiceImpl implements OrderService {
         if (order.getStatus() == OrderStatus.INVOICED || order.getStatus() == OrderStatus.COMPLETED) {
             throw new BusinessException("Cannot update order that has been completed or invoiced");
         }
+        Snapshot before = Snapshot.of(order);
 
         // Get client
         Client client = clientRepository.findById(request.getClientId())
@@ -192,6 +199,7 @@ public class OrderServiceImpl implements OrderService {
         order.setTotalAmount(calculateTotal(order.getItems()));
 
         Order updatedOrder = orderRepository.save(order);
+        salesRollupService.recordChange(before, Snapshot.of(updatedOrder));
         return convertToResponse(updatedOrder);
     }
 
@@ -205,10 +213,12 @@ public class OrderServiceImpl implements OrderService {
         validateOrderStatusTransition(order.getStatus(), newStatus);
 
         // Update status and last modified date
+        Snapshot before = Snapshot.of(order);
         order.setStatus(newStatus);
         order.setLastModifiedDate(DateUtils.getCurrentDateTime());
 
         Order updatedOrder = orderRepository.save(order);
+        salesRollupService.recordChange(before, Snapshot.of(updatedOrder));
         return convertToResponse(updatedOrder);
     }
 
@@ -265,11 +275,15 @@ public class OrderServiceImpl implements OrderService {
         // If the order was converted from a quote, update the quote status back to ACCEPTED
         if (order.getQuote() != null) {
             Quote quote = order.getQuote();
+            Snapshot quoteBefore = Snapshot.of(quote);
             quote.setStatus(QuoteStatus.ACCEPTED);
             quoteRepository.save(quote);
+            salesRollupService.recordChange(quoteBefore, Snapshot.of(quote));
         }
 
+        Snapshot before = Snapshot.of(order);
         orderRepository.delete(order);
+        salesRollupService.recordChange(before, null);
     }
 
     @Override
@@ -317,9 +331,11 @@ public class OrderServiceImpl implements OrderService {
         // Create invoice
         InvoiceResponse invoiceResponse = invoiceService.createInvoice(invoiceRequest);
 
-        // Update order status
+        // Update order status; createInvoice already did, so this usually records no change
+        Snapshot before = Snapshot.of(order);
         order.setStatus(OrderStatus.INVOICED);
         orderRepository.save(order);
+        salesRollupService.recordChange(before, Snapshot.of(order));
 
         return invoiceResponse;
     }
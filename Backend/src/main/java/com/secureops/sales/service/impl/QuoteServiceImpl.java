@@ -14,6 +14,8 @@ import com.secureops.sales.repository.ProductRepository;
 import com.secureops.sales.repository.QuoteRepository;
 import com.secureops.sales.service.OrderService;
 import com.secureops.sales.service.QuoteService;
+import com.secureops.sales.service.SalesRollupService;
+import com.secureops.sales.service.SalesRollupService.Snapshot;
 import com.secureops.sales.util.DateUtils;
 import com.secureops.sales.util.NumberGenerator;
 import lombok.RequiredArgsConstructor;
@@ -39,6 +41,7 @@ public class QuoteServiceImpl implements QuoteService {
     private final SalesEmployeeRepository employeeRepository;
     private final ProductRepository productRepository;
     private final NumberGenerator numberGenerator;
+    private final SalesRollupService salesRollupService;
 
     @Lazy
     private final OrderService orderService;
@@ -100,6 +103,7 @@ public class QuoteServiceImpl implements QuoteService {
         quote.setTotalAmount(calculateTotal(items));
 
         Quote savedQuote = quoteRepository.save(quote);
+        salesRollupService.recordChange(null, Snapshot.of(savedQuote));
         return convertToResponse(savedQuote);
     }
 
@@ -112,6 +116,7 @@ public class QuoteServiceImpl implements QuoteService {
             if (quote.getStatus() == QuoteStatus.CONVERTED_TO_ORDER) {
                 throw new BusinessException("Cannot update quote that has been converted to an order");
             }
+            Snapshot before = Snapshot.of(quote);
     
             Client client = clientRepository.findById(request.getClientId())
                     .orElseThrow(() -> new ResourceNotFoundException("Client", "id", request.getClientId()));
@@ -142,6 +147,7 @@ public class QuoteServiceImpl implements QuoteService {
             quote.setTotalAmount(calculateTotal(items));
     
             Quote updatedQuote = quoteRepository.save(quote);
+            salesRollupService.recordChange(before, Snapshot.of(updatedQuote));
             return convertToResponse(updatedQuote);
         }
 
@@ -155,10 +161,12 @@ public class QuoteServiceImpl implements QuoteService {
         validateStatusTransition(quote.getStatus(), newStatus);
 
         // Update status and last modified date
+        Snapshot before = Snapshot.of(quote);
         quote.setStatus(newStatus);
         quote.setLastModifiedDate(DateUtils.getCurrentDateTime());
 
         Quote updatedQuote = quoteRepository.save(quote);
+        salesRollupService.recordChange(before, Snapshot.of(updatedQuote));
         return convertToResponse(updatedQuote);
     }
 
@@ -203,7 +211,9 @@ public class QuoteServiceImpl implements QuoteService {
             throw new BusinessException("Cannot delete quote that has been converted to an order");
         }
 
+        Snapshot before = Snapshot.of(quote);
         quoteRepository.delete(quote);
+        salesRollupService.recordChange(before, null);
     }
 
     @Override
@@ -243,9 +253,11 @@ public class QuoteServiceImpl implements QuoteService {
         }
 
         // Change quote status
+        Snapshot before = Snapshot.of(quote);
         quote.setStatus(QuoteStatus.CONVERTED_TO_ORDER);
         quote.setLastModifiedDate(DateUtils.getCurrentDateTime());
         quoteRepository.save(quote);
+        salesRollupService.recordChange(before, Snapshot.of(quote));
 
         // Create order from quote
         return orderService.createOrderFromQuote(quote);
@@ -10,79 +10,90 @@ import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.LocalTime;
 import java.util.*;
 import java.util.stream.Collectors;
-
+import java.util.stream.Stream;
+
+/**
+ * Reports read the days a range covers entirely from sales_daily_rollup, so they cost a few rows
+ * per day instead of every document and item in them. A first or last day the range covers only
+ * in part is read from the source tables, bounded by the range, so the time of day in the bounds
+ * still counts.
+ */
 @Service
 @RequiredArgsConstructor
 public class ReportServiceImpl implements ReportService {
 
-    private final QuoteRepository quoteRepository;
-    private final OrderRepository orderRepository;
-    private final InvoiceRepository invoiceRepository;
-    private final SalesEmployeeRepository salesEmployeeRepository;
+    private final SalesDailyRollupRepository rollupRepository;
     private final ClientRepository clientRepository;
 
-    private static final DateTimeFormatter MONTH_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM");
+    // The last instant of a day that a timestamp column can hold
+    private static final LocalTime END_OF_DAY = LocalTime.of(23, 59, 59, 999_999_000);
 
     @Override
     public SalesSummaryReport getSalesSummary(LocalDateTime startDate, LocalDateTime endDate) {
-        // Get all quotes within date range
-        List<Quote> quotes = quoteRepository.findByCreatedDateBetween(startDate, endDate);
-
-        // Get all orders within date range
-        List<Order> orders = orderRepository.findByCreatedDateBetween(startDate, endDate);
-
-        // Get all invoices within date range
-        List<Invoice> invoices = invoiceRepository.findByCreatedDateBetween(startDate, endDate);
-
-        // Calculate totals
-        int totalQuotes = quotes.size();
-        int acceptedQuotes = (int) quotes.stream()
-                .filter(q -> q.getStatus() == QuoteStatus.ACCEPTED || q.getStatus() == QuoteStatus.CONVERTED_TO_ORDER)
-                .count();
-        int rejectedQuotes = (int) quotes.stream()
-                .filter(q -> q.getStatus() == QuoteStatus.REJECTED)
-                .count();
-
-        int totalOrders = orders.size();
-        int completedOrders = (int) orders.stream()
-                .filter(o -> o.getStatus() == OrderStatus.COMPLETED || o.getStatus() == OrderStatus.INVOICED)
-                .count();
-        int cancelledOrders = (int) orders.stream()
-                .filter(o -> o.getStatus() == OrderStatus.CANCELLED)
-                .count();
-
-        int totalInvoices = invoices.size();
-        int paidInvoices = (int) invoices.stream()
-                .filter(i -> i.getStatus() == InvoiceStatus.PAID)
-                .count();
-        int overdueInvoices = (int) invoices.stream()
-                .filter(i -> i.getStatus() == InvoiceStatus.OVERDUE)
-                .count();
-
-        // Calculate total sales and average order value
-        BigDecimal totalSales = orders.stream()
-                .filter(o -> o.getStatus() != OrderStatus.CANCELLED)
-                .map(Order::getTotalAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        int totalQuotes = 0;
+        int acceptedQuotes = 0;
+        int rejectedQuotes = 0;
+        int totalOrders = 0;
+        int completedOrders = 0;
+        int cancelledOrders = 0;
+        BigDecimal totalSales = BigDecimal.ZERO;
+        int totalInvoices = 0;
+        int paidInvoices = 0;
+        int overdueInvoices = 0;
+
+        Span span = span(startDate, endDate);
+        List<SalesDailyRollupRepository.StatusTotal> rows =
+                new ArrayList<>(rollupRepository.sumByKindAndStatus(span.firstDay(), span.lastDay()));
+        span.partialDays().stream().filter(ReportServiceImpl::isWholeDocument).forEach(rows::add);
+        for (SalesDailyRollupRepository.StatusTotal row : rows) {
+            int count = (int) row.getDocuments();
+            String status = row.getStatus();
+            switch (row.getKind()) {
+                case QUOTE:
+                    totalQuotes += count;
+                    if (QuoteStatus.ACCEPTED.name().equals(status) || QuoteStatus.CONVERTED_TO_ORDER.name().equals(status)) {
+                        acceptedQuotes += count;
+                    } else if (QuoteStatus.REJECTED.name().equals(status)) {
+                        rejectedQuotes += count;
+                    }
+                    break;
+                case ORDER:
+                    totalOrders += count;
+                    if (OrderStatus.CANCELLED.name().equals(status)) {
+                        cancelledOrders += count;
+                        break;
+                    }
+                    if (OrderStatus.COMPLETED.name().equals(status) || OrderStatus.INVOICED.name().equals(status)) {
+                        completedOrders += count;
+                    }
+                    if (row.getAmount() != null) {
+                        totalSales = totalSales.add(row.getAmount());
+                    }
+                    break;
+                case INVOICE:
+                    totalInvoices += count;
+                    if (InvoiceStatus.PAID.name().equals(status)) {
+                        paidInvoices += count;
+                    } else if (InvoiceStatus.OVERDUE.name().equals(status)) {
+                        overdueInvoices += count;
+                    }
+                    break;
+            }
+        }
 
         BigDecimal averageOrderValue = totalOrders > 0 ?
                 totalSales.divide(BigDecimal.valueOf(totalOrders), 2, RoundingMode.HALF_UP) :
                 BigDecimal.ZERO;
 
-        // Generate monthly sales data
-        Map<String, BigDecimal> monthlySales = orders.stream()
-                .filter(o -> o.getStatus() != OrderStatus.CANCELLED)
-                .collect(Collectors.groupingBy(
-                        o -> o.getCreatedDate().format(MONTH_FORMATTER),
-                        Collectors.mapping(
-                                Order::getTotalAmount,
-                                Collectors.reducing(BigDecimal.ZERO, BigDecimal::add)
-                        )
-                ));
+        // Monthly sales data, in month order
+        Map<String, BigDecimal> monthlySales = monthlyTotals(
+                rollupRepository.sumOrdersByMonth(span.firstDay(), span.lastDay()),
+                span.partialDays().stream());
 
         return SalesSummaryReport.builder()
                 .totalSales(totalSales)
@@ -107,61 +118,44 @@ public class ReportServiceImpl implements ReportService {
         Client client = clientRepository.findById(clientId)
                 .orElseThrow(() -> new ResourceNotFoundException("Client", "id", clientId));
 
-        // Get client orders within date range
-        List<Order> orders = orderRepository.findByClientIdAndCreatedDateBetween(
-                clientId, startDate, endDate);
-
-        int orderCount = orders.size();
+        Span span = span(startDate, endDate);
+        List<SalesDailyRollupRepository.SourceRow> partialDays = span.partialDays().stream()
+                .filter(row -> clientId.equals(row.getClientId()))
+                .collect(Collectors.toList());
 
-        // Calculate total spent
-        BigDecimal totalSpent = orders.stream()
-                .filter(o -> o.getStatus() != OrderStatus.CANCELLED)
-                .map(Order::getTotalAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        int orderCount = 0;
+        BigDecimal totalSpent = BigDecimal.ZERO;
+        LocalDateTime lastOrderDate = null;
+        List<SalesDailyRollupRepository.StatusTotal> rows = new ArrayList<>(rollupRepository
+                .sumByStatusForClient(SalesDailyRollup.Kind.ORDER, clientId, span.firstDay(), span.lastDay()));
+        partialDays.stream()
+                .filter(row -> row.getKind() == SalesDailyRollup.Kind.ORDER && isWholeDocument(row))
+                .forEach(rows::add);
+        for (SalesDailyRollupRepository.StatusTotal row : rows) {
+            orderCount += (int) row.getDocuments();
+            if (row.getLastCreatedAt() != null && (lastOrderDate == null || row.getLastCreatedAt().isAfter(lastOrderDate))) {
+                lastOrderDate = row.getLastCreatedAt();
+            }
+            if (!OrderStatus.CANCELLED.name().equals(row.getStatus()) && row.getAmount() != null) {
+                totalSpent = totalSpent.add(row.getAmount());
+            }
+        }
 
         // Calculate average order value
         BigDecimal averageOrderValue = orderCount > 0 ?
                 totalSpent.divide(BigDecimal.valueOf(orderCount), 2, RoundingMode.HALF_UP) :
                 BigDecimal.ZERO;
 
-        // Find last order date
-        LocalDateTime lastOrderDate = orders.stream()
-                .map(Order::getCreatedDate)
-                .max(Comparator.naturalOrder())
-                .orElse(null);
-
-        // Generate monthly spending data
-        Map<String, BigDecimal> monthlySpending = orders.stream()
-                .filter(o -> o.getStatus() != OrderStatus.CANCELLED)
-                .collect(Collectors.groupingBy(
-                        o -> o.getCreatedDate().format(MONTH_FORMATTER),
-                        Collectors.mapping(
-                                Order::getTotalAmount,
-                                Collectors.reducing(BigDecimal.ZERO, BigDecimal::add)
-                        )
-                ));
-
-        // Find top products
-        Map<Product, Integer> productQuantities = new HashMap<>();
-        Map<Product, BigDecimal> productRevenues = new HashMap<>();
-
-        orders.stream()
-                .filter(o -> o.getStatus() != OrderStatus.CANCELLED)
-                .flatMap(o -> o.getItems().stream())
-                .forEach(item -> {
-                    Product product = item.getProduct();
-                    productQuantities.merge(product, item.getQuantity(), Integer::sum);
-                    productRevenues.merge(product, item.getSubtotal(), BigDecimal::add);
-                });
-
-        List<ProductSalesSummary> topProducts = productQuantities.entrySet().stream()
-                .map(entry -> ProductSalesSummary.builder()
-                        .productId(entry.getKey().getId())
-                        .productName(entry.getKey().getName())
-                        .quantitySold(entry.getValue())
-                        .totalRevenue(productRevenues.get(entry.getKey()))
-                        .build())
-                .sorted(Comparator.comparing(ProductSalesSummary::getTotalRevenue).reversed())
+        // Monthly spending data, in month order
+        Map<String, BigDecimal> monthlySpending = monthlyTotals(
+                rollupRepository.sumOrdersByMonthForClient(clientId, span.firstDay(), span.lastDay()),
+                partialDays.stream());
+
+        // Top products by revenue
+        List<ProductSalesSummary> topProducts = productSales(
+                rollupRepository.sumProductsForClient(SalesDailyRollup.Kind.ORDER, clientId,
+                        span.firstDay(), span.lastDay()),
+                partialDays.stream()).stream()
                 .limit(5)
                 .collect(Collectors.toList());
 
@@ -179,36 +173,13 @@ public class ReportServiceImpl implements ReportService {
 
     @Override
     public ProductSalesReport getProductSalesReport(LocalDateTime startDate, LocalDateTime endDate) {
-        // Get all orders within date range
-        List<Order> orders = orderRepository.findByCreatedDateBetween(startDate, endDate)
-                .stream()
-                .filter(o -> o.getStatus() != OrderStatus.CANCELLED)
-                .collect(Collectors.toList());
+        Span span = span(startDate, endDate);
+        List<ProductSalesSummary> productSales = productSales(
+                rollupRepository.sumProducts(SalesDailyRollup.Kind.ORDER, span.firstDay(), span.lastDay()),
+                span.partialDays().stream());
 
-        // Calculate product sales metrics
-        Map<Product, Integer> productQuantities = new HashMap<>();
-        Map<Product, BigDecimal> productRevenues = new HashMap<>();
-
-        orders.stream()
-                .flatMap(o -> o.getItems().stream())
-                .forEach(item -> {
-                    Product product = item.getProduct();
-                    productQuantities.merge(product, item.getQuantity(), Integer::sum);
-                    productRevenues.merge(product, item.getSubtotal(), BigDecimal::add);
-                });
-
-        List<ProductSalesSummary> productSales = productQuantities.entrySet().stream()
-                .map(entry -> ProductSalesSummary.builder()
-                        .productId(entry.getKey().getId())
-                        .productName(entry.getKey().getName())
-                        .quantitySold(entry.getValue())
-                        .totalRevenue(productRevenues.get(entry.getKey()))
-                        .build())
-                .sorted(Comparator.comparing(ProductSalesSummary::getTotalRevenue).reversed())
-                .collect(Collectors.toList());
-
-        int totalProductsSold = productQuantities.values().stream()
-                .mapToInt(Integer::intValue)
+        int totalProductsSold = productSales.stream()
+                .mapToInt(ProductSalesSummary::getQuantitySold)
                 .sum();
 
         return ProductSalesReport.builder()
@@ -216,4 +187,89 @@ public class ReportServiceImpl implements ReportService {
                 .productSales(productSales)
                 .build();
     }
+
+    // The whole days in [firstDay, lastDay] come from the rollup, the rest of the range from partialDays
+    private record Span(LocalDate firstDay, LocalDate lastDay, List<SalesDailyRollupRepository.SourceRow> partialDays) {
+    }
+
+    private Span span(LocalDateTime startDate, LocalDateTime endDate) {
+        LocalDate firstDay = startDate.toLocalTime().equals(LocalTime.MIDNIGHT)
+                ? startDate.toLocalDate() : startDate.toLocalDate().plusDays(1);
+        LocalDate lastDay = endDate.toLocalTime().isBefore(END_OF_DAY)
+                ? endDate.toLocalDate().minusDays(1) : endDate.toLocalDate();
+        if (firstDay.isAfter(lastDay)) {
+            // No whole day in the range, so it spans less than two days; the rollup queries find nothing
+            return new Span(firstDay, lastDay, rollupRepository.summarizeCreatedBetween(startDate, endDate));
+        }
+
+        List<SalesDailyRollupRepository.SourceRow> partialDays = new ArrayList<>();
+        if (startDate.isBefore(firstDay.atStartOfDay())) {
+            partialDays.addAll(rollupRepository.summarizeCreatedBetween(
+                    startDate, firstDay.minusDays(1).atTime(END_OF_DAY)));
+        }
+        LocalDateTime afterLastDay = lastDay.plusDays(1).atStartOfDay();
+        if (!endDate.isBefore(afterLastDay)) {
+            partialDays.addAll(rollupRepository.summarizeCreatedBetween(afterLastDay, endDate));
+        }
+        return new Span(firstDay, lastDay, partialDays);
+    }
+
+    private static boolean isWholeDocument(SalesDailyRollupRepository.SourceRow row) {
+        return row.getProductId() == 0;
+    }
+
+    // Non-cancelled order totals per month (yyyy-MM), in month order
+    private static Map<String, BigDecimal> monthlyTotals(List<SalesDailyRollupRepository.MonthTotal> wholeDays,
+                                                         Stream<SalesDailyRollupRepository.SourceRow> partialDays) {
+        Map<String, BigDecimal> totals = new TreeMap<>();
+        for (SalesDailyRollupRepository.MonthTotal row : wholeDays) {
+            totals.put(row.getMonth(), row.getTotal());
+        }
+        partialDays
+                .filter(row -> row.getKind() == SalesDailyRollup.Kind.ORDER && isWholeDocument(row))
+                .filter(row -> !OrderStatus.CANCELLED.name().equals(row.getStatus()) && row.getAmount() != null)
+                .forEach(row -> totals.merge(row.getMonth(), row.getAmount(), BigDecimal::add));
+        return new LinkedHashMap<>(totals);
+    }
+
+    // Order items per product by revenue, highest first; cancelled orders excluded
+    private List<ProductSalesSummary> productSales(List<SalesDailyRollupRepository.ProductTotal> wholeDays,
+                                                   Stream<SalesDailyRollupRepository.SourceRow> partialDays) {
+        Map<Long, ProductSalesSummary> products = new LinkedHashMap<>();
+        for (SalesDailyRollupRepository.ProductTotal row : wholeDays) {
+            products.put(row.getProductId(), toProductSalesSummary(row));
+        }
+        List<SalesDailyRollupRepository.SourceRow> partialRows = partialDays
+                .filter(row -> row.getKind() == SalesDailyRollup.Kind.ORDER && !isWholeDocument(row))
+                .filter(row -> !OrderStatus.CANCELLED.name().equals(row.getStatus()))
+                .collect(Collectors.toList());
+        if (partialRows.isEmpty()) {
+            return new ArrayList<>(products.values());
+        }
+
+        for (SalesDailyRollupRepository.SourceRow row : partialRows) {
+            ProductSalesSummary product = products.computeIfAbsent(row.getProductId(), id -> ProductSalesSummary.builder()
+                    .productId(id)
+                    .productName(row.getProductName())
+                    .quantitySold(0)
+                    .build());
+            product.setQuantitySold(product.getQuantitySold() + (int) row.getQuantity());
+            product.setTotalRevenue(product.getTotalRevenue() == null ? row.getAmount()
+                    : row.getAmount() == null ? product.getTotalRevenue() : product.getTotalRevenue().add(row.getAmount()));
+        }
+        // Sums of null subtotals only come first, as they do in the rollup query
+        List<ProductSalesSummary> sorted = new ArrayList<>(products.values());
+        sorted.sort(Comparator.comparing(ProductSalesSummary::getTotalRevenue,
+                Comparator.nullsFirst(Comparator.<BigDecimal>reverseOrder())));
+        return sorted;
+    }
+
+    private ProductSalesSummary toProductSalesSummary(SalesDailyRollupRepository.ProductTotal row) {
+        return ProductSalesSummary.builder()
+                .productId(row.getProductId())
+                .productName(row.getProductName())
+                .quantitySold((int) row.getQuantity())
+                .totalRevenue(row.getAmount())
+                .build();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,236 @@
+package com.secureops.sales.service.impl;
+
+import com.secureops.sales.entity.SalesDailyRollup;
+import com.secureops.sales.repository.SalesDailyRollupRepository;
+import com.secureops.sales.service.SalesRollupService;
+import com.secureops.sales.service.SalesRollupService.ProductLine;
+import com.secureops.sales.service.SalesRollupService.Snapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Keeps sales_daily_rollup in step with quotes, orders and invoices.
+ *
+ * Writers report each document they touch as a snapshot before and after the change. The
+ * differences are merged per rollup row and, before the transaction commits, added to those rows
+ * with one upsert each, so the rollup commits or rolls back with the change and a write costs a
+ * few single-row statements however busy the day is. Rows are updated in key order, so two
+ * writers never wait on each other's rows in a cycle. Writers hold a shared advisory lock per day,
+ * which only a rebuild takes exclusively: a rebuild recomputes whole days from the source tables
+ * and must not interleave with deltas to them.
+ */
+@Service
+public class SalesRollupServiceImpl implements SalesRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SalesRollupServiceImpl.class);
+
+    // High half of the advisory lock key, so day locks do not collide with other users of advisory locks
+    private static final long LOCK_NAMESPACE = 0x53414c45L << 32;
+
+    private final SalesDailyRollupRepository rollupRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int rebuildChunkDays;
+
+    public SalesRollupServiceImpl(SalesDailyRollupRepository rollupRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.sales.rollup.rebuild-chunk-days:31}") int rebuildChunkDays) {
+        this.rollupRepository = rollupRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.rebuildChunkDays = Math.max(1, rebuildChunkDays);
+    }
+
+    @Override
+    public void recordChange(Snapshot before, Snapshot after) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            PendingDeltas deltas = new PendingDeltas();
+            deltas.add(before, after);
+            transactionTemplate.executeWithoutResult(status -> apply(deltas.rows));
+            return;
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingDeltas deltas) {
+                deltas.add(before, after);
+                return;
+            }
+        }
+        PendingDeltas deltas = new PendingDeltas();
+        deltas.add(before, after);
+        TransactionSynchronizationManager.registerSynchronization(deltas);
+    }
+
+    @Override
+    public long rebuild(LocalDate startDate, LocalDate endDate) {
+        long started = System.currentTimeMillis();
+        long rows = 0;
+        // One transaction per chunk keeps locks and undo short on a full backfill
+        LocalDate end = endDate.plusDays(1);
+        for (LocalDate from = startDate; from.isBefore(end); from = from.plusDays(rebuildChunkDays)) {
+            LocalDate chunkStart = from;
+            LocalDate chunkEnd = from.plusDays(rebuildChunkDays).isBefore(end) ? from.plusDays(rebuildChunkDays) : end;
+            Integer written = transactionTemplate.execute(status -> {
+                lockDays(chunkStart.datesUntil(chunkEnd).toList());
+                rollupRepository.deleteRange(chunkStart, chunkEnd);
+                return rollupRepository.insertRange(chunkStart, chunkEnd);
+            });
+            rows += written != null ? written : 0;
+        }
+        logger.info("Sales rollup rebuilt - {} to {}: {} rows in {} ms", startDate, endDate, rows,
+                System.currentTimeMillis() - started);
+        return rows;
+    }
+
+    @Override
+    public long rebuildAll() {
+        LocalDateTime first = null;
+        LocalDateTime last = null;
+        for (SalesDailyRollupRepository.DateRange range : List.of(rollupRepository.findQuoteDateRange(),
+                rollupRepository.findOrderDateRange(), rollupRepository.findInvoiceDateRange())) {
+            if (range.getFirstCreated() == null) {
+                continue;
+            }
+            first = first == null || range.getFirstCreated().isBefore(first) ? range.getFirstCreated() : first;
+            last = last == null || range.getLastCreated().isAfter(last) ? range.getLastCreated() : last;
+        }
+        if (first == null) {
+            logger.info("Sales rollup rebuild skipped, no quotes, orders or invoices");
+            return 0;
+        }
+        return rebuild(first.toLocalDate(), last.toLocalDate());
+    }
+
+    private void apply(SortedMap<RowKey, Delta> rows) {
+        // Only the refresh of last_created_at reads the source tables, but it must see this transaction's changes
+        rollupRepository.flush();
+        LocalDate lockedDay = null;
+        for (Map.Entry<RowKey, Delta> row : rows.entrySet()) {
+            RowKey key = row.getKey();
+            Delta delta = row.getValue();
+            if (!key.day().equals(lockedDay)) {
+                rollupRepository.lockDayShared(lockKey(key.day()));
+                lockedDay = key.day();
+            }
+            if (delta.isEmpty()) {
+                continue;
+            }
+            // With only removals there is nothing to raise last_created_at to; the removed time leaves it as it is
+            rollupRepository.upsertDelta(key.day(), key.kind().name(), key.clientId(), key.productId(), key.status(),
+                    delta.documents, delta.quantity, delta.amount,
+                    delta.lastCreatedAt != null ? delta.lastCreatedAt : delta.removedCreatedAt);
+            if (delta.documents < 0) {
+                rollupRepository.deleteIfEmpty(key.day(), key.kind().name(), key.clientId(), key.productId(), key.status());
+            }
+            // GREATEST cannot take a removed maximum back; reports only read it from whole-document rows
+            if (key.productId() == SalesDailyRollup.ALL_PRODUCTS && delta.removedLatest()) {
+                rollupRepository.refreshLastCreatedAt(key.day(), key.day().plusDays(1), key.kind().name(),
+                        key.clientId(), key.status(), delta.removedCreatedAt);
+            }
+        }
+        logger.debug("Sales rollup updated - {} rows", rows.size());
+    }
+
+    // Callers pass days in ascending order, so two transactions never wait on each other in a cycle
+    private void lockDays(Collection<LocalDate> days) {
+        for (LocalDate day : days) {
+            rollupRepository.lockDay(lockKey(day));
+        }
+    }
+
+    private static long lockKey(LocalDate day) {
+        return LOCK_NAMESPACE | (day.toEpochDay() & 0xffffffffL);
+    }
+
+    // The rollup rows one transaction changes, with what it adds to each
+    private class PendingDeltas implements TransactionSynchronization {
+        private final SortedMap<RowKey, Delta> rows = new TreeMap<>();
+
+        void add(Snapshot before, Snapshot after) {
+            if (before != null && before.createdDate() != null) {
+                add(before, -1);
+            }
+            if (after != null && after.createdDate() != null) {
+                add(after, 1);
+            }
+        }
+
+        private void add(Snapshot snapshot, int sign) {
+            LocalDate day = snapshot.createdDate().toLocalDate();
+            rows.computeIfAbsent(new RowKey(day, snapshot.kind(), snapshot.clientId(), SalesDailyRollup.ALL_PRODUCTS,
+                    snapshot.status()), key -> new Delta())
+                    .add(sign, 0, snapshot.amount(), snapshot.createdDate());
+            for (Map.Entry<Long, ProductLine> product : snapshot.products().entrySet()) {
+                rows.computeIfAbsent(new RowKey(day, snapshot.kind(), snapshot.clientId(), product.getKey(),
+                        snapshot.status()), key -> new Delta())
+                        .add(sign, product.getValue().quantity(), product.getValue().subtotal(), snapshot.createdDate());
+            }
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            apply(rows);
+        }
+    }
+
+    private record RowKey(LocalDate day, SalesDailyRollup.Kind kind, Long clientId, Long productId, String status)
+            implements Comparable<RowKey> {
+
+        private static final Comparator<RowKey> ORDER = Comparator.comparing(RowKey::day)
+                .thenComparing(RowKey::kind)
+                .thenComparing(RowKey::clientId)
+                .thenComparing(RowKey::productId)
+                .thenComparing(RowKey::status);
+
+        @Override
+        public int compareTo(RowKey other) {
+            return ORDER.compare(this, other);
+        }
+    }
+
+    private static class Delta {
+        private long documents;
+        private long quantity;
+        // Null totals and subtotals add nothing, as in SUM
+        private BigDecimal amount = BigDecimal.ZERO;
+        // Latest creation time added to the row, and latest removed from it
+        private LocalDateTime lastCreatedAt;
+        private LocalDateTime removedCreatedAt;
+
+        void add(int sign, long quantity, BigDecimal amount, LocalDateTime createdDate) {
+            this.documents += sign;
+            this.quantity += sign * quantity;
+            if (amount != null) {
+                this.amount = sign < 0 ? this.amount.subtract(amount) : this.amount.add(amount);
+            }
+            if (sign > 0) {
+                lastCreatedAt = lastCreatedAt == null || createdDate.isAfter(lastCreatedAt) ? createdDate : lastCreatedAt;
+            } else {
+                removedCreatedAt = removedCreatedAt == null || createdDate.isAfter(removedCreatedAt) ? createdDate : removedCreatedAt;
+            }
+        }
+
+        // Whether a document left the row that may have been its latest
+        boolean removedLatest() {
+            return removedCreatedAt != null && (lastCreatedAt == null || removedCreatedAt.isAfter(lastCreatedAt));
+        }
+
+        // A change that left the row as it was, e.g. an update that did not touch totals or status
+        boolean isEmpty() {
+            return documents == 0 && quantity == 0 && amount.signum() == 0 && !removedLatest();
+        }
+    }
+}
@@ -6,6 +6,7 @@ import com.secureops.dto.LoginDto;
 import com.secureops.dto.UserDto;
 import com.secureops.entity.User;
 import com.secureops.exception.BadRequestException;
+import com.secureops.exception.ServiceUnavailableException;
 import com.secureops.exception.UnauthorizedException;
 import com.secureops.repository.UserRepository;
 import com.secureops.util.AppConstants;
@@ -112,6 +113,9 @@ public class AuthServiceImpl implements AuthService {
                 
                 return new JwtAuthResponse(token, userDto);
                 
+            } catch (ServiceUnavailableException ex) {
+                // Password hashing pool is saturated, the credentials were never checked
+                throw ex;
             } catch (Exception ex) {
                 // Log authentication failure
                 logger.error("Authentication failed for user: {}", maskEmail(email), ex);
@@ -119,7 +123,7 @@ public class AuthServiceImpl implements AuthService {
                         user.getId(), clientIp, ex.getMessage());
                 throw ex;
             }
-        } catch (BadRequestException | UnauthorizedException ex) {
+        } catch (BadRequestException | UnauthorizedException | ServiceUnavailableException ex) {
             // Re-throw these exceptions since they're already logged
             throw ex;
         } catch (Exception ex) {
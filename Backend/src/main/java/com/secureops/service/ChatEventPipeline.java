@@ -0,0 +1,112 @@
+package com.secureops.service;
+
+import com.secureops.util.PartitionedExecutor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the post-commit side effects of chat activity (audit log, WebSocket broadcast) off the
+ * sender's thread.
+ *
+ * Work is partitioned by chat id: everything for one chat runs on one lane in commit order, so
+ * subscribers see messages in the order they were stored, while different chats proceed in
+ * parallel. Tasks are only handed over once the surrounding transaction has committed, so nothing
+ * is broadcast for a message that was rolled back.
+ */
+@Component
+public class ChatEventPipeline implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatEventPipeline.class);
+
+    private final PartitionedExecutor executor;
+    private final Timer queueLagTimer;
+    private final Timer taskTimer;
+    private final Counter rejectedCounter;
+    private final Counter failedCounter;
+
+    public ChatEventPipeline(@Value("${app.chat.pipeline.lanes:0}") int lanes,
+            @Value("${app.chat.pipeline.queue-capacity:1000}") int queueCapacity,
+            @Value("${app.chat.pipeline.offer-timeout-ms:200}") long offerTimeoutMs,
+            MeterRegistry meterRegistry) {
+        int laneCount = lanes > 0 ? lanes : Runtime.getRuntime().availableProcessors();
+        this.executor = new PartitionedExecutor("chat-pipeline", laneCount, queueCapacity, offerTimeoutMs);
+
+        Gauge.builder("secureops.chat.pipeline.queued", executor, PartitionedExecutor::getQueuedTaskCount)
+                .description("Chat events waiting for their lane")
+                .register(meterRegistry);
+        this.queueLagTimer = Timer.builder("secureops.chat.pipeline.lag")
+                .description("Time from commit to the start of the chat event task")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.taskTimer = Timer.builder("secureops.chat.pipeline.task")
+                .description("Time spent running a chat event task")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("secureops.chat.pipeline.rejected")
+                .description("Chat events dropped because their lane stayed full")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("secureops.chat.pipeline.failed")
+                .description("Chat event tasks that threw")
+                .register(meterRegistry);
+
+        logger.info("ChatEventPipeline initialized - lanes: {}, queue capacity: {}, offer timeout: {} ms",
+                laneCount, queueCapacity, offerTimeoutMs);
+    }
+
+    /**
+     * Queues the task on the chat's lane once the current transaction commits (dropped on
+     * rollback), or right away when called outside a transaction.
+     */
+    public void dispatch(Long chatId, Runnable task) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(chatId, task);
+                }
+            });
+        } else {
+            submit(chatId, task);
+        }
+    }
+
+    private void submit(Long chatId, Runnable task) {
+        long enqueuedAt = System.nanoTime();
+        try {
+            executor.execute(chatId, () -> {
+                queueLagTimer.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+                long startedAt = System.nanoTime();
+                try {
+                    task.run();
+                } catch (Exception ex) {
+                    failedCounter.increment();
+                    logger.error("Chat event task failed - ChatID: {}", chatId, ex);
+                } finally {
+                    taskTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            // The message itself is stored; clients pick it up on their next history or sync call
+            rejectedCounter.increment();
+            logger.error("Chat event dropped - ChatID: {}, Reason: {}", chatId, ex.getMessage());
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        logger.info("Draining chat event pipeline");
+        executor.shutdown(5000);
+    }
+}
@@ -0,0 +1,135 @@
+package com.secureops.service;
+
+import com.secureops.entity.Chat;
+import com.secureops.repository.ChatRepository;
+import com.secureops.util.BoundedCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Lazily loaded index of chat membership: chatId -> (title, status, participant ids).
+ *
+ * Lets the message hot path authorize a sender without loading the Chat entity and its whole
+ * participant set. Snapshots are immutable; ChatServiceImpl invalidates a chat whenever it
+ * changes participants or status, and the entry is reloaded on the next access.
+ */
+@Component
+public class ChatMembershipCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatMembershipCache.class);
+
+    private final ChatRepository chatRepository;
+    private final BoundedCache<Long, Membership> cache;
+
+    public ChatMembershipCache(ChatRepository chatRepository,
+            @Value("${app.cache.chat-membership.max-size:20000}") int maxSize,
+            @Value("${app.cache.chat-membership.ttl:30m}") Duration ttl,
+            MeterRegistry meterRegistry) {
+        this.chatRepository = chatRepository;
+        this.cache = new BoundedCache<>(maxSize, ttl);
+
+        Gauge.builder("secureops.cache.size", cache, BoundedCache::size)
+                .tag("cache", "chat-membership").register(meterRegistry);
+        FunctionCounter.builder("secureops.cache.gets", cache, BoundedCache::getHitCount)
+                .tags("cache", "chat-membership", "result", "hit").register(meterRegistry);
+        FunctionCounter.builder("secureops.cache.gets", cache, BoundedCache::getMissCount)
+                .tags("cache", "chat-membership", "result", "miss").register(meterRegistry);
+
+        logger.info("ChatMembershipCache initialized - max size: {}, ttl: {}", maxSize, ttl);
+    }
+
+    /**
+     * Returns the membership snapshot, or null if the chat does not exist.
+     */
+    public Membership get(Long chatId) {
+        return cache.get(chatId, this::load);
+    }
+
+    public boolean isParticipant(Long chatId, Long userId) {
+        Membership membership = get(chatId);
+        return membership != null && membership.contains(userId);
+    }
+
+    /**
+     * Drops the chat now and again once the surrounding transaction completes, so a reader racing
+     * the transaction cannot keep the pre-commit participants. Each drop also discards any load of
+     * the chat still in flight, which may have read the participants before the change.
+     */
+    public void invalidate(Long chatId) {
+        cache.invalidate(chatId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.invalidate(chatId);
+                }
+            });
+        }
+        logger.debug("Chat membership invalidated - ChatID: {}", chatId);
+    }
+
+    private Membership load(Long chatId) {
+        return chatRepository.findHeaderById(chatId)
+                .map(header -> {
+                    List<Long> participantIds = chatRepository.findParticipantIds(chatId);
+                    long[] ids = participantIds.stream().mapToLong(Long::longValue).sorted().toArray();
+                    logger.debug("Chat membership loaded - ChatID: {}, Participants: {}", chatId, ids.length);
+                    return new Membership(chatId, header.getTitle(), header.getStatus(), ids);
+                })
+                .orElse(null);
+    }
+
+    public static final class Membership {
+        private final Long chatId;
+        private final String title;
+        private final Chat.ChatStatus status;
+        // Sorted, so a membership check is a binary search over a primitive array
+        private final long[] participantIds;
+
+        private Membership(Long chatId, String title, Chat.ChatStatus status, long[] participantIds) {
+            this.chatId = chatId;
+            this.title = title;
+            this.status = status;
+            this.participantIds = participantIds;
+        }
+
+        public boolean contains(Long userId) {
+            return userId != null && Arrays.binarySearch(participantIds, userId) >= 0;
+        }
+
+        public Long getChatId() {
+            return chatId;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public Chat.ChatStatus getStatus() {
+            return status;
+        }
+
+        public boolean isActive() {
+            return status == Chat.ChatStatus.ACTIVE;
+        }
+
+        public int getParticipantCount() {
+            return participantIds.length;
+        }
+
+        public long[] getParticipantIds() {
+            return participantIds.clone();
+        }
+    }
+}
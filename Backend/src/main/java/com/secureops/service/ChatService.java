@@ -1,6 +1,7 @@
 package com.secureops.service;
 
 import com.secureops.dto.ChatDto;
+import com.secureops.dto.ChatSummaryDto;
 import com.secureops.entity.Chat;
 
 import java.util.List;
@@ -8,6 +9,8 @@ import java.util.List;
 public interface ChatService {
     Chat createChat(ChatDto chatDto, List<Long> participantIds);
     List<Chat> getUserChats(Long userId);
+    // Chat list with participants, last message and unread count, in a fixed number of queries
+    List<ChatSummaryDto> getUserChatSummaries(Long userId);
     Chat getChatById(Long id);
     Chat archiveChat(Long id);
     Chat unarchiveChat(Long id);
@@ -1,6 +1,7 @@
 package com.secureops.service;
 
 import com.secureops.dto.ChatDto;
+import com.secureops.dto.ChatSummaryDto;
 import com.secureops.entity.Chat;
 import com.secureops.entity.User;
 import com.secureops.exception.BadRequestException;
@@ -22,7 +23,9 @@ import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.servlet.http.HttpServletRequest;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class ChatServiceImpl implements ChatService {
@@ -33,16 +36,22 @@ public class ChatServiceImpl implements ChatService {
     private final ChatRepository chatRepository;
     private final UserRepository userRepository;
     private final LogService logService;
+    private final ChatMembershipCache chatMembershipCache;
+    private final UserService userService;
 
     @PersistenceContext
     private EntityManager entityManager;
 
     public ChatServiceImpl(ChatRepository chatRepository,
             UserRepository userRepository,
-            LogService logService) {
+            LogService logService,
+            ChatMembershipCache chatMembershipCache,
+            UserService userService) {
         this.chatRepository = chatRepository;
         this.userRepository = userRepository;
         this.logService = logService;
+        this.chatMembershipCache = chatMembershipCache;
+        this.userService = userService;
         logger.info("ChatServiceImpl initialized");
     }
 
@@ -105,6 +114,9 @@ public class ChatServiceImpl implements ChatService {
                 }
             }
 
+            // A lookup may have raced the creation, drop anything cached for the new id
+            chatMembershipCache.invalidate(savedChat.getId());
+
             // Log chat creation
             logService.createLog(
                     AppConstants.LOG_ACTION_CREATE,
@@ -180,21 +192,10 @@ public class ChatServiceImpl implements ChatService {
             List<Long> chatIds = chatRepository.findChatIdsByUserId(userId);
             logger.debug("Found {} chat IDs for user - UserID: {}", chatIds.size(), userId);
 
-            // Load chats individually with basic data only
-            List<Chat> chats = new ArrayList<>();
-            for (Long chatId : chatIds) {
-                logger.trace("Loading chat details - ChatID: {}", chatId);
-
-                Chat chat = entityManager.createQuery(
-                        "SELECT c FROM Chat c LEFT JOIN FETCH c.participants WHERE c.id = :id",
-                        Chat.class)
-                        .setParameter("id", chatId)
-                        .getSingleResult();
-
-                logger.trace("Loaded chat - ChatID: {}, Title: {}, Participants: {}", 
-                        chat.getId(), chat.getTitle(), chat.getParticipants().size());
-                chats.add(chat);
-            }
+            // Load all chats with their participants in one query
+            List<Chat> chats = chatIds.isEmpty()
+                    ? new ArrayList<>()
+                    : chatRepository.findAllByIdWithParticipants(chatIds);
 
             logger.info("Returning {} chats for user - UserID: {}", chats.size(), userId);
             return chats;
@@ -208,6 +209,66 @@ public class ChatServiceImpl implements ChatService {
         }
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<ChatSummaryDto> getUserChatSummaries(Long userId) {
+        String clientIp = getClientIp();
+        logger.debug("Fetching chat summaries for user - UserID: {}, IP: {}", userId, clientIp);
+
+        try {
+            Long currentUserId = userService.getCurrentUserId();
+            if (!currentUserId.equals(userId)) {
+                securityLogger.warn("Unauthorized chat access attempt - RequestedUserID: {}, CurrentUserID: {}, IP: {}", 
+                        userId, currentUserId, clientIp);
+                throw new UnauthorizedException("You can only view your own chats");
+            }
+
+            List<ChatRepository.ChatSummaryRow> rows = chatRepository.findChatSummaries(userId, AppConstants.CHAT_PREVIEW_LENGTH);
+            if (rows.isEmpty()) {
+                return new ArrayList<>();
+            }
+
+            Map<String, String> avatarUrls = new HashMap<>();
+            Map<String, String> avatarThumbnailUrls = new HashMap<>();
+            Map<Long, List<ChatSummaryDto.Participant>> participantsByChat = new HashMap<>();
+            for (ChatRepository.ParticipantRow row : chatRepository.findParticipantsOfUserChats(userId)) {
+                String avatarUrl = row.getAvatarFileName() == null ? null
+                        : avatarUrls.computeIfAbsent(row.getAvatarFileName(), userService::getUserAvatarUrl);
+                String avatarThumbnailUrl = row.getAvatarFileName() == null ? null
+                        : avatarThumbnailUrls.computeIfAbsent(row.getAvatarFileName(), userService::getUserAvatarThumbnailUrl);
+                participantsByChat.computeIfAbsent(row.getChatId(), id -> new ArrayList<>())
+                        .add(new ChatSummaryDto.Participant(row.getUserId(), row.getFullName(), avatarUrl,
+                                avatarThumbnailUrl));
+            }
+
+            List<ChatSummaryDto> summaries = new ArrayList<>(rows.size());
+            for (ChatRepository.ChatSummaryRow row : rows) {
+                summaries.add(new ChatSummaryDto(
+                        row.getId(),
+                        row.getTitle(),
+                        Chat.ChatStatus.valueOf(row.getStatus()),
+                        participantsByChat.getOrDefault(row.getId(), List.of()),
+                        row.getLastMessageId(),
+                        row.getLastMessageAt(),
+                        row.getLastMessageSenderId(),
+                        row.getLastMessageType(),
+                        row.getLastMessagePreview(),
+                        row.getLastReadMessageId(),
+                        row.getUnreadCount() == null ? 0L : row.getUnreadCount()));
+            }
+
+            logger.info("Returning {} chat summaries for user - UserID: {}", summaries.size(), userId);
+            return summaries;
+        } catch (UnauthorizedException ex) {
+            // Already logged, just rethrow
+            throw ex;
+        } catch (Exception ex) {
+            logger.error("Error fetching chat summaries - UserID: {}, IP: {}, Error: {}", 
+                    userId, clientIp, ex.getMessage(), ex);
+            throw ex;
+        }
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Chat getChatById(Long id) {
@@ -258,6 +319,7 @@ public class ChatServiceImpl implements ChatService {
             if (chat.getStatus() == Chat.ChatStatus.ACTIVE) {
                 chat.setStatus(Chat.ChatStatus.ARCHIVED);
                 chat = chatRepository.save(chat);
+                chatMembershipCache.invalidate(chat.getId());
                 logger.info("Chat archived - ChatID: {}, NewStatus: {}", chat.getId(), chat.getStatus());
 
                 // Log chat archiving
@@ -292,6 +354,7 @@ public class ChatServiceImpl implements ChatService {
             if (chat.getStatus() == Chat.ChatStatus.ARCHIVED) {
                 chat.setStatus(Chat.ChatStatus.ACTIVE);
                 chat = chatRepository.save(chat);
+                chatMembershipCache.invalidate(chat.getId());
                 logger.info("Chat unarchived - ChatID: {}, NewStatus: {}", chat.getId(), chat.getStatus());
 
                 // Log chat unarchiving
@@ -345,6 +408,7 @@ public class ChatServiceImpl implements ChatService {
                 // Update chat status to CLOSED
                 chat.setStatus(Chat.ChatStatus.CLOSED);
                 chat = chatRepository.save(chat);
+                chatMembershipCache.invalidate(chatId);
                 
                 // Log the chat closing
                 logService.createLog(
@@ -361,6 +425,7 @@ public class ChatServiceImpl implements ChatService {
                         chat.getId(), chat.getParticipants().size());
                 
                 chatRepository.removeParticipant(chatId, currentUser.getId());
+                chatMembershipCache.invalidate(chatId);
                 
                 // Log the user leaving
                 logService.createLog(
@@ -0,0 +1,18 @@
+package com.secureops.service;
+
+import com.secureops.dto.UploadInitDto;
+import com.secureops.dto.UploadSessionDto;
+import com.secureops.entity.UploadSession;
+
+import java.io.InputStream;
+
+public interface ChunkedUploadService {
+    UploadSessionDto initUpload(UploadInitDto request, Long userId);
+    // Current state of an upload, including the chunks a resuming client still has to send
+    UploadSessionDto getUpload(String uploadId, Long userId);
+    // Streams one chunk to its position in the partial file; checksum is the hex SHA-256 of the chunk
+    UploadSessionDto writeChunk(String uploadId, int index, long offset, String checksum, InputStream body, Long userId);
+    // Moves the finished file into storage; repeating it after success returns the same session
+    UploadSession completeUpload(String uploadId, Long userId);
+    void abortUpload(String uploadId, Long userId);
+}
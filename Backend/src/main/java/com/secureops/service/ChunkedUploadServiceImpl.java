@@ -0,0 +1,421 @@
+package com.secureops.service;
+
+import com.secureops.dto.UploadInitDto;
+import com.secureops.dto.UploadSessionDto;
+import com.secureops.entity.UploadSession;
+import com.secureops.exception.BadRequestException;
+import com.secureops.exception.FileStorageException;
+import com.secureops.exception.ResourceNotFoundException;
+import com.secureops.exception.UnauthorizedException;
+import com.secureops.repository.UploadSessionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Resumable uploads: init, then PUT each chunk at its offset, then complete.
+ *
+ * Each chunk is streamed from the request to a staging file through a FileChannel, hashing it on
+ * the way, so memory per upload is one copy buffer whatever the file size. Only once its SHA-256
+ * matches is it copied to its position in the partial file and marked; a chunk that is already
+ * marked is rejected, so verified bytes are never overwritten. A client that lost its connection
+ * asks for the upload state and resends the missing chunks. Completing hands the partial file to
+ * the store, which renames it into place (or drops it when the content is already stored).
+ */
+@Service
+public class ChunkedUploadServiceImpl implements ChunkedUploadService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChunkedUploadServiceImpl.class);
+    private static final Logger securityLogger = LoggerFactory.getLogger("com.secureops.security");
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+    private static final int MIN_CHUNK_SIZE = 256 * 1024;
+    private static final int MAX_CHUNK_SIZE = 64 * 1024 * 1024;
+    private static final int PURGE_BATCH_SIZE = 100;
+    private static final int PLACEMENT_LOCK_STRIPES = 64;
+
+    private final UploadSessionRepository uploadSessionRepository;
+    private final FileStorageService fileStorageService;
+    private final StorageQuotaService storageQuotaService;
+    private final Path partialDirectory;
+    private final long maxFileSize;
+    private final int defaultChunkSize;
+    private final int maxOpenPerUser;
+    private final Duration sessionTtl;
+    // Serializes moving verified chunks into place per upload (striped by upload id)
+    private final Object[] placementLocks = new Object[PLACEMENT_LOCK_STRIPES];
+
+    public ChunkedUploadServiceImpl(UploadSessionRepository uploadSessionRepository,
+            FileStorageService fileStorageService,
+            StorageQuotaService storageQuotaService,
+            @Value("${app.file.chunked.max-file-size:1GB}") DataSize maxFileSize,
+            @Value("${app.file.chunked.chunk-size:8MB}") DataSize defaultChunkSize,
+            @Value("${app.file.chunked.max-open-per-user:5}") int maxOpenPerUser,
+            @Value("${app.file.chunked.session-ttl:24h}") Duration sessionTtl) {
+        this.uploadSessionRepository = uploadSessionRepository;
+        this.fileStorageService = fileStorageService;
+        this.storageQuotaService = storageQuotaService;
+        this.maxFileSize = maxFileSize.toBytes();
+        this.defaultChunkSize = clampChunkSize(defaultChunkSize.toBytes());
+        this.maxOpenPerUser = maxOpenPerUser;
+        this.sessionTtl = sessionTtl;
+        for (int i = 0; i < placementLocks.length; i++) {
+            placementLocks[i] = new Object();
+        }
+        // Inside the storage directory so completing is a rename; the leading dot keeps it unreachable by download names
+        this.partialDirectory = fileStorageService.getStorageDirectory().resolve(".partial");
+
+        try {
+            Files.createDirectories(partialDirectory);
+        } catch (IOException ex) {
+            logger.error("Failed to create partial upload directory: {}", partialDirectory, ex);
+            throw new FileStorageException("Could not create the directory for partial uploads.", ex);
+        }
+        logger.info("ChunkedUploadService initialized - max file size: {} bytes, default chunk size: {} bytes, session TTL: {}",
+                this.maxFileSize, this.defaultChunkSize, sessionTtl);
+    }
+
+    @Override
+    public UploadSessionDto initUpload(UploadInitDto request, Long userId) {
+        logger.debug("Initializing chunked upload - userId: {}, fileName: {}, size: {}",
+                userId, request.getFileName(), request.getTotalSize());
+
+        if (request.getTotalSize() <= 0 || request.getTotalSize() > maxFileSize) {
+            throw new BadRequestException("File size must be between 1 and " + maxFileSize + " bytes");
+        }
+        if (uploadSessionRepository.countByUserIdAndStatus(userId, UploadSession.UploadStatus.IN_PROGRESS) >= maxOpenPerUser) {
+            logger.warn("Too many open uploads for userId: {}", userId);
+            throw new BadRequestException("Too many uploads in progress; complete or abort one first");
+        }
+        // Refused up front rather than after the whole file was sent; counted when completed
+        storageQuotaService.check(userId, request.getTotalSize());
+
+        int chunkSize = request.getChunkSize() == null ? defaultChunkSize : clampChunkSize(request.getChunkSize());
+        long totalChunks = (request.getTotalSize() + chunkSize - 1) / chunkSize;
+
+        UploadSession session = new UploadSession();
+        session.setId(UUID.randomUUID().toString());
+        session.setUserId(userId);
+        session.setOriginalFileName(request.getFileName());
+        session.setContentType(request.getContentType());
+        session.setTotalSize(request.getTotalSize());
+        session.setChunkSize(chunkSize);
+        session.setTotalChunks((int) totalChunks);
+        session.setReceivedChunks(new byte[(int) ((totalChunks + 7) / 8)]);
+        session.setExpiresAt(expiryFromNow());
+
+        try {
+            Files.createFile(partialFile(session.getId()));
+        } catch (IOException ex) {
+            logger.error("Failed to create partial file for upload: {}", session.getId(), ex);
+            throw new FileStorageException("Could not start the upload. Please try again!", ex);
+        }
+        uploadSessionRepository.save(session);
+
+        logger.info("Chunked upload started - uploadId: {}, userId: {}, size: {}, chunks: {} x {} bytes",
+                session.getId(), userId, session.getTotalSize(), totalChunks, chunkSize);
+        return toDto(session);
+    }
+
+    @Override
+    public UploadSessionDto getUpload(String uploadId, Long userId) {
+        return toDto(loadOwnedSession(uploadId, userId));
+    }
+
+    @Override
+    public UploadSessionDto writeChunk(String uploadId, int index, long offset, String checksum, InputStream body,
+            Long userId) {
+        UploadSession session = loadOwnedSession(uploadId, userId);
+
+        if (session.getStatus() != UploadSession.UploadStatus.IN_PROGRESS) {
+            throw new BadRequestException("Upload " + uploadId + " no longer accepts chunks");
+        }
+        if (index < 0 || index >= session.getTotalChunks()) {
+            throw new BadRequestException("Chunk index must be between 0 and " + (session.getTotalChunks() - 1));
+        }
+        if (offset != session.getChunkOffset(index)) {
+            throw new BadRequestException("Chunk " + index + " starts at offset " + session.getChunkOffset(index));
+        }
+        if (session.getReceivedChunkSet().get(index)) {
+            throw new BadRequestException("Chunk " + index + " was already received");
+        }
+        byte[] expectedDigest = parseChecksum(checksum);
+        int expectedLength = session.getChunkLength(index);
+
+        // Streamed into a file of its own and moved into the partial file only once its checksum
+        // matches, so a corrupt or hostile resend never touches bytes that already count
+        Path stagedChunk = partialDirectory.resolve(uploadId + "." + index + "." + UUID.randomUUID() + ".chunk");
+        try {
+            MessageDigest digest = sha256();
+            long written = 0;
+            try (FileChannel channel = FileChannel.open(stagedChunk, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.WRITE)) {
+                byte[] buffer = new byte[Math.min(COPY_BUFFER_SIZE, expectedLength)];
+                int read;
+                while ((read = readBody(body, buffer, uploadId, index)) != -1) {
+                    if (written + read > expectedLength) {
+                        throw new BadRequestException("Chunk " + index + " is larger than " + expectedLength + " bytes");
+                    }
+                    digest.update(buffer, 0, read);
+                    ByteBuffer slice = ByteBuffer.wrap(buffer, 0, read);
+                    while (slice.hasRemaining()) {
+                        written += channel.write(slice);
+                    }
+                }
+            } catch (IOException ex) {
+                logger.error("Failed to stage chunk {} of upload: {}", index, uploadId, ex);
+                throw new FileStorageException("Could not store chunk " + index + ". Please try again!", ex);
+            }
+
+            if (written != expectedLength) {
+                throw new BadRequestException("Chunk " + index + " is incomplete: " + written + " of " + expectedLength + " bytes");
+            }
+            if (!MessageDigest.isEqual(expectedDigest, digest.digest())) {
+                logger.warn("Checksum mismatch for chunk {} of upload: {} - userId: {}", index, uploadId, userId);
+                throw new BadRequestException("Checksum mismatch for chunk " + index);
+            }
+
+            placeChunk(uploadId, index, offset, stagedChunk, written);
+        } finally {
+            try {
+                Files.deleteIfExists(stagedChunk);
+            } catch (IOException ex) {
+                // Left for the storage sweeper
+                logger.warn("Could not delete staged chunk: {} - {}", stagedChunk, ex.getMessage());
+            }
+        }
+        logger.debug("Chunk {} of upload {} stored ({} bytes)", index, uploadId, expectedLength);
+
+        return toDto(loadOwnedSession(uploadId, userId));
+    }
+
+    /**
+     * Copies a verified chunk into the partial file and marks it. Placements of one upload run one
+     * at a time and re-check the chunk first, so of two verified copies of the same chunk only the
+     * first is written; the mark comes last, so a chunk never counts before its bytes are in place.
+     */
+    private void placeChunk(String uploadId, int index, long offset, Path stagedChunk, long length) {
+        synchronized (placementLocks[Math.floorMod(uploadId.hashCode(), placementLocks.length)]) {
+            UploadSession current = uploadSessionRepository.findById(uploadId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Upload", "id", uploadId));
+            if (current.getStatus() != UploadSession.UploadStatus.IN_PROGRESS) {
+                throw new BadRequestException("Upload " + uploadId + " no longer accepts chunks");
+            }
+            if (current.getReceivedChunkSet().get(index)) {
+                throw new BadRequestException("Chunk " + index + " was already received");
+            }
+
+            try (FileChannel source = FileChannel.open(stagedChunk, StandardOpenOption.READ);
+                    FileChannel target = FileChannel.open(partialFile(uploadId), StandardOpenOption.WRITE)) {
+                long moved = 0;
+                while (moved < length) {
+                    moved += source.transferTo(moved, length - moved, target.position(offset + moved));
+                }
+            } catch (NoSuchFileException ex) {
+                // Aborted or purged while the chunk was on its way
+                throw new ResourceNotFoundException("Upload", "id", uploadId);
+            } catch (IOException ex) {
+                logger.error("Failed to write chunk {} of upload: {}", index, uploadId, ex);
+                throw new FileStorageException("Could not store chunk " + index + ". Please try again!", ex);
+            }
+
+            if (uploadSessionRepository.markChunkReceived(uploadId, index, expiryFromNow()) == 0) {
+                throw new BadRequestException("Upload " + uploadId + " no longer accepts chunk " + index);
+            }
+        }
+    }
+
+    @Override
+    public UploadSession completeUpload(String uploadId, Long userId) {
+        UploadSession session = loadOwnedSession(uploadId, userId);
+
+        if (session.getStatus() == UploadSession.UploadStatus.COMPLETED) {
+            // A retried completion whose first response was lost
+            return session;
+        }
+        int missing = session.getTotalChunks() - session.getReceivedChunkSet().cardinality();
+        if (missing > 0) {
+            throw new BadRequestException("Upload " + uploadId + " is missing " + missing + " chunk(s)");
+        }
+        if (uploadSessionRepository.transition(uploadId, UploadSession.UploadStatus.IN_PROGRESS,
+                UploadSession.UploadStatus.COMPLETING) == 0) {
+            throw new BadRequestException("Upload " + uploadId + " is already being completed");
+        }
+
+        Path partialFile = partialFile(uploadId);
+        try {
+            try (FileChannel channel = FileChannel.open(partialFile, StandardOpenOption.WRITE)) {
+                if (channel.size() != session.getTotalSize()) {
+                    logger.error("Size mismatch completing upload: {} - on disk: {}, expected: {}",
+                            uploadId, channel.size(), session.getTotalSize());
+                    throw new FileStorageException("Upload " + uploadId + " has " + channel.size()
+                            + " bytes on disk, expected " + session.getTotalSize());
+                }
+                // Chunks were written without syncing; do it once before the file becomes visible
+                channel.force(true);
+            }
+            String storedFileName = fileStorageService.storeFile(partialFile, session.getOriginalFileName(), userId);
+
+            session.setStatus(UploadSession.UploadStatus.COMPLETED);
+            session.setStoredFileName(storedFileName);
+            session.setUpdatedAt(new Date());
+            // Kept for a while so a retried completion still gets its answer
+            session.setExpiresAt(expiryFromNow());
+            uploadSessionRepository.save(session);
+
+            logger.info("Chunked upload completed - uploadId: {}, userId: {}, stored as: {}", uploadId, userId, storedFileName);
+            return session;
+        } catch (IOException | RuntimeException ex) {
+            uploadSessionRepository.transition(uploadId, UploadSession.UploadStatus.COMPLETING,
+                    UploadSession.UploadStatus.IN_PROGRESS);
+            if (ex instanceof RuntimeException runtimeException) {
+                // Already logged
+                throw runtimeException;
+            }
+            logger.error("Failed to complete upload: {}", uploadId, ex);
+            throw new FileStorageException("Could not complete upload " + uploadId + ". Please try again!", ex);
+        }
+    }
+
+    @Override
+    public void abortUpload(String uploadId, Long userId) {
+        UploadSession session = loadOwnedSession(uploadId, userId);
+        if (session.getStatus() == UploadSession.UploadStatus.COMPLETING) {
+            throw new BadRequestException("Upload " + uploadId + " is being completed");
+        }
+        discard(session);
+        logger.info("Chunked upload aborted - uploadId: {}, userId: {}", uploadId, userId);
+    }
+
+    /**
+     * Drops sessions past their expiry with their partial files. Completed sessions only lose their
+     * record; the stored file belongs to whoever references it now.
+     */
+    @Scheduled(fixedDelayString = "${app.file.chunked.purge-interval-ms:600000}")
+    public void purgeExpiredUploads() {
+        Date now = new Date();
+        int purged = 0;
+        int failed = 0;
+        // Keyset paging by id: sessions that cannot be discarded now are passed over, not fetched again
+        String lastId = "";
+        List<UploadSession> batch;
+        do {
+            batch = uploadSessionRepository.findByExpiresAtBeforeAndIdGreaterThanOrderByIdAsc(now, lastId,
+                    PageRequest.of(0, PURGE_BATCH_SIZE));
+            for (UploadSession session : batch) {
+                lastId = session.getId();
+                try {
+                    discard(session);
+                    purged++;
+                } catch (Exception ex) {
+                    failed++;
+                    logger.warn("Could not purge expired upload: {} - {}", session.getId(), ex.getMessage());
+                }
+            }
+        } while (batch.size() == PURGE_BATCH_SIZE);
+
+        if (purged > 0 || failed > 0) {
+            logger.info("Purged {} expired chunked uploads, {} left for the next run", purged, failed);
+        }
+    }
+
+    private void discard(UploadSession session) {
+        if (session.getStatus() != UploadSession.UploadStatus.COMPLETED) {
+            try {
+                Files.deleteIfExists(partialFile(session.getId()));
+            } catch (IOException ex) {
+                logger.error("Failed to delete partial file of upload: {}", session.getId(), ex);
+                throw new FileStorageException("Could not delete upload " + session.getId(), ex);
+            }
+        }
+        uploadSessionRepository.delete(session);
+    }
+
+    private UploadSession loadOwnedSession(String uploadId, Long userId) {
+        UploadSession session = uploadSessionRepository.findById(uploadId)
+                .orElseThrow(() -> new ResourceNotFoundException("Upload", "id", uploadId));
+        if (!session.getUserId().equals(userId)) {
+            securityLogger.warn("Unauthorized access to upload: {} by userId: {}", uploadId, userId);
+            throw new UnauthorizedException("You do not own this upload");
+        }
+        return session;
+    }
+
+    private int readBody(InputStream body, byte[] buffer, String uploadId, int index) {
+        try {
+            return body.read(buffer);
+        } catch (IOException ex) {
+            // Usually the client dropped the connection; the chunk can simply be sent again
+            logger.debug("Chunk {} of upload {} interrupted: {}", index, uploadId, ex.getMessage());
+            throw new BadRequestException("Chunk " + index + " upload was interrupted");
+        }
+    }
+
+    private UploadSessionDto toDto(UploadSession session) {
+        BitSet received = session.getReceivedChunkSet();
+        List<Integer> missingChunks = new ArrayList<>();
+        for (int i = received.nextClearBit(0); i < session.getTotalChunks(); i = received.nextClearBit(i + 1)) {
+            missingChunks.add(i);
+        }
+        long receivedBytes = 0;
+        for (int i = received.nextSetBit(0); i >= 0 && i < session.getTotalChunks(); i = received.nextSetBit(i + 1)) {
+            receivedBytes += session.getChunkLength(i);
+        }
+        return new UploadSessionDto(session.getId(), session.getOriginalFileName(), session.getTotalSize(),
+                session.getChunkSize(), session.getTotalChunks(), session.getStatus().name(), receivedBytes,
+                missingChunks, session.getExpiresAt());
+    }
+
+    private Path partialFile(String uploadId) {
+        return partialDirectory.resolve(uploadId + ".part");
+    }
+
+    private Date expiryFromNow() {
+        return new Date(System.currentTimeMillis() + sessionTtl.toMillis());
+    }
+
+    private static int clampChunkSize(long requested) {
+        return (int) Math.max(MIN_CHUNK_SIZE, Math.min(MAX_CHUNK_SIZE, requested));
+    }
+
+    private static byte[] parseChecksum(String checksum) {
+        if (checksum == null || checksum.length() != 64) {
+            throw new BadRequestException("A hex SHA-256 checksum of the chunk is required");
+        }
+        try {
+            return HexFormat.of().parseHex(checksum);
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException("A hex SHA-256 checksum of the chunk is required");
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+}
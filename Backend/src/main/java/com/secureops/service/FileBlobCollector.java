@@ -0,0 +1,193 @@
+package com.secureops.service;
+
+import com.secureops.entity.StoredFile;
+import com.secureops.repository.FileBlobRepository;
+import com.secureops.repository.StoredFileRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Removes file names and content blobs nothing references any more.
+ *
+ * Each run first drops file names older than the grace period that no message or avatar uses,
+ * whatever the reference count of their blob, and releases them from their uploaders' quotas; the
+ * grace period covers files uploaded but not yet attached to a message. It then rebuilds reference
+ * counts that disagree with the actual references, so a counter that drifted upwards cannot keep a
+ * blob alive. Finally, a blob at zero references that has not been touched for the grace period is
+ * re-checked and removed. The file is moved aside while the row lock is held, so an upload of the
+ * same content either sees the row and keeps the file, or registers it again after the delete and
+ * writes a fresh copy.
+ */
+@Component
+public class FileBlobCollector {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileBlobCollector.class);
+
+    private final FileBlobRepository fileBlobRepository;
+    private final StoredFileRepository storedFileRepository;
+    private final FileStorageService fileStorageService;
+    private final ThumbnailService thumbnailService;
+    private final HotFileCache hotFileCache;
+    private final StorageQuotaService storageQuotaService;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration gracePeriod;
+    private final int batchSize;
+
+    public FileBlobCollector(FileBlobRepository fileBlobRepository,
+            StoredFileRepository storedFileRepository,
+            FileStorageService fileStorageService,
+            ThumbnailService thumbnailService,
+            HotFileCache hotFileCache,
+            StorageQuotaService storageQuotaService,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.file.gc.grace-period:24h}") Duration gracePeriod,
+            @Value("${app.file.gc.batch-size:100}") int batchSize) {
+        this.fileBlobRepository = fileBlobRepository;
+        this.storedFileRepository = storedFileRepository;
+        this.fileStorageService = fileStorageService;
+        this.thumbnailService = thumbnailService;
+        this.hotFileCache = hotFileCache;
+        this.storageQuotaService = storageQuotaService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.gracePeriod = gracePeriod;
+        this.batchSize = batchSize;
+        logger.info("FileBlobCollector initialized - grace period: {}, batch size: {}", gracePeriod, batchSize);
+    }
+
+    @Scheduled(fixedDelayString = "${app.file.gc.interval-ms:3600000}", initialDelayString = "${app.file.gc.initial-delay-ms:300000}")
+    public void collect() {
+        Date cutoff = new Date(System.currentTimeMillis() - gracePeriod.toMillis());
+        sweepStaleNames(cutoff);
+        repairDriftedCounts(cutoff);
+        collectBlobs(cutoff);
+    }
+
+    private void sweepStaleNames(Date cutoff) {
+        int removed = 0;
+        String lastName = "";
+        List<String> batch;
+        do {
+            batch = storedFileRepository.findStaleNames(cutoff, lastName, batchSize);
+            for (String fileName : batch) {
+                lastName = fileName;
+                try {
+                    StoredFile storedFile = transactionTemplate.execute(status -> storedFileRepository.findById(fileName)
+                            .filter(found -> storedFileRepository.deleteIfUnreferenced(fileName) > 0)
+                            .orElse(null));
+                    if (storedFile != null) {
+                        hotFileCache.invalidate(fileName);
+                        storageQuotaService.release(storedFile.getUploadedBy(), storedFile.getSize(), 1);
+                        removed++;
+                    }
+                } catch (Exception ex) {
+                    logger.warn("Could not remove stale file name: {} - {}", fileName, ex.getMessage());
+                }
+            }
+        } while (batch.size() == batchSize);
+
+        if (removed > 0) {
+            logger.info("Blob collection - removed {} file names nothing references", removed);
+        }
+    }
+
+    private void repairDriftedCounts(Date cutoff) {
+        int repaired = 0;
+        String lastHash = "";
+        List<String> batch;
+        do {
+            batch = fileBlobRepository.findDriftedCounts(cutoff, lastHash, batchSize);
+            for (String hash : batch) {
+                lastHash = hash;
+                try {
+                    repaired += fileBlobRepository.recountIfDrifted(hash, cutoff);
+                } catch (Exception ex) {
+                    logger.warn("Could not recount references of blob: {} - {}", hash, ex.getMessage());
+                }
+            }
+        } while (batch.size() == batchSize);
+
+        if (repaired > 0) {
+            logger.warn("Blob collection - rebuilt {} reference counts that had drifted", repaired);
+        }
+    }
+
+    private void collectBlobs(Date cutoff) {
+        List<String> candidates = fileBlobRepository.findCollectable(cutoff, batchSize);
+        if (candidates.isEmpty()) {
+            return;
+        }
+
+        int collected = 0;
+        long freedBytes = 0;
+        for (String hash : candidates) {
+            try {
+                List<StoredFileRepository.OwnerUsage> released = new ArrayList<>();
+                Path trashed = collectBlob(hash, cutoff, released);
+                // Names dropped count as removed from their uploaders' quotas even if the blob stays
+                for (StoredFileRepository.OwnerUsage usage : released) {
+                    storageQuotaService.release(usage.getUploadedBy(), usage.getBytes(), usage.getFiles());
+                }
+                if (trashed != null) {
+                    long size = Files.size(trashed);
+                    Files.deleteIfExists(trashed);
+                    thumbnailService.deleteThumbnails(hash);
+                    collected++;
+                    freedBytes += size;
+                }
+            } catch (Exception ex) {
+                logger.warn("Could not collect blob: {} - {}", hash, ex.getMessage());
+            }
+        }
+        logger.info("Blob collection - candidates: {}, collected: {}, freed: {} bytes", candidates.size(), collected, freedBytes);
+    }
+
+    /**
+     * Deletes the blob row and moves its file aside in one transaction. Returns the moved file, to be
+     * deleted after commit, or null if the blob turned out to be in use. File names removed on the
+     * way are added to {@code released}.
+     */
+    private Path collectBlob(String hash, Date cutoff, List<StoredFileRepository.OwnerUsage> released) {
+        return transactionTemplate.execute(status -> {
+            List<StoredFileRepository.OwnerUsage> unreferenced = storedFileRepository.sumUnreferencedByBlob(hash);
+            if (storedFileRepository.deleteUnreferencedByBlob(hash) > 0) {
+                released.addAll(unreferenced);
+            }
+            if (fileBlobRepository.deleteIfCollectable(hash, cutoff) == 0) {
+                // Claimed again by an upload, or still named by a message or avatar the counter missed
+                int refreshed = fileBlobRepository.recountReferences(hash);
+                logger.debug("Blob {} is in use, reference count rebuilt: {}", hash, refreshed > 0);
+                return null;
+            }
+
+            Path blobPath = fileStorageService.getBlobPath(hash);
+            Path trashed = fileStorageService.getStorageDirectory().resolve(".tmp")
+                    .resolve(hash + "." + UUID.randomUUID() + ".deleted");
+            try {
+                if (!Files.exists(blobPath)) {
+                    return null;
+                }
+                Files.move(blobPath, trashed, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException ex) {
+                // Rolls the row delete back with it
+                throw new UncheckedIOException(ex);
+            }
+            return trashed;
+        });
+    }
+}
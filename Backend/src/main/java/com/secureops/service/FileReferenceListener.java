@@ -0,0 +1,35 @@
+package com.secureops.service;
+
+import com.secureops.entity.FileMessage;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import org.springframework.context.annotation.Lazy;
+
+/**
+ * Keeps file blob reference counts in step with file messages, including messages removed by
+ * cascade when their chat or sender is deleted. Hibernate creates it through Spring's bean
+ * container; the storage service is resolved lazily because it depends on the repositories that
+ * are still being built at that point.
+ */
+public class FileReferenceListener {
+
+    private final FileStorageService fileStorageService;
+
+    public FileReferenceListener(@Lazy FileStorageService fileStorageService) {
+        this.fileStorageService = fileStorageService;
+    }
+
+    @PostPersist
+    public void onFileMessageCreated(FileMessage message) {
+        if (message.getStoredFileName() != null) {
+            fileStorageService.retainFile(message.getStoredFileName());
+        }
+    }
+
+    @PostRemove
+    public void onFileMessageDeleted(FileMessage message) {
+        if (message.getStoredFileName() != null) {
+            fileStorageService.releaseFile(message.getStoredFileName());
+        }
+    }
+}
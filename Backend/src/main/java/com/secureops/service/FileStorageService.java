@@ -1,13 +1,33 @@
 package com.secureops.service;
 
 import java.nio.file.Path;
+import java.util.Optional;
 
 import org.springframework.core.io.Resource;
 import org.springframework.web.multipart.MultipartFile;
 
 public interface FileStorageService {
-    String storeFile(MultipartFile file);
+    // ownerId is the user whose storage quota the file counts against (null for none)
+    String storeFile(MultipartFile file, Long ownerId);
+    // Moves an already written file (e.g. a completed chunked upload) into the store without copying it
+    String storeFile(Path source, String originalFileName, Long ownerId);
+    // For serving the file; refused with FileQuarantinedException while its content is quarantined
     Resource loadFileAsResource(String fileName);
+    // Where the content behind a file name is on disk, whatever its scan status; ResourceNotFoundException if nowhere
+    StoredContent resolveContent(String fileName);
+    // As resolveContent, for serving the bytes: refused with FileQuarantinedException while the content is quarantined
+    StoredContent resolveServableContent(String fileName);
+    // Removes the file name; fails while a message or avatar still uses it. Content goes once unreferenced
     void deleteFile(String fileName);
+    // Reference counting of stored content by messages and avatars; release returns false for unmanaged files
+    void retainFile(String fileName);
+    boolean releaseFile(String fileName);
+    // SHA-256 of the content behind a file name; empty for files stored before content addressing
+    Optional<String> findContentHash(String fileName);
+    Path getBlobPath(String hash);
     Path getStorageDirectory();
+
+    // contentHash is null for files stored before content addressing, which live flat in the storage directory
+    record StoredContent(Path path, String contentHash) {
+    }
 }
\ No newline at end of file
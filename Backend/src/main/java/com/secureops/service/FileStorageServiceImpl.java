@@ -1,37 +1,94 @@
 package com.secureops.service;
 
 import com.secureops.config.FileStorageConfig;
+import com.secureops.entity.StoredFile;
+import com.secureops.exception.FileQuarantinedException;
 import com.secureops.exception.FileStorageException;
 import com.secureops.exception.ResourceNotFoundException;
+import com.secureops.repository.FileBlobRepository;
+import com.secureops.repository.StoredFileRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.MalformedURLException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.Optional;
 import java.util.UUID;
 
+/**
+ * Content-addressed file store.
+ *
+ * Bytes are kept once per distinct content under blobs/ab/cd/{sha256}; the hash is computed while
+ * the upload streams into a temporary file, and when the content is already stored the temporary
+ * file is simply dropped. Each upload still gets its own file name (a StoredFile pointing at the
+ * blob), so URLs stay per-upload. Files written before this layout live flat in the storage
+ * directory and are still served from there.
+ */
 @Service
 public class FileStorageServiceImpl implements FileStorageService {
 
     private static final Logger logger = LoggerFactory.getLogger(FileStorageServiceImpl.class);
 
+    private static final int HASH_BUFFER_SIZE = 64 * 1024;
+
+    // Runs inside Hibernate flushes (FileReferenceListener), so it goes to JDBC directly instead of
+    // through the EntityManager; it still joins the surrounding transaction's connection
+    private static final String ADJUST_REFERENCES_SQL =
+            "UPDATE file_blobs b SET ref_count = GREATEST(b.ref_count + ?, 0), updated_at = now() " +
+            "FROM stored_files sf WHERE sf.file_name = ? AND b.hash = sf.blob_hash";
+
     private final Path fileStorageLocation;
+    private final Path blobDirectory;
+    private final Path tempDirectory;
+    private final StoredFileRepository storedFileRepository;
+    private final FileBlobRepository fileBlobRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final HotFileCache hotFileCache;
+    private final StorageQuotaService storageQuotaService;
+    private final QuarantinedContent quarantinedContent;
 
-    public FileStorageServiceImpl(FileStorageConfig fileStorageConfig) {
+    public FileStorageServiceImpl(FileStorageConfig fileStorageConfig,
+            StoredFileRepository storedFileRepository,
+            FileBlobRepository fileBlobRepository,
+            JdbcTemplate jdbcTemplate,
+            HotFileCache hotFileCache,
+            StorageQuotaService storageQuotaService,
+            QuarantinedContent quarantinedContent) {
         this.fileStorageLocation = fileStorageConfig.getFileStorageLocation();
-        
+        this.blobDirectory = fileStorageLocation.resolve("blobs");
+        this.tempDirectory = fileStorageLocation.resolve(".tmp");
+        this.storedFileRepository = storedFileRepository;
+        this.fileBlobRepository = fileBlobRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.hotFileCache = hotFileCache;
+        this.storageQuotaService = storageQuotaService;
+        this.quarantinedContent = quarantinedContent;
+
         logger.info("Initializing FileStorageService with storage location: {}", fileStorageLocation);
-        
+
         try {
             Files.createDirectories(this.fileStorageLocation);
+            Files.createDirectories(this.blobDirectory);
+            Files.createDirectories(this.tempDirectory);
             logger.debug("Storage directory created or already exists: {}", fileStorageLocation);
         } catch (Exception ex) {
             logger.error("Failed to create storage directory: {}", fileStorageLocation, ex);
@@ -40,17 +97,131 @@ public class FileStorageServiceImpl implements FileStorageService {
     }
 
     @Override
-    public String storeFile(MultipartFile file) {
+    public String storeFile(MultipartFile file, Long ownerId) {
         // Normalize file name
         String originalFileName = StringUtils.cleanPath(file.getOriginalFilename());
         logger.debug("Attempting to store file: {}", originalFileName);
-        
+
+        String fileName = generateFileName(originalFileName);
+
+        storageQuotaService.reserve(ownerId, file.getSize());
+        boolean stored = false;
+        Path tempFile = null;
+        try {
+            tempFile = Files.createTempFile(tempDirectory, "upload-", ".tmp");
+
+            // Hash while copying, so the content is read once
+            MessageDigest digest = sha256();
+            long size;
+            try (InputStream in = new DigestInputStream(file.getInputStream(), digest);
+                    OutputStream out = Files.newOutputStream(tempFile)) {
+                size = in.transferTo(out);
+            }
+
+            storeBlob(tempFile, HexFormat.of().formatHex(digest.digest()), size, fileName, originalFileName, ownerId);
+            storageQuotaService.confirm(ownerId, file.getSize());
+            stored = true;
+            return fileName;
+        } catch (IOException ex) {
+            logger.error("Failed to store file: {} at location: {}", fileName, fileStorageLocation, ex);
+            throw new FileStorageException("Could not store file " + fileName + ". Please try again!", ex);
+        } finally {
+            if (!stored) {
+                storageQuotaService.cancel(ownerId, file.getSize());
+            }
+            deleteQuietly(tempFile);
+        }
+    }
+
+    @Override
+    public String storeFile(Path source, String originalFileName, Long ownerId) {
+        String cleanFileName = StringUtils.cleanPath(originalFileName);
+        logger.debug("Attempting to store uploaded file: {} from: {}", cleanFileName, source);
+
+        String fileName = generateFileName(cleanFileName);
+
+        long reserved;
+        try {
+            reserved = Files.size(source);
+        } catch (IOException ex) {
+            logger.error("Uploaded file not readable: {}", source, ex);
+            throw new FileStorageException("Could not store file " + fileName + ". Please try again!", ex);
+        }
+        storageQuotaService.reserve(ownerId, reserved);
+        boolean stored = false;
+        try {
+            // The file is already on disk; one sequential read hashes it, and it is renamed into place if new
+            MessageDigest digest = sha256();
+            long size;
+            try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+                ByteBuffer buffer = ByteBuffer.allocateDirect(HASH_BUFFER_SIZE);
+                while (channel.read(buffer) != -1) {
+                    buffer.flip();
+                    digest.update(buffer);
+                    buffer.clear();
+                }
+                size = channel.size();
+            }
+
+            storeBlob(source, HexFormat.of().formatHex(digest.digest()), size, fileName, cleanFileName, ownerId);
+            storageQuotaService.confirm(ownerId, reserved);
+            stored = true;
+            // Still there only when the content was a duplicate; on failure it is kept for a retry
+            deleteQuietly(source);
+            return fileName;
+        } catch (IOException ex) {
+            logger.error("Failed to store uploaded file: {} at location: {}", fileName, fileStorageLocation, ex);
+            throw new FileStorageException("Could not store file " + fileName + ". Please try again!", ex);
+        } finally {
+            if (!stored) {
+                storageQuotaService.cancel(ownerId, reserved);
+            }
+        }
+    }
+
+    /**
+     * Registers the content and records the new file name against it. {@code candidate} is moved
+     * into the blob directory only when the content is not stored yet; otherwise the caller drops it.
+     */
+    private void storeBlob(Path candidate, String hash, long size, String fileName, String originalFileName,
+            Long ownerId) throws IOException {
+        boolean created = claimBlob(hash, size);
+        Path blobPath = getBlobPath(hash);
+
+        if (created || !Files.exists(blobPath)) {
+            Files.createDirectories(blobPath.getParent());
+            Files.move(candidate, blobPath, StandardCopyOption.ATOMIC_MOVE);
+            logger.info("Stored new content blob: {} ({} bytes)", hash, size);
+        } else {
+            logger.info("Content already stored, reusing blob: {} ({} bytes)", hash, size);
+        }
+
+        storedFileRepository.save(new StoredFile(fileName, fileBlobRepository.getReferenceById(hash),
+                originalFileName, size, ownerId, new Date()));
+        logger.info("File stored successfully: {} -> blob {}", fileName, hash);
+    }
+
+    // True when this call registered the content; touching an existing blob keeps the collector off it
+    private boolean claimBlob(String hash, long size) {
+        for (int attempt = 0; attempt < 2; attempt++) {
+            if (fileBlobRepository.insertIfAbsent(hash, size) == 1) {
+                return true;
+            }
+            if (fileBlobRepository.touch(hash) == 1) {
+                return false;
+            }
+            // Collected between the two statements; register it again
+        }
+        throw new FileStorageException("Could not register file content " + hash);
+    }
+
+    private String generateFileName(String originalFileName) {
         // Check if the file's name contains invalid characters
         if (originalFileName.contains("..")) {
             logger.warn("Invalid file name detected: {}", originalFileName);
             throw new FileStorageException("Filename contains invalid path sequence " + originalFileName);
         }
-        
+
         // Generate unique filename to prevent overwriting existing files
         String fileExtension = "";
         if (originalFileName.contains(".")) {
@@ -58,45 +229,70 @@ public class FileStorageServiceImpl implements FileStorageService {
         }
         String fileName = UUID.randomUUID().toString() + fileExtension;
         logger.debug("Generated unique filename: {} for original file: {}", fileName, originalFileName);
-        
-        try {
-            // Copy file to the target location
-            Path targetLocation = this.fileStorageLocation.resolve(fileName);
-            Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
-            
-            logger.info("File stored successfully: {} at location: {}", fileName, targetLocation);
-            return fileName;
-        } catch (IOException ex) {
-            logger.error("Failed to store file: {} at location: {}", fileName, fileStorageLocation, ex);
-            throw new FileStorageException("Could not store file " + fileName + ". Please try again!", ex);
-        }
+        return fileName;
     }
 
     @Override
     public Resource loadFileAsResource(String fileName) {
         logger.debug("Attempting to load file as resource: {}", fileName);
-        
+
+        // The hot file cache is not asked here: a lookup counts towards admission, and callers
+        // that only check, delete or revalidate the file must not make it look popular
+        StoredContent content = resolveServableContent(fileName);
         try {
-            Path filePath = this.fileStorageLocation.resolve(fileName).normalize();
-            Resource resource = new UrlResource(filePath.toUri());
-            
-            if (resource.exists()) {
-                logger.info("File resource loaded successfully: {}", fileName);
-                return resource;
-            } else {
-                logger.warn("File not found: {} at path: {}", fileName, filePath);
-                throw new ResourceNotFoundException("File", "fileName", fileName);
-            }
+            Resource resource = new UrlResource(content.path().toUri());
+            logger.info("File resource loaded successfully: {}", fileName);
+            return resource;
         } catch (MalformedURLException ex) {
             logger.error("Invalid file path for file: {}", fileName, ex);
             throw new ResourceNotFoundException("File", "fileName", fileName);
         }
     }
 
+    @Override
+    public StoredContent resolveContent(String fileName) {
+        Optional<String> contentHash = findContentHash(fileName);
+        Path filePath = contentHash
+                .map(this::getBlobPath)
+                .orElseGet(() -> this.fileStorageLocation.resolve(fileName).normalize());
+
+        // Old flat files only directly in the storage directory; the store's own directories
+        // (blobs, temporary files) are never served
+        if ((contentHash.isEmpty() && !fileStorageLocation.normalize().equals(filePath.getParent()))
+                || !Files.isRegularFile(filePath)) {
+            logger.warn("File not found: {} at path: {}", fileName, filePath);
+            throw new ResourceNotFoundException("File", "fileName", fileName);
+        }
+        return new StoredContent(filePath, contentHash.orElse(null));
+    }
+
+    @Override
+    public StoredContent resolveServableContent(String fileName) {
+        StoredContent content = resolveContent(fileName);
+        if (quarantinedContent.contains(content.contentHash())) {
+            logger.warn("Quarantined file not served: {}", fileName);
+            throw new FileQuarantinedException(fileName);
+        }
+        return content;
+    }
+
     @Override
     public void deleteFile(String fileName) {
         logger.debug("Attempting to delete file: {}", fileName);
-        
+        hotFileCache.invalidate(fileName);
+
+        Optional<StoredFile> storedFile = storedFileRepository.findById(fileName);
+        if (storedFile.isPresent()) {
+            // Only the name goes; the content is collected once nothing references it
+            if (storedFileRepository.deleteIfUnreferenced(fileName) == 0) {
+                logger.warn("File still in use, not deleted: {}", fileName);
+                throw new FileStorageException("File " + fileName + " is still in use");
+            }
+            storageQuotaService.release(storedFile.get().getUploadedBy(), storedFile.get().getSize(), 1);
+            logger.info("File deleted successfully: {}", fileName);
+            return;
+        }
+
         try {
             Path filePath = this.fileStorageLocation.resolve(fileName).normalize();
             if (Files.deleteIfExists(filePath)) {
@@ -109,10 +305,52 @@ public class FileStorageServiceImpl implements FileStorageService {
             throw new FileStorageException("Could not delete file " + fileName, ex);
         }
     }
-    
+
+    @Override
+    public void retainFile(String fileName) {
+        int updated = jdbcTemplate.update(ADJUST_REFERENCES_SQL, 1, fileName);
+        logger.debug("Retained file: {} (stored: {})", fileName, updated > 0);
+    }
+
+    @Override
+    public boolean releaseFile(String fileName) {
+        int updated = jdbcTemplate.update(ADJUST_REFERENCES_SQL, -1, fileName);
+        logger.debug("Released file: {} (stored: {})", fileName, updated > 0);
+        return updated > 0;
+    }
+
+    @Override
+    public Optional<String> findContentHash(String fileName) {
+        return storedFileRepository.findBlobHash(fileName);
+    }
+
+    @Override
+    public Path getBlobPath(String hash) {
+        return blobDirectory.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
     @Override
     public Path getStorageDirectory() {
         logger.debug("Retrieving storage directory: {}", fileStorageLocation);
         return this.fileStorageLocation;
     }
-}
\ No newline at end of file
+
+    private void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ex) {
+            logger.warn("Could not delete temporary file: {} - {}", path, ex.getMessage());
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.secureops.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Verifies tokens against Google's siteverify endpoint using the JDK's asynchronous HttpClient,
+ * so no thread is parked on the socket while Google answers.
+ */
+@Component
+@ConditionalOnProperty(name = "recaptcha.verifier", havingValue = "google", matchIfMissing = true)
+public class GoogleRecaptchaVerifier implements RecaptchaVerifier {
+
+    private static final Logger logger = LoggerFactory.getLogger(GoogleRecaptchaVerifier.class);
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final URI verifyUri;
+    private final String secret;
+    private final Duration requestTimeout;
+
+    public GoogleRecaptchaVerifier(HttpClient recaptchaHttpClient,
+            ObjectMapper objectMapper,
+            @Value("${recaptcha.verify-url:https://www.google.com/recaptcha/api/siteverify}") String verifyUrl,
+            @Value("${recaptcha.secret}") String secret,
+            @Value("${recaptcha.request-timeout:2s}") Duration requestTimeout) {
+        this.httpClient = recaptchaHttpClient;
+        this.objectMapper = objectMapper;
+        this.verifyUri = URI.create(verifyUrl);
+        this.secret = secret;
+        this.requestTimeout = requestTimeout;
+        logger.info("GoogleRecaptchaVerifier initialized - request timeout: {}", requestTimeout);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> verify(String token, String remoteIp) {
+        StringBuilder form = new StringBuilder()
+                .append("secret=").append(URLEncoder.encode(secret, StandardCharsets.UTF_8))
+                .append("&response=").append(URLEncoder.encode(token, StandardCharsets.UTF_8));
+        if (remoteIp != null && !"unknown".equals(remoteIp)) {
+            form.append("&remoteip=").append(URLEncoder.encode(remoteIp, StandardCharsets.UTF_8));
+        }
+
+        HttpRequest request = HttpRequest.newBuilder(verifyUri)
+                .timeout(requestTimeout)
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form.toString()))
+                .build();
+
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .thenApply(this::parseResponse);
+    }
+
+    private boolean parseResponse(HttpResponse<String> response) {
+        if (response.statusCode() != 200) {
+            // Not an answer about the token, let the caller count it as a verifier failure
+            throw new IllegalStateException("reCAPTCHA verify endpoint returned HTTP " + response.statusCode());
+        }
+        try {
+            JsonNode body = objectMapper.readTree(response.body());
+            boolean success = body.path("success").asBoolean(false);
+            if (!success) {
+                logger.debug("reCAPTCHA rejected token - error codes: {}", body.path("error-codes"));
+            }
+            return success;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Unreadable reCAPTCHA verify response", ex);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.secureops.service;
+
+import com.secureops.util.FrequencySketch;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the content of small, frequently downloaded files in memory.
+ *
+ * Entries live in direct ByteBuffers, outside the heap the GC scans, and the cache is bounded by
+ * their total size rather than their count. Admission follows TinyLFU: every lookup is counted in
+ * a frequency sketch, a file is only loaded once it has been asked for a few times, and when the
+ * cache is full it only gets in if it is more popular than each least recently used entry it
+ * would displace. A one-off download of a large attachment therefore never pushes out the policy
+ * PDF everyone opens. Evicted buffers are released by the GC once no response still uses them.
+ */
+@Component
+public class HotFileCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(HotFileCache.class);
+
+    private final long capacityBytes;
+    private final long maxEntryBytes;
+    private final int minAccesses;
+
+    // Access-ordered, so iteration starts at the least recently used entry
+    private final LinkedHashMap<String, ByteBuffer> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private final FrequencySketch sketch;
+    private final Set<String> loading = new HashSet<>();
+    private long usedBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong hitBytes = new AtomicLong();
+    private final AtomicLong admissions = new AtomicLong();
+    private final AtomicLong rejections = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public HotFileCache(@Value("${app.file.hot-cache.capacity:64MB}") DataSize capacity,
+            @Value("${app.file.hot-cache.max-entry-size:2MB}") DataSize maxEntrySize,
+            @Value("${app.file.hot-cache.min-accesses:2}") int minAccesses,
+            @Value("${app.file.hot-cache.expected-files:10000}") int expectedFiles,
+            MeterRegistry meterRegistry) {
+        this.capacityBytes = capacity.toBytes();
+        this.maxEntryBytes = Math.min(maxEntrySize.toBytes(), capacityBytes);
+        this.minAccesses = minAccesses;
+        this.sketch = new FrequencySketch(expectedFiles);
+
+        Gauge.builder("secureops.cache.size", this, HotFileCache::size)
+                .tag("cache", "hot-file").register(meterRegistry);
+        FunctionCounter.builder("secureops.cache.gets", hits, AtomicLong::get)
+                .tags("cache", "hot-file", "result", "hit").register(meterRegistry);
+        FunctionCounter.builder("secureops.cache.gets", misses, AtomicLong::get)
+                .tags("cache", "hot-file", "result", "miss").register(meterRegistry);
+        Gauge.builder("secureops.file.hot-cache.bytes", this, HotFileCache::getUsedBytes)
+                .description("Bytes of file content held in memory")
+                .baseUnit("bytes").register(meterRegistry);
+        Gauge.builder("secureops.file.hot-cache.capacity", this, cache -> cache.capacityBytes)
+                .baseUnit("bytes").register(meterRegistry);
+        FunctionCounter.builder("secureops.file.hot-cache.hit.bytes", hitBytes, AtomicLong::get)
+                .description("Size of the files found in memory, i.e. disk reads avoided")
+                .baseUnit("bytes").register(meterRegistry);
+        FunctionCounter.builder("secureops.file.hot-cache.admissions", admissions, AtomicLong::get)
+                .tag("result", "admitted").register(meterRegistry);
+        FunctionCounter.builder("secureops.file.hot-cache.admissions", rejections, AtomicLong::get)
+                .tag("result", "rejected").register(meterRegistry);
+        FunctionCounter.builder("secureops.file.hot-cache.evictions", evictions, AtomicLong::get)
+                .register(meterRegistry);
+
+        logger.info("HotFileCache initialized - capacity: {}, max entry size: {}, min accesses: {}",
+                capacity, maxEntrySize, minAccesses);
+    }
+
+    /**
+     * Content of a file that exists at {@code path} with {@code size} bytes, or null when it is not
+     * cached and does not qualify (yet); the caller then reads the file itself. A file that has
+     * become hot is loaded here, so this call may read it once.
+     */
+    public ByteBuffer get(String fileName, Path path, long size) {
+        synchronized (this) {
+            sketch.increment(fileName);
+            ByteBuffer cached = entries.get(fileName);
+            // Stored files never change under their name; a size mismatch means the name was reused
+            if (cached != null && cached.capacity() == size) {
+                hits.incrementAndGet();
+                hitBytes.addAndGet(size);
+                return cached.asReadOnlyBuffer();
+            }
+            misses.incrementAndGet();
+            if (size <= 0 || size > maxEntryBytes || sketch.frequency(fileName) < minAccesses) {
+                return null;
+            }
+            if (victimsFor(fileName, size) == null) {
+                rejections.incrementAndGet();
+                return null;
+            }
+            if (!loading.add(fileName)) {
+                return null;
+            }
+        }
+
+        ByteBuffer content = null;
+        try {
+            content = read(path, size);
+        } catch (IOException ex) {
+            logger.debug("Could not load file into memory: {} - {}", fileName, ex.getMessage());
+        }
+
+        synchronized (this) {
+            loading.remove(fileName);
+            if (content == null) {
+                return null;
+            }
+            // Re-checked: the cache may have changed while the file was read
+            List<String> victims = victimsFor(fileName, size);
+            if (victims == null) {
+                rejections.incrementAndGet();
+                return content.asReadOnlyBuffer();
+            }
+            for (String victim : victims) {
+                usedBytes -= entries.remove(victim).capacity();
+                evictions.incrementAndGet();
+            }
+            ByteBuffer previous = entries.put(fileName, content);
+            if (previous != null) {
+                usedBytes -= previous.capacity();
+            }
+            usedBytes += size;
+            admissions.incrementAndGet();
+            logger.debug("Admitted hot file: {} ({} bytes, {} evicted)", fileName, size, victims.size());
+            return content.asReadOnlyBuffer();
+        }
+    }
+
+    public synchronized void invalidate(String fileName) {
+        ByteBuffer removed = entries.remove(fileName);
+        if (removed != null) {
+            usedBytes -= removed.capacity();
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * Least recently used entries that have to go to make room, or null when the candidate is not
+     * more popular than every one of them.
+     */
+    private List<String> victimsFor(String fileName, long size) {
+        ByteBuffer existing = entries.get(fileName);
+        long needed = usedBytes - (existing != null ? existing.capacity() : 0) + size - capacityBytes;
+        List<String> victims = new ArrayList<>();
+        if (needed <= 0) {
+            return victims;
+        }
+
+        int candidateFrequency = sketch.frequency(fileName);
+        for (Map.Entry<String, ByteBuffer> entry : entries.entrySet()) {
+            if (entry.getKey().equals(fileName)) {
+                continue;
+            }
+            if (sketch.frequency(entry.getKey()) >= candidateFrequency) {
+                return null;
+            }
+            victims.add(entry.getKey());
+            needed -= entry.getValue().capacity();
+            if (needed <= 0) {
+                return victims;
+            }
+        }
+        return null;
+    }
+
+    private static ByteBuffer read(Path path, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int) size);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) == -1) {
+                    throw new IOException("File shorter than expected: " + path);
+                }
+            }
+        }
+        return buffer.flip();
+    }
+}
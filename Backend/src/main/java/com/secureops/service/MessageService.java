@@ -1,19 +1,34 @@
 package com.secureops.service;
 
 import com.secureops.dto.FileMessageDto;
+import com.secureops.dto.MessageSearchResultDto;
+import com.secureops.dto.ReadReceiptDto;
 import com.secureops.dto.TextMessageDto;
 import com.secureops.entity.Message;
+import com.secureops.util.MessageCursor;
 import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.ResponseEntity;
 
 import java.util.List;
+import java.util.Map;
 
 public interface MessageService {
     Message sendTextMessage(TextMessageDto messageDto, Long chatId, Long userId);
     Message sendFileMessage(FileMessageDto messageDto, Long chatId, Long userId);
     List<Message> getChatMessages(Long chatId);
     Page<Message> getChatMessagesPageable(Long chatId, int page, int size);
+    // Keyset page in chronological order; at most one of before/after, neither means the latest messages
+    Slice<Message> getChatMessageHistory(Long chatId, MessageCursor before, MessageCursor after, int limit);
+    // Messages newer than each chat's last seen id; a slice with hasNext() is too far behind and comes back empty
+    Map<Long, Slice<Message>> getMessagesSince(Map<Long, Long> lastSeenByChat, int perChatLimit);
+    // Ranked full-text search over the current user's chats (or just chatId); page is zero based
+    MessageSearchResultDto searchMessages(String query, Long chatId, int page, int size);
     void markAsRead(Long messageId);
+    // Chat the message belongs to, or null if the message does not exist
+    Long getChatIdForMessage(Long messageId);
+    // Moves the user's read watermark forward to upToMessageId; returns the resulting watermark and unread count
+    ReadReceiptDto markChatReadUpTo(Long chatId, Long upToMessageId, Long userId);
     ResponseEntity<Resource> getFileResourceByMessageId(Long messageId);
 }
\ No newline at end of file
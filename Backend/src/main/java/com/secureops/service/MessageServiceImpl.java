@@ -1,7 +1,10 @@
 package com.secureops.service;
 
+import com.secureops.dto.ChatActivityDto;
 import com.secureops.dto.FileMessageDto;
 import com.secureops.dto.MessageDto;
+import com.secureops.dto.MessageSearchResultDto;
+import com.secureops.dto.ReadReceiptDto;
 import com.secureops.dto.TextMessageDto;
 import com.secureops.entity.Chat;
 import com.secureops.entity.FileMessage;
@@ -11,18 +14,23 @@ import com.secureops.entity.User;
 import com.secureops.exception.BadRequestException;
 import com.secureops.exception.ResourceNotFoundException;
 import com.secureops.exception.UnauthorizedException;
+import com.secureops.repository.ChatReadStateRepository;
 import com.secureops.repository.ChatRepository;
 import com.secureops.repository.FileMessageRepository;
 import com.secureops.repository.MessageRepository;
 import com.secureops.repository.TextMessageRepository;
 import com.secureops.repository.UserRepository;
 import com.secureops.util.AppConstants;
+import com.secureops.util.MessageCursor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
@@ -33,7 +41,12 @@ import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
 import jakarta.servlet.http.HttpServletRequest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class MessageServiceImpl implements MessageService {
@@ -41,6 +54,12 @@ public class MessageServiceImpl implements MessageService {
     private static final Logger logger = LoggerFactory.getLogger(MessageServiceImpl.class);
     private static final Logger securityLogger = LoggerFactory.getLogger("com.secureops.security");
 
+    // ts_headline marks matches with these; they are stripped into offsets so clients never render markup
+    private static final char HIGHLIGHT_START = '\u0002';
+    private static final char HIGHLIGHT_STOP = '\u0003';
+    private static final String HEADLINE_OPTIONS = "StartSel=\"" + HIGHLIGHT_START + "\", StopSel=\"" + HIGHLIGHT_STOP
+            + "\", MaxFragments=2, MaxWords=20, MinWords=8, FragmentDelimiter=\" … \"";
+
     private final MessageRepository messageRepository;
     private final TextMessageRepository textMessageRepository;
     private final FileMessageRepository fileMessageRepository;
@@ -49,6 +68,18 @@ public class MessageServiceImpl implements MessageService {
     private final LogService logService;
     private final FileStorageService fileStorageService;
     private final WebSocketService webSocketService;
+    private final ChatMembershipCache chatMembershipCache;
+    private final UserPrincipalCache userPrincipalCache;
+    private final ChatReadStateRepository chatReadStateRepository;
+    private final ChatEventPipeline chatEventPipeline;
+    private final ThumbnailService thumbnailService;
+    private final PresenceRegistry presenceRegistry;
+
+    @Value("${app.search.messages.max-candidates:2000}")
+    private int searchMaxCandidates;
+
+    @Value("${app.search.messages.max-query-length:200}")
+    private int searchMaxQueryLength;
 
     public MessageServiceImpl(MessageRepository messageRepository,
             TextMessageRepository textMessageRepository,
@@ -57,7 +88,13 @@ public class MessageServiceImpl implements MessageService {
             UserRepository userRepository,
             LogService logService,
             FileStorageService fileStorageService,
-            WebSocketService webSocketService) {
+            WebSocketService webSocketService,
+            ChatMembershipCache chatMembershipCache,
+            UserPrincipalCache userPrincipalCache,
+            ChatReadStateRepository chatReadStateRepository,
+            ChatEventPipeline chatEventPipeline,
+            ThumbnailService thumbnailService,
+            PresenceRegistry presenceRegistry) {
         this.messageRepository = messageRepository;
         this.textMessageRepository = textMessageRepository;
         this.fileMessageRepository = fileMessageRepository;
@@ -66,6 +103,12 @@ public class MessageServiceImpl implements MessageService {
         this.logService = logService;
         this.fileStorageService = fileStorageService;
         this.webSocketService = webSocketService;
+        this.chatMembershipCache = chatMembershipCache;
+        this.userPrincipalCache = userPrincipalCache;
+        this.chatReadStateRepository = chatReadStateRepository;
+        this.chatEventPipeline = chatEventPipeline;
+        this.thumbnailService = thumbnailService;
+        this.presenceRegistry = presenceRegistry;
         logger.info("MessageServiceImpl initialized");
     }
 
@@ -76,13 +119,14 @@ public class MessageServiceImpl implements MessageService {
         logger.debug("Attempting to send text message in chatId: {} by userId: {}", chatId, userId);
         
         try {
-            // Verify chat exists
-            Chat chat = chatRepository.findById(chatId)
-                    .orElseThrow(() -> {
-                        logger.warn("Chat not found: {}", chatId);
-                        securityLogger.warn("Attempt to send message to non-existent chat: {} from IP: {}", chatId, clientIp);
-                        return new ResourceNotFoundException("Chat", "id", chatId);
-                    });
+            // Verify chat exists and user is a participant in the chat
+            ChatMembershipCache.Membership membership = requireParticipant(chatId, userId, "send message", clientIp);
+
+            // Verify chat is active
+            if (!membership.isActive()) {
+                logger.warn("Attempt to send message to archived chat: {}", chatId);
+                throw new BadRequestException("Cannot send messages to an archived chat");
+            }
 
             // Verify user exists
             User sender = userRepository.findById(userId)
@@ -92,18 +136,8 @@ public class MessageServiceImpl implements MessageService {
                         return new ResourceNotFoundException("User", "id", userId);
                     });
 
-            // Verify user is a participant in the chat
-            if (chat.getParticipants().stream().noneMatch(p -> p.getId().equals(userId))) {
-                logger.warn("User {} is not a participant in chat {}", userId, chatId);
-                securityLogger.warn("Unauthorized message attempt by userId: {} in chat: {} from IP: {}", userId, chatId, clientIp);
-                throw new UnauthorizedException("You are not a participant in this chat");
-            }
-
-            // Verify chat is active
-            if (chat.getStatus() != Chat.ChatStatus.ACTIVE) {
-                logger.warn("Attempt to send message to archived chat: {}", chatId);
-                throw new BadRequestException("Cannot send messages to an archived chat");
-            }
+            // Membership is already verified, a reference is enough to set the foreign key
+            Chat chat = chatRepository.getReferenceById(chatId);
 
             // Create text message
             TextMessage message = new TextMessage();
@@ -116,14 +150,6 @@ public class MessageServiceImpl implements MessageService {
             TextMessage savedMessage = textMessageRepository.save(message);
             logger.info("Text message sent successfully in chat: {} by userId: {}", chatId, userId);
 
-            // Log message creation
-            logService.createLog(
-                    AppConstants.LOG_ACTION_CREATE,
-                    "Text message sent in chat: " + chat.getTitle(),
-                    clientIp,
-                    AppConstants.LOG_TYPE_CHAT,
-                    userId);
-
             // Broadcast the message via WebSocket
             TextMessageDto responseDto = new TextMessageDto();
             responseDto.setId(savedMessage.getId());
@@ -134,8 +160,21 @@ public class MessageServiceImpl implements MessageService {
             responseDto.setChatId(chatId);
             responseDto.setMessageType("TEXT");
 
-            logger.debug("Broadcasting text message to chat: {}", chatId);
-            webSocketService.broadcastMessage(chatId, savedMessage, responseDto);
+            // Audit and broadcast after commit, in order with the rest of this chat's events
+            String auditDetails = "Text message sent in chat: " + membership.getTitle();
+            chatEventPipeline.dispatch(chatId, () -> {
+                logService.createLog(
+                        AppConstants.LOG_ACTION_CREATE,
+                        auditDetails,
+                        clientIp,
+                        AppConstants.LOG_TYPE_CHAT,
+                        userId);
+
+                logger.debug("Broadcasting text message to chat: {}", chatId);
+                webSocketService.broadcastMessage(chatId, savedMessage, responseDto);
+                notifyParticipants(membership, new ChatActivityDto(chatId, savedMessage.getId(), userId, "TEXT",
+                        preview(savedMessage.getContent()), savedMessage.getTimestamp()));
+            });
 
             return savedMessage;
 
@@ -156,13 +195,14 @@ public class MessageServiceImpl implements MessageService {
         logger.debug("Attempting to send file message in chatId: {} by userId: {}", chatId, userId);
         
         try {
-            // Verify chat exists
-            Chat chat = chatRepository.findById(chatId)
-                    .orElseThrow(() -> {
-                        logger.warn("Chat not found: {}", chatId);
-                        securityLogger.warn("Attempt to send file message to non-existent chat: {} from IP: {}", chatId, clientIp);
-                        return new ResourceNotFoundException("Chat", "id", chatId);
-                    });
+            // Verify chat exists and user is a participant in the chat
+            ChatMembershipCache.Membership membership = requireParticipant(chatId, userId, "send file message", clientIp);
+
+            // Verify chat is active
+            if (!membership.isActive()) {
+                logger.warn("Attempt to send file message to archived chat: {}", chatId);
+                throw new BadRequestException("Cannot send messages to an archived chat");
+            }
 
             // Verify user exists
             User sender = userRepository.findById(userId)
@@ -172,18 +212,8 @@ public class MessageServiceImpl implements MessageService {
                         return new ResourceNotFoundException("User", "id", userId);
                     });
 
-            // Verify user is a participant in the chat
-            if (chat.getParticipants().stream().noneMatch(p -> p.getId().equals(userId))) {
-                logger.warn("User {} is not a participant in chat {}", userId, chatId);
-                securityLogger.warn("Unauthorized file message attempt by userId: {} in chat: {} from IP: {}", userId, chatId, clientIp);
-                throw new UnauthorizedException("You are not a participant in this chat");
-            }
-
-            // Verify chat is active
-            if (chat.getStatus() != Chat.ChatStatus.ACTIVE) {
-                logger.warn("Attempt to send file message to archived chat: {}", chatId);
-                throw new BadRequestException("Cannot send messages to an archived chat");
-            }
+            // Membership is already verified, a reference is enough to set the foreign key
+            Chat chat = chatRepository.getReferenceById(chatId);
 
             // Create file message
             FileMessage message = new FileMessage();
@@ -191,6 +221,8 @@ public class MessageServiceImpl implements MessageService {
             message.setFileName(messageDto.getFileName());
             message.setFileType(messageDto.getFileType());
             message.setFileSize(messageDto.getFileSize());
+            // Counts as a reference to the stored content (FileReferenceListener)
+            message.setStoredFileName(extractFileNameFromUrl(messageDto.getFileUrl()));
             message.setTimestamp(new java.util.Date());
             message.setReadStatus(false);
             message.setSender(sender);
@@ -200,14 +232,6 @@ public class MessageServiceImpl implements MessageService {
             logger.info("File message sent successfully in chat: {} by userId: {}, file: {}", 
                     chatId, userId, messageDto.getFileName());
 
-            // Log message creation
-            logService.createLog(
-                    AppConstants.LOG_ACTION_CREATE,
-                    "File message sent in chat: " + chat.getTitle(),
-                    clientIp,
-                    AppConstants.LOG_TYPE_CHAT,
-                    userId);
-
             // Broadcast the message via WebSocket
             FileMessageDto responseDto = new FileMessageDto();
             responseDto.setId(savedMessage.getId());
@@ -221,8 +245,25 @@ public class MessageServiceImpl implements MessageService {
             responseDto.setChatId(chatId);
             responseDto.setMessageType("FILE");
 
-            logger.debug("Broadcasting file message to chat: {}", chatId);
-            webSocketService.broadcastMessage(chatId, savedMessage, responseDto);
+            // Audit and broadcast after commit, in order with the rest of this chat's events
+            String auditDetails = "File message sent in chat: " + membership.getTitle();
+            chatEventPipeline.dispatch(chatId, () -> {
+                logService.createLog(
+                        AppConstants.LOG_ACTION_CREATE,
+                        auditDetails,
+                        clientIp,
+                        AppConstants.LOG_TYPE_CHAT,
+                        userId);
+
+                logger.debug("Broadcasting file message to chat: {}", chatId);
+                webSocketService.broadcastMessage(chatId, savedMessage, responseDto);
+                notifyParticipants(membership, new ChatActivityDto(chatId, savedMessage.getId(), userId, "FILE",
+                        savedMessage.getFileName(), savedMessage.getTimestamp()));
+
+                if (isImage(savedMessage.getFileType()) && savedMessage.getStoredFileName() != null) {
+                    thumbnailService.scheduleThumbnails(savedMessage.getStoredFileName());
+                }
+            });
 
             return savedMessage;
 
@@ -242,24 +283,10 @@ public class MessageServiceImpl implements MessageService {
         logger.debug("Retrieving messages for chatId: {}", chatId);
         
         try {
-            // Verify chat exists
-            Chat chat = chatRepository.findById(chatId)
-                    .orElseThrow(() -> {
-                        logger.warn("Chat not found: {}", chatId);
-                        securityLogger.warn("Attempt to retrieve messages from non-existent chat: {} from IP: {}", chatId, clientIp);
-                        return new ResourceNotFoundException("Chat", "id", chatId);
-                    });
+            // Verify chat exists and user is a participant
+            requireParticipant(chatId, getCurrentUserId(), "retrieve messages", clientIp);
 
-            // Verify user is a participant
-            User currentUser = getCurrentUser();
-            if (chat.getParticipants().stream().noneMatch(p -> p.getId().equals(currentUser.getId()))) {
-                logger.warn("User {} is not a participant in chat {}", currentUser.getId(), chatId);
-                securityLogger.warn("Unauthorized access attempt to chat messages by userId: {} in chat: {} from IP: {}", 
-                        currentUser.getId(), chatId, clientIp);
-                throw new UnauthorizedException("You are not a participant in this chat");
-            }
-
-            List<Message> messages = messageRepository.findByChatId(chatId);
+            List<Message> messages = messageRepository.findByChatIdWithSender(chatId);
             logger.info("Retrieved {} messages for chat: {}", messages.size(), chatId);
             return messages;
 
@@ -279,25 +306,11 @@ public class MessageServiceImpl implements MessageService {
         logger.debug("Retrieving pageable messages for chatId: {}, page: {}, size: {}", chatId, page, size);
         
         try {
-            // Verify chat exists
-            Chat chat = chatRepository.findById(chatId)
-                    .orElseThrow(() -> {
-                        logger.warn("Chat not found: {}", chatId);
-                        securityLogger.warn("Attempt to retrieve pageable messages from non-existent chat: {} from IP: {}", chatId, clientIp);
-                        return new ResourceNotFoundException("Chat", "id", chatId);
-                    });
+            // Verify chat exists and user is a participant
+            requireParticipant(chatId, getCurrentUserId(), "retrieve pageable messages", clientIp);
 
-            // Verify user is a participant
-            User currentUser = getCurrentUser();
-            if (chat.getParticipants().stream().noneMatch(p -> p.getId().equals(currentUser.getId()))) {
-                logger.warn("User {} is not a participant in chat {}", currentUser.getId(), chatId);
-                securityLogger.warn("Unauthorized access attempt to pageable chat messages by userId: {} in chat: {} from IP: {}", 
-                        currentUser.getId(), chatId, clientIp);
-                throw new UnauthorizedException("You are not a participant in this chat");
-            }
-
-            Pageable pageable = PageRequest.of(page, size, Sort.by("timestamp").descending());
-            Page<Message> messages = messageRepository.findAll(pageable);
+            Pageable pageable = PageRequest.of(page, size, Sort.by("timestamp").descending().and(Sort.by("id").descending()));
+            Page<Message> messages = messageRepository.findByChatId(chatId, pageable);
             logger.info("Retrieved pageable messages for chat: {}, page: {}, size: {}, total: {}", 
                     chatId, page, size, messages.getTotalElements());
             return messages;
@@ -312,80 +325,241 @@ public class MessageServiceImpl implements MessageService {
         }
     }
 
+    @Override
+    public Slice<Message> getChatMessageHistory(Long chatId, MessageCursor before, MessageCursor after, int limit) {
+        String clientIp = getClientIp();
+        logger.debug("Retrieving message history for chatId: {}, before: {}, after: {}, limit: {}",
+                chatId, before, after, limit);
+
+        try {
+            if (before != null && after != null) {
+                throw new BadRequestException("Only one of 'before' and 'after' may be given");
+            }
+
+            // Verify chat exists and user is a participant
+            requireParticipant(chatId, getCurrentUserId(), "retrieve message history", clientIp);
+
+            // One extra row tells whether there is more beyond this page without a count query
+            Pageable window = PageRequest.of(0, limit + 1);
+            List<Message> rows;
+            if (after != null) {
+                rows = messageRepository.findByChatIdAfter(chatId, after.getTimestamp(), after.getId(), window);
+            } else if (before != null) {
+                rows = messageRepository.findByChatIdBefore(chatId, before.getTimestamp(), before.getId(), window);
+            } else {
+                rows = messageRepository.findLatestByChatId(chatId, window);
+            }
+
+            boolean hasMore = rows.size() > limit;
+            List<Message> messages = new ArrayList<>(hasMore ? rows.subList(0, limit) : rows);
+            if (after == null) {
+                // Backwards scans come newest first
+                Collections.reverse(messages);
+            }
+
+            logger.info("Retrieved {} history messages for chat: {}, hasMore: {}", messages.size(), chatId, hasMore);
+            return new SliceImpl<>(messages, PageRequest.of(0, limit), hasMore);
+
+        } catch (ResourceNotFoundException | UnauthorizedException | BadRequestException ex) {
+            throw ex; // Already logged
+        } catch (Exception ex) {
+            logger.error("Unexpected error retrieving message history for chat: {}", chatId, ex);
+            securityLogger.error("Error retrieving chat message history - chatId: {}, IP: {}, Error: {}",
+                    chatId, clientIp, ex.getMessage());
+            throw ex;
+        }
+    }
+
+    @Override
+    public Map<Long, Slice<Message>> getMessagesSince(Map<Long, Long> lastSeenByChat, int perChatLimit) {
+        String clientIp = getClientIp();
+        Long userId = getCurrentUserId();
+        logger.debug("Syncing {} chats for userId: {}, per chat limit: {}", lastSeenByChat.size(), userId, perChatLimit);
+
+        try {
+            // Chats the user has left or never belonged to are skipped rather than failing the whole sync
+            List<Long> chatIds = new ArrayList<>(lastSeenByChat.size());
+            List<Long> afterIds = new ArrayList<>(lastSeenByChat.size());
+            for (Map.Entry<Long, Long> entry : lastSeenByChat.entrySet()) {
+                if (entry.getKey() == null || !chatMembershipCache.isParticipant(entry.getKey(), userId)) {
+                    logger.debug("Skipping sync for chat {} - userId: {} is not a participant", entry.getKey(), userId);
+                    continue;
+                }
+                chatIds.add(entry.getKey());
+                afterIds.add(entry.getValue() == null ? 0L : entry.getValue());
+            }
+
+            Map<Long, List<Message>> newerByChat = new LinkedHashMap<>();
+            chatIds.forEach(chatId -> newerByChat.put(chatId, new ArrayList<>()));
+            if (!chatIds.isEmpty()) {
+                // One extra row per chat tells whether it is beyond the cap
+                List<Long> ids = messageRepository.findIdsAfterPerChat(
+                        chatIds.toArray(new Long[0]), afterIds.toArray(new Long[0]), perChatLimit + 1);
+                if (!ids.isEmpty()) {
+                    for (Message message : messageRepository.findAllByIdWithSender(ids)) {
+                        newerByChat.get(message.getChat().getId()).add(message);
+                    }
+                }
+            }
+
+            Map<Long, Slice<Message>> result = new LinkedHashMap<>();
+            int returned = 0;
+            for (Map.Entry<Long, List<Message>> entry : newerByChat.entrySet()) {
+                List<Message> messages = entry.getValue();
+                boolean tooFarBehind = messages.size() > perChatLimit;
+                // A client that far behind reloads the latest page instead of replaying the gap
+                List<Message> content = tooFarBehind ? List.of() : messages;
+                returned += content.size();
+                result.put(entry.getKey(), new SliceImpl<>(content, PageRequest.of(0, perChatLimit), tooFarBehind));
+            }
+
+            logger.info("Sync for userId: {} - {} chats, {} messages", userId, result.size(), returned);
+            return result;
+
+        } catch (Exception ex) {
+            logger.error("Unexpected error syncing messages for userId: {}", userId, ex);
+            securityLogger.error("Error syncing messages - userId: {}, IP: {}, Error: {}", userId, clientIp, ex.getMessage());
+            throw ex;
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public MessageSearchResultDto searchMessages(String query, Long chatId, int page, int size) {
+        String clientIp = getClientIp();
+        Long userId = getCurrentUserId();
+        logger.debug("Searching messages for userId: {}, chatId: {}, page: {}, size: {}", userId, chatId, page, size);
+
+        try {
+            String terms = query == null ? "" : query.trim();
+            if (terms.isEmpty() || terms.length() > searchMaxQueryLength) {
+                throw new BadRequestException("Search query must be between 1 and " + searchMaxQueryLength + " characters");
+            }
+            if (page < 0 || (long) (page + 1) * size > searchMaxCandidates) {
+                throw new BadRequestException("Search results are limited to the first " + searchMaxCandidates + " matches");
+            }
+            if (chatId != null) {
+                requireParticipant(chatId, userId, "search messages", clientIp);
+            }
+
+            // One extra row tells whether there is another page without counting every match
+            List<MessageRepository.MessageSearchRow> rows = messageRepository.searchMessages(userId, chatId, terms,
+                    HEADLINE_OPTIONS, searchMaxCandidates, size + 1, page * size);
+
+            boolean hasMore = rows.size() > size;
+            List<MessageSearchResultDto.Hit> hits = new ArrayList<>(Math.min(rows.size(), size));
+            for (MessageRepository.MessageSearchRow row : hasMore ? rows.subList(0, size) : rows) {
+                hits.add(toSearchHit(row));
+            }
+
+            logger.info("Message search by userId: {} returned {} results (page {}, more: {})", userId, hits.size(), page, hasMore);
+            return new MessageSearchResultDto(hits, page, size, hasMore);
+
+        } catch (BadRequestException | ResourceNotFoundException | UnauthorizedException ex) {
+            // Already logged
+            throw ex;
+        } catch (Exception ex) {
+            logger.error("Unexpected error searching messages for userId: {}", userId, ex);
+            securityLogger.error("Error searching messages - userId: {}, IP: {}, Error: {}", userId, clientIp, ex.getMessage());
+            throw ex;
+        }
+    }
+
+    private MessageSearchResultDto.Hit toSearchHit(MessageRepository.MessageSearchRow row) {
+        String marked = row.getSnippet() == null ? "" : row.getSnippet();
+        StringBuilder snippet = new StringBuilder(marked.length());
+        List<MessageSearchResultDto.Highlight> highlights = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i < marked.length(); i++) {
+            char c = marked.charAt(i);
+            if (c == HIGHLIGHT_START) {
+                start = snippet.length();
+            } else if (c == HIGHLIGHT_STOP) {
+                if (start >= 0) {
+                    highlights.add(new MessageSearchResultDto.Highlight(start, snippet.length()));
+                    start = -1;
+                }
+            } else {
+                snippet.append(c);
+            }
+        }
+        return new MessageSearchResultDto.Hit(row.getMessageId(), row.getChatId(), row.getChatTitle(),
+                row.getSenderId(), row.getSenderName(), row.getTimestamp(),
+                row.getRank() == null ? 0 : row.getRank(), snippet.toString(), highlights);
+    }
+
     @Override
     @Transactional
     public void markAsRead(Long messageId) {
         String clientIp = getClientIp();
         logger.debug("Attempting to mark message as read: {}", messageId);
-        
+
         try {
-            Message message = messageRepository.findById(messageId)
+            Long chatId = messageRepository.findChatIdById(messageId)
                     .orElseThrow(() -> {
                         logger.warn("Message not found: {}", messageId);
                         securityLogger.warn("Attempt to mark non-existent message as read: {} from IP: {}", messageId, clientIp);
                         return new ResourceNotFoundException("Message", "id", messageId);
                     });
 
-            // Verify user is a participant
-            User currentUser = getCurrentUser();
-            if (message.getChat().getParticipants().stream().noneMatch(p -> p.getId().equals(currentUser.getId()))) {
-                logger.warn("User {} is not a participant in chat for message {}", currentUser.getId(), messageId);
-                securityLogger.warn("Unauthorized attempt to mark message as read by userId: {} for message: {} from IP: {}", 
-                        currentUser.getId(), messageId, clientIp);
-                throw new UnauthorizedException("You are not a participant in this chat");
-            }
+            // A single message is just a watermark at that message
+            markChatReadUpTo(chatId, messageId, getCurrentUserId());
 
-            // Don't mark own messages as read
-            if (message.getSender().getId().equals(currentUser.getId())) {
-                logger.debug("Skipping read status update for own message: {} by user: {}", messageId, currentUser.getId());
-                return;
-            }
+        } catch (ResourceNotFoundException | UnauthorizedException ex) {
+            throw ex; // Already logged
+        } catch (Exception ex) {
+            logger.error("Unexpected error marking message as read: {}", messageId, ex);
+            securityLogger.error("Error marking message as read - messageId: {}, IP: {}, Error: {}", 
+                    messageId, clientIp, ex.getMessage());
+            throw ex;
+        }
+    }
+
+    @Override
+    public Long getChatIdForMessage(Long messageId) {
+        return messageRepository.findChatIdById(messageId).orElse(null);
+    }
 
-            message.setReadStatus(true);
-            Message updatedMessage = messageRepository.save(message);
-            logger.info("Message marked as read: {} by user: {}", messageId, currentUser.getId());
-
-            // Broadcast the read status update via WebSocket
-            MessageDto messageDto;
-            if (message instanceof TextMessage) {
-                TextMessage textMessage = (TextMessage) message;
-                TextMessageDto dto = new TextMessageDto();
-                dto.setId(textMessage.getId());
-                dto.setContent(textMessage.getContent());
-                dto.setTimestamp(textMessage.getTimestamp());
-                dto.setReadStatus(true);
-                dto.setSender(mapUserToDto(textMessage.getSender()));
-                dto.setChatId(textMessage.getChat().getId());
-                dto.setMessageType("TEXT");
-                messageDto = dto;
-            } else if (message instanceof FileMessage) {
-                FileMessage fileMessage = (FileMessage) message;
-                FileMessageDto dto = new FileMessageDto();
-                dto.setId(fileMessage.getId());
-                dto.setFileUrl(fileMessage.getFileUrl());
-                dto.setFileName(fileMessage.getFileName());
-                dto.setFileType(fileMessage.getFileType());
-                dto.setFileSize(fileMessage.getFileSize());
-                dto.setTimestamp(fileMessage.getTimestamp());
-                dto.setReadStatus(true);
-                dto.setSender(mapUserToDto(fileMessage.getSender()));
-                dto.setChatId(fileMessage.getChat().getId());
-                dto.setMessageType("FILE");
-                messageDto = dto;
+    @Override
+    @Transactional
+    public ReadReceiptDto markChatReadUpTo(Long chatId, Long upToMessageId, Long userId) {
+        String clientIp = getClientIp();
+        logger.debug("Attempting to mark chat {} as read up to message {} for user {}", chatId, upToMessageId, userId);
+
+        try {
+            if (upToMessageId == null || upToMessageId <= 0) {
+                throw new BadRequestException("A valid message id is required");
+            }
+            requireParticipant(chatId, userId, "mark chat as read", clientIp);
+
+            // Clamp to a message that really exists in this chat, ids from other chats never move the watermark
+            Long lastReadId = messageRepository.findLastMessageIdUpTo(chatId, upToMessageId);
+            boolean advanced = lastReadId != null
+                    && chatReadStateRepository.advanceWatermark(chatId, userId, lastReadId) > 0;
+
+            Date readAt = new Date();
+            if (advanced) {
+                int updated = messageRepository.markReadUpTo(chatId, userId, lastReadId);
+                logger.info("Chat {} read up to message {} by user {} ({} messages flagged)",
+                        chatId, lastReadId, userId, updated);
+
+                // One receipt per watermark move, however many messages it covers
+                ReadReceiptDto broadcast = new ReadReceiptDto(chatId, userId, lastReadId, readAt, null);
+                chatEventPipeline.dispatch(chatId, () -> webSocketService.broadcastReadReceipt(chatId, broadcast));
             } else {
-                logger.warn("Unknown message type for message: {}", messageId);
-                return;
+                logger.debug("Read watermark unchanged for chat {} and user {}", chatId, userId);
+                lastReadId = chatReadStateRepository.findWatermark(chatId, userId).orElse(0L);
             }
 
-            logger.debug("Broadcasting read status update for message: {}", messageId);
-            webSocketService.broadcastMessageRead(message.getChat().getId(), messageDto);
+            long unread = messageRepository.countUnread(chatId, userId, lastReadId);
+            return new ReadReceiptDto(chatId, userId, lastReadId, readAt, unread);
 
-        } catch (ResourceNotFoundException | UnauthorizedException ex) {
+        } catch (BadRequestException | ResourceNotFoundException | UnauthorizedException ex) {
             throw ex; // Already logged
         } catch (Exception ex) {
-            logger.error("Unexpected error marking message as read: {}", messageId, ex);
-            securityLogger.error("Error marking message as read - messageId: {}, IP: {}, Error: {}", 
-                    messageId, clientIp, ex.getMessage());
+            logger.error("Unexpected error marking chat as read - chatId: {}, upTo: {}", chatId, upToMessageId, ex);
+            securityLogger.error("Error marking chat as read - chatId: {}, IP: {}, Error: {}",
+                    chatId, clientIp, ex.getMessage());
             throw ex;
         }
     }
@@ -410,13 +584,7 @@ public class MessageServiceImpl implements MessageService {
             }
 
             // Verify user is a participant
-            User currentUser = getCurrentUser();
-            if (message.getChat().getParticipants().stream().noneMatch(p -> p.getId().equals(currentUser.getId()))) {
-                logger.warn("User {} is not a participant in chat for message {}", currentUser.getId(), messageId);
-                securityLogger.warn("Unauthorized attempt to retrieve file by userId: {} for message: {} from IP: {}", 
-                        currentUser.getId(), messageId, clientIp);
-                throw new UnauthorizedException("You are not a participant in this chat");
-            }
+            requireParticipant(message.getChat().getId(), getCurrentUserId(), "retrieve file", clientIp);
 
             FileMessage fileMessage = (FileMessage) message;
             String fileName = extractFileNameFromUrl(fileMessage.getFileUrl());
@@ -440,6 +608,10 @@ public class MessageServiceImpl implements MessageService {
         }
     }
 
+    private static boolean isImage(String fileType) {
+        return fileType != null && fileType.toLowerCase().startsWith("image/");
+    }
+
     private String extractFileNameFromUrl(String fileUrl) {
         logger.debug("Extracting filename from URL: {}", fileUrl);
         String fileName = fileUrl.substring(fileUrl.lastIndexOf("/") + 1);
@@ -447,29 +619,55 @@ public class MessageServiceImpl implements MessageService {
         return fileName;
     }
 
-    private User getCurrentUser() {
-        logger.debug("Retrieving current authenticated user");
-        try {
-            org.springframework.security.core.Authentication authentication = org.springframework.security.core.context.SecurityContextHolder
-                    .getContext().getAuthentication();
-            if (authentication != null && authentication.isAuthenticated()) {
-                String email = authentication.getName();
-                User user = userRepository.findByEmail(email)
-                        .orElseThrow(() -> {
-                            logger.warn("Authenticated user not found in database: {}", maskEmail(email));
-                            securityLogger.warn("Authenticated user not found: {} from IP: {}", maskEmail(email), getClientIp());
-                            return new UnauthorizedException("User not found");
-                        });
-                logger.debug("Current user retrieved: {}", maskEmail(email));
-                return user;
-            }
+    /**
+     * Tells every online participant, the sender's other sessions included, about a new message on
+     * their private queue, so chat lists update without a subscription per chat. One payload is
+     * serialized for all of them, and offline participants cost nothing.
+     */
+    private void notifyParticipants(ChatMembershipCache.Membership membership, ChatActivityDto activity) {
+        List<String> recipients = presenceRegistry.findOnlineUsernames(membership.getParticipantIds());
+        webSocketService.sendToUsers(recipients, "/queue/chat-activity", activity);
+    }
+
+    private static String preview(String content) {
+        return content == null || content.length() <= AppConstants.CHAT_PREVIEW_LENGTH
+                ? content
+                : content.substring(0, AppConstants.CHAT_PREVIEW_LENGTH);
+    }
+
+    /**
+     * Checks through the membership cache that the chat exists and the user takes part in it.
+     */
+    private ChatMembershipCache.Membership requireParticipant(Long chatId, Long userId, String action, String clientIp) {
+        ChatMembershipCache.Membership membership = chatMembershipCache.get(chatId);
+        if (membership == null) {
+            logger.warn("Chat not found: {}", chatId);
+            securityLogger.warn("Attempt to {} non-existent chat: {} by userId: {} from IP: {}", action, chatId, userId, clientIp);
+            throw new ResourceNotFoundException("Chat", "id", chatId);
+        }
+        if (!membership.contains(userId)) {
+            logger.warn("User {} is not a participant in chat {}", userId, chatId);
+            securityLogger.warn("Unauthorized attempt to {} by userId: {} in chat: {} from IP: {}", action, userId, chatId, clientIp);
+            throw new UnauthorizedException("You are not a participant in this chat");
+        }
+        return membership;
+    }
+
+    private Long getCurrentUserId() {
+        org.springframework.security.core.Authentication authentication = org.springframework.security.core.context.SecurityContextHolder
+                .getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
             logger.warn("No authenticated user found");
             securityLogger.warn("No authenticated user - IP: {}", getClientIp());
             throw new UnauthorizedException("Not authenticated");
-        } catch (Exception ex) {
-            logger.error("Error retrieving current user", ex);
-            throw ex;
         }
+        String email = authentication.getName();
+        return userPrincipalCache.findUserId(email)
+                .orElseThrow(() -> {
+                    logger.warn("Authenticated user not found in database: {}", maskEmail(email));
+                    securityLogger.warn("Authenticated user not found: {} from IP: {}", maskEmail(email), getClientIp());
+                    return new UnauthorizedException("User not found");
+                });
     }
 
     private String getClientIp() {
@@ -0,0 +1,203 @@
+package com.secureops.service;
+
+import com.secureops.dto.PresenceDto;
+import com.secureops.dto.PresenceSnapshotDto;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.security.Principal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Who is online, driven by STOMP sessions.
+ *
+ * A user is online while at least one of their sessions is open, so several tabs or devices count
+ * once. Sessions are opened on CONNECTED, closed on DISCONNECT, and kept alive by any inbound frame
+ * including heartbeats (see WebSocketChannelInterceptor); a session silent for longer than the TTL
+ * is treated as closed. Only transitions are published to /topic/presence.
+ */
+@Component
+public class PresenceRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(PresenceRegistry.class);
+
+    private final WebSocketService webSocketService;
+    private final UserPrincipalCache userPrincipalCache;
+    private final long sessionTtlNanos;
+
+    private final Map<String, SessionEntry> sessions = new ConcurrentHashMap<>();
+    // User -> principal name and open session count. Every change goes through compute on the
+    // user's entry, which decides the transition and numbers it; the delta is published after
+    // compute returns, so no broker send runs under the map's bin lock. Deltas of one user may
+    // leave out of order, but their sequence is the order the state changed in, which is what
+    // clients order by
+    private final Map<Long, OnlineUser> onlineUsers = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    public PresenceRegistry(WebSocketService webSocketService,
+            UserPrincipalCache userPrincipalCache,
+            @Value("${app.presence.session-ttl:90s}") Duration sessionTtl,
+            MeterRegistry meterRegistry) {
+        this.webSocketService = webSocketService;
+        this.userPrincipalCache = userPrincipalCache;
+        this.sessionTtlNanos = sessionTtl.toNanos();
+
+        Gauge.builder("secureops.presence.online_users", onlineUsers, Map::size)
+                .description("Users with at least one open WebSocket session")
+                .register(meterRegistry);
+        Gauge.builder("secureops.presence.sessions", sessions, Map::size)
+                .description("Open WebSocket sessions")
+                .register(meterRegistry);
+
+        logger.info("PresenceRegistry initialized - session ttl: {}", sessionTtl);
+    }
+
+    @EventListener
+    public void onConnected(SessionConnectedEvent event) {
+        String sessionId = (String) event.getMessage().getHeaders().get("simpSessionId");
+        Principal user = event.getUser();
+        if (sessionId == null || user == null) {
+            return;
+        }
+        userPrincipalCache.findUserId(user.getName())
+                .ifPresent(userId -> sessionOpened(sessionId, userId, user.getName()));
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        sessionClosed(event.getSessionId());
+    }
+
+    /**
+     * Marks the session as alive. Called for every inbound frame, so it must stay cheap.
+     */
+    public void touch(String sessionId) {
+        if (sessionId == null) {
+            return;
+        }
+        SessionEntry entry = sessions.get(sessionId);
+        if (entry != null) {
+            entry.lastSeen = System.nanoTime();
+        }
+    }
+
+    public boolean isOnline(Long userId) {
+        return onlineUsers.containsKey(userId);
+    }
+
+    /**
+     * Principal names of those users that are online, for addressing /user/... destinations; users
+     * without an open session are left out, so fan-out cost follows who can actually receive it.
+     */
+    public List<String> findOnlineUsernames(long[] userIds) {
+        List<String> usernames = new ArrayList<>();
+        for (long userId : userIds) {
+            OnlineUser online = onlineUsers.get(userId);
+            if (online != null) {
+                usernames.add(online.username);
+            }
+        }
+        return usernames;
+    }
+
+    /**
+     * Online users, proportional to the number online rather than to all users.
+     */
+    public PresenceSnapshotDto snapshot() {
+        long currentSequence = sequence.get();
+        List<Long> online = new ArrayList<>(onlineUsers.keySet());
+        return new PresenceSnapshotDto(online, currentSequence);
+    }
+
+    @Scheduled(fixedDelayString = "${app.presence.sweep-interval-ms:30000}")
+    public void expireStaleSessions() {
+        long now = System.nanoTime();
+        int expired = 0;
+        for (Map.Entry<String, SessionEntry> entry : sessions.entrySet()) {
+            if (now - entry.getValue().lastSeen > sessionTtlNanos) {
+                sessionClosed(entry.getKey());
+                expired++;
+            }
+        }
+        if (expired > 0) {
+            logger.info("Expired {} silent WebSocket sessions", expired);
+        }
+    }
+
+    private void sessionOpened(String sessionId, Long userId, String username) {
+        if (sessions.putIfAbsent(sessionId, new SessionEntry(userId)) != null) {
+            return;
+        }
+        long[] wentOnline = new long[1];
+        onlineUsers.compute(userId, (id, online) -> {
+            if (online == null) {
+                wentOnline[0] = sequence.incrementAndGet();
+                return new OnlineUser(username, 1);
+            }
+            // The newest session's name wins, should the email have changed in between
+            return new OnlineUser(username, online.sessions + 1);
+        });
+        if (wentOnline[0] != 0) {
+            publish(userId, true, wentOnline[0]);
+        }
+    }
+
+    private void sessionClosed(String sessionId) {
+        if (sessionId == null) {
+            return;
+        }
+        SessionEntry entry = sessions.remove(sessionId);
+        if (entry == null) {
+            return;
+        }
+        long[] wentOffline = new long[1];
+        onlineUsers.computeIfPresent(entry.userId, (id, online) -> {
+            if (online.sessions > 1) {
+                return new OnlineUser(online.username, online.sessions - 1);
+            }
+            wentOffline[0] = sequence.incrementAndGet();
+            return null;
+        });
+        if (wentOffline[0] != 0) {
+            publish(entry.userId, false, wentOffline[0]);
+        }
+    }
+
+    private void publish(Long userId, boolean online, long deltaSequence) {
+        PresenceDto delta = new PresenceDto(userId, online, deltaSequence);
+        logger.debug("Presence change - UserID: {}, online: {}", userId, online);
+        webSocketService.broadcastPresence(delta);
+    }
+
+    private static final class OnlineUser {
+        private final String username;
+        private final int sessions;
+
+        private OnlineUser(String username, int sessions) {
+            this.username = username;
+            this.sessions = sessions;
+        }
+    }
+
+    private static final class SessionEntry {
+        private final Long userId;
+        private volatile long lastSeen = System.nanoTime();
+
+        private SessionEntry(Long userId) {
+            this.userId = userId;
+        }
+    }
+}
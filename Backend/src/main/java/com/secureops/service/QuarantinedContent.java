@@ -0,0 +1,49 @@
+package com.secureops.service;
+
+import com.secureops.entity.FileBlob;
+import com.secureops.repository.FileBlobRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Content hashes the upload scanner quarantined, held in memory so every read of stored content can
+ * be refused without a query. Loaded from file_blobs at startup and kept current by UploadScanner;
+ * FileStorageService consults it whenever it resolves content to serve.
+ */
+@Component
+public class QuarantinedContent {
+
+    private static final Logger logger = LoggerFactory.getLogger(QuarantinedContent.class);
+
+    private final Set<String> hashes = ConcurrentHashMap.newKeySet();
+
+    public QuarantinedContent(FileBlobRepository fileBlobRepository, MeterRegistry meterRegistry) {
+        hashes.addAll(fileBlobRepository.findHashesByScanStatus(FileBlob.ScanStatus.QUARANTINED));
+        Gauge.builder("secureops.file.scan.quarantined", hashes, Set::size)
+                .description("Stored contents currently quarantined")
+                .register(meterRegistry);
+        logger.info("QuarantinedContent initialized - quarantined: {}", hashes.size());
+    }
+
+    public boolean contains(String contentHash) {
+        return contentHash != null && hashes.contains(contentHash);
+    }
+
+    public void add(String contentHash) {
+        hashes.add(contentHash);
+    }
+
+    public void remove(String contentHash) {
+        hashes.remove(contentHash);
+    }
+
+    public int size() {
+        return hashes.size();
+    }
+}
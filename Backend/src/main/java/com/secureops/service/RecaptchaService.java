@@ -1,35 +1,60 @@
 package com.secureops.service;
 
+import com.secureops.util.BoundedCache;
+import com.secureops.util.CircuitBreaker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.util.LinkedMultiValueMap;
-import org.springframework.util.MultiValueMap;
-import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
 import jakarta.servlet.http.HttpServletRequest;
-import java.util.Map;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
 public class RecaptchaService {
 
     private static final Logger logger = LoggerFactory.getLogger(RecaptchaService.class);
     private static final Logger securityLogger = LoggerFactory.getLogger("com.secureops.security");
-    private static final String GOOGLE_RECAPTCHA_VERIFY_URL = "https://www.google.com/recaptcha/api/siteverify";
 
-    @Value("${recaptcha.secret}")
-    private String recaptchaSecret;
-
-    private final RestTemplate restTemplate;
+    private final RecaptchaVerifier verifier;
+    private final boolean enabled;
+    private final boolean failOpen;
+    private final Duration verifyTimeout;
+    private final CircuitBreaker circuitBreaker;
+
+    // Tokens are single use on Google's side, so a double submit must be answered from here
+    private final BoundedCache<String, Boolean> verifiedTokens;
+
+    public RecaptchaService(RecaptchaVerifier verifier,
+            @Value("${recaptcha.enabled:false}") boolean enabled,
+            @Value("${recaptcha.failure-policy:closed}") String failurePolicy,
+            @Value("${recaptcha.verify-timeout:3s}") Duration verifyTimeout,
+            @Value("${recaptcha.cache.max-size:5000}") int cacheMaxSize,
+            @Value("${recaptcha.cache.ttl:2m}") Duration cacheTtl,
+            @Value("${recaptcha.circuit-breaker.failure-threshold:5}") int failureThreshold,
+            @Value("${recaptcha.circuit-breaker.open-duration:30s}") Duration openDuration) {
+        this.verifier = verifier;
+        this.enabled = enabled;
+        this.failOpen = "open".equalsIgnoreCase(failurePolicy);
+        this.verifyTimeout = verifyTimeout;
+        this.verifiedTokens = new BoundedCache<>(cacheMaxSize, cacheTtl);
+        this.circuitBreaker = new CircuitBreaker("recaptcha", failureThreshold, openDuration);
+        logger.info("RecaptchaService initialized - enabled: {}, verifier: {}, failure policy: {}",
+                enabled, verifier.getClass().getSimpleName(), failOpen ? "open" : "closed");
+    }
 
-    public RecaptchaService(RestTemplate restTemplate) {
-        this.restTemplate = restTemplate;
-        logger.info("RecaptchaService initialized");
+    public boolean isEnabled() {
+        return enabled;
     }
 
     public boolean validateCaptcha(String recaptchaResponse) {
@@ -37,53 +62,68 @@ public class RecaptchaService {
         String maskedToken = maskToken(recaptchaResponse);
         logger.debug("Validating CAPTCHA token: {} from IP: {}", maskedToken, clientIp);
 
-        try {
-            // Skip validation if testing environment
-            if (recaptchaResponse.equals("test-token")) {
-                logger.info("Bypassing CAPTCHA validation for test token from IP: {}", clientIp);
-                return true;
-            }
+        if (recaptchaResponse == null || recaptchaResponse.isBlank()) {
+            logger.warn("Empty CAPTCHA token from IP: {}", clientIp);
+            return false;
+        }
 
-            MultiValueMap<String, String> formData = new LinkedMultiValueMap<>();
-            formData.add("secret", recaptchaSecret);
-            formData.add("response", recaptchaResponse);
-
-            logger.debug("Sending CAPTCHA verification request to Google for token: {}", maskedToken);
-            ResponseEntity<Map> responseEntity = restTemplate.postForEntity(
-                    GOOGLE_RECAPTCHA_VERIFY_URL,
-                    formData,
-                    Map.class
-            );
-
-            Map<String, Object> responseBody = responseEntity.getBody();
-            if (responseBody == null) {
-                logger.warn("Received null response from Google reCAPTCHA API for token: {} from IP: {}", maskedToken, clientIp);
-                securityLogger.warn("Null reCAPTCHA response for token: {} from IP: {}", maskedToken, clientIp);
-                return false;
-            }
+        String cacheKey = hashToken(recaptchaResponse);
+        if (Boolean.TRUE.equals(verifiedTokens.get(cacheKey))) {
+            logger.debug("CAPTCHA token already verified: {} from IP: {}", maskedToken, clientIp);
+            return true;
+        }
+
+        if (!circuitBreaker.tryAcquire()) {
+            return applyFailurePolicy("circuit open", maskedToken, clientIp);
+        }
+
+        CompletableFuture<Boolean> verification = verifier.verify(recaptchaResponse, clientIp);
+        try {
+            boolean success = verification.get(verifyTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            circuitBreaker.recordSuccess();
 
-            boolean success = Boolean.TRUE.equals(responseBody.get("success"));
             if (success) {
+                verifiedTokens.put(cacheKey, Boolean.TRUE);
                 logger.info("CAPTCHA validation successful for token: {} from IP: {}", maskedToken, clientIp);
             } else {
-                logger.warn("CAPTCHA validation failed for token: {} from IP: {}. Response: {}", 
-                        maskedToken, clientIp, responseBody);
-                securityLogger.warn("Failed reCAPTCHA validation for token: {} from IP: {}. Details: {}", 
-                        maskedToken, clientIp, responseBody);
+                logger.warn("CAPTCHA validation failed for token: {} from IP: {}", maskedToken, clientIp);
+                securityLogger.warn("Failed reCAPTCHA validation for token: {} from IP: {}", maskedToken, clientIp);
             }
-
             return success;
 
-        } catch (RestClientException ex) {
-            logger.error("Error communicating with Google reCAPTCHA API for token: {} from IP: {}", maskedToken, clientIp, ex);
-            securityLogger.error("reCAPTCHA API error for token: {} from IP: {}. Error: {}", 
-                    maskedToken, clientIp, ex.getMessage());
-            return false;
-        } catch (Exception ex) {
-            logger.error("Unexpected error validating CAPTCHA token: {} from IP: {}", maskedToken, clientIp, ex);
-            securityLogger.error("Unexpected reCAPTCHA error for token: {} from IP: {}. Error: {}", 
-                    maskedToken, clientIp, ex.getMessage());
-            return false;
+        } catch (TimeoutException ex) {
+            verification.cancel(true);
+            circuitBreaker.recordFailure();
+            return applyFailurePolicy("timed out after " + verifyTimeout.toMillis() + " ms", maskedToken, clientIp);
+        } catch (ExecutionException ex) {
+            circuitBreaker.recordFailure();
+            Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+            logger.error("Error communicating with reCAPTCHA verifier for token: {} from IP: {}", maskedToken,
+                    clientIp, cause);
+            return applyFailurePolicy(cause.getMessage(), maskedToken, clientIp);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            verification.cancel(true);
+            circuitBreaker.recordFailure();
+            return applyFailurePolicy("interrupted", maskedToken, clientIp);
+        }
+    }
+
+    /**
+     * Decides the outcome when the verifier could not give an answer.
+     */
+    private boolean applyFailurePolicy(String reason, String maskedToken, String clientIp) {
+        securityLogger.error("reCAPTCHA verification unavailable ({}), circuit: {} - failing {} for token: {} from IP: {}",
+                reason, circuitBreaker.getState(), failOpen ? "open" : "closed", maskedToken, clientIp);
+        return failOpen;
+    }
+
+    private String hashToken(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not available", ex);
         }
     }
 
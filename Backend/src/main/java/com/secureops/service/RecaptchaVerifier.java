@@ -0,0 +1,14 @@
+package com.secureops.service;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Verifies a reCAPTCHA response token.
+ *
+ * The future completes with true/false for a definitive answer from the verifier and completes
+ * exceptionally when the verifier could not be reached; RecaptchaService applies the failure policy.
+ */
+public interface RecaptchaVerifier {
+
+    CompletableFuture<Boolean> verify(String token, String remoteIp);
+}
@@ -0,0 +1,222 @@
+package com.secureops.service;
+
+import com.secureops.dto.StorageUsageDto;
+import com.secureops.exception.QuotaExceededException;
+import com.secureops.repository.StorageUsageRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Per-user storage quotas (bytes and number of files).
+ *
+ * Each user's usage lives in two atomic counters, loaded from the storage_usage row the first time
+ * the user stores or asks, so checking an upload is a compare-and-set in memory. Stored and removed
+ * files are also applied to that row as deltas, in the caller's transaction; the counters follow
+ * the outcome, so a reservation is undone if the stored file rolls back and a release only counts
+ * once its delete has committed. Reconciliation rebuilds the rows from stored_files
+ * on a schedule and drops the counters, which reload on next use; an upload racing with it may be
+ * missed until the next run. Counters are per instance: with several instances each enforces its
+ * own view between reconciliations.
+ */
+@Component
+public class StorageQuotaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StorageQuotaService.class);
+    private static final Logger securityLogger = LoggerFactory.getLogger("com.secureops.security");
+
+    private final StorageUsageRepository storageUsageRepository;
+    private final boolean enabled;
+    private final long maxBytes;
+    private final long maxFiles;
+    private final ConcurrentHashMap<Long, Usage> usages = new ConcurrentHashMap<>();
+    private final Counter rejectedCounter;
+
+    public StorageQuotaService(StorageUsageRepository storageUsageRepository,
+            @Value("${app.storage.quota.enabled:true}") boolean enabled,
+            @Value("${app.storage.quota.max-bytes:2GB}") DataSize maxBytes,
+            @Value("${app.storage.quota.max-files:10000}") long maxFiles,
+            MeterRegistry meterRegistry) {
+        this.storageUsageRepository = storageUsageRepository;
+        this.enabled = enabled;
+        this.maxBytes = maxBytes.toBytes();
+        this.maxFiles = maxFiles;
+        this.rejectedCounter = Counter.builder("secureops.storage.quota.rejected")
+                .description("Uploads refused because the user's storage quota was reached")
+                .register(meterRegistry);
+        logger.info("StorageQuotaService initialized - enabled: {}, max bytes: {}, max files: {}",
+                enabled, maxBytes, maxFiles);
+    }
+
+    /**
+     * Fails fast when {@code bytes} more would not fit, without reserving anything; for uploads whose
+     * content arrives later.
+     */
+    public void check(Long userId, long bytes) {
+        if (!enabled || userId == null) {
+            return;
+        }
+        Usage usage = usage(userId);
+        if (usage.files.get() + 1 > maxFiles || usage.bytes.get() + bytes > maxBytes) {
+            reject(userId, bytes, usage);
+        }
+    }
+
+    /**
+     * Counts a file of {@code bytes} against the user's quota, or throws if it does not fit. Must be
+     * followed by {@link #confirm} once the file is stored, or {@link #cancel} if storing failed.
+     */
+    public void reserve(Long userId, long bytes) {
+        if (userId == null) {
+            return;
+        }
+        Usage usage = usage(userId);
+        if (!enabled) {
+            usage.add(bytes, 1);
+            return;
+        }
+        if (!tryAdd(usage.files, 1, maxFiles)) {
+            reject(userId, bytes, usage);
+        }
+        if (!tryAdd(usage.bytes, bytes, maxBytes)) {
+            usage.files.decrementAndGet();
+            reject(userId, bytes, usage);
+        }
+    }
+
+    public void confirm(Long userId, long bytes) {
+        if (userId == null) {
+            return;
+        }
+        storageUsageRepository.addUsage(userId, bytes, 1);
+        // The reservation is already counted; it stays only if the stored file commits. Undone on
+        // the counter it was taken from, in case a reconciliation reloaded the user in between
+        Usage usage = usage(userId);
+        onCompletion(committed -> {
+            if (!committed) {
+                usage.add(-bytes, -1);
+            }
+        });
+    }
+
+    public void cancel(Long userId, long bytes) {
+        if (userId != null) {
+            usage(userId).add(-bytes, -1);
+        }
+    }
+
+    /**
+     * A stored file of the user was removed.
+     */
+    public void release(Long userId, long bytes, long files) {
+        if (userId == null || files == 0) {
+            return;
+        }
+        storageUsageRepository.addUsage(userId, -bytes, -files);
+        onCompletion(committed -> {
+            if (committed) {
+                usage(userId).add(-bytes, -files);
+            }
+        });
+    }
+
+    public StorageUsageDto getUsage(Long userId) {
+        Usage usage = usage(userId);
+        return new StorageUsageDto(userId, null, null, usage.bytes.get(), usage.files.get(), maxBytes, maxFiles);
+    }
+
+    public List<StorageUsageDto> getTopConsumers(int limit) {
+        return storageUsageRepository.findTopConsumers(PageRequest.of(0, limit)).stream()
+                .map(row -> new StorageUsageDto(row.getUserId(), row.getFullName(), row.getEmail(),
+                        row.getBytesUsed(), row.getFileCount(), maxBytes, maxFiles))
+                .toList();
+    }
+
+    @Scheduled(fixedDelayString = "${app.storage.quota.reconcile-interval-ms:3600000}",
+            initialDelayString = "${app.storage.quota.reconcile-initial-delay-ms:60000}")
+    public void reconcile() {
+        long started = System.currentTimeMillis();
+        int corrected = storageUsageRepository.reconcile();
+        usages.clear();
+        if (corrected > 0) {
+            logger.info("Storage usage reconciled - {} totals corrected in {} ms", corrected,
+                    System.currentTimeMillis() - started);
+        } else {
+            logger.debug("Storage usage reconciled, no drift ({} ms)", System.currentTimeMillis() - started);
+        }
+    }
+
+    private Usage usage(Long userId) {
+        return usages.computeIfAbsent(userId, id -> storageUsageRepository.findById(id)
+                .map(row -> new Usage(row.getBytesUsed(), row.getFileCount()))
+                .orElseGet(() -> new Usage(0, 0)));
+    }
+
+    /**
+     * Runs the action once the surrounding transaction has completed, telling it whether it
+     * committed; right away (as committed) when there is none, since the row delta is then already
+     * written.
+     */
+    private static void onCompletion(Consumer<Boolean> action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.accept(true);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                action.accept(status == STATUS_COMMITTED);
+            }
+        });
+    }
+
+    private void reject(Long userId, long bytes, Usage usage) {
+        rejectedCounter.increment();
+        logger.warn("Storage quota exceeded - userId: {}, used: {} bytes in {} files, requested: {} bytes",
+                userId, usage.bytes.get(), usage.files.get(), bytes);
+        securityLogger.warn("STORAGE_QUOTA_EXCEEDED - User: {}, Used: {} bytes, Requested: {} bytes",
+                userId, usage.bytes.get(), bytes);
+        throw new QuotaExceededException("Storage quota exceeded: " + usage.bytes.get() + " of " + maxBytes
+                + " bytes and " + usage.files.get() + " of " + maxFiles + " files used");
+    }
+
+    private static boolean tryAdd(AtomicLong counter, long delta, long limit) {
+        while (true) {
+            long current = counter.get();
+            if (current + delta > limit) {
+                return false;
+            }
+            if (counter.compareAndSet(current, current + delta)) {
+                return true;
+            }
+        }
+    }
+
+    private static final class Usage {
+        private final AtomicLong bytes;
+        private final AtomicLong files;
+
+        private Usage(long bytes, long files) {
+            this.bytes = new AtomicLong(bytes);
+            this.files = new AtomicLong(files);
+        }
+
+        private void add(long bytesDelta, long filesDelta) {
+            bytes.addAndGet(bytesDelta);
+            files.addAndGet(filesDelta);
+        }
+    }
+}
@@ -0,0 +1,551 @@
+package com.secureops.service;
+
+import com.secureops.dto.StorageSweepReport;
+import com.secureops.util.BloomFilter;
+import com.secureops.util.TokenBucket;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/**
+ * Finds files in the upload directory that nothing references any more and removes them.
+ *
+ * Deleting a message, user or chat only drops database rows; content blobs are reclaimed by the
+ * FileBlobCollector, but files stored before content addressing, blob files whose row is gone,
+ * partial uploads without a session, stale temporary files and thumbnails of removed content stay
+ * on disk. The sweeper first streams every referenced name (file messages, avatars, blobs, upload
+ * sessions) into a Bloom filter, then walks the directory tree. A file the filter has definitely
+ * not seen, and that is older than the minimum age, is checked against the database once more and
+ * moved into .quarantine; a later run deletes it after the retention period, or puts it back if it
+ * is referenced again. Temporary files and thumbnails are derived data and are deleted directly.
+ *
+ * Every directory entry and file operation takes a token from a rate limiter, so a sweep proceeds
+ * at a bounded number of I/O operations per second on its own low-priority thread.
+ */
+@Component
+public class StorageSweeper implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(StorageSweeper.class);
+
+    private static final String QUARANTINE_DIRECTORY = ".quarantine";
+    private static final int MAX_SAMPLES = 20;
+    private static final int FETCH_SIZE = 1000;
+    private static final int BLOB_CHECK_PAGE_SIZE = 1000;
+    // Orphan candidates held while walking; a full batch is dealt with before the walk goes on
+    private static final int CANDIDATE_BATCH_SIZE = 1000;
+    // Shared placeholder every new user points at (User.avatarFileName), kept even while unused
+    private static final Set<String> PROTECTED_FILES = Set.of("default-avatar.png");
+
+    private static final String COUNT_REFERENCES_SQL =
+            "SELECT 2 * (SELECT COUNT(*) FROM file_messages) " +
+            "+ 2 * (SELECT COUNT(*) FROM users WHERE avatar_file_name IS NOT NULL) " +
+            "+ 2 * (SELECT COUNT(*) FROM file_blobs) " +
+            "+ (SELECT COUNT(*) FROM upload_sessions)";
+    private static final String MESSAGE_FILES_SQL = "SELECT stored_file_name, file_url FROM file_messages";
+    private static final String AVATAR_FILES_SQL = "SELECT avatar_file_name FROM users WHERE avatar_file_name IS NOT NULL";
+    private static final String BLOB_HASHES_SQL = "SELECT hash FROM file_blobs";
+    private static final String UPLOAD_IDS_SQL = "SELECT id FROM upload_sessions";
+
+    // Exact checks for single candidates; the filter only rules files in, never out
+    private static final String FILE_REFERENCED_SQL =
+            "SELECT EXISTS (SELECT 1 FROM file_messages WHERE stored_file_name = ? " +
+            "    OR right(file_url, char_length(?) + 1) = '/' || ?) " +
+            "OR EXISTS (SELECT 1 FROM users WHERE avatar_file_name = ?)";
+    private static final String BLOB_REFERENCED_SQL = "SELECT EXISTS (SELECT 1 FROM file_blobs WHERE hash = ?)";
+    private static final String UPLOAD_REFERENCED_SQL = "SELECT EXISTS (SELECT 1 FROM upload_sessions WHERE id = ?)";
+    private static final String BLOB_PAGE_SQL =
+            "SELECT hash FROM file_blobs WHERE hash > ? AND created_at < ? ORDER BY hash LIMIT ?";
+
+    private enum Area {
+        FILES("files", "f:", true),
+        BLOBS("blobs", "b:", true),
+        PARTIAL("partial", "p:", true),
+        TEMP("temp", null, false),
+        THUMBNAILS("thumbnails", "t:", false);
+
+        private final String label;
+        private final String filterPrefix;
+        // Quarantined first; derived and temporary files are deleted directly
+        private final boolean quarantined;
+
+        Area(String label, String filterPrefix, boolean quarantined) {
+            this.label = label;
+            this.filterPrefix = filterPrefix;
+            this.quarantined = quarantined;
+        }
+    }
+
+    private final FileStorageService fileStorageService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Path storageDirectory;
+    private final Path quarantineDirectory;
+    private final boolean dryRun;
+    private final Duration minAge;
+    private final Duration quarantineRetention;
+    private final double falsePositiveRate;
+    private final long operationsPerSecond;
+
+    private final ExecutorService executor;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile StorageSweepReport latestReport;
+
+    public StorageSweeper(FileStorageService fileStorageService,
+            DataSource dataSource,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.file.sweeper.dry-run:false}") boolean dryRun,
+            @Value("${app.file.sweeper.min-age:24h}") Duration minAge,
+            @Value("${app.file.sweeper.quarantine-retention:7d}") Duration quarantineRetention,
+            @Value("${app.file.sweeper.false-positive-rate:0.001}") double falsePositiveRate,
+            @Value("${app.file.sweeper.max-operations-per-second:200}") long operationsPerSecond) {
+        this.fileStorageService = fileStorageService;
+        // Own template so the reference queries stream with a fetch size instead of loading every row
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.storageDirectory = fileStorageService.getStorageDirectory();
+        this.quarantineDirectory = storageDirectory.resolve(QUARANTINE_DIRECTORY);
+        this.dryRun = dryRun;
+        this.minAge = minAge;
+        this.quarantineRetention = quarantineRetention;
+        this.falsePositiveRate = falsePositiveRate;
+        this.operationsPerSecond = operationsPerSecond;
+
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "storage-sweeper");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+
+        logger.info("StorageSweeper initialized - dry run: {}, min age: {}, quarantine retention: {}, max ops/s: {}",
+                dryRun, minAge, quarantineRetention, operationsPerSecond);
+    }
+
+    @Scheduled(fixedDelayString = "${app.file.sweeper.interval-ms:86400000}",
+            initialDelayString = "${app.file.sweeper.initial-delay-ms:3600000}")
+    public void scheduledSweep() {
+        if (!startSweep()) {
+            logger.debug("Storage sweep still running, skipping this schedule");
+        }
+    }
+
+    /**
+     * Starts a sweep in the background. False when one is already running.
+     */
+    public boolean startSweep() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        StorageSweepReport started = new StorageSweepReport();
+        started.setStatus(StorageSweepReport.Status.RUNNING);
+        started.setDryRun(dryRun);
+        started.setStartedAt(new Date());
+        latestReport = started;
+
+        executor.execute(() -> {
+            try {
+                latestReport = sweep(started.getStartedAt());
+            } finally {
+                running.set(false);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * The last finished sweep, or the one in progress (status RUNNING, counts not filled in yet).
+     */
+    public StorageSweepReport getLatestReport() {
+        return latestReport;
+    }
+
+    private StorageSweepReport sweep(Date startedAt) {
+        StorageSweepReport report = new StorageSweepReport();
+        report.setStatus(StorageSweepReport.Status.RUNNING);
+        report.setDryRun(dryRun);
+        report.setStartedAt(startedAt);
+        for (Area area : Area.values()) {
+            report.getAreas().put(area.label, new StorageSweepReport.Area());
+        }
+
+        TokenBucket budget = new TokenBucket(operationsPerSecond, operationsPerSecond, Duration.ofSeconds(1),
+                System.nanoTime());
+        long cutoff = startedAt.getTime() - minAge.toMillis();
+        try {
+            // Loaded before the walk: a file that appears later is younger than the cutoff anyway
+            BloomFilter references = loadReferences();
+            report.setReferencesLoaded(references.getEntryCount());
+            report.setReferenceFilterBytes(references.getSizeInBytes());
+
+            reviewQuarantine(report, budget, startedAt.getTime());
+            scan(references, report, budget, cutoff);
+            checkBlobs(report, budget, new Date(cutoff));
+
+            report.setStatus(StorageSweepReport.Status.COMPLETED);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            report.setStatus(StorageSweepReport.Status.FAILED);
+            report.setError("Interrupted");
+        } catch (Exception ex) {
+            logger.error("Storage sweep failed", ex);
+            report.setStatus(StorageSweepReport.Status.FAILED);
+            report.setError(ex.getMessage());
+        }
+        report.setFinishedAt(new Date());
+
+        logger.info("Storage sweep {} in {} ms - dry run: {}, scanned: {}, areas: {}, restored: {}, purged: {} ({} bytes), missing blobs: {}",
+                report.getStatus(), report.getFinishedAt().getTime() - startedAt.getTime(), dryRun,
+                report.getEntriesScanned(), report.getAreas(), report.getRestored(), report.getPurged(),
+                report.getPurgedBytes(), report.getMissingBlobs());
+        return report;
+    }
+
+    private BloomFilter loadReferences() {
+        Long expected = jdbcTemplate.queryForObject(COUNT_REFERENCES_SQL, Long.class);
+        // Headroom for rows added while loading
+        BloomFilter filter = new BloomFilter((expected != null ? expected : 0) + 1024, falsePositiveRate);
+
+        readOnlyTransaction.executeWithoutResult(status -> {
+            jdbcTemplate.query(MESSAGE_FILES_SQL, rs -> {
+                addFileReference(filter, rs.getString(1));
+                String fileUrl = rs.getString(2);
+                if (fileUrl != null) {
+                    addFileReference(filter, fileUrl.substring(fileUrl.lastIndexOf('/') + 1));
+                }
+            });
+            jdbcTemplate.query(AVATAR_FILES_SQL, rs -> {
+                addFileReference(filter, rs.getString(1));
+            });
+            jdbcTemplate.query(BLOB_HASHES_SQL, rs -> {
+                String hash = rs.getString(1);
+                filter.put(Area.BLOBS.filterPrefix + hash);
+                filter.put(Area.THUMBNAILS.filterPrefix + hash);
+            });
+            jdbcTemplate.query(UPLOAD_IDS_SQL, rs -> {
+                filter.put(Area.PARTIAL.filterPrefix + rs.getString(1));
+            });
+        });
+        logger.debug("Loaded {} storage references into {} bytes", filter.getEntryCount(), filter.getSizeInBytes());
+        return filter;
+    }
+
+    private static void addFileReference(BloomFilter filter, String fileName) {
+        if (fileName == null || fileName.isEmpty()) {
+            return;
+        }
+        filter.put(Area.FILES.filterPrefix + fileName);
+        // Thumbnails of files stored before content addressing are keyed by name
+        filter.put(Area.THUMBNAILS.filterPrefix + ThumbnailService.legacyKey(fileName));
+    }
+
+    private void scan(BloomFilter references, StorageSweepReport report, TokenBucket budget, long cutoff)
+            throws IOException, InterruptedException {
+        List<Candidate> candidates = new ArrayList<>(CANDIDATE_BATCH_SIZE);
+        Files.walkFileTree(storageDirectory, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                if (dir.equals(storageDirectory)) {
+                    return FileVisitResult.CONTINUE;
+                }
+                Path relative = storageDirectory.relativize(dir);
+                String top = relative.getName(0).toString();
+                boolean known = top.equals("blobs") || top.equals(".partial") || top.equals(".tmp")
+                        || (top.equals("derived") && (relative.getNameCount() == 1
+                                || relative.getName(1).toString().equals("thumbnails")));
+                return known ? FileVisitResult.CONTINUE : FileVisitResult.SKIP_SUBTREE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                try {
+                    acquire(budget);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted", ex);
+                }
+                report.setEntriesScanned(report.getEntriesScanned() + 1);
+
+                Path relative = storageDirectory.relativize(file);
+                Area area = classify(relative);
+                if (area == null || !attrs.isRegularFile()) {
+                    return FileVisitResult.CONTINUE;
+                }
+                StorageSweepReport.Area counts = report.getAreas().get(area.label);
+                counts.setScanned(counts.getScanned() + 1);
+
+                String key = keyOf(area, relative);
+                if (attrs.lastModifiedTime().toMillis() >= cutoff
+                        || (area == Area.FILES && PROTECTED_FILES.contains(key))) {
+                    return FileVisitResult.CONTINUE;
+                }
+                if (area.filterPrefix != null && references.mightContain(area.filterPrefix + key)) {
+                    return FileVisitResult.CONTINUE;
+                }
+                candidates.add(new Candidate(area, key, relative, attrs.size()));
+                if (candidates.size() == CANDIDATE_BATCH_SIZE) {
+                    try {
+                        removeOrphans(candidates, report, budget);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        throw new IOException("Interrupted", ex);
+                    }
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException ex) {
+                // Removed while we walked (collector, upload completion); nothing to do
+                logger.debug("Could not visit: {} - {}", file, ex.getMessage());
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        removeOrphans(candidates, report, budget);
+    }
+
+    /**
+     * Removes the candidates collected so far and empties the list, so memory stays bounded by one
+     * batch however many orphans the tree holds.
+     */
+    private void removeOrphans(List<Candidate> candidates, StorageSweepReport report, TokenBucket budget)
+            throws InterruptedException {
+        for (Candidate candidate : candidates) {
+            acquire(budget);
+            removeOrphan(candidate, report);
+        }
+        candidates.clear();
+    }
+
+    private void removeOrphan(Candidate candidate, StorageSweepReport report) {
+        if (isReferenced(candidate.area(), candidate.key())) {
+            // Referenced after the filter was loaded
+            return;
+        }
+        StorageSweepReport.Area counts = report.getAreas().get(candidate.area().label);
+        counts.setOrphans(counts.getOrphans() + 1);
+        counts.setOrphanBytes(counts.getOrphanBytes() + candidate.size());
+        if (report.getOrphanSamples().size() < MAX_SAMPLES) {
+            report.getOrphanSamples().add(candidate.relative().toString());
+        }
+        if (dryRun) {
+            return;
+        }
+
+        Path source = storageDirectory.resolve(candidate.relative());
+        try {
+            if (!candidate.area().quarantined) {
+                if (Files.deleteIfExists(source)) {
+                    counts.setRemoved(counts.getRemoved() + 1);
+                }
+                return;
+            }
+
+            Path target = quarantineDirectory.resolve(Long.toString(report.getStartedAt().getTime()))
+                    .resolve(candidate.relative());
+            Files.createDirectories(target.getParent());
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+            // Referenced between the check and the move (a new upload of the same content): put it back
+            if (isReferenced(candidate.area(), candidate.key())) {
+                restore(target, source);
+                return;
+            }
+            counts.setRemoved(counts.getRemoved() + 1);
+            logger.info("Quarantined orphan file: {} ({} bytes)", candidate.relative(), candidate.size());
+        } catch (NoSuchFileException ex) {
+            logger.debug("Orphan already gone: {}", candidate.relative());
+        } catch (IOException ex) {
+            logger.warn("Could not remove orphan file: {} - {}", candidate.relative(), ex.getMessage());
+        }
+    }
+
+    /**
+     * Restores quarantined files that are referenced again and deletes those past the retention.
+     */
+    private void reviewQuarantine(StorageSweepReport report, TokenBucket budget, long now)
+            throws IOException, InterruptedException {
+        if (!Files.isDirectory(quarantineDirectory)) {
+            return;
+        }
+        List<Path> runs;
+        try (Stream<Path> entries = Files.list(quarantineDirectory)) {
+            runs = entries.filter(Files::isDirectory).toList();
+        }
+
+        for (Path run : runs) {
+            long quarantinedAt;
+            try {
+                quarantinedAt = Long.parseLong(run.getFileName().toString());
+            } catch (NumberFormatException ex) {
+                continue;
+            }
+            boolean expired = now - quarantinedAt > quarantineRetention.toMillis();
+
+            List<Path> files;
+            try (Stream<Path> entries = Files.walk(run)) {
+                files = entries.filter(Files::isRegularFile).toList();
+            }
+            for (Path file : files) {
+                acquire(budget);
+                Path relative = run.relativize(file);
+                Area area = classify(relative);
+                Path original = storageDirectory.resolve(relative);
+                if (area != null && isReferenced(area, keyOf(area, relative))) {
+                    if (!dryRun) {
+                        restore(file, original);
+                    }
+                    report.setRestored(report.getRestored() + 1);
+                } else if (expired && !dryRun) {
+                    long size = Files.size(file);
+                    Files.deleteIfExists(file);
+                    report.setPurged(report.getPurged() + 1);
+                    report.setPurgedBytes(report.getPurgedBytes() + size);
+                }
+            }
+
+            if (expired && !dryRun) {
+                deleteEmptyDirectories(run);
+            }
+        }
+    }
+
+    /**
+     * Content rows whose blob file is missing. Paged by hash, so no transaction stays open while the
+     * files are checked at the throttled rate; rows younger than the cutoff may still be uploading.
+     */
+    private void checkBlobs(StorageSweepReport report, TokenBucket budget, Date cutoff) throws InterruptedException {
+        String after = "";
+        while (true) {
+            List<String> hashes = jdbcTemplate.queryForList(BLOB_PAGE_SQL, String.class, after, cutoff,
+                    BLOB_CHECK_PAGE_SIZE);
+            for (String hash : hashes) {
+                acquire(budget);
+                if (!Files.exists(fileStorageService.getBlobPath(hash))) {
+                    report.setMissingBlobs(report.getMissingBlobs() + 1);
+                    if (report.getMissingBlobSamples().size() < MAX_SAMPLES) {
+                        report.getMissingBlobSamples().add(hash);
+                    }
+                    logger.warn("Content blob missing on disk: {}", hash);
+                }
+            }
+            if (hashes.size() < BLOB_CHECK_PAGE_SIZE) {
+                return;
+            }
+            after = hashes.get(hashes.size() - 1);
+        }
+    }
+
+    private boolean isReferenced(Area area, String key) {
+        Boolean referenced = switch (area) {
+            case FILES -> jdbcTemplate.queryForObject(FILE_REFERENCED_SQL, Boolean.class, key, key, key, key);
+            case BLOBS -> jdbcTemplate.queryForObject(BLOB_REFERENCED_SQL, Boolean.class, key);
+            case PARTIAL -> jdbcTemplate.queryForObject(UPLOAD_REFERENCED_SQL, Boolean.class, key);
+            // Regenerated on demand, or never meant to outlive a request
+            case TEMP, THUMBNAILS -> false;
+        };
+        return Boolean.TRUE.equals(referenced);
+    }
+
+    private void restore(Path quarantined, Path original) {
+        try {
+            Files.createDirectories(original.getParent());
+            if (Files.exists(original)) {
+                // Written again meanwhile (same content for blobs); the quarantined copy is redundant
+                Files.deleteIfExists(quarantined);
+            } else {
+                Files.move(quarantined, original, StandardCopyOption.ATOMIC_MOVE);
+            }
+            logger.info("Restored quarantined file: {}", storageDirectory.relativize(original));
+        } catch (IOException ex) {
+            logger.warn("Could not restore quarantined file: {} - {}", quarantined, ex.getMessage());
+        }
+    }
+
+    private void deleteEmptyDirectories(Path root) throws IOException {
+        try (Stream<Path> entries = Files.walk(root)) {
+            for (Path directory : entries.filter(Files::isDirectory).sorted(Comparator.reverseOrder()).toList()) {
+                try {
+                    Files.deleteIfExists(directory);
+                } catch (IOException ex) {
+                    // Not empty (a restore failed); left for the next run
+                }
+            }
+        }
+    }
+
+    private static Area classify(Path relative) {
+        if (relative.getNameCount() == 1) {
+            return Area.FILES;
+        }
+        return switch (relative.getName(0).toString()) {
+            case "blobs" -> Area.BLOBS;
+            case ".partial" -> Area.PARTIAL;
+            case ".tmp" -> Area.TEMP;
+            case "derived" -> relative.getName(1).toString().equals("thumbnails") ? Area.THUMBNAILS : null;
+            default -> null;
+        };
+    }
+
+    private static String keyOf(Area area, Path relative) {
+        String name = relative.getFileName().toString();
+        return switch (area) {
+            case PARTIAL -> name.endsWith(".part") ? name.substring(0, name.length() - ".part".length()) : name;
+            // <key>-<size>.<ext>
+            case THUMBNAILS -> name.lastIndexOf('-') > 0 ? name.substring(0, name.lastIndexOf('-')) : name;
+            default -> name;
+        };
+    }
+
+    private static void acquire(TokenBucket budget) throws InterruptedException {
+        while (true) {
+            TokenBucket.Probe probe = budget.tryConsume(1, System.nanoTime());
+            if (probe.isConsumed()) {
+                return;
+            }
+            LockSupport.parkNanos(probe.getRetryAfterNanos());
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        logger.info("Shutting down storage sweeper");
+        executor.shutdownNow();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    private record Candidate(Area area, String key, Path relative, long size) {
+    }
+}
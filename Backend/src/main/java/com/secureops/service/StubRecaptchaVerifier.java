@@ -0,0 +1,49 @@
+package com.secureops.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local verifier for tests and offline load testing, enabled with recaptcha.verifier=stub.
+ * Accepts the configured tokens (or every token) after an optional simulated latency.
+ */
+@Component
+@ConditionalOnProperty(name = "recaptcha.verifier", havingValue = "stub")
+public class StubRecaptchaVerifier implements RecaptchaVerifier {
+
+    private static final Logger logger = LoggerFactory.getLogger(StubRecaptchaVerifier.class);
+
+    private final Set<String> acceptedTokens;
+    private final boolean acceptAll;
+    private final Duration latency;
+
+    public StubRecaptchaVerifier(
+            @Value("${recaptcha.stub.accepted-tokens:test-token}") List<String> acceptedTokens,
+            @Value("${recaptcha.stub.accept-all:false}") boolean acceptAll,
+            @Value("${recaptcha.stub.latency:0ms}") Duration latency) {
+        this.acceptedTokens = Set.copyOf(acceptedTokens);
+        this.acceptAll = acceptAll;
+        this.latency = latency;
+        logger.warn("StubRecaptchaVerifier active - reCAPTCHA tokens are NOT verified with Google (accept all: {})",
+                acceptAll);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> verify(String token, String remoteIp) {
+        boolean accepted = acceptAll || acceptedTokens.contains(token);
+        if (latency.isZero()) {
+            return CompletableFuture.completedFuture(accepted);
+        }
+        return CompletableFuture.supplyAsync(() -> accepted,
+                CompletableFuture.delayedExecutor(latency.toMillis(), TimeUnit.MILLISECONDS));
+    }
+}
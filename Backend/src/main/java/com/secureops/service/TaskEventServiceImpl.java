@@ -33,13 +33,16 @@ public class TaskEventServiceImpl implements TaskEventService {
     private final TaskEventRepository taskEventRepository;
     private final UserRepository userRepository;
     private final LogService logService;
+    private final UserPrincipalCache userPrincipalCache;
 
     public TaskEventServiceImpl(TaskEventRepository taskEventRepository,
             UserRepository userRepository,
-            LogService logService) {
+            LogService logService,
+            UserPrincipalCache userPrincipalCache) {
         this.taskEventRepository = taskEventRepository;
         this.userRepository = userRepository;
         this.logService = logService;
+        this.userPrincipalCache = userPrincipalCache;
         logger.info("TaskEventServiceImpl initialized");
     }
 
@@ -912,8 +915,7 @@ public class TaskEventServiceImpl implements TaskEventService {
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
             if (authentication != null && authentication.isAuthenticated()) {
                 String email = authentication.getName();
-                Long userId = userRepository.findByEmail(email)
-                        .map(User::getId)
+                Long userId = userPrincipalCache.findUserId(email)
                         .orElseThrow(() -> {
                             logger.warn("Authenticated user not found: {}", maskEmail(email));
                             securityLogger.warn("Authenticated user not found: {} from IP: {}", maskEmail(email),
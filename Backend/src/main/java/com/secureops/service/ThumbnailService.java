@@ -0,0 +1,412 @@
+package com.secureops.service;
+
+import com.secureops.exception.ResourceNotFoundException;
+import com.secureops.util.BoundedCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Derives fixed-size thumbnails (avatars, image attachments) off the request path.
+ *
+ * Thumbnails are rendered once per stored content on a small background pool and kept on disk
+ * under derived/thumbnails, keyed by the content hash, so duplicate uploads share them and they
+ * never change under their key. The hottest ones are also held in memory. A request for a
+ * thumbnail that does not exist yet schedules it and reports it missing; callers fall back to the
+ * original meanwhile.
+ */
+@Component
+public class ThumbnailService implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(ThumbnailService.class);
+
+    private static final float JPEG_QUALITY = 0.85f;
+
+    private final FileStorageService fileStorageService;
+    private final Path thumbnailDirectory;
+    private final Path tempDirectory;
+    private final int[] sizes;
+    private final long maxSourcePixels;
+
+    private final ThreadPoolExecutor executor;
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    private final BoundedCache<String, Thumbnail> memoryCache;
+    // Content that could not be decoded as an image; not retried until it falls out
+    private final BoundedCache<String, Boolean> undecodable;
+
+    private final Timer renderTimer;
+    private final Counter rejectedCounter;
+    private final Counter failedCounter;
+
+    public ThumbnailService(FileStorageService fileStorageService,
+            @Value("${app.thumbnails.sizes:32,64,128}") int[] sizes,
+            @Value("${app.thumbnails.max-source-pixels:40000000}") long maxSourcePixels,
+            @Value("${app.thumbnails.pool-size:1}") int poolSize,
+            @Value("${app.thumbnails.queue-capacity:200}") int queueCapacity,
+            @Value("${app.thumbnails.memory-cache.max-size:1000}") int memoryCacheSize,
+            @Value("${app.thumbnails.memory-cache.ttl:1h}") Duration memoryCacheTtl,
+            MeterRegistry meterRegistry) {
+        this.fileStorageService = fileStorageService;
+        this.thumbnailDirectory = fileStorageService.getStorageDirectory().resolve("derived").resolve("thumbnails");
+        this.tempDirectory = fileStorageService.getStorageDirectory().resolve(".tmp");
+        this.sizes = Arrays.stream(sizes).filter(size -> size > 0).sorted().distinct().toArray();
+        if (this.sizes.length == 0) {
+            throw new IllegalArgumentException("At least one thumbnail size is required");
+        }
+        this.maxSourcePixels = maxSourcePixels;
+        this.memoryCache = new BoundedCache<>(memoryCacheSize, memoryCacheTtl);
+        this.undecodable = new BoundedCache<>(10000, Duration.ofHours(24));
+
+        try {
+            Files.createDirectories(thumbnailDirectory);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Could not create thumbnail directory " + thumbnailDirectory, ex);
+        }
+
+        // Rendering is CPU and memory heavy; a small pool keeps it from competing with requests, and
+        // work beyond the queue is dropped (it is scheduled again when somebody asks for it)
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "thumbnail-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.NORM_PRIORITY - 1);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        new ExecutorServiceMetrics(executor, "thumbnails", Tags.empty()).bindTo(meterRegistry);
+        Gauge.builder("secureops.cache.size", memoryCache, BoundedCache::size)
+                .tag("cache", "thumbnail").register(meterRegistry);
+        FunctionCounter.builder("secureops.cache.gets", memoryCache, BoundedCache::getHitCount)
+                .tags("cache", "thumbnail", "result", "hit").register(meterRegistry);
+        FunctionCounter.builder("secureops.cache.gets", memoryCache, BoundedCache::getMissCount)
+                .tags("cache", "thumbnail", "result", "miss").register(meterRegistry);
+        this.renderTimer = Timer.builder("secureops.thumbnails.render")
+                .description("Time spent decoding a source image and writing all its thumbnails")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("secureops.thumbnails.rejected")
+                .description("Thumbnail jobs dropped because the queue was full")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("secureops.thumbnails.failed")
+                .description("Sources that could not be turned into thumbnails")
+                .register(meterRegistry);
+
+        logger.info("ThumbnailService initialized - sizes: {}, pool size: {}, queue capacity: {}, memory cache: {}",
+                Arrays.toString(this.sizes), poolSize, queueCapacity, memoryCacheSize);
+    }
+
+    /**
+     * Thumbnail of a stored file at the smallest configured size that covers {@code requestedSize}.
+     * Empty when it has not been rendered yet; rendering is scheduled in that case.
+     */
+    public Optional<Thumbnail> getThumbnail(String fileName, int requestedSize) {
+        Source source = resolveSource(fileName);
+        if (undecodable.get(source.key()) != null) {
+            throw new ResourceNotFoundException("Thumbnail", "fileName", fileName);
+        }
+
+        int size = resolveSize(requestedSize);
+        String cacheKey = source.key() + "-" + size;
+        Thumbnail cached = memoryCache.get(cacheKey);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        Thumbnail stored = readFromDisk(source.key(), size);
+        if (stored != null) {
+            memoryCache.put(cacheKey, stored);
+            return Optional.of(stored);
+        }
+
+        schedule(source);
+        return Optional.empty();
+    }
+
+    /**
+     * Queues rendering of every thumbnail size for a stored file. Never throws; a file that is not an
+     * image, or a full queue, just means there is no thumbnail yet.
+     */
+    public void scheduleThumbnails(String fileName) {
+        try {
+            schedule(resolveSource(fileName));
+        } catch (Exception ex) {
+            logger.debug("Thumbnails not scheduled for: {} - {}", fileName, ex.getMessage());
+        }
+    }
+
+    /**
+     * Drops the thumbnails derived from a content blob; called once the blob itself is gone.
+     */
+    public void deleteThumbnails(String contentHash) {
+        memoryCache.invalidateIf(thumbnail -> thumbnail.key().equals(contentHash));
+        Path directory = thumbnailDirectory.resolve(contentHash.substring(0, 2));
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory, contentHash + "-*")) {
+            for (Path entry : entries) {
+                Files.deleteIfExists(entry);
+            }
+        } catch (IOException ex) {
+            logger.warn("Could not delete thumbnails of blob: {} - {}", contentHash, ex.getMessage());
+        }
+    }
+
+    private int resolveSize(int requestedSize) {
+        for (int size : sizes) {
+            if (size >= requestedSize) {
+                return size;
+            }
+        }
+        return sizes[sizes.length - 1];
+    }
+
+    private void schedule(Source source) {
+        if (undecodable.get(source.key()) != null || hasAllSizes(source.key()) || !inFlight.add(source.key())) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    renderTimer.record(() -> render(source));
+                } finally {
+                    inFlight.remove(source.key());
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            inFlight.remove(source.key());
+            rejectedCounter.increment();
+            logger.debug("Thumbnail queue full, dropped: {}", source.key());
+        }
+    }
+
+    private void render(Source source) {
+        BufferedImage image;
+        try {
+            image = decode(source);
+        } catch (Exception ex) {
+            image = null;
+            logger.debug("Could not decode image: {} - {}", source.path(), ex.getMessage());
+        }
+        if (image == null) {
+            undecodable.put(source.key(), Boolean.TRUE);
+            failedCounter.increment();
+            return;
+        }
+
+        boolean alpha = image.getColorModel().hasAlpha();
+        // Largest first, each size scaled from the previous one; halving steps keep the quality up
+        BufferedImage current = image;
+        for (int i = sizes.length - 1; i >= 0; i--) {
+            current = scaleToFit(current, sizes[i], alpha);
+            try {
+                write(source.key(), sizes[i], current, alpha);
+            } catch (IOException ex) {
+                failedCounter.increment();
+                logger.warn("Could not write thumbnail: {} ({} px) - {}", source.key(), sizes[i], ex.getMessage());
+                return;
+            }
+        }
+        logger.debug("Rendered thumbnails for: {} ({}x{})", source.key(), image.getWidth(), image.getHeight());
+    }
+
+    private BufferedImage decode(Source source) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(source.path().toFile())) {
+            if (input == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                // Checked from the header, before any pixels are allocated
+                if ((long) width * height > maxSourcePixels) {
+                    logger.debug("Image too large for thumbnails: {} ({}x{})", source.path(), width, height);
+                    return null;
+                }
+
+                // Skip pixels while decoding when the source is far larger than the biggest thumbnail
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = Math.max(1, Math.min(width, height) / (sizes[sizes.length - 1] * 2));
+                if (subsampling > 1) {
+                    param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                }
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static BufferedImage scaleToFit(BufferedImage source, int box, boolean alpha) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        double scale = Math.min(1.0, Math.min((double) box / width, (double) box / height));
+        int targetWidth = Math.max(1, (int) Math.round(width * scale));
+        int targetHeight = Math.max(1, (int) Math.round(height * scale));
+
+        BufferedImage current = source;
+        do {
+            // Halve until within a factor of two, then one bilinear step to the exact size
+            width = width / 2 >= targetWidth ? width / 2 : targetWidth;
+            height = height / 2 >= targetHeight ? height / 2 : targetHeight;
+            BufferedImage next = new BufferedImage(width, height,
+                    alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    private void write(String key, int size, BufferedImage image, boolean alpha) throws IOException {
+        Path target = thumbnailPath(key, size, alpha);
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(tempDirectory, "thumb-", ".tmp");
+        try {
+            String format = alpha ? "png" : "jpeg";
+            ImageWriter writer = ImageIO.getImageWritersByFormatName(format).next();
+            try (ImageOutputStream output = ImageIO.createImageOutputStream(temp.toFile())) {
+                writer.setOutput(output);
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                if (!alpha) {
+                    param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                    param.setCompressionQuality(JPEG_QUALITY);
+                }
+                writer.write(null, new IIOImage(image, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+            // Readers see either no thumbnail or a complete one
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private Thumbnail readFromDisk(String key, int size) {
+        for (boolean alpha : new boolean[] {false, true}) {
+            Path path = thumbnailPath(key, size, alpha);
+            try {
+                byte[] data = Files.readAllBytes(path);
+                return new Thumbnail(key, size, data, alpha ? "image/png" : "image/jpeg");
+            } catch (NoSuchFileException ex) {
+                // Try the other format
+            } catch (IOException ex) {
+                logger.warn("Could not read thumbnail: {} - {}", path, ex.getMessage());
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private boolean hasAllSizes(String key) {
+        for (int size : sizes) {
+            if (!Files.exists(thumbnailPath(key, size, false)) && !Files.exists(thumbnailPath(key, size, true))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Path thumbnailPath(String key, int size, boolean alpha) {
+        return thumbnailDirectory.resolve(key.substring(0, 2)).resolve(key + "-" + size + (alpha ? ".png" : ".jpg"));
+    }
+
+    // Thumbnails show the content, so they are refused for quarantined content like the file itself
+    private Source resolveSource(String fileName) {
+        FileStorageService.StoredContent content = fileStorageService.resolveServableContent(fileName);
+        return new Source(content.contentHash() != null ? content.contentHash() : legacyKey(fileName), content.path());
+    }
+
+    /**
+     * Cache key of a file stored before content addressing: a hash of its name, which is never reused.
+     */
+    public static String legacyKey(String fileName) {
+        return sha256Hex("legacy:" + fileName);
+    }
+
+    private static String sha256Hex(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        logger.info("Shutting down thumbnail executor");
+        executor.shutdownNow();
+    }
+
+    private record Source(String key, Path path) {
+    }
+
+    /**
+     * A rendered thumbnail. Its bytes never change for a given key and size, so the pair doubles as
+     * a strong ETag.
+     */
+    public record Thumbnail(String key, int size, byte[] data, String contentType) {
+
+        public String getETag() {
+            return "\"" + key + "-" + size + "\"";
+        }
+    }
+}
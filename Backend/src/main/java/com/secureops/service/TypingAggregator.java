@@ -0,0 +1,129 @@
+package com.secureops.service;
+
+import com.secureops.dto.ChatTypingDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Merges per-user typing events into one "who is typing" frame per chat and flush interval.
+ *
+ * Clients report start/stop as often as they like; the aggregator only records the state.
+ * Each flush publishes a chat's typing set if it differs from the last one published, so a
+ * start/stop flap inside one interval, or a repeated start, costs no broker traffic at all.
+ * Users who stop sending updates expire after the TTL.
+ */
+@Component
+public class TypingAggregator {
+
+    private static final Logger logger = LoggerFactory.getLogger(TypingAggregator.class);
+
+    private static final long[] NOBODY = new long[0];
+
+    private final WebSocketService webSocketService;
+    private final long ttlNanos;
+    private final int maxTypistsPerChat;
+    private final Map<Long, ChatTyping> chats = new ConcurrentHashMap<>();
+
+    private final Counter receivedCounter;
+    private final Counter publishedCounter;
+
+    public TypingAggregator(WebSocketService webSocketService,
+            @Value("${app.chat.typing.ttl:5s}") Duration ttl,
+            @Value("${app.chat.typing.max-typists-per-chat:20}") int maxTypistsPerChat,
+            MeterRegistry meterRegistry) {
+        this.webSocketService = webSocketService;
+        this.ttlNanos = ttl.toNanos();
+        this.maxTypistsPerChat = maxTypistsPerChat;
+
+        Gauge.builder("secureops.chat.typing.active_chats", chats, Map::size)
+                .description("Chats with typing state being tracked")
+                .register(meterRegistry);
+        this.receivedCounter = Counter.builder("secureops.chat.typing.events")
+                .description("Typing events received from clients")
+                .tag("stage", "received")
+                .register(meterRegistry);
+        this.publishedCounter = Counter.builder("secureops.chat.typing.events")
+                .description("Typing frames published to subscribers")
+                .tag("stage", "published")
+                .register(meterRegistry);
+
+        logger.info("TypingAggregator initialized - ttl: {}, max typists per chat: {}", ttl, maxTypistsPerChat);
+    }
+
+    /**
+     * Records a typing update. The caller has already checked that the user is in the chat.
+     */
+    public void update(Long chatId, Long userId, boolean typing) {
+        receivedCounter.increment();
+        long expiresAt = System.nanoTime() + ttlNanos;
+        if (typing) {
+            // Inside compute so the flush cannot drop the chat between lookup and put
+            chats.compute(chatId, (id, state) -> {
+                ChatTyping current = state != null ? state : new ChatTyping();
+                // Past the cap a chat already shows "several people are typing"; extra names add nothing
+                if (current.typists.size() < maxTypistsPerChat || current.typists.containsKey(userId)) {
+                    current.typists.put(userId, expiresAt);
+                }
+                return current;
+            });
+        } else {
+            ChatTyping state = chats.get(chatId);
+            if (state != null) {
+                state.typists.remove(userId);
+            }
+        }
+    }
+
+    /**
+     * A user who sent a message has stopped typing there.
+     */
+    public void clear(Long chatId, Long userId) {
+        update(chatId, userId, false);
+    }
+
+    @Scheduled(fixedDelayString = "${app.chat.typing.flush-interval-ms:500}")
+    public void flush() {
+        long now = System.nanoTime();
+        for (Map.Entry<Long, ChatTyping> entry : chats.entrySet()) {
+            ChatTyping state = entry.getValue();
+            state.typists.values().removeIf(expiresAt -> now - expiresAt > 0);
+
+            long[] current = state.snapshot();
+            if (!Arrays.equals(current, state.published)) {
+                state.published = current;
+                publishedCounter.increment();
+                webSocketService.broadcastTypingSnapshot(entry.getKey(),
+                        new ChatTypingDto(entry.getKey(), Arrays.stream(current).boxed().toList()));
+            }
+
+            // Idle and everyone already told; re-checked atomically against a concurrent start
+            if (current.length == 0) {
+                chats.computeIfPresent(entry.getKey(), (id, s) -> s.typists.isEmpty() ? null : s);
+            }
+        }
+    }
+
+    private static final class ChatTyping {
+        private final Map<Long, Long> typists = new ConcurrentHashMap<>();
+        // Only touched by the flush thread
+        private long[] published = NOBODY;
+
+        private long[] snapshot() {
+            if (typists.isEmpty()) {
+                return NOBODY;
+            }
+            return typists.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+        }
+    }
+}
@@ -0,0 +1,412 @@
+package com.secureops.service;
+
+import com.secureops.entity.FileBlob;
+import com.secureops.repository.FileBlobRepository;
+import com.secureops.util.AppConstants;
+import com.secureops.util.SignatureSet;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Checks stored uploads for known malware and disguised executables, off the request path.
+ *
+ * The store already hashes every upload with SHA-256 while streaming it to disk, so the content
+ * hash is looked up directly in a local signature set (ClamAV .hsb lines, reloaded when the file
+ * changes) and only the first bytes of the file are read to sniff its real type. Known malware and
+ * executables are quarantined: the blob is marked and FileStorageService refuses to serve it.
+ * Content that does not look like what its extension claims is flagged as suspicious but still
+ * served. Findings go to the security log in the form the alert scan looks for.
+ *
+ * Every result records the version of the signature set it was checked against (the signature
+ * file's modification time). Scans run on a small bounded pool; the periodic rescan picks up
+ * content never scanned (the queue was full, or it was stored before scanning existed) and content
+ * scanned against an older signature set, so a signature update both catches newly known malware
+ * and releases content whose signature was withdrawn.
+ */
+@Component
+public class UploadScanner implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(UploadScanner.class);
+    private static final Logger securityLogger = LoggerFactory.getLogger("com.secureops.security");
+
+    private static final int HEADER_BYTES = 64;
+    // Logged for scans without a request behind them
+    private static final String SYSTEM_USER = "system";
+    private static final String NO_IP = "0.0.0.0";
+
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A};
+    private static final byte[] JPEG = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF};
+    private static final byte[] GIF = {'G', 'I', 'F', '8'};
+    private static final byte[] PDF = {'%', 'P', 'D', 'F', '-'};
+    private static final byte[] ZIP = {'P', 'K', 0x03, 0x04};
+    private static final byte[] ZIP_EMPTY = {'P', 'K', 0x05, 0x06};
+    private static final byte[] RIFF = {'R', 'I', 'F', 'F'};
+    private static final byte[] BMP = {'B', 'M'};
+    private static final byte[] GZIP = {0x1F, (byte) 0x8B};
+    private static final byte[] SEVEN_ZIP = {'7', 'z', (byte) 0xBC, (byte) 0xAF, 0x27, 0x1C};
+    private static final byte[] RAR = {'R', 'a', 'r', '!', 0x1A, 0x07};
+    private static final byte[] OLE = {(byte) 0xD0, (byte) 0xCF, 0x11, (byte) 0xE0, (byte) 0xA1, (byte) 0xB1, 0x1A, (byte) 0xE1};
+
+    // Extensions whose content has a fixed header; anything else is not checked for a mismatch
+    private static final Map<String, byte[][]> EXPECTED_HEADERS = Map.ofEntries(
+            Map.entry("png", new byte[][] {PNG}),
+            Map.entry("jpg", new byte[][] {JPEG}),
+            Map.entry("jpeg", new byte[][] {JPEG}),
+            Map.entry("gif", new byte[][] {GIF}),
+            Map.entry("pdf", new byte[][] {PDF}),
+            Map.entry("zip", new byte[][] {ZIP, ZIP_EMPTY}),
+            Map.entry("docx", new byte[][] {ZIP}),
+            Map.entry("xlsx", new byte[][] {ZIP}),
+            Map.entry("pptx", new byte[][] {ZIP}),
+            Map.entry("odt", new byte[][] {ZIP}),
+            Map.entry("ods", new byte[][] {ZIP}),
+            Map.entry("webp", new byte[][] {RIFF}),
+            Map.entry("bmp", new byte[][] {BMP}),
+            Map.entry("gz", new byte[][] {GZIP}),
+            Map.entry("7z", new byte[][] {SEVEN_ZIP}),
+            Map.entry("rar", new byte[][] {RAR}),
+            Map.entry("doc", new byte[][] {OLE}),
+            Map.entry("xls", new byte[][] {OLE}),
+            Map.entry("ppt", new byte[][] {OLE}));
+
+    private final FileStorageService fileStorageService;
+    private final FileBlobRepository fileBlobRepository;
+    private final LogService logService;
+    private final boolean enabled;
+    private final Path signatureFile;
+    private final int rescanBatchSize;
+
+    // Replaced as a whole, so a scan always sees a set together with its own version
+    private volatile Signatures signatures = new Signatures(SignatureSet.empty(), -1);
+    private final QuarantinedContent quarantinedContent;
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    private final ThreadPoolExecutor executor;
+
+    private final Timer scanTimer;
+    private final Counter cleanCounter;
+    private final Counter suspiciousCounter;
+    private final Counter quarantinedCounter;
+    private final Counter rejectedCounter;
+
+    public UploadScanner(FileStorageService fileStorageService,
+            FileBlobRepository fileBlobRepository,
+            QuarantinedContent quarantinedContent,
+            LogService logService,
+            @Value("${app.file.scan.enabled:true}") boolean enabled,
+            @Value("${app.file.scan.signatures-file:./signatures/sha256.hsb}") String signatureFile,
+            @Value("${app.file.scan.pool-size:2}") int poolSize,
+            @Value("${app.file.scan.queue-capacity:1000}") int queueCapacity,
+            @Value("${app.file.scan.rescan-batch-size:100}") int rescanBatchSize,
+            MeterRegistry meterRegistry) {
+        this.fileStorageService = fileStorageService;
+        this.fileBlobRepository = fileBlobRepository;
+        this.quarantinedContent = quarantinedContent;
+        this.logService = logService;
+        this.enabled = enabled;
+        this.signatureFile = Paths.get(signatureFile).toAbsolutePath().normalize();
+        this.rescanBatchSize = rescanBatchSize;
+
+        // Work beyond the queue is left unscanned for the rescan rather than slowing the upload down
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "upload-scan-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        new ExecutorServiceMetrics(executor, "upload-scan", Tags.empty()).bindTo(meterRegistry);
+        Gauge.builder("secureops.file.scan.signatures", this, scanner -> scanner.signatures.set().size())
+                .description("SHA-256 signatures loaded")
+                .register(meterRegistry);
+        this.scanTimer = Timer.builder("secureops.file.scan")
+                .description("Time spent scanning one upload")
+                .register(meterRegistry);
+        this.cleanCounter = resultCounter(meterRegistry, "clean");
+        this.suspiciousCounter = resultCounter(meterRegistry, "suspicious");
+        this.quarantinedCounter = resultCounter(meterRegistry, "quarantined");
+        this.rejectedCounter = Counter.builder("secureops.file.scan.rejected")
+                .description("Scans deferred to the rescan because the queue was full")
+                .register(meterRegistry);
+
+        reloadSignatures();
+
+        logger.info("UploadScanner initialized - enabled: {}, signatures: {} from {}, quarantined: {}, pool size: {}, queue capacity: {}",
+                enabled, signatures.set().size(), this.signatureFile, quarantinedContent.size(), poolSize, queueCapacity);
+    }
+
+    private static Counter resultCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("secureops.file.scan.results")
+                .description("Uploads scanned, by outcome")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues a stored upload for scanning. userId and clientIp identify the upload in the security
+     * log. Files stored before content addressing have no hash and are not scanned.
+     */
+    public void scheduleScan(String fileName, Long userId, String clientIp) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            fileStorageService.findContentHash(fileName).ifPresent(hash ->
+                    submit(new Job(hash, fileName, userId != null ? userId.toString() : SYSTEM_USER,
+                            clientIp != null ? clientIp : NO_IP)));
+        } catch (Exception ex) {
+            logger.warn("Upload not scheduled for scanning: {} - {}", fileName, ex.getMessage());
+        }
+    }
+
+    /**
+     * Picks up a signature update and scans content that was never scanned, or was scanned against
+     * an older signature set.
+     */
+    @Scheduled(fixedDelayString = "${app.file.scan.rescan-interval-ms:300000}",
+            initialDelayString = "${app.file.scan.rescan-initial-delay-ms:120000}")
+    public void rescan() {
+        if (!enabled) {
+            return;
+        }
+        reloadSignatures();
+        // Leave room for uploads
+        int room = Math.min(rescanBatchSize, executor.getQueue().remainingCapacity() / 2);
+        if (room <= 0) {
+            return;
+        }
+        List<FileBlobRepository.RescanCandidate> candidates =
+                fileBlobRepository.findRescanCandidates(signatures.version(), room);
+        for (FileBlobRepository.RescanCandidate candidate : candidates) {
+            if (!inFlight.contains(candidate.getHash())) {
+                // The name of the upload, so the type check sees its extension; the hash if none is left
+                String fileName = candidate.getFileName() != null ? candidate.getFileName() : candidate.getHash();
+                submit(new Job(candidate.getHash(), fileName, SYSTEM_USER, NO_IP));
+            }
+        }
+        if (!candidates.isEmpty()) {
+            logger.debug("Rescan queued {} contents", candidates.size());
+        }
+    }
+
+    private void submit(Job job) {
+        inFlight.add(job.hash());
+        try {
+            executor.execute(() -> {
+                try {
+                    scanTimer.record(() -> scan(job));
+                } catch (Exception ex) {
+                    logger.warn("Scan failed for: {} ({}) - {}", job.fileName(), job.hash(), ex.getMessage());
+                } finally {
+                    inFlight.remove(job.hash());
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            inFlight.remove(job.hash());
+            rejectedCounter.increment();
+            logger.debug("Scan queue full, deferred: {}", job.fileName());
+        }
+    }
+
+    private void scan(Job job) throws IOException {
+        Signatures current = signatures;
+        String signature = current.set().find(job.hash());
+        if (signature != null) {
+            logger.error("Malware signature matched - file: {}, hash: {}, signature: {}", job.fileName(), job.hash(), signature);
+            securityLogger.error("Malware detected - File: {}, Signature: {}, User: {}, IP: {}",
+                    job.fileName(), signature, job.user(), job.clientIp());
+            record(job, current.version(), FileBlob.ScanStatus.QUARANTINED,
+                    "Malware detected in upload: " + job.fileName() + " (" + signature + ")");
+            return;
+        }
+
+        byte[] header;
+        try {
+            header = readHeader(fileStorageService.getBlobPath(job.hash()));
+        } catch (NoSuchFileException ex) {
+            // Collected in the meantime
+            logger.debug("Content gone before scanning: {}", job.hash());
+            return;
+        }
+
+        String executable = executableType(header);
+        if (executable != null) {
+            logger.warn("Executable content quarantined - file: {}, hash: {}, type: {}", job.fileName(), job.hash(), executable);
+            securityLogger.warn("Executable upload blocked - File: {}, Type: {}, User: {}, IP: {}",
+                    job.fileName(), executable, job.user(), job.clientIp());
+            record(job, current.version(), FileBlob.ScanStatus.QUARANTINED,
+                    "Executable upload blocked: " + job.fileName() + " (" + executable + ")");
+            return;
+        }
+
+        String extension = extensionOf(job.fileName());
+        if (extension != null && !matchesExtension(extension, header)) {
+            logger.warn("Upload content does not match its extension - file: {}, hash: {}", job.fileName(), job.hash());
+            securityLogger.warn("Suspicious file upload - Filename: {}, User: {}, IP: {}, Reason: content is not .{}",
+                    job.fileName(), job.user(), job.clientIp(), extension);
+            record(job, current.version(), FileBlob.ScanStatus.SUSPICIOUS,
+                    "Suspicious file upload: " + job.fileName() + " (content is not ." + extension + ")");
+            return;
+        }
+
+        record(job, current.version(), FileBlob.ScanStatus.CLEAN, null);
+    }
+
+    private void record(Job job, long signatureVersion, FileBlob.ScanStatus status, String logDetails) {
+        fileBlobRepository.updateScanStatus(job.hash(), status.name(), signatureVersion);
+        if (status == FileBlob.ScanStatus.QUARANTINED) {
+            quarantinedContent.add(job.hash());
+            quarantinedCounter.increment();
+        } else {
+            // A rescan after a signature update clears content whose signature was withdrawn
+            quarantinedContent.remove(job.hash());
+            (status == FileBlob.ScanStatus.SUSPICIOUS ? suspiciousCounter : cleanCounter).increment();
+        }
+
+        if (logDetails != null) {
+            Long userId = SYSTEM_USER.equals(job.user()) ? null : Long.valueOf(job.user());
+            logService.createLog(
+                    AppConstants.LOG_ACTION_SECURITY,
+                    logDetails,
+                    job.clientIp(),
+                    AppConstants.LOG_TYPE_SECURITY,
+                    userId);
+        }
+    }
+
+    private void reloadSignatures() {
+        try {
+            if (!Files.exists(signatureFile)) {
+                if (signatures.version() != 0) {
+                    logger.info("No signature file at {}; only type checks are done", signatureFile);
+                    signatures = new Signatures(SignatureSet.empty(), 0);
+                }
+                return;
+            }
+            long modified = Files.getLastModifiedTime(signatureFile).toMillis();
+            if (modified == signatures.version()) {
+                return;
+            }
+            SignatureSet loaded;
+            try (BufferedReader reader = Files.newBufferedReader(signatureFile, StandardCharsets.UTF_8)) {
+                loaded = SignatureSet.load(reader);
+            }
+            signatures = new Signatures(loaded, modified);
+            logger.info("Loaded {} SHA-256 signatures ({} bytes) from {}, skipped {} other lines",
+                    loaded.size(), loaded.getSizeInBytes(), signatureFile, loaded.getSkippedCount());
+        } catch (IOException ex) {
+            // Keeps the previous set
+            logger.error("Could not load signatures from {}: {}", signatureFile, ex.getMessage());
+        }
+    }
+
+    private static byte[] readHeader(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES);
+            int read;
+            do {
+                read = channel.read(buffer);
+            } while (read != -1 && buffer.hasRemaining());
+            return Arrays.copyOf(buffer.array(), buffer.position());
+        }
+    }
+
+    private static String executableType(byte[] header) {
+        if (startsWith(header, 0, 'M', 'Z')) {
+            return "PE";
+        }
+        if (startsWith(header, 0, 0x7F, 'E', 'L', 'F')) {
+            return "ELF";
+        }
+        if (startsWith(header, 0, 0xFE, 0xED, 0xFA, 0xCE) || startsWith(header, 0, 0xFE, 0xED, 0xFA, 0xCF)
+                || startsWith(header, 0, 0xCE, 0xFA, 0xED, 0xFE) || startsWith(header, 0, 0xCF, 0xFA, 0xED, 0xFE)) {
+            return "Mach-O";
+        }
+        // Shared with Java class files, whose major version (45 and up) sits where the architecture count is
+        if (startsWith(header, 0, 0xCA, 0xFE, 0xBA, 0xBE) && header.length >= 8
+                && ByteBuffer.wrap(header, 4, 4).getInt() < 45) {
+            return "Mach-O";
+        }
+        if (startsWith(header, 0, '#', '!')) {
+            return "script";
+        }
+        return null;
+    }
+
+    private static boolean matchesExtension(String extension, byte[] header) {
+        byte[][] expected = EXPECTED_HEADERS.get(extension);
+        if (expected == null || header.length == 0) {
+            return true;
+        }
+        for (byte[] magic : expected) {
+            if (header.length >= magic.length && Arrays.equals(header, 0, magic.length, magic, 0, magic.length)) {
+                return !"webp".equals(extension) || startsWith(header, 8, 'W', 'E', 'B', 'P');
+            }
+        }
+        return false;
+    }
+
+    private static boolean startsWith(byte[] header, int offset, int... magic) {
+        if (header.length < offset + magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if ((header[offset + i] & 0xFF) != (magic[i] & 0xFF)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String extensionOf(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot < 0 || dot == fileName.length() - 1 ? null : fileName.substring(dot + 1).toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    public void destroy() {
+        logger.info("Shutting down upload scan executor");
+        executor.shutdownNow();
+    }
+
+    private record Job(String hash, String fileName, String user, String clientIp) {
+    }
+
+    // version is the signature file's modification time; 0 without a file
+    private record Signatures(SignatureSet set, long version) {
+    }
+}
@@ -0,0 +1,93 @@
+package com.secureops.service;
+
+import com.secureops.dto.UserPrincipal;
+import com.secureops.entity.User;
+import com.secureops.repository.UserRepository;
+import com.secureops.util.BoundedCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Bounded cache of user principals keyed by email (the JWT subject).
+ *
+ * Every authenticated request resolves its email to an id and role at least once, often several
+ * times. Entries are invalidated whenever UserServiceImpl changes role, status or email; the TTL
+ * only bounds staleness for writes that bypass the service.
+ */
+@Component
+public class UserPrincipalCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserPrincipalCache.class);
+
+    private final UserRepository userRepository;
+    private final BoundedCache<String, UserPrincipal> cache;
+
+    public UserPrincipalCache(UserRepository userRepository,
+            @Value("${app.cache.user-principal.max-size:10000}") int maxSize,
+            @Value("${app.cache.user-principal.ttl:5m}") Duration ttl,
+            MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.cache = new BoundedCache<>(maxSize, ttl);
+
+        Gauge.builder("secureops.cache.size", cache, BoundedCache::size)
+                .tag("cache", "user-principal").register(meterRegistry);
+        FunctionCounter.builder("secureops.cache.gets", cache, BoundedCache::getHitCount)
+                .tags("cache", "user-principal", "result", "hit").register(meterRegistry);
+        FunctionCounter.builder("secureops.cache.gets", cache, BoundedCache::getMissCount)
+                .tags("cache", "user-principal", "result", "miss").register(meterRegistry);
+
+        logger.info("UserPrincipalCache initialized - max size: {}, ttl: {}", maxSize, ttl);
+    }
+
+    public Optional<UserPrincipal> findByEmail(String email) {
+        if (email == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(cache.get(email, key -> userRepository.findByEmail(key)
+                .map(UserPrincipalCache::toPrincipal)
+                .orElse(null)));
+    }
+
+    public Optional<Long> findUserId(String email) {
+        return findByEmail(email).map(UserPrincipal::getId);
+    }
+
+    /**
+     * Drops the cached entry now and again once the surrounding transaction commits, so a
+     * concurrent reader cannot re-populate it with the pre-commit row.
+     */
+    public void invalidate(String email) {
+        if (email == null) {
+            return;
+        }
+        cache.invalidate(email);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.invalidate(email);
+                }
+            });
+        }
+        logger.debug("User principal invalidated");
+    }
+
+    public void invalidate(User user) {
+        invalidate(user.getEmail());
+    }
+
+    private static UserPrincipal toPrincipal(User user) {
+        return new UserPrincipal(user.getId(), user.getEmail(), user.getRole(), user.isActive(),
+                user.getApprovalStatus());
+    }
+}
@@ -26,6 +26,9 @@ public interface UserService {
 
     UserDto getCurrentUser();
 
+    // Resolved through the principal cache, null when there is no authenticated user
+    Long getCurrentUserId();
+
     List<UserDto> getAllUsers();
 
     boolean changePassword(String currentPassword, String newPassword);
@@ -44,6 +47,8 @@ public interface UserService {
 
     String getUserAvatarUrl(String fileName);
 
+    String getUserAvatarThumbnailUrl(String fileName);
+
     User changeUserRole(Long userId, User.UserRole newRole);
 
     boolean adminResetPassword(Long userId, String newPassword);
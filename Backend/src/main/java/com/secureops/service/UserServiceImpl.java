@@ -5,6 +5,7 @@ import com.secureops.dto.UserProfileUpdateDto;
 import com.secureops.dto.UserRegistrationDto;
 import com.secureops.entity.User;
 import com.secureops.exception.BadRequestException;
+import com.secureops.exception.QuotaExceededException;
 import com.secureops.exception.ResourceNotFoundException;
 import com.secureops.repository.UserRepository;
 import com.secureops.util.AppConstants;
@@ -40,17 +41,26 @@ public class UserServiceImpl implements UserService {
     private final LogService logService;
     private final EmailService emailService;
     private final FileStorageService fileStorageService;
+    private final ThumbnailService thumbnailService;
+    private final UploadScanner uploadScanner;
+    private final UserPrincipalCache userPrincipalCache;
 
     public UserServiceImpl(UserRepository userRepository,
             PasswordEncoder passwordEncoder,
             LogService logService,
             EmailService emailService,
-            FileStorageService fileStorageService) {
+            FileStorageService fileStorageService,
+            ThumbnailService thumbnailService,
+            UploadScanner uploadScanner,
+            UserPrincipalCache userPrincipalCache) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.logService = logService;
         this.emailService = emailService;
         this.fileStorageService = fileStorageService;
+        this.thumbnailService = thumbnailService;
+        this.uploadScanner = uploadScanner;
+        this.userPrincipalCache = userPrincipalCache;
         logger.info("UserServiceImpl initialized");
     }
 
@@ -141,6 +151,7 @@ public class UserServiceImpl implements UserService {
             user.setActive(true);
 
             User savedUser = userRepository.save(user);
+            userPrincipalCache.invalidate(savedUser);
             logger.info("User approved successfully: {} (ID: {}) by admin ID: {}", maskedEmail, userId, currentUserId);
 
             emailService.sendPasswordEmail(savedUser.getEmail(), savedUser.getFullName(), rawPassword);
@@ -184,6 +195,7 @@ public class UserServiceImpl implements UserService {
             user.setActive(false);
 
             User savedUser = userRepository.save(user);
+            userPrincipalCache.invalidate(savedUser);
             logger.info("User rejected successfully: {} (ID: {}) by admin ID: {}", maskedEmail, userId, currentUserId);
 
             logService.createLog(
@@ -336,22 +348,25 @@ public class UserServiceImpl implements UserService {
 
         if (user.getAvatarFileName() != null) {
             userDto.setAvatarUrl(getUserAvatarUrl(user.getAvatarFileName()));
+            userDto.setAvatarThumbnailUrl(getUserAvatarThumbnailUrl(user.getAvatarFileName()));
             logger.debug("Avatar URL set for user: {}", maskedEmail);
         }
 
         return userDto;
     }
 
-    private Long getCurrentUserId() {
+    @Override
+    public Long getCurrentUserId() {
         logger.debug("Retrieving current user ID");
         try {
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
             if (authentication != null && authentication.isAuthenticated()) {
                 String email = authentication.getName();
                 String maskedEmail = maskEmail(email);
-                User user = getUserByEmail(email);
-                logger.debug("Current user ID retrieved: {} for email: {}", user.getId(), maskedEmail);
-                return user.getId();
+                Long userId = userPrincipalCache.findUserId(email)
+                        .orElseThrow(() -> new ResourceNotFoundException("User", "email", maskedEmail));
+                logger.debug("Current user ID retrieved: {} for email: {}", userId, maskedEmail);
+                return userId;
             }
             logger.warn("No authenticated user found");
             securityLogger.warn("No authenticated user - IP: {}", getClientIp());
@@ -602,6 +617,9 @@ public class UserServiceImpl implements UserService {
             }
 
             User savedUser = userRepository.save(user);
+            // The email may have changed, so drop the entries for both the old and the new one
+            userPrincipalCache.invalidate(email);
+            userPrincipalCache.invalidate(savedUser);
             logger.info("Profile updated successfully for user: {} (ID: {}) from IP: {}", maskedEmail, userId,
                     clientIp);
 
@@ -644,19 +662,25 @@ public class UserServiceImpl implements UserService {
 
             if (user.getAvatarFileName() != null && !user.getAvatarFileName().equals("default-avatar.png")) {
                 try {
-                    fileStorageService.deleteFile(user.getAvatarFileName());
-                    logger.debug("Deleted old avatar for user: {} (ID: {})", maskedEmail, userId);
+                    // Stored content is dropped by the collector once unreferenced; older flat files go now
+                    if (!fileStorageService.releaseFile(user.getAvatarFileName())) {
+                        fileStorageService.deleteFile(user.getAvatarFileName());
+                    }
+                    logger.debug("Released old avatar for user: {} (ID: {})", maskedEmail, userId);
                 } catch (Exception e) {
                     logger.error("Failed to delete old avatar for user: {} (ID: {}): {}", maskedEmail, userId,
                             e.getMessage());
                 }
             }
 
-            String fileName = fileStorageService.storeFile(avatarFile);
+            String fileName = fileStorageService.storeFile(avatarFile, userId);
+            fileStorageService.retainFile(fileName);
             user.setAvatarFileName(fileName);
             logger.debug("Stored new avatar: {} for user: {} (ID: {})", fileName, maskedEmail, userId);
 
             User savedUser = userRepository.save(user);
+            thumbnailService.scheduleThumbnails(fileName);
+            uploadScanner.scheduleScan(fileName, userId, clientIp);
             logger.info("Avatar updated successfully for user: {} (ID: {}) from IP: {}", maskedEmail, userId, clientIp);
 
             logService.createLog(
@@ -668,7 +692,7 @@ public class UserServiceImpl implements UserService {
 
             return mapToDto(savedUser);
 
-        } catch (BadRequestException | ResourceNotFoundException ex) {
+        } catch (BadRequestException | ResourceNotFoundException | QuotaExceededException ex) {
             throw ex; // Already logged
         } catch (Exception ex) {
             logger.error("Unexpected error updating avatar for user: {} (ID: {})", maskedEmail, userId, ex);
@@ -694,6 +718,15 @@ public class UserServiceImpl implements UserService {
         }
     }
 
+    @Override
+    public String getUserAvatarThumbnailUrl(String fileName) {
+        // Served at the default size; redirects to the full avatar until the thumbnail is rendered
+        return ServletUriComponentsBuilder.fromCurrentContextPath()
+                .path("/api/files/thumbnails/")
+                .path(fileName)
+                .toUriString();
+    }
+
     @Override
     @Transactional
     public User changeUserRole(Long userId, User.UserRole newRole) {
@@ -716,6 +749,7 @@ public class UserServiceImpl implements UserService {
 
             user.setRole(newRole);
             User savedUser = userRepository.save(user);
+            userPrincipalCache.invalidate(savedUser);
             logger.info("Role changed to {} for user: {} (ID: {}) by admin ID: {} from IP: {}",
                     newRole, maskedEmail, userId, currentUserId, clientIp);
 
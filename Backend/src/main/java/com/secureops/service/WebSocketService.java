@@ -1,16 +1,25 @@
 package com.secureops.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.secureops.dto.ChatTypingDto;
 import com.secureops.dto.MessageDto;
-import com.secureops.dto.TypingStatusDto;
+import com.secureops.dto.PresenceDto;
+import com.secureops.dto.ReadReceiptDto;
 import com.secureops.entity.Message;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
 import jakarta.servlet.http.HttpServletRequest;
+import java.util.Collection;
 
 @Service
 public class WebSocketService {
@@ -19,9 +28,11 @@ public class WebSocketService {
     private static final Logger securityLogger = LoggerFactory.getLogger("com.secureops.security");
 
     private final SimpMessagingTemplate messagingTemplate;
+    private final ObjectMapper objectMapper;
 
-    public WebSocketService(SimpMessagingTemplate messagingTemplate) {
+    public WebSocketService(SimpMessagingTemplate messagingTemplate, ObjectMapper objectMapper) {
         this.messagingTemplate = messagingTemplate;
+        this.objectMapper = objectMapper;
         logger.info("WebSocketService initialized");
     }
 
@@ -43,7 +54,7 @@ public class WebSocketService {
                 return;
             }
 
-            messagingTemplate.convertAndSend("/topic/chat/" + chatId, messageDto);
+            sendSerialized("/topic/chat/" + chatId, serialize(messageDto));
             logger.info("Message broadcasted successfully to chat ID: {} from IP: {}", chatId, clientIp);
 
         } catch (Exception ex) {
@@ -53,87 +64,106 @@ public class WebSocketService {
     }
 
     /**
-     * Broadcast a message read status update
+     * Broadcast a read watermark update. One receipt covers every message up to
+     * lastReadMessageId, so clients apply it as a range rather than per message.
      * 
-     * @param chatId     The chat ID
-     * @param messageDto The updated message DTO
+     * @param chatId  The chat ID
+     * @param receipt The reader's new watermark
      */
-    public void broadcastMessageRead(Long chatId, MessageDto messageDto) {
+    public void broadcastReadReceipt(Long chatId, ReadReceiptDto receipt) {
         String clientIp = getClientIp();
-        logger.debug("Broadcasting message read status to chat ID: {} from IP: {}", chatId, clientIp);
+        logger.debug("Broadcasting read receipt to chat ID: {} from IP: {}", chatId, clientIp);
 
         try {
-            if (chatId == null || messageDto == null) {
-                logger.warn("Invalid parameters for broadcasting read status - chatId: {}, messageDto: {} from IP: {}", 
-                        chatId, messageDto, clientIp);
+            if (chatId == null || receipt == null) {
+                logger.warn("Invalid parameters for broadcasting read receipt - chatId: {}, receipt: {} from IP: {}", 
+                        chatId, receipt, clientIp);
                 return;
             }
 
-            messagingTemplate.convertAndSend("/topic/chat/" + chatId + "/read", messageDto);
-            logger.info("Message read status broadcasted successfully to chat ID: {} from IP: {}", chatId, clientIp);
+            sendSerialized("/topic/chat/" + chatId + "/read", serialize(receipt));
+            logger.info("Read receipt broadcasted successfully to chat ID: {} from IP: {}", chatId, clientIp);
 
         } catch (Exception ex) {
-            logger.error("Error broadcasting message read status to chat ID: {} from IP: {}", chatId, clientIp, ex);
-            securityLogger.error("Error broadcasting read status - chatId: {}, IP: {}, Error: {}", chatId, clientIp, ex.getMessage());
+            logger.error("Error broadcasting read receipt to chat ID: {} from IP: {}", chatId, clientIp, ex);
+            securityLogger.error("Error broadcasting read receipt - chatId: {}, IP: {}, Error: {}", chatId, clientIp, ex.getMessage());
         }
     }
 
     /**
-     * Send a message to a specific user
+     * Broadcast a presence change (a user's first session opened or last one closed)
      * 
-     * @param userId     The target user's ID
-     * @param messageDto The message DTO to send
+     * @param presence The presence delta
      */
-    public void sendMessageToUser(Long userId, MessageDto messageDto) {
-        String clientIp = getClientIp();
-        logger.debug("Sending message to user ID: {} from IP: {}", userId, clientIp);
-
+    public void broadcastPresence(PresenceDto presence) {
         try {
-            if (userId == null || messageDto == null) {
-                logger.warn("Invalid parameters for sending message - userId: {}, messageDto: {} from IP: {}", 
-                        userId, messageDto, clientIp);
-                return;
-            }
-
-            messagingTemplate.convertAndSendToUser(
-                    userId.toString(),
-                    "/queue/messages",
-                    messageDto);
-            logger.info("Message sent successfully to user ID: {} from IP: {}", userId, clientIp);
-
+            sendSerialized("/topic/presence", serialize(presence));
+            logger.debug("Presence broadcasted - user ID: {}, online: {}", presence.getUserId(), presence.isOnline());
         } catch (Exception ex) {
-            logger.error("Error sending message to user ID: {} from IP: {}", userId, clientIp, ex);
-            securityLogger.error("Error sending message to user - userId: {}, IP: {}, Error: {}", userId, clientIp, ex.getMessage());
+            logger.error("Error broadcasting presence for user ID: {}", presence.getUserId(), ex);
         }
     }
 
     /**
-     * Send a typing indicator to a chat
+     * Send one event to many users' private queues. The payload is serialized once and the same
+     * bytes go to every user; the broker then resolves each user's sessions.
      * 
-     * @param chatId   The chat ID
-     * @param typingStatus The typing status DTO
+     * @param usernames   Principal names of the recipients (their login emails)
+     * @param destination The user destination, e.g. /queue/notifications
+     * @param payload     The event to send
      */
-    public void broadcastTypingStatus(Long chatId, TypingStatusDto typingStatus) {
-        String clientIp = getClientIp();
-        logger.debug("Broadcasting typing status to chat ID: {} for user ID: {}, typing: {} from IP: {}", 
-                chatId, typingStatus.getUserId(), typingStatus.isTyping(), clientIp);
+    public void sendToUsers(Collection<String> usernames, String destination, Object payload) {
+        if (usernames == null || usernames.isEmpty() || destination == null || payload == null) {
+            return;
+        }
 
         try {
-            if (chatId == null || typingStatus == null || typingStatus.getUserId() == null) {
-                logger.warn("Invalid parameters for broadcasting typing status - chatId: {}, typingStatus: {} from IP: {}", 
-                        chatId, typingStatus, clientIp);
-                return;
+            byte[] serialized = serialize(payload);
+            for (String username : usernames) {
+                sendSerialized("/user/" + username + destination, serialized);
             }
+            logger.debug("Event sent to {} users on {}", usernames.size(), destination);
 
-            messagingTemplate.convertAndSend("/topic/chat/" + chatId + "/typing", typingStatus);
-            logger.info("Typing status broadcasted successfully to chat ID: {} for user ID: {} from IP: {}", 
-                    chatId, typingStatus.getUserId(), clientIp);
+        } catch (Exception ex) {
+            logger.error("Error sending event to {} users on {}", usernames.size(), destination, ex);
+            securityLogger.error("Error sending event to users - destination: {}, Error: {}", destination, ex.getMessage());
+        }
+    }
 
+    private byte[] serialize(Object payload) {
+        try {
+            return objectMapper.writeValueAsBytes(payload);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalArgumentException("Cannot serialize WebSocket payload " + payload.getClass().getSimpleName(), ex);
+        }
+    }
+
+    /**
+     * Sends already serialized JSON. The simple broker hands the same byte[] to every subscriber,
+     * so nothing is converted again per destination or per session; only the STOMP frame headers
+     * are written per session.
+     */
+    private void sendSerialized(String destination, byte[] payload) {
+        // Fresh headers per send: the template writes the destination into them
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        headers.setLeaveMutable(true);
+        messagingTemplate.send(destination, MessageBuilder.createMessage(payload, headers.getMessageHeaders()));
+    }
+
+    /**
+     * Broadcast the merged typing state of a chat. Called from the typing flush at most once per
+     * chat and interval, so it skips the per-event IP lookup and info logging of the other paths.
+     * 
+     * @param chatId The chat ID
+     * @param typing Everyone currently typing in the chat
+     */
+    public void broadcastTypingSnapshot(Long chatId, ChatTypingDto typing) {
+        try {
+            sendSerialized("/topic/chat/" + chatId + "/typing", serialize(typing));
+            logger.trace("Typing snapshot broadcasted to chat ID: {} - {} typing", chatId, typing.getUserIds().size());
         } catch (Exception ex) {
-            logger.error("Error broadcasting typing status to chat ID: {} for user ID: {} from IP: {}", 
-                    chatId, typingStatus != null ? typingStatus.getUserId() : "unknown", clientIp, ex);
-            securityLogger.error("Error broadcasting typing status - chatId: {}, userId: {}, IP: {}, Error: {}", 
-                    chatId, typingStatus != null ? typingStatus.getUserId() : "unknown", clientIp, ex.getMessage());
+            logger.error("Error broadcasting typing snapshot to chat ID: {}", chatId, ex);
         }
     }
 
@@ -15,6 +15,9 @@ public class AppConstants {
     // File upload constants
     public static final String FILE_UPLOAD_DIR = "uploads";
     public static final int MAX_FILE_SIZE = 10 * 1024 * 1024; // 10MB
+
+    // Chat list: characters of the last text message shown
+    public static final int CHAT_PREVIEW_LENGTH = 120;
     
     // Log types
     public static final String LOG_TYPE_USER = "USER";
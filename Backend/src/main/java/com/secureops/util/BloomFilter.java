@@ -0,0 +1,81 @@
+package com.secureops.util;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact set membership for strings with false positives but no false negatives.
+ *
+ * Sized up front for the expected number of entries and false-positive rate; about 1.8 bytes per
+ * entry at 0.1%. Bit positions come from two 64-bit hashes combined (Kirsch-Mitzenmacher), so
+ * only one pass over the bytes is needed per operation. Not thread-safe.
+ */
+public class BloomFilter {
+
+    private final long[] bits;
+    private final long bitCount;
+    private final int hashCount;
+    private long entries;
+
+    public BloomFilter(long expectedEntries, double falsePositiveRate) {
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("False positive rate must be between 0 and 1");
+        }
+        long n = Math.max(1, expectedEntries);
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.bits = new long[(int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (m + 63) >>> 6))];
+        this.bitCount = (long) bits.length << 6;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+    }
+
+    public void put(String value) {
+        long h1 = hash(value);
+        long h2 = stride(h1);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            bits[(int) (bit >>> 6)] |= 1L << bit;
+        }
+        entries++;
+    }
+
+    public boolean mightContain(String value) {
+        long h1 = hash(value);
+        long h2 = stride(h1);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long getEntryCount() {
+        return entries;
+    }
+
+    public long getSizeInBytes() {
+        return (long) bits.length * Long.BYTES;
+    }
+
+    // 64-bit FNV-1a over the UTF-8 bytes
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    // Finalizer of SplitMix64
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    // Second hash, odd so that successive probes never repeat a position early
+    private static long stride(long h1) {
+        return mix(h1 + 0x9e3779b97f4a7c15L) | 1L;
+    }
+}
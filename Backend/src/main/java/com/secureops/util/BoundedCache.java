@@ -0,0 +1,191 @@
+package com.secureops.util;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Small in-process LRU cache with a per-entry time to live.
+ *
+ * Keys are spread over independent segments, each an access-ordered LinkedHashMap with its own
+ * lock and an equal share of the capacity, so concurrent lookups of different keys rarely wait on
+ * each other. Eviction is least-recently-used within a segment. Meant for modest, read-mostly
+ * working sets (user principals, chat memberships) where a full caching library is not worth
+ * pulling in.
+ */
+public class BoundedCache<K, V> {
+
+    private static final int MAX_SEGMENTS = 16;
+    // Below this many entries per segment LRU order gets too coarse to be worth the concurrency
+    private static final int MIN_SEGMENT_SIZE = 32;
+
+    private final long ttlNanos;
+    private final Segment<K, V>[] segments;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public BoundedCache(int maxSize, Duration ttl) {
+        this(maxSize, ttl, Integer.highestOneBit(Math.max(1, Math.min(MAX_SEGMENTS, maxSize / MIN_SEGMENT_SIZE))));
+    }
+
+    @SuppressWarnings("unchecked")
+    public BoundedCache(int maxSize, Duration ttl, int segmentCount) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive");
+        }
+        if (segmentCount <= 0 || segmentCount > maxSize) {
+            throw new IllegalArgumentException("Segment count must be between 1 and the cache size");
+        }
+        this.ttlNanos = ttl.toNanos();
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            // The first maxSize % segmentCount segments take one extra entry
+            segments[i] = new Segment<>(maxSize / segmentCount + (i < maxSize % segmentCount ? 1 : 0), evictions);
+        }
+    }
+
+    public V get(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            Entry<V> entry = segment.entries.get(key);
+            if (entry == null) {
+                misses.increment();
+                return null;
+            }
+            if (System.nanoTime() - entry.expiresAt > 0) {
+                segment.entries.remove(key);
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return entry.value;
+        }
+    }
+
+    /**
+     * Returns the cached value or loads it. The loader runs outside the lock, so two threads missing
+     * on the same key may both load; the last one wins. A null result is not cached, and neither is
+     * a result whose key was invalidated while it was loading, since it may predate the change that
+     * caused the invalidation.
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        V value = get(key);
+        if (value != null) {
+            return value;
+        }
+        Segment<K, V> segment = segmentFor(key);
+        Object ticket = new Object();
+        synchronized (segment) {
+            segment.loading.put(key, ticket);
+        }
+        try {
+            value = loader.apply(key);
+        } finally {
+            synchronized (segment) {
+                if (segment.loading.get(key) == ticket) {
+                    segment.loading.remove(key);
+                    if (value != null) {
+                        segment.entries.put(key, new Entry<>(value, System.nanoTime() + ttlNanos));
+                    }
+                }
+            }
+        }
+        return value;
+    }
+
+    public void put(K key, V value) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            segment.entries.put(key, new Entry<>(value, System.nanoTime() + ttlNanos));
+        }
+    }
+
+    public void invalidate(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            segment.entries.remove(key);
+            segment.loading.remove(key);
+        }
+    }
+
+    public void invalidateIf(Predicate<? super V> predicate) {
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                segment.entries.values().removeIf(entry -> predicate.test(entry.value));
+                // Values still loading cannot be tested, so none of them is kept
+                segment.loading.clear();
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                segment.entries.clear();
+                segment.loading.clear();
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                size += segment.entries.size();
+            }
+        }
+        return size;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    private Segment<K, V> segmentFor(K key) {
+        int hash = key.hashCode() * 0x9E3779B9;
+        return segments[((hash ^ (hash >>> 16)) & Integer.MAX_VALUE) % segments.length];
+    }
+
+    private static final class Segment<K, V> {
+        private final LinkedHashMap<K, Entry<V>> entries;
+        // Key -> ticket of the load in flight; dropping the ticket discards that load's result
+        private final Map<K, Object> loading = new HashMap<>();
+
+        private Segment(int maxSize, LongAdder evictions) {
+            this.entries = new LinkedHashMap<>(Math.min(maxSize, 1024), 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                    if (size() > maxSize) {
+                        evictions.increment();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long expiresAt;
+
+        private Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
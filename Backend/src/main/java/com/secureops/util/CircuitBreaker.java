@@ -0,0 +1,81 @@
+package com.secureops.util;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Minimal consecutive-failure circuit breaker.
+ *
+ * CLOSED lets every call through. After {@code failureThreshold} failures in a row it goes OPEN and
+ * rejects calls for {@code openDuration}; then a single trial call is allowed (HALF_OPEN) and its
+ * outcome closes or re-opens the circuit.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openDurationNanos;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicLong openedAt = new AtomicLong();
+    private final AtomicBoolean trialInFlight = new AtomicBoolean(false);
+
+    public CircuitBreaker(String name, int failureThreshold, Duration openDuration) {
+        if (failureThreshold <= 0) {
+            throw new IllegalArgumentException("Failure threshold must be positive");
+        }
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openDurationNanos = openDuration.toNanos();
+    }
+
+    /**
+     * Returns true if the caller may attempt the protected call. Every permitted call must be
+     * followed by exactly one {@link #recordSuccess()} or {@link #recordFailure()}.
+     */
+    public boolean tryAcquire() {
+        State current = state.get();
+        if (current == State.CLOSED) {
+            return true;
+        }
+        if (current == State.OPEN) {
+            if (System.nanoTime() - openedAt.get() < openDurationNanos) {
+                return false;
+            }
+            state.compareAndSet(State.OPEN, State.HALF_OPEN);
+        }
+        // Half open: exactly one trial call at a time
+        return trialInFlight.compareAndSet(false, true);
+    }
+
+    public void recordSuccess() {
+        consecutiveFailures.set(0);
+        if (state.getAndSet(State.CLOSED) != State.CLOSED) {
+            trialInFlight.set(false);
+        }
+    }
+
+    public void recordFailure() {
+        if (state.get() == State.HALF_OPEN || consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            openedAt.set(System.nanoTime());
+            state.set(State.OPEN);
+            trialInFlight.set(false);
+        }
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,72 @@
+package com.secureops.util;
+
+/**
+ * Approximate access counts for an unbounded key space in fixed memory (count-min sketch).
+ *
+ * Each key maps to one counter in each of four rows and its estimate is the smallest of them, so
+ * collisions can only overestimate. Counters saturate at 15 and are all halved once the number of
+ * recorded accesses reaches ten times the table width, which lets old popularity fade. This is the
+ * frequency filter of TinyLFU: a cache asks it whether a newcomer is accessed more often than the
+ * entry it would displace. Not thread-safe; callers synchronize.
+ */
+public class FrequencySketch {
+
+    private static final int DEPTH = 4;
+    private static final int MAX_COUNT = 15;
+    private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+    private final byte[][] counters;
+    private final int mask;
+    private final int resetThreshold;
+    private int additions;
+
+    public FrequencySketch(int expectedKeys) {
+        int width = Integer.highestOneBit(Math.max(16, expectedKeys - 1) << 1);
+        this.counters = new byte[DEPTH][width];
+        this.mask = width - 1;
+        this.resetThreshold = width * 10;
+    }
+
+    public void increment(Object key) {
+        int hash = spread(key.hashCode());
+        boolean added = false;
+        for (int row = 0; row < DEPTH; row++) {
+            int index = indexOf(hash, row);
+            if (counters[row][index] < MAX_COUNT) {
+                counters[row][index]++;
+                added = true;
+            }
+        }
+        if (added && ++additions >= resetThreshold) {
+            reset();
+        }
+    }
+
+    public int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int min = MAX_COUNT;
+        for (int row = 0; row < DEPTH; row++) {
+            min = Math.min(min, counters[row][indexOf(hash, row)]);
+        }
+        return min;
+    }
+
+    private void reset() {
+        for (byte[] row : counters) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] = (byte) (row[i] >>> 1);
+            }
+        }
+        additions /= 2;
+    }
+
+    private int indexOf(int hash, int row) {
+        int h = (hash ^ SEEDS[row]) * SEEDS[(row + 1) % DEPTH];
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private static int spread(int hash) {
+        int h = hash * 0x45D9F3B;
+        return h ^ (h >>> 16);
+    }
+}
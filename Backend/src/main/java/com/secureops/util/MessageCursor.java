@@ -0,0 +1,59 @@
+package com.secureops.util;
+
+import com.secureops.entity.Message;
+import com.secureops.exception.BadRequestException;
+
+import java.util.Date;
+
+/**
+ * Position in a chat's history, encoded for clients as "{epochMillis}_{messageId}".
+ * Messages are ordered by (timestamp, id), the id breaking ties between equal timestamps.
+ */
+public final class MessageCursor {
+
+    private final Date timestamp;
+    private final Long id;
+
+    private MessageCursor(Date timestamp, Long id) {
+        this.timestamp = timestamp;
+        this.id = id;
+    }
+
+    public static MessageCursor of(Message message) {
+        return new MessageCursor(message.getTimestamp(), message.getId());
+    }
+
+    public static MessageCursor parse(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        int separator = value.indexOf('_');
+        if (separator <= 0 || separator == value.length() - 1) {
+            throw new BadRequestException("Invalid message cursor");
+        }
+        try {
+            long millis = Long.parseLong(value.substring(0, separator));
+            long id = Long.parseLong(value.substring(separator + 1));
+            return new MessageCursor(new Date(millis), id);
+        } catch (NumberFormatException ex) {
+            throw new BadRequestException("Invalid message cursor");
+        }
+    }
+
+    public Date getTimestamp() {
+        return timestamp;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String encode() {
+        return timestamp.getTime() + "_" + id;
+    }
+
+    @Override
+    public String toString() {
+        return encode();
+    }
+}
@@ -0,0 +1,88 @@
+package com.secureops.util;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A fixed set of single-threaded lanes; tasks submitted with the same key always run on the same
+ * lane, in submission order. Different keys spread across lanes and run in parallel.
+ *
+ * Each lane has a bounded queue. When it is full the submitter blocks for up to
+ * {@code offerTimeoutMs} (backpressure that keeps ordering intact) before the task is rejected.
+ */
+public class PartitionedExecutor {
+
+    private final ThreadPoolExecutor[] lanes;
+
+    public PartitionedExecutor(String name, int laneCount, int queueCapacity, long offerTimeoutMs) {
+        if (laneCount <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("Lane count and queue capacity must be positive");
+        }
+        this.lanes = new ThreadPoolExecutor[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            String threadName = name + "-" + i;
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, threadName);
+                        thread.setDaemon(true);
+                        return thread;
+                    },
+                    (runnable, executor) -> {
+                        if (executor.isShutdown()) {
+                            throw new RejectedExecutionException(threadName + " is shut down");
+                        }
+                        try {
+                            if (!executor.getQueue().offer(runnable, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                                throw new RejectedExecutionException(threadName + " queue is full");
+                            }
+                        } catch (InterruptedException ex) {
+                            Thread.currentThread().interrupt();
+                            throw new RejectedExecutionException("Interrupted while waiting for " + threadName, ex);
+                        }
+                    });
+        }
+    }
+
+    /**
+     * Runs the task on the lane owning {@code key}.
+     *
+     * @throws RejectedExecutionException if the lane stayed full for the whole offer timeout
+     */
+    public void execute(long key, Runnable task) {
+        lanes[laneFor(key)].execute(task);
+    }
+
+    public int laneFor(long key) {
+        // Spread sequential ids so neighbouring chats do not all land on neighbouring lanes
+        long mixed = key * 0x9E3779B97F4A7C15L;
+        return (int) ((mixed >>> 32) % lanes.length);
+    }
+
+    public int getLaneCount() {
+        return lanes.length;
+    }
+
+    public int getQueuedTaskCount() {
+        int queued = 0;
+        for (ThreadPoolExecutor lane : lanes) {
+            queued += lane.getQueue().size();
+        }
+        return queued;
+    }
+
+    public void shutdown(long timeoutMs) throws InterruptedException {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        for (ThreadPoolExecutor lane : lanes) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0 || !lane.awaitTermination(remaining, TimeUnit.NANOSECONDS)) {
+                lane.shutdownNow();
+            }
+        }
+    }
+}
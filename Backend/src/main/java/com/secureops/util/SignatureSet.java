@@ -0,0 +1,139 @@
+package com.secureops.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Known-bad SHA-256 digests with the name of the threat each one identifies.
+ *
+ * Read from ClamAV hash signature lines ({@code sha256:size:name}, as in .hsb files); other hash
+ * types, comments and malformed lines are skipped. The digests are kept sorted in one flat byte
+ * array with their first 8 bytes in a parallel long array, about 40 bytes per signature, and a
+ * lookup is a binary search over the longs. Immutable once loaded.
+ */
+public final class SignatureSet {
+
+    private static final int DIGEST_LENGTH = 32;
+    private static final SignatureSet EMPTY = new SignatureSet(new long[0], new byte[0], new String[0], 0);
+
+    private final long[] prefixes;
+    private final byte[] digests;
+    private final String[] names;
+    private final int skipped;
+
+    private SignatureSet(long[] prefixes, byte[] digests, String[] names, int skipped) {
+        this.prefixes = prefixes;
+        this.digests = digests;
+        this.names = names;
+        this.skipped = skipped;
+    }
+
+    public static SignatureSet empty() {
+        return EMPTY;
+    }
+
+    public static SignatureSet load(BufferedReader reader) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        // Many signatures share a family name
+        Map<String, String> interned = new HashMap<>();
+        int skipped = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split(":", 3);
+            if (fields.length < 3 || fields[0].length() != DIGEST_LENGTH * 2) {
+                skipped++;
+                continue;
+            }
+            byte[] digest;
+            try {
+                digest = HexFormat.of().parseHex(fields[0]);
+            } catch (IllegalArgumentException ex) {
+                skipped++;
+                continue;
+            }
+            // Names end up in log lines parsed by whitespace
+            String name = fields[2].trim().replaceAll("\\s+", "_");
+            entries.add(new Entry(digest, interned.computeIfAbsent(name.isEmpty() ? "unnamed" : name, n -> n)));
+        }
+
+        entries.sort((a, b) -> Arrays.compareUnsigned(a.digest, b.digest));
+        int count = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            if (count == 0 || !Arrays.equals(entries.get(count - 1).digest, entries.get(i).digest)) {
+                entries.set(count++, entries.get(i));
+            }
+        }
+
+        long[] prefixes = new long[count];
+        byte[] digests = new byte[count * DIGEST_LENGTH];
+        String[] names = new String[count];
+        for (int i = 0; i < count; i++) {
+            Entry entry = entries.get(i);
+            prefixes[i] = ByteBuffer.wrap(entry.digest).getLong();
+            System.arraycopy(entry.digest, 0, digests, i * DIGEST_LENGTH, DIGEST_LENGTH);
+            names[i] = entry.name;
+        }
+        return new SignatureSet(prefixes, digests, names, skipped);
+    }
+
+    /**
+     * Name of the signature matching a hex SHA-256 digest, or null.
+     */
+    public String find(String sha256Hex) {
+        if (prefixes.length == 0 || sha256Hex == null || sha256Hex.length() != DIGEST_LENGTH * 2) {
+            return null;
+        }
+        byte[] digest;
+        try {
+            digest = HexFormat.of().parseHex(sha256Hex);
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+        long prefix = ByteBuffer.wrap(digest).getLong();
+
+        // Lowest index whose prefix is not below the one looked up
+        int low = 0;
+        int high = prefixes.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (Long.compareUnsigned(prefixes[mid], prefix) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        for (int i = low; i < prefixes.length && prefixes[i] == prefix; i++) {
+            if (Arrays.equals(digests, i * DIGEST_LENGTH, (i + 1) * DIGEST_LENGTH, digest, 0, DIGEST_LENGTH)) {
+                return names[i];
+            }
+        }
+        return null;
+    }
+
+    public int size() {
+        return prefixes.length;
+    }
+
+    // Lines that were not SHA-256 signatures
+    public int getSkippedCount() {
+        return skipped;
+    }
+
+    public long getSizeInBytes() {
+        return (long) prefixes.length * (Long.BYTES + DIGEST_LENGTH);
+    }
+
+    private record Entry(byte[] digest, String name) {
+    }
+}
@@ -0,0 +1,94 @@
+package com.secureops.util;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket.
+ *
+ * The whole bucket state is a single "theoretical arrival time" (the instant at which the
+ * bucket would be full again), so a consume is one CAS on an AtomicLong and never blocks.
+ * All instants are System.nanoTime() values supplied by the caller.
+ */
+public class TokenBucket {
+
+    private final long capacity;
+    private final long nanosPerToken;
+    private final AtomicLong fullAt;
+
+    public TokenBucket(long capacity, long refillTokens, Duration refillPeriod, long nowNanos) {
+        if (capacity <= 0 || refillTokens <= 0 || refillPeriod.isZero() || refillPeriod.isNegative()) {
+            throw new IllegalArgumentException("Token bucket capacity and refill rate must be positive");
+        }
+        this.capacity = capacity;
+        this.nanosPerToken = Math.max(1L, refillPeriod.toNanos() / refillTokens);
+        this.fullAt = new AtomicLong(nowNanos);
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Tries to take {@code cost} tokens from the bucket.
+     */
+    public Probe tryConsume(long cost, long nowNanos) {
+        long increment = cost * nanosPerToken;
+        long burst = capacity * nanosPerToken;
+
+        while (true) {
+            long current = fullAt.get();
+            long base = current - nowNanos > 0 ? current : nowNanos;
+            long next = base + increment;
+            long debt = next - nowNanos;
+
+            if (debt > burst) {
+                long pending = base - nowNanos;
+                return new Probe(false, (burst - pending) / nanosPerToken, debt - burst, pending);
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return new Probe(true, (burst - debt) / nanosPerToken, 0L, debt);
+            }
+        }
+    }
+
+    /**
+     * A full bucket is indistinguishable from a freshly created one, so it can be dropped safely.
+     */
+    public boolean isFull(long nowNanos) {
+        return fullAt.get() - nowNanos <= 0;
+    }
+
+    public static final class Probe {
+        private final boolean consumed;
+        private final long remainingTokens;
+        private final long retryAfterNanos;
+        private final long resetNanos;
+
+        private Probe(boolean consumed, long remainingTokens, long retryAfterNanos, long resetNanos) {
+            this.consumed = consumed;
+            this.remainingTokens = Math.max(0L, remainingTokens);
+            this.retryAfterNanos = retryAfterNanos;
+            this.resetNanos = resetNanos;
+        }
+
+        public boolean isConsumed() {
+            return consumed;
+        }
+
+        public long getRemainingTokens() {
+            return remainingTokens;
+        }
+
+        public long getRetryAfterNanos() {
+            return retryAfterNanos;
+        }
+
+        /**
+         * Time until the bucket is completely refilled.
+         */
+        public long getResetNanos() {
+            return resetNanos;
+        }
+    }
+}
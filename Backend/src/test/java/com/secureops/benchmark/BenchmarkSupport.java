@@ -0,0 +1,150 @@
+package com.secureops.benchmark;
+
+import com.secureops.config.JwtTokenProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Base for the benchmarks: the full application on a random port against a throwaway PostgreSQL.
+ *
+ * Tagged "benchmark", so a plain build skips them; run them with {@code mvn test -Pbenchmark}
+ * (Docker required). Every subclass shares the one container and, since the configuration is the
+ * same, the one cached application context. Fixtures are written straight through JDBC with
+ * per-run unique names, so benchmarks never depend on each other's data.
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("benchmark")
+abstract class BenchmarkSupport {
+
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    static {
+        // Started once per JVM and stopped by Testcontainers on exit
+        POSTGRES.start();
+    }
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @LocalServerPort
+    protected int port;
+
+    @Autowired
+    protected JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    private final List<StompSession> sessions = new CopyOnWriteArrayList<>();
+    private WebSocketStompClient stompClient;
+
+    @AfterEach
+    void disconnectSessions() {
+        for (StompSession session : sessions) {
+            if (session.isConnected()) {
+                session.disconnect();
+            }
+        }
+        sessions.clear();
+        if (stompClient != null) {
+            stompClient.stop();
+            stompClient = null;
+        }
+    }
+
+    protected static String uniquePrefix(String name) {
+        return name + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    protected static String email(String prefix, int index) {
+        return prefix + "." + index + "@benchmark.local";
+    }
+
+    /**
+     * Inserts count approved users named prefix.0 .. prefix.(count - 1) and returns their ids in
+     * that order. Registration (hashing, approval) is not what any benchmark measures.
+     */
+    protected List<Long> createUsers(String prefix, int count) {
+        List<Object[]> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rows.add(new Object[] { "Benchmark " + prefix + " " + i, email(prefix, i) });
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO users (full_name, email, password, avatar_file_name, is_active, role, approval_status, created_at) " +
+                "VALUES (?, ?, 'unused', 'default-avatar.png', true, 'USER', 'APPROVED', now())", rows);
+        return jdbcTemplate.queryForList(
+                "SELECT id FROM users WHERE email LIKE ? ORDER BY id", Long.class, prefix + ".%@benchmark.local");
+    }
+
+    protected long createChat(String title, List<Long> participantIds) {
+        Long chatId = jdbcTemplate.queryForObject(
+                "INSERT INTO chats (title, status, created_at, updated_at) VALUES (?, 'ACTIVE', now(), now()) RETURNING id",
+                Long.class, title);
+        List<Object[]> rows = new ArrayList<>(participantIds.size());
+        for (Long userId : participantIds) {
+            rows.add(new Object[] { chatId, userId });
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO chat_participants (chat_id, user_id) VALUES (?, ?)", rows);
+        return chatId;
+    }
+
+    protected String bearerToken(String email) {
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                email, null, List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        return "Bearer " + jwtTokenProvider.generateToken(authentication);
+    }
+
+    protected String baseUrl() {
+        return "http://localhost:" + port;
+    }
+
+    /** Opens a STOMP session over the raw WebSocket transport, authenticated as the given user. */
+    protected StompSession connect(String email) throws Exception {
+        WebSocketHttpHeaders handshakeHeaders = new WebSocketHttpHeaders();
+        handshakeHeaders.setOrigin("http://localhost:5173");
+        StompHeaders connectHeaders = new StompHeaders();
+        connectHeaders.add("Authorization", bearerToken(email));
+        StompSession session = stompClient()
+                .connectAsync("ws://localhost:" + port + "/ws/websocket", handshakeHeaders, connectHeaders,
+                        new StompSessionHandlerAdapter() { })
+                .get(10, TimeUnit.SECONDS);
+        sessions.add(session);
+        return session;
+    }
+
+    private synchronized WebSocketStompClient stompClient() {
+        if (stompClient == null) {
+            stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+            stompClient.setMessageConverter(new MappingJackson2MessageConverter());
+        }
+        return stompClient;
+    }
+}
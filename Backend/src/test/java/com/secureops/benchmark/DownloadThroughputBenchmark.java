@@ -0,0 +1,177 @@
+package com.secureops.benchmark;
+
+import com.secureops.service.FileStorageService;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Throughput of GET /api/files/download for large files under concurrency.
+ *
+ * A handful of large files are stored through FileStorageService, then many clients download them
+ * at once: every other request is a whole file, the rest a Range request for a random window, as
+ * a seeking player or a resumed download would send. Besides the aggregate throughput, the heap
+ * allocated by the server's request threads is measured against the bytes served: with sendfile
+ * or FileChannel.transferTo the body is never copied through the heap, so that stays a small
+ * fraction however much is downloaded.
+ *
+ * Tunable with -Dbenchmark.download.files, .file-mb, .clients, .requests, .min-mb-per-s and
+ * .max-heap-percent.
+ */
+class DownloadThroughputBenchmark extends BenchmarkSupport {
+
+    private static final Logger logger = LoggerFactory.getLogger(DownloadThroughputBenchmark.class);
+
+    private static final int FILES = Integer.getInteger("benchmark.download.files", 4);
+    private static final int FILE_MB = Integer.getInteger("benchmark.download.file-mb", 64);
+    private static final int CLIENTS = Integer.getInteger("benchmark.download.clients", 32);
+    private static final int REQUESTS_PER_CLIENT = Integer.getInteger("benchmark.download.requests", 8);
+    private static final long MIN_MB_PER_SECOND = Long.getLong("benchmark.download.min-mb-per-s", 200);
+    private static final long MAX_HEAP_PERCENT = Long.getLong("benchmark.download.max-heap-percent", 5);
+    private static final int RANGE_BYTES = 8 * 1024 * 1024;
+    private static final String SERVER_THREAD_PREFIX = "http-nio-";
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    @Test
+    void concurrentLargeDownloadsStayFastAndOffHeap() throws Exception {
+        String prefix = uniquePrefix("download");
+        List<Long> userIds = createUsers(prefix, 1);
+        String token = bearerToken(email(prefix, 0));
+        long fileSize = (long) FILE_MB * 1024 * 1024;
+        List<String> fileNames = new ArrayList<>(FILES);
+        for (int i = 0; i < FILES; i++) {
+            fileNames.add(storeRandomFile(prefix + "-" + i + ".bin", fileSize, userIds.get(0)));
+        }
+
+        // Warm-up: every file once, which also fills the page cache so the disk is not measured
+        for (String fileName : fileNames) {
+            assertEquals(fileSize, download(fileName, token, -1, fileSize));
+        }
+
+        AtomicLong bytes = new AtomicLong();
+        long allocatedBefore = serverAllocatedBytes();
+        long start = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            List<Future<?>> clients = new ArrayList<>();
+            for (int c = 0; c < CLIENTS; c++) {
+                int client = c;
+                clients.add(pool.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int r = 0; r < REQUESTS_PER_CLIENT; r++) {
+                        String fileName = fileNames.get(random.nextInt(fileNames.size()));
+                        long rangeStart = (client + r) % 2 == 0 ? -1 : random.nextLong(fileSize - RANGE_BYTES);
+                        bytes.addAndGet(download(fileName, token, rangeStart, fileSize));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> client : clients) {
+                client.get(10, TimeUnit.MINUTES);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = serverAllocatedBytes() - allocatedBefore;
+
+        double megabytes = bytes.get() / (1024.0 * 1024.0);
+        double mbPerSecond = megabytes / (elapsed / 1e9);
+        double heapPercent = 100.0 * allocated / bytes.get();
+        logger.info("Downloads: {} clients x {} requests, {} MB in {} ms = {} MB/s; server threads allocated {} MB ({}% of served)",
+                CLIENTS, REQUESTS_PER_CLIENT, String.format("%.0f", megabytes), TimeUnit.NANOSECONDS.toMillis(elapsed),
+                String.format("%.0f", mbPerSecond), allocated / (1024 * 1024), String.format("%.2f", heapPercent));
+
+        assertTrue(mbPerSecond >= MIN_MB_PER_SECOND,
+                "Download throughput " + String.format("%.0f", mbPerSecond) + " MB/s below " + MIN_MB_PER_SECOND + " MB/s");
+        assertTrue(heapPercent <= MAX_HEAP_PERCENT,
+                "Server threads allocated " + String.format("%.2f", heapPercent) + "% of the bytes served, over "
+                        + MAX_HEAP_PERCENT + "%: the body is being copied through the heap");
+    }
+
+    /**
+     * Downloads the whole file, or RANGE_BYTES from rangeStart when it is not negative, checks the
+     * status and length, and returns the number of body bytes read.
+     */
+    private long download(String fileName, String token, long rangeStart, long fileSize) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl() + "/api/files/download/" + fileName))
+                .header("Authorization", token)
+                .GET();
+        long expected = fileSize;
+        if (rangeStart >= 0) {
+            request.header("Range", "bytes=" + rangeStart + "-" + (rangeStart + RANGE_BYTES - 1));
+            expected = RANGE_BYTES;
+        }
+
+        HttpResponse<InputStream> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+        long read = 0;
+        try (InputStream body = response.body()) {
+            byte[] buffer = new byte[256 * 1024];
+            int n;
+            while ((n = body.read(buffer)) != -1) {
+                read += n;
+            }
+        }
+        assertEquals(rangeStart >= 0 ? 206 : 200, response.statusCode(), "status for " + fileName);
+        assertEquals(expected, read, "body length for " + fileName);
+        return read;
+    }
+
+    private String storeRandomFile(String originalFileName, long size, Long ownerId) throws Exception {
+        Path source = Files.createTempFile("benchmark-download-", ".bin");
+        byte[] block = new byte[1024 * 1024];
+        try (OutputStream out = Files.newOutputStream(source)) {
+            for (long written = 0; written < size; written += block.length) {
+                ThreadLocalRandom.current().nextBytes(block);
+                out.write(block, 0, (int) Math.min(block.length, size - written));
+            }
+        }
+        // Moved into the store, which is what a completed chunked upload does
+        return fileStorageService.storeFile(source, originalFileName, ownerId);
+    }
+
+    /** Heap allocated so far by the live Tomcat connector threads (acceptor, poller and workers). */
+    private static long serverAllocatedBytes() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long total = 0;
+        for (ThreadInfo info : threads.getThreadInfo(threads.getAllThreadIds())) {
+            if (info != null && info.getThreadName().startsWith(SERVER_THREAD_PREFIX)) {
+                long allocated = threads.getThreadAllocatedBytes(info.getThreadId());
+                if (allocated > 0) {
+                    total += allocated;
+                }
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,167 @@
+package com.secureops.benchmark;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Server CPU per delivered message for 10, 100 and 1000 member chats. Every member has one session
+ * subscribed to the chat topic and to its private /user/queue/chat-activity, so each message is
+ * delivered twice per member: the full message on the topic and the notice on the queue.
+ *
+ * Only server threads are measured (inbound and outbound channels, broker, chat pipeline, Tomcat),
+ * not the in-process clients. Because each payload is serialized once per message rather than per
+ * recipient, the cost per delivery must not grow with the chat size.
+ *
+ * Tunable with -Dbenchmark.fan-out.sizes (comma separated) and .messages.
+ */
+class FanOutCpuBenchmark extends BenchmarkSupport {
+
+    private static final Logger logger = LoggerFactory.getLogger(FanOutCpuBenchmark.class);
+
+    private static final int[] SIZES = Arrays.stream(System.getProperty("benchmark.fan-out.sizes", "10,100,1000").split(","))
+            .mapToInt(size -> Integer.parseInt(size.trim())).toArray();
+    private static final int MESSAGES = Integer.getInteger("benchmark.fan-out.messages", 200);
+    private static final String[] SERVER_THREAD_PREFIXES = {
+            "http-nio-", "clientInboundChannel-", "clientOutboundChannel-", "brokerChannel-", "MessageBroker-", "chat-pipeline-" };
+
+    @Test
+    void cpuPerDeliveryDoesNotGrowWithChatSize() throws Exception {
+        Map<Integer, Double> microsPerDelivery = new LinkedHashMap<>();
+        for (int size : SIZES) {
+            microsPerDelivery.put(size, measure(size));
+            disconnectSessions();
+        }
+
+        double smallest = microsPerDelivery.get(SIZES[0]);
+        double largest = microsPerDelivery.get(SIZES[SIZES.length - 1]);
+        assertTrue(largest <= smallest,
+                "CPU per delivery grew with chat size: " + microsPerDelivery + " (microseconds per delivery)");
+    }
+
+    private double measure(int members) throws Exception {
+        String prefix = uniquePrefix("fan-out-" + members);
+        List<Long> userIds = createUsers(prefix, members);
+        long chatId = createChat(prefix + " chat", userIds);
+
+        AtomicLong topicDeliveries = new AtomicLong();
+        AtomicLong queueDeliveries = new AtomicLong();
+        Map<String, AtomicInteger> warmupReceipts = new HashMap<>();
+        StompFrameHandler receiver = new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return Map.class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                Map<?, ?> body = (Map<?, ?>) payload;
+                boolean topic = headers.getDestination() != null && headers.getDestination().startsWith("/topic/");
+                String text = String.valueOf(body.get(topic ? "content" : "preview"));
+                if (text.startsWith("warmup-")) {
+                    synchronized (warmupReceipts) {
+                        warmupReceipts.computeIfAbsent(text + (topic ? "/topic" : "/queue"), key -> new AtomicInteger())
+                                .incrementAndGet();
+                    }
+                } else if (text.startsWith("fan-out-")) {
+                    (topic ? topicDeliveries : queueDeliveries).incrementAndGet();
+                }
+            }
+        };
+
+        List<StompSession> sessions = new ArrayList<>(members);
+        for (int i = 0; i < members; i++) {
+            StompSession session = connect(email(prefix, i));
+            session.subscribe("/topic/chat/" + chatId, receiver);
+            session.subscribe("/user/queue/chat-activity", receiver);
+            sessions.add(session);
+        }
+        StompSession sender = sessions.get(0);
+        awaitSubscriptions(sender, chatId, members, warmupReceipts);
+
+        long expected = (long) members * MESSAGES;
+        long cpuBefore = serverCpuNanos();
+        long start = System.nanoTime();
+        for (int i = 0; i < MESSAGES; i++) {
+            sender.send("/app/chat/" + chatId + "/sendMessage", Map.of("messageType", "TEXT", "content", "fan-out-" + i));
+        }
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(5);
+        while ((topicDeliveries.get() < expected || queueDeliveries.get() < expected) && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        long elapsed = System.nanoTime() - start;
+        long cpu = serverCpuNanos() - cpuBefore;
+
+        assertEquals(expected, topicDeliveries.get(), "topic deliveries for " + members + " members");
+        assertEquals(expected, queueDeliveries.get(), "chat activity deliveries for " + members + " members");
+        double micros = cpu / 1000.0 / expected;
+        logger.info("Fan-out to {} members: {} messages, {} deliveries each on topic and queue in {} ms, " +
+                "server CPU {} ms = {} us per delivered message",
+                members, MESSAGES, expected, TimeUnit.NANOSECONDS.toMillis(elapsed),
+                TimeUnit.NANOSECONDS.toMillis(cpu), String.format("%.1f", micros));
+        return micros;
+    }
+
+    /**
+     * SUBSCRIBE is not confirmed, so warm-up messages go out until one reaches every member on both
+     * destinations. This also warms the send path before the measurement.
+     */
+    private void awaitSubscriptions(StompSession sender, long chatId, int members,
+            Map<String, AtomicInteger> receipts) throws InterruptedException {
+        for (int attempt = 0; attempt < 60; attempt++) {
+            String content = "warmup-" + attempt;
+            sender.send("/app/chat/" + chatId + "/sendMessage", Map.of("messageType", "TEXT", "content", content));
+            Thread.sleep(500);
+            synchronized (receipts) {
+                AtomicInteger topic = receipts.get(content + "/topic");
+                AtomicInteger queue = receipts.get(content + "/queue");
+                if (topic != null && queue != null && topic.get() == members && queue.get() == members) {
+                    return;
+                }
+            }
+        }
+        throw new AssertionError("Subscriptions of " + members + " members never became active");
+    }
+
+    private static long serverCpuNanos() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long total = 0;
+        for (ThreadInfo info : threads.getThreadInfo(threads.getAllThreadIds())) {
+            if (info != null && isServerThread(info.getThreadName())) {
+                long cpu = threads.getThreadCpuTime(info.getThreadId());
+                if (cpu > 0) {
+                    total += cpu;
+                }
+            }
+        }
+        return total;
+    }
+
+    private static boolean isServerThread(String name) {
+        for (String prefix : SERVER_THREAD_PREFIXES) {
+            if (name.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,38 @@
+package com.secureops.benchmark;
+
+import java.util.Arrays;
+
+/**
+ * Collects latency samples from any thread and reports nearest-rank percentiles in milliseconds.
+ */
+final class LatencyStats {
+
+    private long[] samples = new long[1024];
+    private int count;
+
+    synchronized void record(long nanos) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, count * 2);
+        }
+        samples[count++] = nanos;
+    }
+
+    synchronized int count() {
+        return count;
+    }
+
+    synchronized double percentileMillis(double percentile) {
+        if (count == 0) {
+            throw new IllegalStateException("No samples recorded");
+        }
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100.0 * count);
+        return sorted[Math.max(0, rank - 1)] / 1_000_000.0;
+    }
+
+    String summary() {
+        return String.format("n=%d p50=%.2fms p95=%.2fms p99=%.2fms max=%.2fms", count(),
+                percentileMillis(50), percentileMillis(95), percentileMillis(99), percentileMillis(100));
+    }
+}
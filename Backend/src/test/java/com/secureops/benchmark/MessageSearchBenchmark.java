@@ -0,0 +1,144 @@
+package com.secureops.benchmark;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Latency of GET /api/messages/search on millions of messages against the 50 ms target.
+ *
+ * Messages are generated in PostgreSQL with a skewed vocabulary (word wN appears with probability
+ * roughly proportional to 1/N), so the query mix covers terms found in most messages, in a few
+ * thousand and in a few hundred, multi-word and phrase queries, negation and single-chat search.
+ * Each query runs as a random user over HTTP, so the latency includes authentication, the
+ * participant restriction, ranking and snippets.
+ *
+ * Tunable with -Dbenchmark.search.messages, .queries and .p99-ms.
+ */
+class MessageSearchBenchmark extends BenchmarkSupport {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageSearchBenchmark.class);
+
+    private static final int MESSAGES = Integer.getInteger("benchmark.search.messages", 2_000_000);
+    private static final int QUERIES = Integer.getInteger("benchmark.search.queries", 500);
+    private static final long P99_BUDGET_MS = Long.getLong("benchmark.search.p99-ms", 50);
+    private static final int USERS = 1000;
+    private static final int CHATS = 2000;
+    private static final int MEMBERS_PER_CHAT = 5;
+    private static final int VOCABULARY = 5000;
+    private static final int WARMUP_QUERIES = 100;
+
+    private static final String[] QUERY_MIX = {
+            "w1", "w2 w3", "w37", "w250", "w4000", "\"w1 w2\"", "w7 -w1", "w12 or w4500", "w999" };
+
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+    @Test
+    void searchStaysWithinLatencyTarget() throws Exception {
+        String prefix = uniquePrefix("search");
+        List<Long> userIds = createUsers(prefix, USERS);
+        seedMessages(prefix, userIds);
+
+        List<String> tokens = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            tokens.add(bearerToken(email(prefix, i)));
+        }
+
+        for (int i = 0; i < WARMUP_QUERIES; i++) {
+            search(prefix, userIds, tokens);
+        }
+        LatencyStats stats = new LatencyStats();
+        for (int i = 0; i < QUERIES; i++) {
+            stats.record(search(prefix, userIds, tokens));
+        }
+
+        logger.info("Message search over {} messages: {}", MESSAGES, stats.summary());
+        assertTrue(stats.percentileMillis(99) <= P99_BUDGET_MS,
+                "p99 search latency over the " + P99_BUDGET_MS + "ms target: " + stats.summary());
+    }
+
+    /** Runs one query from the mix as a random user; every fourth is restricted to one of their chats. */
+    private long search(String prefix, List<Long> userIds, List<String> tokens) throws Exception {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int user = random.nextInt(USERS);
+        String query = QUERY_MIX[random.nextInt(QUERY_MIX.length)];
+        StringBuilder uri = new StringBuilder(baseUrl()).append("/api/messages/search?q=")
+                .append(URLEncoder.encode(query, StandardCharsets.UTF_8));
+        if (random.nextInt(4) == 0) {
+            Long chatId = jdbcTemplate.queryForObject(
+                    "SELECT chat_id FROM chat_participants WHERE user_id = ? ORDER BY chat_id LIMIT 1",
+                    Long.class, userIds.get(user));
+            uri.append("&chatId=").append(chatId);
+        }
+        HttpRequest request = HttpRequest.newBuilder(URI.create(uri.toString()))
+                .header("Authorization", tokens.get(user))
+                .GET()
+                .build();
+
+        long start = System.nanoTime();
+        HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        long elapsed = System.nanoTime() - start;
+        assertEquals(200, response.statusCode(), "search for '" + query + "' as " + email(prefix, user));
+        return elapsed;
+    }
+
+    /**
+     * Chat k has members (7k + j) mod USERS for j below MEMBERS_PER_CHAT, and its messages are sent
+     * by those members in turn; the generated statements apply the same formula.
+     */
+    private void seedMessages(String prefix, List<Long> userIds) {
+        long started = System.nanoTime();
+        List<Object[]> chats = new ArrayList<>(CHATS);
+        for (int k = 0; k < CHATS; k++) {
+            chats.add(new Object[] { String.format("%s chat %05d", prefix, k) });
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO chats (title, status, created_at, updated_at) VALUES (?, 'ACTIVE', now(), now())", chats);
+        List<Long> chatIds = jdbcTemplate.queryForList(
+                "SELECT id FROM chats WHERE title LIKE ? ORDER BY title", Long.class, prefix + " chat %");
+        List<Object[]> participants = new ArrayList<>(CHATS * MEMBERS_PER_CHAT);
+        for (int k = 0; k < CHATS; k++) {
+            for (int j = 0; j < MEMBERS_PER_CHAT; j++) {
+                participants.add(new Object[] { chatIds.get(k), userIds.get((7 * k + j) % USERS) });
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO chat_participants (chat_id, user_id) VALUES (?, ?)", participants);
+
+        // Bulk load without the GIN index, then build it once, as a restore would
+        jdbcTemplate.execute("DROP INDEX IF EXISTS idx_text_messages_content_tsv");
+        jdbcTemplate.update(
+                "WITH c AS (SELECT array_agg(id ORDER BY title) AS ids FROM chats WHERE title LIKE ?), " +
+                "u AS (SELECT array_agg(id ORDER BY id) AS ids FROM users WHERE email LIKE ?) " +
+                "INSERT INTO messages (timestamp, read_status, sender_id, chat_id, message_type) " +
+                "SELECT now() - make_interval(secs => ? - g), true, " +
+                "u.ids[1 + (7 * (g % ?) + (g / ?) % ?) % ?], c.ids[1 + g % ?], 'TEXT' " +
+                "FROM c, u, generate_series(1, ?) g",
+                prefix + " chat %", prefix + ".%@benchmark.local",
+                MESSAGES, CHATS, CHATS, MEMBERS_PER_CHAT, USERS, CHATS, MESSAGES);
+        jdbcTemplate.update(
+                "INSERT INTO text_messages (id, content) " +
+                "SELECT m.id, (SELECT string_agg('w' || floor(power(?, random()))::int, ' ') " +
+                "  FROM generate_series(1, 8 + (m.id % 9)::int)) " +
+                "FROM messages m JOIN chats c ON c.id = m.chat_id WHERE c.title LIKE ?",
+                VOCABULARY, prefix + " chat %");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_text_messages_content_tsv " +
+                "ON text_messages USING GIN (content_tsv)");
+        jdbcTemplate.execute("ANALYZE");
+        logger.info("Seeded {} messages in {} chats in {} s", MESSAGES, CHATS,
+                TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - started));
+    }
+}
@@ -0,0 +1,335 @@
+package com.secureops.benchmark;
+
+import com.secureops.sales.dto.response.SalesSummaryReport;
+import com.secureops.sales.entity.Invoice;
+import com.secureops.sales.entity.InvoiceStatus;
+import com.secureops.sales.entity.Order;
+import com.secureops.sales.entity.OrderStatus;
+import com.secureops.sales.entity.Quote;
+import com.secureops.sales.entity.QuoteStatus;
+import com.secureops.sales.repository.InvoiceRepository;
+import com.secureops.sales.repository.OrderRepository;
+import com.secureops.sales.repository.QuoteRepository;
+import com.secureops.sales.service.ReportService;
+import com.secureops.sales.service.SalesRollupService;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The sales summary computed three ways over a year with a million orders: by loading every
+ * quote, order and invoice as entities and streaming over them (how getSalesSummary used to work),
+ * by grouped aggregate queries on the source tables, and by ReportService, which reads the daily
+ * rollup. All three must produce the same report; the time and the heap allocated by the calling
+ * thread are logged per approach, and both SQL-side approaches must beat entity loading by at
+ * least the configured factor.
+ *
+ * Entity loading keeps a million orders on the heap, which needs a few GB (the benchmark profile
+ * forks with -Xmx4g). Tunable with -Dbenchmark.sales.orders, .quotes, .clients, .runs and
+ * .min-speedup.
+ */
+class SalesSummaryBenchmark extends BenchmarkSupport {
+
+    private static final Logger logger = LoggerFactory.getLogger(SalesSummaryBenchmark.class);
+
+    private static final int ORDERS = Integer.getInteger("benchmark.sales.orders", 1_000_000);
+    private static final int QUOTES = Integer.getInteger("benchmark.sales.quotes", 500_000);
+    private static final int CLIENTS = Integer.getInteger("benchmark.sales.clients", 1000);
+    private static final int RUNS = Integer.getInteger("benchmark.sales.runs", 3);
+    private static final long MIN_SPEEDUP = Long.getLong("benchmark.sales.min-speedup", 5);
+    // A past year no other benchmark writes sales data into
+    private static final LocalDate FIRST_DAY = LocalDate.of(2019, 1, 1);
+    private static final int DAYS = 365;
+    private static final DateTimeFormatter MONTH_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM");
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private SalesRollupService salesRollupService;
+
+    @Autowired
+    private QuoteRepository quoteRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Test
+    void aggregatesMatchEntityLoadingAndBeatIt() {
+        String prefix = uniquePrefix("sales");
+        seedDocuments(prefix);
+        LocalDate lastDay = FIRST_DAY.plusDays(DAYS - 1);
+        long rollupStarted = System.nanoTime();
+        long rollupRows = salesRollupService.rebuild(FIRST_DAY, lastDay);
+        logger.info("Rollup rebuilt for {} days: {} rows in {} ms", DAYS, rollupRows,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - rollupStarted));
+
+        // Whole days, served from the rollup alone; microseconds, the precision of the column
+        LocalDateTime start = FIRST_DAY.atStartOfDay();
+        LocalDateTime end = lastDay.atTime(23, 59, 59, 999_999_000);
+
+        Result entities = measure("entity loading", () -> loadEntitiesSummary(start, end));
+        Result aggregates = measure("grouped aggregates", () -> aggregateSummary(start, end));
+        Result rollup = measure("daily rollup", () -> reportService.getSalesSummary(start, end));
+
+        assertEquals(ORDERS, entities.report().getTotalOrders());
+        assertSameReport(entities.report(), aggregates.report(), "grouped aggregates");
+        assertSameReport(entities.report(), rollup.report(), "daily rollup");
+
+        // Bounds inside a day: the partly covered days must count only the part in range
+        LocalDateTime partialStart = FIRST_DAY.plusDays(10).atTime(13, 37);
+        LocalDateTime partialEnd = lastDay.minusDays(5).atTime(8, 15);
+        assertSameReport(loadEntitiesSummary(partialStart, partialEnd),
+                reportService.getSalesSummary(partialStart, partialEnd), "daily rollup, partial days");
+        // An end at midnight includes nothing of its day but that instant
+        LocalDateTime midnightEnd = FIRST_DAY.plusDays(40).atStartOfDay();
+        assertSameReport(loadEntitiesSummary(partialStart, midnightEnd),
+                reportService.getSalesSummary(partialStart, midnightEnd), "daily rollup, midnight end");
+        // No whole day at all, across a month boundary
+        LocalDateTime nightStart = FIRST_DAY.plusDays(30).atTime(18, 0);
+        LocalDateTime nightEnd = FIRST_DAY.plusDays(31).atTime(6, 0);
+        assertSameReport(loadEntitiesSummary(nightStart, nightEnd),
+                reportService.getSalesSummary(nightStart, nightEnd), "daily rollup, no whole day");
+
+        for (Result result : List.of(aggregates, rollup)) {
+            double speedup = entities.stats().percentileMillis(50) / result.stats().percentileMillis(50);
+            assertTrue(speedup >= MIN_SPEEDUP, result.name() + " only " + String.format("%.1f", speedup)
+                    + "x faster than entity loading, expected " + MIN_SPEEDUP + "x");
+        }
+    }
+
+    private Result measure(String name, Supplier<SalesSummaryReport> summary) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        // One warm-up run, which also brings the tables into the buffer cache
+        SalesSummaryReport report = summary.get();
+        LatencyStats stats = new LatencyStats();
+        long allocated = 0;
+        for (int i = 0; i < RUNS; i++) {
+            long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+            long started = System.nanoTime();
+            report = summary.get();
+            stats.record(System.nanoTime() - started);
+            allocated += threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        }
+        logger.info("Sales summary by {} over {} orders: {}, {} MB allocated per run", name, ORDERS,
+                stats.summary(), allocated / RUNS / (1024 * 1024));
+        return new Result(name, report, stats);
+    }
+
+    /** getSalesSummary as it was before the aggregates: every document in the range as an entity. */
+    private SalesSummaryReport loadEntitiesSummary(LocalDateTime startDate, LocalDateTime endDate) {
+        List<Quote> quotes = quoteRepository.findByCreatedDateBetween(startDate, endDate);
+        List<Order> orders = orderRepository.findByCreatedDateBetween(startDate, endDate);
+        List<Invoice> invoices = invoiceRepository.findByCreatedDateBetween(startDate, endDate);
+
+        int totalQuotes = quotes.size();
+        int acceptedQuotes = (int) quotes.stream()
+                .filter(q -> q.getStatus() == QuoteStatus.ACCEPTED || q.getStatus() == QuoteStatus.CONVERTED_TO_ORDER)
+                .count();
+        int rejectedQuotes = (int) quotes.stream()
+                .filter(q -> q.getStatus() == QuoteStatus.REJECTED)
+                .count();
+
+        int totalOrders = orders.size();
+        int completedOrders = (int) orders.stream()
+                .filter(o -> o.getStatus() == OrderStatus.COMPLETED || o.getStatus() == OrderStatus.INVOICED)
+                .count();
+        int cancelledOrders = (int) orders.stream()
+                .filter(o -> o.getStatus() == OrderStatus.CANCELLED)
+                .count();
+
+        int totalInvoices = invoices.size();
+        int paidInvoices = (int) invoices.stream()
+                .filter(i -> i.getStatus() == InvoiceStatus.PAID)
+                .count();
+        int overdueInvoices = (int) invoices.stream()
+                .filter(i -> i.getStatus() == InvoiceStatus.OVERDUE)
+                .count();
+
+        BigDecimal totalSales = orders.stream()
+                .filter(o -> o.getStatus() != OrderStatus.CANCELLED)
+                .map(Order::getTotalAmount)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        BigDecimal averageOrderValue = totalOrders > 0 ?
+                totalSales.divide(BigDecimal.valueOf(totalOrders), 2, RoundingMode.HALF_UP) :
+                BigDecimal.ZERO;
+
+        Map<String, BigDecimal> monthlySales = orders.stream()
+                .filter(o -> o.getStatus() != OrderStatus.CANCELLED)
+                .collect(Collectors.groupingBy(
+                        o -> o.getCreatedDate().format(MONTH_FORMATTER),
+                        Collectors.mapping(
+                                Order::getTotalAmount,
+                                Collectors.reducing(BigDecimal.ZERO, BigDecimal::add)
+                        )
+                ));
+
+        return SalesSummaryReport.builder()
+                .totalSales(totalSales)
+                .totalQuotes(totalQuotes)
+                .acceptedQuotes(acceptedQuotes)
+                .rejectedQuotes(rejectedQuotes)
+                .totalOrders(totalOrders)
+                .completedOrders(completedOrders)
+                .cancelledOrders(cancelledOrders)
+                .totalInvoices(totalInvoices)
+                .paidInvoices(paidInvoices)
+                .overdueInvoices(overdueInvoices)
+                .averageOrderValue(averageOrderValue)
+                .monthlySales(monthlySales)
+                .build();
+    }
+
+    /** The same report from grouped aggregates on the source tables: a few rows per status and month. */
+    private SalesSummaryReport aggregateSummary(LocalDateTime startDate, LocalDateTime endDate) {
+        Map<String, Long> quoteCounts = countByStatus("quotes", startDate, endDate);
+        Map<String, Long> invoiceCounts = countByStatus("invoices", startDate, endDate);
+
+        int totalOrders = 0;
+        int completedOrders = 0;
+        int cancelledOrders = 0;
+        BigDecimal totalSales = BigDecimal.ZERO;
+        for (Map<String, Object> row : jdbcTemplate.queryForList(
+                "SELECT status, COUNT(*) AS documents, SUM(total_amount) AS total FROM orders " +
+                "WHERE created_date BETWEEN ? AND ? GROUP BY status", startDate, endDate)) {
+            String status = (String) row.get("status");
+            int count = ((Number) row.get("documents")).intValue();
+            totalOrders += count;
+            if (OrderStatus.CANCELLED.name().equals(status)) {
+                cancelledOrders += count;
+                continue;
+            }
+            if (OrderStatus.COMPLETED.name().equals(status) || OrderStatus.INVOICED.name().equals(status)) {
+                completedOrders += count;
+            }
+            if (row.get("total") != null) {
+                totalSales = totalSales.add((BigDecimal) row.get("total"));
+            }
+        }
+
+        Map<String, BigDecimal> monthlySales = new LinkedHashMap<>();
+        jdbcTemplate.query(
+                "SELECT to_char(date_trunc('month', created_date), 'YYYY-MM') AS month, SUM(total_amount) AS total " +
+                "FROM orders WHERE created_date BETWEEN ? AND ? AND total_amount IS NOT NULL " +
+                "AND (status IS NULL OR status <> 'CANCELLED') " +
+                "GROUP BY date_trunc('month', created_date) ORDER BY date_trunc('month', created_date)",
+                rs -> {
+                    monthlySales.put(rs.getString("month"), rs.getBigDecimal("total"));
+                }, startDate, endDate);
+
+        int totalQuotes = (int) quoteCounts.values().stream().mapToLong(Long::longValue).sum();
+        int totalInvoices = (int) invoiceCounts.values().stream().mapToLong(Long::longValue).sum();
+        return SalesSummaryReport.builder()
+                .totalSales(totalSales)
+                .totalQuotes(totalQuotes)
+                .acceptedQuotes((int) (quoteCounts.getOrDefault(QuoteStatus.ACCEPTED.name(), 0L)
+                        + quoteCounts.getOrDefault(QuoteStatus.CONVERTED_TO_ORDER.name(), 0L)))
+                .rejectedQuotes(quoteCounts.getOrDefault(QuoteStatus.REJECTED.name(), 0L).intValue())
+                .totalOrders(totalOrders)
+                .completedOrders(completedOrders)
+                .cancelledOrders(cancelledOrders)
+                .totalInvoices(totalInvoices)
+                .paidInvoices(invoiceCounts.getOrDefault(InvoiceStatus.PAID.name(), 0L).intValue())
+                .overdueInvoices(invoiceCounts.getOrDefault(InvoiceStatus.OVERDUE.name(), 0L).intValue())
+                .averageOrderValue(totalOrders > 0 ?
+                        totalSales.divide(BigDecimal.valueOf(totalOrders), 2, RoundingMode.HALF_UP) :
+                        BigDecimal.ZERO)
+                .monthlySales(monthlySales)
+                .build();
+    }
+
+    private Map<String, Long> countByStatus(String table, LocalDateTime startDate, LocalDateTime endDate) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT status, COUNT(*) AS documents FROM " + table +
+                " WHERE created_date BETWEEN ? AND ? GROUP BY status",
+                rs -> {
+                    counts.put(rs.getString("status"), rs.getLong("documents"));
+                }, startDate, endDate);
+        return counts;
+    }
+
+    // Amounts compared by value: a sum's scale depends on where it was computed
+    private static void assertSameReport(SalesSummaryReport expected, SalesSummaryReport actual, String name) {
+        assertEquals(0, expected.getTotalSales().compareTo(actual.getTotalSales()),
+                name + " totalSales " + actual.getTotalSales() + ", expected " + expected.getTotalSales());
+        assertEquals(0, expected.getAverageOrderValue().compareTo(actual.getAverageOrderValue()),
+                name + " averageOrderValue " + actual.getAverageOrderValue() + ", expected " + expected.getAverageOrderValue());
+        assertEquals(expected.getTotalQuotes(), actual.getTotalQuotes(), name + " totalQuotes");
+        assertEquals(expected.getAcceptedQuotes(), actual.getAcceptedQuotes(), name + " acceptedQuotes");
+        assertEquals(expected.getRejectedQuotes(), actual.getRejectedQuotes(), name + " rejectedQuotes");
+        assertEquals(expected.getTotalOrders(), actual.getTotalOrders(), name + " totalOrders");
+        assertEquals(expected.getCompletedOrders(), actual.getCompletedOrders(), name + " completedOrders");
+        assertEquals(expected.getCancelledOrders(), actual.getCancelledOrders(), name + " cancelledOrders");
+        assertEquals(expected.getTotalInvoices(), actual.getTotalInvoices(), name + " totalInvoices");
+        assertEquals(expected.getPaidInvoices(), actual.getPaidInvoices(), name + " paidInvoices");
+        assertEquals(expected.getOverdueInvoices(), actual.getOverdueInvoices(), name + " overdueInvoices");
+        assertEquals(expected.getMonthlySales().keySet(), actual.getMonthlySales().keySet(), name + " months");
+        for (Map.Entry<String, BigDecimal> month : expected.getMonthlySales().entrySet()) {
+            BigDecimal total = actual.getMonthlySales().get(month.getKey());
+            assertEquals(0, month.getValue().compareTo(total),
+                    name + " sales for " + month.getKey() + " " + total + ", expected " + month.getValue());
+        }
+    }
+
+    /**
+     * Spreads the documents over DAYS days from FIRST_DAY and over the clients, cycling through the
+     * statuses. Every invoiced order gets its invoice on the same day, as InvoiceServiceImpl does.
+     */
+    private void seedDocuments(String prefix) {
+        long started = System.nanoTime();
+        jdbcTemplate.update(
+                "INSERT INTO clients (name, email, created_date, last_modified_date) " +
+                "SELECT ? || ' client ' || g, ? || '.client.' || g || '@benchmark.local', now(), now() " +
+                "FROM generate_series(1, ?) g",
+                prefix, prefix, CLIENTS);
+        String clients = "SELECT array_agg(id ORDER BY id) AS ids FROM clients WHERE name LIKE ?";
+        String createdDate = "CAST(? AS timestamp) + make_interval(days => g % " + DAYS + ", secs => CAST(g AS bigint) * 7919 % 86400)";
+
+        jdbcTemplate.update(
+                "WITH c AS (" + clients + ") " +
+                "INSERT INTO orders (order_number, created_date, last_modified_date, total_amount, status, client_id) " +
+                "SELECT ? || '-O' || g, " + createdDate + ", now(), round(CAST(10 + random() * 990 AS numeric), 2), " +
+                "(ARRAY['PENDING', 'IN_PROCESS', 'COMPLETED', 'CANCELLED', 'INVOICED'])[1 + g % 5], " +
+                "c.ids[1 + g % ?] FROM c, generate_series(1, ?) g",
+                prefix + " client %", prefix, FIRST_DAY.atStartOfDay(), CLIENTS, ORDERS);
+        jdbcTemplate.update(
+                "WITH c AS (" + clients + ") " +
+                "INSERT INTO quotes (quote_number, created_date, last_modified_date, total_amount, status, client_id) " +
+                "SELECT ? || '-Q' || g, " + createdDate + ", now(), round(CAST(10 + random() * 990 AS numeric), 2), " +
+                "(ARRAY['DRAFT', 'SENT', 'ACCEPTED', 'REJECTED', 'EXPIRED', 'CONVERTED_TO_ORDER'])[1 + g % 6], " +
+                "c.ids[1 + g % ?] FROM c, generate_series(1, ?) g",
+                prefix + " client %", prefix, FIRST_DAY.atStartOfDay(), CLIENTS, QUOTES);
+        jdbcTemplate.update(
+                "INSERT INTO invoices (invoice_number, created_date, total_amount, status, client_id, order_id, payment_due_date) " +
+                "SELECT ? || '-I' || o.id, o.created_date, o.total_amount, " +
+                "(ARRAY['PENDING', 'PAID', 'OVERDUE', 'CANCELLED'])[1 + o.id % 4], o.client_id, o.id, " +
+                "o.created_date + INTERVAL '30 days' FROM orders o WHERE o.order_number LIKE ? AND o.status = 'INVOICED'",
+                prefix, prefix + "-O%");
+        jdbcTemplate.execute("ANALYZE");
+        logger.info("Seeded {} orders, {} quotes and their invoices for {} clients in {} s", ORDERS, QUOTES, CLIENTS,
+                TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - started));
+    }
+
+    private record Result(String name, SalesSummaryReport report, LatencyStats stats) {
+    }
+}
@@ -0,0 +1,140 @@
+package com.secureops.benchmark;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Send-to-ack latency: from a client sending on /app/chat/{id}/sendMessage until the same client
+ * receives its message back on /topic/chat/{id}, which is when the UI shows it as sent. Covers
+ * the inbound channel, the commit and the per-chat pipeline that broadcasts after it.
+ *
+ * Tunable with -Dbenchmark.send-ack.chats, .messages and .p99-ms.
+ */
+class SendToAckLatencyBenchmark extends BenchmarkSupport {
+
+    private static final Logger logger = LoggerFactory.getLogger(SendToAckLatencyBenchmark.class);
+
+    private static final int CHATS = Integer.getInteger("benchmark.send-ack.chats", 16);
+    private static final int MESSAGES_PER_CHAT = Integer.getInteger("benchmark.send-ack.messages", 200);
+    private static final int WARMUP_MESSAGES = 20;
+    private static final long P99_BUDGET_MS = Long.getLong("benchmark.send-ack.p99-ms", 250);
+
+    @Test
+    void sendToAckLatencyStaysWithinBudget() throws Exception {
+        String prefix = uniquePrefix("send-ack");
+        List<Long> userIds = createUsers(prefix, CHATS * 2);
+        List<Sender> senders = new ArrayList<>();
+        for (int c = 0; c < CHATS; c++) {
+            long chatId = createChat(prefix + " chat " + c, List.of(userIds.get(2 * c), userIds.get(2 * c + 1)));
+            senders.add(new Sender(connect(email(prefix, 2 * c)), chatId));
+        }
+        for (Sender sender : senders) {
+            sender.warmUp();
+        }
+
+        // One sender per chat, all chats at once, one message in flight per sender
+        LatencyStats stats = new LatencyStats();
+        ExecutorService pool = Executors.newFixedThreadPool(CHATS);
+        try {
+            List<Future<?>> runs = new ArrayList<>();
+            for (Sender sender : senders) {
+                runs.add(pool.submit(() -> {
+                    for (int i = 0; i < MESSAGES_PER_CHAT; i++) {
+                        stats.record(sender.sendAndAwait(10_000));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> run : runs) {
+                run.get(5, TimeUnit.MINUTES);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        logger.info("Send-to-ack latency, {} chats in parallel: {}", CHATS, stats.summary());
+        assertEquals(CHATS * MESSAGES_PER_CHAT, stats.count());
+        assertTrue(stats.percentileMillis(99) <= P99_BUDGET_MS,
+                "p99 send-to-ack over budget of " + P99_BUDGET_MS + "ms: " + stats.summary());
+    }
+
+    private static final class Sender implements StompFrameHandler {
+
+        private final StompSession session;
+        private final long chatId;
+        // Message content -> completion with the receive time; content is unique per message
+        private final Map<String, CompletableFuture<Long>> pending = new ConcurrentHashMap<>();
+        private int sequence;
+
+        private Sender(StompSession session, long chatId) {
+            this.session = session;
+            this.chatId = chatId;
+            session.subscribe("/topic/chat/" + chatId, this);
+        }
+
+        /**
+         * The broker confirms nothing about SUBSCRIBE, so keep sending until a message comes back,
+         * then a few more so the measured run does not include first-use costs.
+         */
+        private void warmUp() throws Exception {
+            for (int attempt = 0; ; attempt++) {
+                try {
+                    sendAndAwait(250);
+                    break;
+                } catch (TimeoutException e) {
+                    if (attempt == 40) {
+                        throw new AssertionError("Subscription to chat " + chatId + " never became active", e);
+                    }
+                }
+            }
+            for (int i = 0; i < WARMUP_MESSAGES; i++) {
+                sendAndAwait(10_000);
+            }
+        }
+
+        private long sendAndAwait(long timeoutMs) throws Exception {
+            String content = "ack-" + chatId + "-" + sequence++;
+            CompletableFuture<Long> received = new CompletableFuture<>();
+            pending.put(content, received);
+            long start = System.nanoTime();
+            session.send("/app/chat/" + chatId + "/sendMessage", Map.of("messageType", "TEXT", "content", content));
+            try {
+                return received.get(timeoutMs, TimeUnit.MILLISECONDS) - start;
+            } finally {
+                pending.remove(content);
+            }
+        }
+
+        @Override
+        public Type getPayloadType(StompHeaders headers) {
+            return Map.class;
+        }
+
+        @Override
+        public void handleFrame(StompHeaders headers, Object payload) {
+            long now = System.nanoTime();
+            CompletableFuture<Long> received = pending.get(((Map<?, ?>) payload).get("content"));
+            if (received != null) {
+                received.complete(now);
+            }
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package com.secureops.benchmark;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Load test for the outbound limits: hundreds of subscribers on bad links share a chat with a few
+ * healthy ones while a sender keeps posting.
+ *
+ * Slow subscribers are raw sockets with a tiny receive buffer that speak just enough WebSocket and
+ * STOMP to subscribe; half never read again, half drain a few KB per second. The test checks that
+ * healthy subscribers get every message within the latency budget, that every slow session is
+ * disconnected, and that no session's outbound backlog outgrows the configured maximum.
+ *
+ * Tunable with -Dbenchmark.slow-consumers.slow, .healthy, .messages and .p99-ms.
+ */
+class SlowConsumerBenchmark extends BenchmarkSupport {
+
+    private static final Logger logger = LoggerFactory.getLogger(SlowConsumerBenchmark.class);
+
+    private static final int SLOW_SUBSCRIBERS = Integer.getInteger("benchmark.slow-consumers.slow", 300);
+    private static final int HEALTHY_SUBSCRIBERS = Integer.getInteger("benchmark.slow-consumers.healthy", 20);
+    private static final int MESSAGES = Integer.getInteger("benchmark.slow-consumers.messages", 500);
+    private static final long P99_BUDGET_MS = Long.getLong("benchmark.slow-consumers.p99-ms", 500);
+    private static final long SEND_INTERVAL_MS = 20;
+    private static final int CONTENT_SIZE = 4096;
+    private static final int TRICKLE_BYTES_PER_SECOND = 4096;
+
+    @Autowired
+    private SimpUserRegistry simpUserRegistry;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.websocket.slow-consumer.max-backlog:500}")
+    private int maxBacklog;
+
+    private final List<SlowSubscriber> slowSubscribers = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void closeSlowSubscribers() {
+        for (SlowSubscriber subscriber : slowSubscribers) {
+            subscriber.close();
+        }
+        slowSubscribers.clear();
+    }
+
+    @Test
+    void slowSubscribersAreShedWithoutDelayingHealthyOnes() throws Exception {
+        String prefix = uniquePrefix("slow-consumers");
+        int users = 1 + HEALTHY_SUBSCRIBERS + SLOW_SUBSCRIBERS;
+        List<Long> userIds = createUsers(prefix, users);
+        long chatId = createChat(prefix + " chat", userIds);
+        String destination = "/topic/chat/" + chatId;
+
+        // Content -> send time, read by the healthy subscribers to time each delivery
+        Map<String, Long> sentAt = new ConcurrentHashMap<>();
+        Map<String, AtomicInteger> warmupReceipts = new ConcurrentHashMap<>();
+        LatencyStats stats = new LatencyStats();
+        AtomicInteger delivered = new AtomicInteger();
+        StompFrameHandler healthy = new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return Map.class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                String content = String.valueOf(((Map<?, ?>) payload).get("content"));
+                AtomicInteger receipts = warmupReceipts.get(content);
+                if (receipts != null) {
+                    receipts.incrementAndGet();
+                    return;
+                }
+                Long start = sentAt.get(content);
+                if (start != null) {
+                    stats.record(System.nanoTime() - start);
+                    delivered.incrementAndGet();
+                }
+            }
+        };
+
+        StompSession sender = connect(email(prefix, 0));
+        for (int i = 1; i <= HEALTHY_SUBSCRIBERS; i++) {
+            connect(email(prefix, i)).subscribe(destination, healthy);
+        }
+        List<String> slowEmails = new ArrayList<>();
+        for (int i = 0; i < SLOW_SUBSCRIBERS; i++) {
+            String slowEmail = email(prefix, 1 + HEALTHY_SUBSCRIBERS + i);
+            slowEmails.add(slowEmail);
+            slowSubscribers.add(new SlowSubscriber(port, bearerToken(slowEmail), destination,
+                    i % 2 == 0 ? 0 : TRICKLE_BYTES_PER_SECOND));
+        }
+        awaitHealthySubscriptions(sender, chatId, warmupReceipts);
+
+        String padding = "x".repeat(CONTENT_SIZE);
+        long peakBacklog = 0;
+        for (int i = 0; i < MESSAGES; i++) {
+            String content = "load-" + i + "-" + padding;
+            sentAt.put(content, System.nanoTime());
+            sender.send("/app/chat/" + chatId + "/sendMessage", Map.of("messageType", "TEXT", "content", content));
+            peakBacklog = Math.max(peakBacklog, maxSessionBacklog());
+            Thread.sleep(SEND_INTERVAL_MS);
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (System.nanoTime() < deadline
+                && (delivered.get() < HEALTHY_SUBSCRIBERS * MESSAGES || connectedCount(slowEmails) > 0)) {
+            peakBacklog = Math.max(peakBacklog, maxSessionBacklog());
+            Thread.sleep(100);
+        }
+
+        logger.info("{} slow / {} healthy subscribers, {} messages of {}B: healthy delivery {}, peak session backlog {} frames",
+                SLOW_SUBSCRIBERS, HEALTHY_SUBSCRIBERS, MESSAGES, CONTENT_SIZE, stats.summary(), peakBacklog);
+        assertEquals(HEALTHY_SUBSCRIBERS * MESSAGES, delivered.get(), "healthy subscribers missed messages");
+        assertEquals(0, connectedCount(slowEmails), "slow subscribers still connected");
+        // Outbound threads check and count a frame in separate steps, so each can overshoot by one
+        int outboundThreads = Runtime.getRuntime().availableProcessors() * 2;
+        assertTrue(peakBacklog <= maxBacklog + outboundThreads, "session backlog reached " + peakBacklog);
+        assertTrue(stats.percentileMillis(99) <= P99_BUDGET_MS,
+                "p99 healthy delivery over budget of " + P99_BUDGET_MS + "ms: " + stats.summary());
+    }
+
+    /**
+     * SUBSCRIBE is not confirmed, so warm-up messages go out until every healthy subscriber has
+     * received one. Their deliveries are not part of the measurement.
+     */
+    private void awaitHealthySubscriptions(StompSession sender, long chatId, Map<String, AtomicInteger> receipts)
+            throws InterruptedException {
+        for (int attempt = 0; attempt < 40; attempt++) {
+            String content = "warmup-" + attempt;
+            AtomicInteger received = new AtomicInteger();
+            receipts.put(content, received);
+            sender.send("/app/chat/" + chatId + "/sendMessage", Map.of("messageType", "TEXT", "content", content));
+            Thread.sleep(250);
+            if (received.get() == HEALTHY_SUBSCRIBERS) {
+                return;
+            }
+        }
+        throw new AssertionError("Healthy subscriptions never became active");
+    }
+
+    private long connectedCount(List<String> emails) {
+        return emails.stream().filter(email -> simpUserRegistry.getUser(email) != null).count();
+    }
+
+    private long maxSessionBacklog() {
+        return (long) meterRegistry.get("secureops.websocket.outbound.backlog").tag("statistic", "max").gauge().value();
+    }
+
+    /**
+     * A subscriber on a bad link: a plain socket with a 4 KB receive buffer that completes the
+     * WebSocket handshake and STOMP CONNECT, subscribes, and from then on reads at most
+     * bytesPerSecond (0 = never).
+     */
+    private static final class SlowSubscriber {
+
+        private final Socket socket;
+
+        private SlowSubscriber(int port, String bearerToken, String destination, int bytesPerSecond) throws IOException {
+            socket = new Socket();
+            socket.setReceiveBufferSize(4096);
+            socket.connect(new InetSocketAddress("localhost", port), 5000);
+            socket.setSoTimeout(10_000);
+            InputStream in = socket.getInputStream();
+            OutputStream out = socket.getOutputStream();
+
+            byte[] key = new byte[16];
+            ThreadLocalRandom.current().nextBytes(key);
+            out.write(("GET /ws/websocket HTTP/1.1\r\n" +
+                    "Host: localhost:" + port + "\r\n" +
+                    "Upgrade: websocket\r\n" +
+                    "Connection: Upgrade\r\n" +
+                    "Sec-WebSocket-Key: " + Base64.getEncoder().encodeToString(key) + "\r\n" +
+                    "Sec-WebSocket-Version: 13\r\n" +
+                    "Sec-WebSocket-Protocol: v12.stomp\r\n" +
+                    "Origin: http://localhost:5173\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            String response = readUntil(in, "\r\n\r\n");
+            if (!response.startsWith("HTTP/1.1 101")) {
+                throw new IOException("WebSocket handshake refused: " + response);
+            }
+
+            writeTextFrame(out, "CONNECT\naccept-version:1.2\nhost:localhost\nheart-beat:0,0\n" +
+                    "Authorization:" + bearerToken + "\n\n\0");
+            // Wait for CONNECTED so the SUBSCRIBE is handled for an authenticated session
+            if (!readUntil(in, "\0").contains("CONNECTED")) {
+                throw new IOException("STOMP CONNECT refused");
+            }
+            writeTextFrame(out, "SUBSCRIBE\nid:sub-0\ndestination:" + destination + "\n\n\0");
+
+            if (bytesPerSecond > 0) {
+                Thread.ofVirtual().start(() -> trickle(in, bytesPerSecond));
+            }
+        }
+
+        private void trickle(InputStream in, int bytesPerSecond) {
+            byte[] buffer = new byte[bytesPerSecond / 10];
+            try {
+                while (in.read(buffer) >= 0) {
+                    Thread.sleep(100);
+                }
+            } catch (IOException | InterruptedException e) {
+                // Closed by the server or by the test
+            }
+        }
+
+        private void close() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Already gone
+            }
+        }
+
+        private static String readUntil(InputStream in, String terminator) throws IOException {
+            ByteArrayOutputStream read = new ByteArrayOutputStream();
+            byte[] end = terminator.getBytes(StandardCharsets.US_ASCII);
+            int matched = 0;
+            while (matched < end.length) {
+                int b = in.read();
+                if (b < 0) {
+                    throw new IOException("Connection closed after: " + read.toString(StandardCharsets.UTF_8));
+                }
+                read.write(b);
+                matched = b == end[matched] ? matched + 1 : (b == end[0] ? 1 : 0);
+            }
+            return read.toString(StandardCharsets.UTF_8);
+        }
+
+        // Client frames must be masked (RFC 6455 section 5.3); STOMP control frames stay far below 64 KB
+        private static void writeTextFrame(OutputStream out, String text) throws IOException {
+            byte[] payload = text.getBytes(StandardCharsets.UTF_8);
+            byte[] mask = new byte[4];
+            ThreadLocalRandom.current().nextBytes(mask);
+            ByteArrayOutputStream frame = new ByteArrayOutputStream(payload.length + 8);
+            frame.write(0x81);
+            if (payload.length < 126) {
+                frame.write(0x80 | payload.length);
+            } else {
+                frame.write(0x80 | 126);
+                frame.write(payload.length >>> 8);
+                frame.write(payload.length & 0xFF);
+            }
+            frame.write(mask, 0, mask.length);
+            for (int i = 0; i < payload.length; i++) {
+                frame.write(payload[i] ^ mask[i & 3]);
+            }
+            out.write(frame.toByteArray());
+            out.flush();
+        }
+    }
+}
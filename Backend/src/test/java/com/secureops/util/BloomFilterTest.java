@@ -0,0 +1,75 @@
+package com.secureops.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BloomFilterTest {
+
+    private static final int ENTRIES = 100_000;
+    private static final double FALSE_POSITIVE_RATE = 0.001;
+
+    @Test
+    void neverForgetsAnEntry() {
+        BloomFilter filter = new BloomFilter(ENTRIES, FALSE_POSITIVE_RATE);
+        for (int i = 0; i < ENTRIES; i++) {
+            filter.put("f:" + i + ".pdf");
+        }
+
+        for (int i = 0; i < ENTRIES; i++) {
+            assertTrue(filter.mightContain("f:" + i + ".pdf"), "lost f:" + i + ".pdf");
+        }
+        assertEquals(ENTRIES, filter.getEntryCount());
+    }
+
+    @Test
+    void keepsFalsePositivesNearTheConfiguredRate() {
+        BloomFilter filter = new BloomFilter(ENTRIES, FALSE_POSITIVE_RATE);
+        for (int i = 0; i < ENTRIES; i++) {
+            filter.put("b:" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = ENTRIES; i < 2 * ENTRIES; i++) {
+            if (filter.mightContain("b:" + i)) {
+                falsePositives++;
+            }
+        }
+        // 100 expected; three times that would mean the sizing or the hashing is off
+        assertTrue(falsePositives < 3 * FALSE_POSITIVE_RATE * ENTRIES,
+                falsePositives + " false positives in " + ENTRIES + " lookups");
+    }
+
+    @Test
+    void emptyFilterContainsNothing() {
+        BloomFilter filter = new BloomFilter(ENTRIES, FALSE_POSITIVE_RATE);
+
+        assertFalse(filter.mightContain("f:anything.png"));
+        assertFalse(filter.mightContain(""));
+        assertEquals(0, filter.getEntryCount());
+    }
+
+    @Test
+    void takesAboutOnePointEightBytesPerEntryAtATenthOfAPercent() {
+        BloomFilter filter = new BloomFilter(ENTRIES, FALSE_POSITIVE_RATE);
+
+        long bytes = filter.getSizeInBytes();
+        assertTrue(bytes >= 1.7 * ENTRIES && bytes <= 1.9 * ENTRIES, bytes + " bytes for " + ENTRIES + " entries");
+    }
+
+    @Test
+    void stillWorksWhenSizedForNothing() {
+        BloomFilter filter = new BloomFilter(0, FALSE_POSITIVE_RATE);
+        filter.put("p:upload");
+
+        assertTrue(filter.mightContain("p:upload"));
+    }
+
+    @Test
+    void rejectsFalsePositiveRatesOutsideZeroToOne() {
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(ENTRIES, 0));
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(ENTRIES, 1));
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(ENTRIES, -0.5));
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(ENTRIES, 1.5));
+    }
+}
@@ -0,0 +1,206 @@
+package com.secureops.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedCacheTest {
+
+    @Test
+    void evictsLeastRecentlyUsedEntry() {
+        BoundedCache<String, Integer> cache = new BoundedCache<>(2, Duration.ofMinutes(1));
+        cache.put("a", 1);
+        cache.put("b", 2);
+        // Reading "a" makes "b" the eldest
+        assertEquals(1, cache.get("a"));
+
+        cache.put("c", 3);
+
+        assertNull(cache.get("b"));
+        assertEquals(1, cache.get("a"));
+        assertEquals(3, cache.get("c"));
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    @Test
+    void treatsExpiredEntriesAsMisses() throws InterruptedException {
+        BoundedCache<String, Integer> cache = new BoundedCache<>(10, Duration.ofNanos(1));
+        cache.put("a", 1);
+        Thread.sleep(2);
+
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    void loadsOnceAndServesFromCache() {
+        BoundedCache<String, Integer> cache = new BoundedCache<>(10, Duration.ofMinutes(1));
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals(7, cache.get("a", key -> loads.incrementAndGet() + 6));
+        assertEquals(7, cache.get("a", key -> loads.incrementAndGet() + 6));
+
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    void doesNotCacheNullLoads() {
+        BoundedCache<String, Integer> cache = new BoundedCache<>(10, Duration.ofMinutes(1));
+
+        assertNull(cache.get("a", key -> null));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void invalidatesMatchingEntries() {
+        BoundedCache<String, Integer> cache = new BoundedCache<>(10, Duration.ofMinutes(1));
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.put("c", 3);
+
+        cache.invalidate("a");
+        cache.invalidateIf(value -> value % 2 == 0);
+
+        assertNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(3, cache.get("c"));
+
+        cache.invalidateAll();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void discardsLoadInvalidatedWhileInFlight() throws Exception {
+        BoundedCache<String, Integer> cache = new BoundedCache<>(10, Duration.ofMinutes(1));
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch invalidated = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Integer> staleLoad = executor.submit(() -> cache.get("a", key -> {
+                loading.countDown();
+                await(invalidated);
+                return 1;
+            }));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+            cache.invalidate("a");
+            invalidated.countDown();
+
+            // The caller still gets what it loaded, but the cache does not keep it
+            assertEquals(1, staleLoad.get(5, TimeUnit.SECONDS));
+            assertNull(cache.get("a"));
+            assertEquals(2, cache.get("a", key -> 2));
+            assertEquals(2, cache.get("a"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void invalidateAllDiscardsLoadsInFlight() throws Exception {
+        BoundedCache<String, Integer> cache = new BoundedCache<>(10, Duration.ofMinutes(1));
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch invalidated = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Integer> staleLoad = executor.submit(() -> cache.get("a", key -> {
+                loading.countDown();
+                await(invalidated);
+                return 1;
+            }));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+            cache.invalidateIf(value -> false);
+            invalidated.countDown();
+
+            assertEquals(1, staleLoad.get(5, TimeUnit.SECONDS));
+            assertNull(cache.get("a"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void segmentedCacheKeepsTotalSizeBounded() {
+        BoundedCache<Integer, Integer> cache = new BoundedCache<>(1000, Duration.ofMinutes(1));
+        for (int i = 0; i < 5000; i++) {
+            cache.put(i, i);
+        }
+
+        assertEquals(1000, cache.size());
+        assertEquals(4000, cache.getEvictionCount());
+    }
+
+    @Test
+    void keepsRecentlyUsedEntriesInEverySegment() {
+        BoundedCache<Integer, Integer> cache = new BoundedCache<>(64, Duration.ofMinutes(1), 4);
+        cache.put(-1, -1);
+        for (int i = 0; i < 1000; i++) {
+            // Touching the entry on every insert keeps it the most recent in its segment
+            assertEquals(-1, cache.get(-1));
+            cache.put(i, i);
+        }
+
+        assertEquals(-1, cache.get(-1));
+        assertEquals(64, cache.size());
+    }
+
+    @Test
+    void servesConcurrentReadersAcrossSegments() throws Exception {
+        BoundedCache<Integer, Integer> cache = new BoundedCache<>(10_000, Duration.ofMinutes(1));
+        AtomicInteger loads = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            Future<?>[] readers = new Future<?>[8];
+            for (int t = 0; t < readers.length; t++) {
+                readers[t] = executor.submit(() -> {
+                    for (int i = 0; i < 20_000; i++) {
+                        int key = i % 1000;
+                        assertEquals(key * 2, cache.get(key, k -> {
+                            loads.incrementAndGet();
+                            return k * 2;
+                        }));
+                    }
+                });
+            }
+            for (Future<?> reader : readers) {
+                reader.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1000, cache.size());
+        assertEquals(8 * 20_000, cache.getHitCount() + cache.getMissCount());
+        // Racing misses may load a key more than once, but once loaded it is served from the cache
+        assertTrue(cache.getHitCount() > 8 * 20_000 / 2);
+        assertTrue(loads.get() < 8 * 20_000 / 2);
+    }
+
+    @Test
+    void rejectsNonPositiveSize() {
+        assertThrows(IllegalArgumentException.class, () -> new BoundedCache<String, Integer>(0, Duration.ofMinutes(1)));
+        assertThrows(IllegalArgumentException.class, () -> new BoundedCache<String, Integer>(4, Duration.ofMinutes(1), 5));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.secureops.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+    @Test
+    void opensAfterConsecutiveFailures() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 3, Duration.ofHours(1));
+
+        breaker.recordFailure();
+        breaker.recordFailure();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+
+        breaker.recordFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    void successResetsFailureCount() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 3, Duration.ofHours(1));
+
+        breaker.recordFailure();
+        breaker.recordFailure();
+        breaker.recordSuccess();
+        breaker.recordFailure();
+        breaker.recordFailure();
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void halfOpenAllowsOneTrialCall() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 1, Duration.ZERO);
+        breaker.recordFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        // Open duration elapsed: the first caller becomes the trial, everyone else waits for it
+        assertTrue(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    void successfulTrialClosesCircuit() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 1, Duration.ZERO);
+        breaker.recordFailure();
+        assertTrue(breaker.tryAcquire());
+
+        breaker.recordSuccess();
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    void failedTrialReopensCircuit() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 5, Duration.ZERO);
+        for (int i = 0; i < 5; i++) {
+            breaker.recordFailure();
+        }
+        assertTrue(breaker.tryAcquire());
+
+        // A single failure in half open is enough, whatever the threshold
+        breaker.recordFailure();
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    }
+
+    @Test
+    void staysOpenUntilOpenDurationElapses() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker("test", 1, Duration.ofMillis(50));
+        breaker.recordFailure();
+        assertFalse(breaker.tryAcquire());
+
+        Thread.sleep(80);
+
+        assertTrue(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    }
+
+    @Test
+    void rejectsNonPositiveThreshold() {
+        assertThrows(IllegalArgumentException.class, () -> new CircuitBreaker("test", 0, Duration.ofSeconds(1)));
+    }
+}
@@ -0,0 +1,85 @@
+package com.secureops.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FrequencySketchTest {
+
+    @Test
+    void unseenKeyHasNoAccesses() {
+        FrequencySketch sketch = new FrequencySketch(100);
+
+        assertEquals(0, sketch.frequency("never-seen"));
+    }
+
+    @Test
+    void countsAccessesOfASingleKeyExactly() {
+        FrequencySketch sketch = new FrequencySketch(100);
+        for (int i = 0; i < 5; i++) {
+            sketch.increment("report.pdf");
+        }
+
+        assertEquals(5, sketch.frequency("report.pdf"));
+    }
+
+    @Test
+    void saturatesAtFifteen() {
+        FrequencySketch sketch = new FrequencySketch(100);
+        for (int i = 0; i < 40; i++) {
+            sketch.increment("report.pdf");
+        }
+
+        assertEquals(15, sketch.frequency("report.pdf"));
+    }
+
+    @Test
+    void neverUnderestimatesBeforeAging() {
+        // 1000 keys into a table of width 1024: about 5500 additions, below the 10240 that age it
+        FrequencySketch sketch = new FrequencySketch(1000);
+        for (int key = 0; key < 1000; key++) {
+            for (int i = 0; i <= key % 10; i++) {
+                sketch.increment("file-" + key);
+            }
+        }
+
+        for (int key = 0; key < 1000; key++) {
+            int actual = key % 10 + 1;
+            assertTrue(sketch.frequency("file-" + key) >= actual,
+                    "file-" + key + " estimated below its " + actual + " accesses");
+        }
+    }
+
+    @Test
+    void halvesAllCountersOnceTenTimesTheWidthIsRecorded() {
+        // Width 32, so counters age at 320 recorded accesses
+        FrequencySketch sketch = new FrequencySketch(16);
+        for (int i = 0; i < 15; i++) {
+            sketch.increment("hot");
+        }
+        assertEquals(15, sketch.frequency("hot"));
+
+        int fillers = 0;
+        while (sketch.frequency("hot") == 15 && fillers < 10_000) {
+            sketch.increment("filler-" + fillers++);
+        }
+
+        // Each increment records at most one access, so aging cannot come before the 305th filler
+        assertTrue(fillers >= 305, "aged after only " + fillers + " more accesses");
+        assertTrue(fillers < 10_000, "counters never aged");
+        assertEquals(7, sketch.frequency("hot"));
+    }
+
+    @Test
+    void keepsHotKeysAboveOneOffsAfterAging() {
+        FrequencySketch sketch = new FrequencySketch(64);
+        for (int round = 0; round < 50; round++) {
+            sketch.increment("hot");
+            for (int i = 0; i < 20; i++) {
+                sketch.increment("once-" + round + "-" + i);
+            }
+        }
+
+        assertTrue(sketch.frequency("hot") > sketch.frequency("once-49-0"));
+    }
+}
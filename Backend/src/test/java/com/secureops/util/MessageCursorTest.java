@@ -0,0 +1,60 @@
+package com.secureops.util;
+
+import com.secureops.entity.TextMessage;
+import com.secureops.exception.BadRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageCursorTest {
+
+    @Test
+    void encodesTimestampAndId() {
+        TextMessage message = new TextMessage();
+        message.setId(42L);
+        message.setTimestamp(new Date(1_700_000_000_123L));
+
+        assertEquals("1700000000123_42", MessageCursor.of(message).encode());
+    }
+
+    @Test
+    void roundTripsThroughParse() {
+        TextMessage message = new TextMessage();
+        message.setId(9_007_199_254_740_993L);
+        message.setTimestamp(new Date(1_700_000_000_123L));
+        MessageCursor cursor = MessageCursor.of(message);
+
+        MessageCursor parsed = MessageCursor.parse(cursor.encode());
+
+        assertEquals(cursor.getTimestamp(), parsed.getTimestamp());
+        assertEquals(cursor.getId(), parsed.getId());
+        assertEquals(cursor.encode(), parsed.encode());
+    }
+
+    @Test
+    void treatsMissingCursorAsStartOfHistory() {
+        assertNull(MessageCursor.parse(null));
+        assertNull(MessageCursor.parse(""));
+        assertNull(MessageCursor.parse("   "));
+    }
+
+    @Test
+    void rejectsTamperedCursors() {
+        String[] tampered = {
+                "1700000000123",
+                "_42",
+                "1700000000123_",
+                "1700000000123-42",
+                "abc_42",
+                "1700000000123_4x",
+                "1700000000123_42_7",
+                "1700000000123_42 OR 1=1",
+                "99999999999999999999_42"
+        };
+        for (String value : tampered) {
+            assertThrows(BadRequestException.class, () -> MessageCursor.parse(value), value);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.secureops.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PartitionedExecutorTest {
+
+    private PartitionedExecutor executor;
+
+    @AfterEach
+    void shutdown() throws InterruptedException {
+        if (executor != null) {
+            executor.shutdown(1000);
+        }
+    }
+
+    @Test
+    void runsTasksOfOneKeyInSubmissionOrder() throws InterruptedException {
+        executor = new PartitionedExecutor("test", 4, 10_000, 1000);
+        Map<Long, List<Integer>> seen = new HashMap<>();
+        for (long key = 0; key < 8; key++) {
+            seen.put(key, Collections.synchronizedList(new ArrayList<>()));
+        }
+        CountDownLatch done = new CountDownLatch(8 * 1000);
+
+        for (int i = 0; i < 1000; i++) {
+            int sequence = i;
+            for (long key = 0; key < 8; key++) {
+                List<Integer> target = seen.get(key);
+                executor.execute(key, () -> {
+                    target.add(sequence);
+                    done.countDown();
+                });
+            }
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        for (List<Integer> sequences : seen.values()) {
+            for (int i = 0; i < 1000; i++) {
+                assertEquals(i, sequences.get(i));
+            }
+        }
+    }
+
+    @Test
+    void runsDifferentLanesInParallel() throws InterruptedException {
+        executor = new PartitionedExecutor("test", 4, 10, 1000);
+        long first = 0;
+        long second = 1;
+        while (executor.laneFor(second) == executor.laneFor(first)) {
+            second++;
+        }
+        CountDownLatch bothRunning = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        Runnable task = () -> {
+            bothRunning.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        executor.execute(first, task);
+        executor.execute(second, task);
+
+        // Only possible if the two lanes run at the same time
+        assertTrue(bothRunning.await(5, TimeUnit.SECONDS));
+        release.countDown();
+    }
+
+    @Test
+    void rejectsWhenLaneStaysFullPastTimeout() throws InterruptedException {
+        executor = new PartitionedExecutor("test", 1, 1, 20);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(1, () -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        executor.execute(1, () -> { });
+
+        long before = System.nanoTime();
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(1, () -> { }));
+        // The submitter waited for room before giving up
+        assertTrue(System.nanoTime() - before >= TimeUnit.MILLISECONDS.toNanos(15));
+        assertEquals(1, executor.getQueuedTaskCount());
+        release.countDown();
+    }
+
+    @Test
+    void acceptsTaskOnceLaneDrainsWithinTimeout() throws InterruptedException {
+        executor = new PartitionedExecutor("test", 1, 1, 5000);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch last = new CountDownLatch(1);
+        executor.execute(1, () -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        executor.execute(1, () -> { });
+
+        new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            release.countDown();
+        }).start();
+        executor.execute(1, last::countDown);
+
+        assertTrue(last.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void rejectsAfterShutdown() throws InterruptedException {
+        executor = new PartitionedExecutor("test", 2, 10, 1000);
+        executor.shutdown(1000);
+
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(1, () -> { }));
+    }
+
+    @Test
+    void mapsKeysToStableLanesInRange() {
+        executor = new PartitionedExecutor("test", 8, 10, 1000);
+        Set<Integer> used = new HashSet<>();
+        for (long key = 1; key <= 1000; key++) {
+            int lane = executor.laneFor(key);
+            assertTrue(lane >= 0 && lane < 8);
+            assertEquals(lane, executor.laneFor(key));
+            used.add(lane);
+        }
+        // Sequential chat ids spread over every lane
+        assertEquals(8, used.size());
+    }
+
+    @Test
+    void rejectsInvalidConfiguration() {
+        assertThrows(IllegalArgumentException.class, () -> new PartitionedExecutor("test", 0, 10, 1000));
+        assertThrows(IllegalArgumentException.class, () -> new PartitionedExecutor("test", 2, 0, 1000));
+    }
+}
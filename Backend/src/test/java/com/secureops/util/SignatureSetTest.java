@@ -0,0 +1,120 @@
+package com.secureops.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SignatureSetTest {
+
+    private static final String EICAR = "275a021bbfb6489e54d471899f7db9d1663fc695ec2fe2a2c4538aabf651fd0f";
+    private static final String OTHER = "131f95c51cc819465fa1797f6ccacf9d494aaaff46fa3eac73ae63ffbdfd8267";
+    private static final String ZEROES = "0000000000000000000000000000000000000000000000000000000000000000";
+    private static final String ONES = "ffffffffffffffffffffffffffffffffffffffffffffffffffffffffffffffff";
+
+    @Test
+    void findsLoadedDigestsByHex() throws IOException {
+        SignatureSet set = load(
+                EICAR + ":68:Eicar-Test-Signature",
+                OTHER + ":1024:Win.Trojan.Agent-1",
+                ZEROES + ":0:Zero.Digest",
+                ONES + ":1:All.Ones");
+
+        assertEquals(4, set.size());
+        assertEquals("Eicar-Test-Signature", set.find(EICAR));
+        assertEquals("Win.Trojan.Agent-1", set.find(OTHER));
+        assertEquals("Zero.Digest", set.find(ZEROES));
+        assertEquals("All.Ones", set.find(ONES));
+        assertEquals(0, set.getSkippedCount());
+    }
+
+    @Test
+    void findIgnoresHexCase() throws IOException {
+        SignatureSet set = load(EICAR + ":68:Eicar-Test-Signature");
+
+        assertEquals("Eicar-Test-Signature", set.find(EICAR.toUpperCase()));
+    }
+
+    @Test
+    void doesNotFindDigestsThatDifferOnlyAfterThePrefix() throws IOException {
+        // Same first 8 bytes, so both are compared in full
+        String sibling = EICAR.substring(0, 16) + OTHER.substring(16);
+        SignatureSet set = load(EICAR + ":68:Eicar-Test-Signature");
+
+        assertNull(set.find(sibling));
+        assertNull(set.find(OTHER));
+    }
+
+    @Test
+    void skipsCommentsAndBlankLinesWithoutCountingThem() throws IOException {
+        SignatureSet set = load(
+                "# daily.hsb",
+                "",
+                "   ",
+                EICAR + ":68:Eicar-Test-Signature");
+
+        assertEquals(1, set.size());
+        assertEquals(0, set.getSkippedCount());
+    }
+
+    @Test
+    void countsOtherHashTypesAndMalformedLinesAsSkipped() throws IOException {
+        SignatureSet set = load(
+                "44d88612fea8a8f36de82e1278abb02f:68:Eicar-Test-Signature",
+                EICAR,
+                EICAR + ":68",
+                "zz" + EICAR.substring(2) + ":68:Not.Hex",
+                OTHER + ":1024:Win.Trojan.Agent-1");
+
+        assertEquals(1, set.size());
+        assertEquals(4, set.getSkippedCount());
+        assertNull(set.find(EICAR));
+    }
+
+    @Test
+    void replacesWhitespaceInNamesAndNamesEmptyOnes() throws IOException {
+        SignatureSet set = load(
+                EICAR + ":68: Eicar  Test\tSignature ",
+                OTHER + ":1024:");
+
+        assertEquals("Eicar_Test_Signature", set.find(EICAR));
+        assertEquals("unnamed", set.find(OTHER));
+    }
+
+    @Test
+    void keepsOneEntryPerDigest() throws IOException {
+        SignatureSet set = load(
+                EICAR + ":68:Eicar-Test-Signature",
+                OTHER + ":1024:Win.Trojan.Agent-1",
+                EICAR + ":68:Eicar-Test-Signature");
+
+        assertEquals(2, set.size());
+        assertEquals(2L * (Long.BYTES + 32), set.getSizeInBytes());
+    }
+
+    @Test
+    void returnsNullForInputThatIsNotASha256Digest() throws IOException {
+        SignatureSet set = load(EICAR + ":68:Eicar-Test-Signature");
+
+        assertNull(set.find(null));
+        assertNull(set.find(""));
+        assertNull(set.find(EICAR.substring(1)));
+        assertNull(set.find(EICAR + "0"));
+        assertNull(set.find("zz" + EICAR.substring(2)));
+    }
+
+    @Test
+    void emptySetFindsNothing() {
+        SignatureSet set = SignatureSet.empty();
+
+        assertEquals(0, set.size());
+        assertNull(set.find(EICAR));
+    }
+
+    private static SignatureSet load(String... lines) throws IOException {
+        return SignatureSet.load(new BufferedReader(new StringReader(String.join("\n", lines))));
+    }
+}
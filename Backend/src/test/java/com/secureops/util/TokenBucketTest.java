@@ -0,0 +1,86 @@
+package com.secureops.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTest {
+
+    // 5 tokens per second: one token every 200 ms
+    private static final long TOKEN_NANOS = 200_000_000L;
+
+    private final TokenBucket bucket = new TokenBucket(5, 5, Duration.ofSeconds(1), 0L);
+
+    @Test
+    void allowsBurstUpToCapacity() {
+        for (int remaining = 4; remaining >= 0; remaining--) {
+            TokenBucket.Probe probe = bucket.tryConsume(1, 0L);
+            assertTrue(probe.isConsumed());
+            assertEquals(remaining, probe.getRemainingTokens());
+        }
+
+        TokenBucket.Probe rejected = bucket.tryConsume(1, 0L);
+        assertFalse(rejected.isConsumed());
+        assertEquals(0, rejected.getRemainingTokens());
+        assertEquals(TOKEN_NANOS, rejected.getRetryAfterNanos());
+    }
+
+    @Test
+    void refillsOneTokenPerEmissionInterval() {
+        bucket.tryConsume(5, 0L);
+        assertFalse(bucket.tryConsume(1, TOKEN_NANOS - 1).isConsumed());
+
+        TokenBucket.Probe probe = bucket.tryConsume(1, TOKEN_NANOS);
+        assertTrue(probe.isConsumed());
+        assertEquals(0, probe.getRemainingTokens());
+        assertFalse(bucket.tryConsume(1, TOKEN_NANOS).isConsumed());
+    }
+
+    @Test
+    void refillsPartiallyAfterIdleTime() {
+        bucket.tryConsume(5, 0L);
+
+        // Three intervals later three tokens are back; taking one leaves two
+        TokenBucket.Probe probe = bucket.tryConsume(1, 3 * TOKEN_NANOS);
+        assertTrue(probe.isConsumed());
+        assertEquals(2, probe.getRemainingTokens());
+        assertEquals(3 * TOKEN_NANOS, probe.getResetNanos());
+    }
+
+    @Test
+    void neverRefillsBeyondCapacity() {
+        bucket.tryConsume(1, 0L);
+        long muchLater = 60 * TOKEN_NANOS * 5;
+        assertTrue(bucket.isFull(muchLater));
+
+        TokenBucket.Probe probe = bucket.tryConsume(5, muchLater);
+        assertTrue(probe.isConsumed());
+        assertEquals(0, probe.getRemainingTokens());
+        assertFalse(bucket.tryConsume(1, muchLater).isConsumed());
+    }
+
+    @Test
+    void chargesWeightedCosts() {
+        assertTrue(bucket.tryConsume(3, 0L).isConsumed());
+
+        TokenBucket.Probe rejected = bucket.tryConsume(3, 0L);
+        assertFalse(rejected.isConsumed());
+        assertEquals(2, rejected.getRemainingTokens());
+        assertEquals(TOKEN_NANOS, rejected.getRetryAfterNanos());
+    }
+
+    @Test
+    void rejectsCostAboveCapacity() {
+        assertFalse(bucket.tryConsume(6, 0L).isConsumed());
+        assertTrue(bucket.isFull(0L));
+    }
+
+    @Test
+    void rejectsInvalidConfiguration() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(0, 1, Duration.ofSeconds(1), 0L));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(1, 0, Duration.ofSeconds(1), 0L));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(1, 1, Duration.ZERO, 0L));
+    }
+}
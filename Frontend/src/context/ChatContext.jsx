@@ -83,6 +83,13 @@ export const ChatProvider = ({ children }) => {
     }
   }, [activeChat, isWebSocketConnected]);
 
+  // Chat list updates for every chat, once per connection
+  useEffect(() => {
+    if (isWebSocketConnected) {
+      websocketService.subscribeToChatActivity(handleChatActivity);
+    }
+  }, [isWebSocketConnected]);
+
   // Load user chats from API
   const loadUserChats = async () => {
     setLoading(true);
@@ -256,6 +263,32 @@ export const ChatProvider = ({ children }) => {
     }
   };
 
+  // Handle a new-message notice from the private queue
+  const handleChatActivity = (activity) => {
+    // Chats with a topic subscription get the full message through handleNewMessage
+    if (websocketService.isSubscribed(`/topic/chat/${activity.chatId}`)) {
+      return;
+    }
+
+    setConversations((prevConversations) =>
+      prevConversations.map((conv) => {
+        if (conv.id !== activity.chatId) {
+          return conv;
+        }
+        return {
+          ...conv,
+          lastMessage:
+            activity.messageType === "TEXT" ? activity.preview : "File attachment",
+          time: formatMessageTime(activity.timestamp),
+          unread:
+            activity.senderId !== authService.getCurrentUser().id
+              ? conv.unread + 1
+              : conv.unread,
+        };
+      })
+    );
+  };
+
   // Handle read status updates via WebSocket
   const handleReadStatusUpdate = (message) => {
     console.log("Read status update received:", message);
@@ -264,9 +297,13 @@ export const ChatProvider = ({ children }) => {
       return prevConversations.map((conv) => {
         // Make sure we're updating the right chat
         if (conv.id === message.chatId) {
-          // Update the read status of this message
+          // Receipts are watermarks: everything up to lastReadMessageId not sent by the reader is read
+          const isCovered = (msg) =>
+            message.lastReadMessageId != null
+              ? msg.id <= message.lastReadMessageId && msg.sender.id !== message.userId
+              : msg.id === message.id;
           const updatedMessages = conv.messages.map((msg) =>
-            msg.id === message.id ? { ...msg, readStatus: true } : msg
+            isCovered(msg) ? { ...msg, readStatus: true } : msg
           );
 
           // Recalculate unread count
@@ -305,6 +342,21 @@ export const ChatProvider = ({ children }) => {
   const handleTypingStatusUpdate = (typingStatus) => {
     console.log("Typing status update received:", typingStatus);
 
+    // The server sends the full set of typists per chat; each frame replaces the last
+    if (Array.isArray(typingStatus.userIds)) {
+      setTypingUsers((prev) => {
+        const newState = { ...prev };
+        Object.keys(newState).forEach((userId) => {
+          newState[userId] = { ...newState[userId], [typingStatus.chatId]: false };
+        });
+        typingStatus.userIds.forEach((userId) => {
+          newState[userId] = { ...newState[userId], [typingStatus.chatId]: true };
+        });
+        return newState;
+      });
+      return;
+    }
+
     // Update the typing status for this chat
     setTypingUsers((prev) => {
       const newState = { ...prev };
@@ -157,6 +157,24 @@ class WebSocketService {
     });
   }
   
+  // Subscribe to new-message notices for all of the user's chats (private queue)
+  subscribeToChatActivity(callback) {
+    const destination = `/user/queue/chat-activity`;
+    return this.subscribe(destination, (message) => {
+      try {
+        const parsedMessage = JSON.parse(message.body);
+        callback(parsedMessage);
+      } catch (error) {
+        console.error(`Error parsing chat activity:`, error);
+      }
+    });
+  }
+
+  // Whether a destination currently has a subscription
+  isSubscribed(destination) {
+    return this.subscriptions.has(destination);
+  }
+
   // Subscribe to typing status updates for a specific chat
   subscribeToTypingStatus(chatId, callback) {
     const destination = `/topic/chat/${chatId}/typing`;